@@ -0,0 +1,149 @@
+package com.guerrero.backend;
+
+import java.util.Random;
+
+/**
+ * Deterministic HTML pages shared by the benchmarks of the crawler hot paths.
+ * Every page has a head with a stylesheet and an inline script, navigation links, comments and text,
+ * and links of every kind a crawl meets: relative, root-relative, absolute, with dot segments,
+ * query strings and fragments, to other hosts and to non-HTTP schemes.
+ * The keyword {@link #KEYWORD} appears once, near the end of each page.
+ */
+public final class HtmlFixtures {
+
+    /**
+     * The base URL of the crawled site, which the pages link to.
+     */
+    public static final String BASE_URL = "https://www.example.com/docs/";
+
+    /**
+     * The URL of the fixture pages.
+     */
+    public static final String PAGE_URL = BASE_URL + "guide/index.html";
+
+    /**
+     * A keyword that appears once on each page.
+     */
+    public static final String KEYWORD = "christmas";
+
+    /**
+     * A keyword that appears on no page.
+     */
+    public static final String MISSING_KEYWORD = "snowflake";
+
+    /**
+     * The fixture names accepted by {@link #page(String)}.
+     */
+    public static final String SMALL = "small";
+    public static final String LARGE = "large";
+    public static final String LINK_DENSE = "link-dense";
+
+    private static final String[] WORDS = {
+            "the", "crawler", "follows", "links", "between", "pages", "of", "site", "and", "searches",
+            "content", "for", "chris", "christ", "christmastime", "mass", "table", "div", "href", "release",
+            "notes", "describe", "configuration", "with", "environment", "variables", "a", "request", "returns"
+    };
+
+    private static final String[] LINK_FORMATS = {
+            "page%d.html",
+            "/docs/guide/chapter-%d.html",
+            "https://www.example.com/docs/api/Class%d.html",
+            "../reference/item%d.html?utm_source=newsletter&utm_medium=email",
+            "./section/%d/index.html#overview",
+            "search.html?q=term%d&sort=asc&page=2",
+            "https://WWW.Example.com:443/docs/a/./b/../topic%d.html",
+            "https://cdn.example.org/assets/image%d.png",
+            "/blog/2020/12/post-%d/",
+            "mailto:team%d@example.com",
+            "#footnote-%d",
+            "topic%%20%d.html?gclid=abc123"
+    };
+
+    private HtmlFixtures() {
+    }
+
+    /**
+     * Builds a fixture page.
+     * @param name {@link #SMALL} for a page of about 16 KB with a navigation bar and a few paragraphs,
+     *             {@link #LARGE} for a long article of about 2 MB with a link every few paragraphs,
+     *             or {@link #LINK_DENSE} for an index of about 256 KB made mostly of links.
+     * @return The page.
+     */
+    public static String page(String name) {
+        switch (name) {
+            case SMALL:
+                return generatePage(16 * 1024, 40, 4);
+            case LARGE:
+                return generatePage(2 * 1024 * 1024, 60, 6);
+            case LINK_DENSE:
+                return generatePage(256 * 1024, 400, 0);
+            default:
+                throw new IllegalArgumentException("Unknown fixture " + name);
+        }
+    }
+
+    /**
+     * Generates a page of about the given size.
+     * @param size               The size of the page in characters.
+     * @param navigationLinks    The number of links in the navigation bar.
+     * @param paragraphsPerLink  The number of paragraphs between two links of the body, 0 for a list of links.
+     */
+    private static String generatePage(int size, int navigationLinks, int paragraphsPerLink) {
+        Random random = new Random(42);
+        StringBuilder html = new StringBuilder(size + 1024);
+        html.append("<!DOCTYPE html>\n<html lang=\"en\">\n<head>\n")
+                .append("<meta charset=\"utf-8\">\n<title>Crawler guide</title>\n")
+                .append("<link rel=\"stylesheet\" href=\"/static/site.css\">\n")
+                .append("<style>a[href^=\"http\"] { color: #336; } .nav > a { padding: 4px; }</style>\n")
+                .append("<script>var menu = '<a href=\"/not-a-link.html\">'; if (a < b && b > c) { open(menu); }</script>\n")
+                .append("</head>\n<body>\n<!-- <a href=\"/commented-out.html\">old menu</a> -->\n<nav class=\"nav\">\n");
+        int link = 0;
+        for (int i = 0; i < navigationLinks; i++) {
+            appendLink(html, random, link++);
+        }
+        html.append("</nav>\n<main>\n");
+
+        int paragraph = 0;
+        while (html.length() < size) {
+            if (paragraphsPerLink == 0) {
+                html.append("<li>");
+                appendLink(html, random, link++);
+                html.append("</li>\n");
+                continue;
+            }
+            html.append("<p class=\"text\">");
+            for (int i = 0; i < 40; i++) {
+                html.append(WORDS[random.nextInt(WORDS.length)]).append(' ');
+            }
+            html.append("</p>\n");
+            if (++paragraph % paragraphsPerLink == 0) {
+                html.append("<p>See also ");
+                appendLink(html, random, link++);
+                html.append("</p>\n");
+            }
+        }
+        return html.append("<p>Merry Christmas &amp; happy new year</p>\n</main>\n</body>\n</html>\n").toString();
+    }
+
+    /**
+     * Appends an anchor element with one of the link formats and varied attribute syntax.
+     */
+    private static void appendLink(StringBuilder html, Random random, int link) {
+        String href = String.format(LINK_FORMATS[link % LINK_FORMATS.length], link);
+        switch (random.nextInt(4)) {
+            case 0:
+                html.append("<a href=\"").append(href).append("\">");
+                break;
+            case 1:
+                html.append("<a class=\"link\" title=\"Item ").append(link).append("\" href=\"").append(href).append("\">");
+                break;
+            case 2:
+                html.append("<A HREF='").append(href).append("' target=_blank>");
+                break;
+            default:
+                html.append("<a data-id=").append(link).append(" href = \"").append(href.replace("&", "&amp;")).append("\">");
+                break;
+        }
+        html.append("Item ").append(link).append("</a>\n");
+    }
+}
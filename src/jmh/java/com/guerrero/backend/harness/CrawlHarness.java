@@ -0,0 +1,282 @@
+package com.guerrero.backend.harness;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.guerrero.backend.dto.CrawlResponse;
+import com.guerrero.backend.util.ConfigReader;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * End-to-end crawl throughput harness. Serves a SyntheticSite, then for each concurrency level starts the crawler
+ * application in a new process pointed at it, runs searches through the /crawl API and follows them to the end
+ * through their result streams. It reports, for each level, the pages fetched per second, the time to the first match,
+ * the time until the searches are done and the peak heap usage of the crawler, and writes the report as JSON.
+ * The settings are read with the ConfigReader; settings of the crawler itself given in the environment
+ * (e.g. STREAMING_FETCH) apply to every level.
+ */
+public class CrawlHarness {
+
+    private static final Gson GSON = new GsonBuilder().setPrettyPrinting().create();
+
+    private static final Duration STARTUP_TIMEOUT = Duration.ofSeconds(60);
+
+    private final HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+
+    public static void main(String[] args) throws Exception {
+        Map<String, Object> site = new LinkedHashMap<>();
+        site.put("pages", ConfigReader.getInt("HARNESS_PAGES", 1000));
+        site.put("fanOut", ConfigReader.getInt("HARNESS_FAN_OUT", 10));
+        site.put("pageBytes", ConfigReader.getInt("HARNESS_PAGE_BYTES", 16 * 1024));
+        site.put("keywordDensity", ConfigReader.getDouble("HARNESS_KEYWORD_DENSITY", 0.05));
+        site.put("latency", ConfigReader.getString("HARNESS_LATENCY", "exponential:20"));
+        site.put("errorRate", ConfigReader.getDouble("HARNESS_ERROR_RATE", 0.01));
+        site.put("seed", ConfigReader.getLong("HARNESS_SEED", 42));
+        int searches = ConfigReader.getInt("HARNESS_SEARCHES", 1);
+        long timeoutSeconds = ConfigReader.getLong("HARNESS_TIMEOUT_SECONDS", 600);
+        String[] jvmOptions = ConfigReader.getString("HARNESS_CRAWLER_JVM_OPTIONS", "-Xmx512m").split("\\s+");
+        Path outputDirectory = Paths.get(ConfigReader.getString("HARNESS_OUTPUT_DIR", "target/crawl-harness"));
+        List<Integer> workerLevels = new ArrayList<>();
+        for (String level : ConfigReader.getString("HARNESS_WORKERS", "1,4,16").split(",")) {
+            workerLevels.add(Integer.parseInt(level.trim()));
+        }
+        Files.createDirectories(outputDirectory);
+
+        List<LevelResult> results = new ArrayList<>();
+        try (SyntheticSite syntheticSite = new SyntheticSite((int) site.get("pages"), (int) site.get("fanOut"),
+                (int) site.get("pageBytes"), (double) site.get("keywordDensity"), (double) site.get("errorRate"),
+                SyntheticSite.Latency.parse((String) site.get("latency")), (long) site.get("seed"))) {
+            syntheticSite.start();
+            site.put("matchingPages", syntheticSite.getMatchingPageCount());
+            System.out.println("Synthetic site " + syntheticSite.getBaseUrl() + " " + site);
+            System.out.printf("%8s %9s %9s %8s %10s %16s %14s %8s %14s%n", "workers", "searches", "requests", "errors",
+                    "pages/s", "firstMatch(ms)", "done(ms)", "matches", "peakHeap(MB)");
+
+            CrawlHarness harness = new CrawlHarness();
+            for (int workers : workerLevels) {
+                LevelResult result = harness.runLevel(syntheticSite, workers, searches, jvmOptions,
+                        outputDirectory.resolve("crawler-workers-" + workers + ".log"), timeoutSeconds);
+                results.add(result);
+                System.out.printf("%8d %9d %9d %8d %10.1f %16d %14d %8d %14.1f%n", result.workers, result.searches,
+                        result.requests, result.errors, result.pagesPerSecond, result.timeToFirstMatchMillis,
+                        result.timeToDoneMillis, result.matches, result.peakHeapBytes / (1024.0 * 1024.0));
+            }
+        }
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("site", site);
+        report.put("levels", results);
+        Path reportFile = outputDirectory.resolve("report.json");
+        Files.writeString(reportFile, GSON.toJson(report));
+        System.out.println("Report written to " + reportFile);
+    }
+
+    /**
+     * Runs a concurrency level: starts a crawler process, runs the searches at the same time and stops the process.
+     * @param syntheticSite  The site to crawl.
+     * @param workers        The number of workers of each search.
+     * @param searches       The number of simultaneous searches.
+     * @param jvmOptions     The JVM options of the crawler process.
+     * @param logFile        The file receiving the output of the crawler process.
+     * @param timeoutSeconds The maximum duration of the searches.
+     * @return The measurements of the level.
+     * @throws Exception if the crawler process or a search fails.
+     */
+    private LevelResult runLevel(SyntheticSite syntheticSite, int workers, int searches, String[] jvmOptions,
+                                 Path logFile, long timeoutSeconds) throws Exception {
+        int port = findFreePort();
+        List<String> command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        for (String option : jvmOptions) {
+            if (!option.isEmpty()) {
+                command.add(option);
+            }
+        }
+        command.add("-classpath");
+        command.add(System.getProperty("java.class.path"));
+        command.add("-DBASE_URL=" + syntheticSite.getBaseUrl());
+        command.add("-DCRAWLER_WORKERS=" + workers);
+        // Every search fetches every page
+        command.add("-DPAGE_CACHE_MAX_BYTES=0");
+        command.add("-DRESULT_CACHE_FRESHNESS_SECONDS=0");
+        // Every search is followed through one stream until it is done
+        command.add("-DRESULT_STREAM_MAX_CONNECTIONS=" + searches);
+        command.add("-DRESULT_STREAM_MAX_SECONDS=" + timeoutSeconds);
+        command.add("-Dharness.port=" + port);
+        command.add(CrawlerProcess.class.getName());
+        Process process = new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(logFile.toFile())
+                .start();
+
+        LevelResult result = new LevelResult(workers, searches);
+        ExecutorService searchThreads = Executors.newFixedThreadPool(searches);
+        try {
+            String apiUrl = "http://localhost:" + port;
+            awaitStartup(process, apiUrl, logFile);
+            long requestsBefore = syntheticSite.getRequestCount();
+            long errorsBefore = syntheticSite.getErrorCount();
+
+            long start = System.nanoTime();
+            List<Future<SearchTiming>> timings = new ArrayList<>();
+            for (int i = 0; i < searches; i++) {
+                timings.add(searchThreads.submit(() -> runSearch(apiUrl)));
+            }
+            long firstMatchTotal = 0;
+            int searchesWithMatches = 0;
+            for (Future<SearchTiming> future : timings) {
+                SearchTiming timing = future.get(timeoutSeconds, TimeUnit.SECONDS);
+                if (timing.firstMatchNanos >= 0) {
+                    firstMatchTotal += timing.firstMatchNanos - start;
+                    searchesWithMatches++;
+                }
+                result.timeToDoneMillis = Math.max(result.timeToDoneMillis,
+                        TimeUnit.NANOSECONDS.toMillis(timing.doneNanos - start));
+                result.matches = Math.max(result.matches, timing.matches);
+            }
+            result.requests = syntheticSite.getRequestCount() - requestsBefore;
+            result.errors = syntheticSite.getErrorCount() - errorsBefore;
+            result.pagesPerSecond = result.requests * 1000.0 / Math.max(1, result.timeToDoneMillis);
+            result.timeToFirstMatchMillis = searchesWithMatches == 0
+                    ? -1 : TimeUnit.NANOSECONDS.toMillis(firstMatchTotal / searchesWithMatches);
+        } finally {
+            searchThreads.shutdownNow();
+            process.destroy();
+            if (!process.waitFor(30, TimeUnit.SECONDS)) {
+                process.destroyForcibly();
+            }
+        }
+        result.peakHeapBytes = readPeakHeapBytes(logFile);
+        return result;
+    }
+
+    /**
+     * Starts a search of the keyword and follows its result stream until the search is done.
+     * @param apiUrl The URL of the crawler API.
+     * @return The times of the first match and of the end of the search, and the number of matches.
+     * @throws IOException if a request fails.
+     * @throws InterruptedException if the thread is interrupted.
+     */
+    private SearchTiming runSearch(String apiUrl) throws IOException, InterruptedException {
+        HttpResponse<String> started = client.send(HttpRequest.newBuilder(URI.create(apiUrl + "/crawl"))
+                        .POST(HttpRequest.BodyPublishers.ofString("{\"keyword\": \"" + SyntheticSite.KEYWORD + "\"}"))
+                        .header("Content-Type", "application/json")
+                        .build(),
+                HttpResponse.BodyHandlers.ofString());
+        if (started.statusCode() != 200) {
+            throw new IOException("POST /crawl answered " + started.statusCode() + ": " + started.body());
+        }
+        String searchId = GSON.fromJson(started.body(), CrawlResponse.class).getId();
+
+        SearchTiming timing = new SearchTiming();
+        HttpResponse<Stream<String>> stream = client.send(
+                HttpRequest.newBuilder(URI.create(apiUrl + "/crawl/" + searchId + "/stream")).build(),
+                HttpResponse.BodyHandlers.ofLines());
+        try (Stream<String> lines = stream.body()) {
+            Iterator<String> iterator = lines.iterator();
+            while (iterator.hasNext()) {
+                String line = iterator.next();
+                if ("event: url".equals(line)) {
+                    if (timing.matches++ == 0) {
+                        timing.firstMatchNanos = System.nanoTime();
+                    }
+                } else if ("event: done".equals(line)) {
+                    timing.doneNanos = System.nanoTime();
+                    return timing;
+                }
+            }
+        }
+        throw new IOException("The result stream of search " + searchId + " ended before the search was done");
+    }
+
+    /**
+     * Waits until the crawler process answers HTTP requests.
+     * @throws IOException if the process exits or does not answer in time.
+     * @throws InterruptedException if the thread is interrupted.
+     */
+    private void awaitStartup(Process process, String apiUrl, Path logFile) throws IOException, InterruptedException {
+        long deadline = System.nanoTime() + STARTUP_TIMEOUT.toNanos();
+        HttpRequest probe = HttpRequest.newBuilder(URI.create(apiUrl + "/crawl/00000000")).build();
+        while (System.nanoTime() < deadline) {
+            if (!process.isAlive()) {
+                throw new IOException("The crawler process exited with " + process.exitValue() + ", see " + logFile);
+            }
+            try {
+                client.send(probe, HttpResponse.BodyHandlers.discarding());
+                return;
+            } catch (ConnectException e) {
+                TimeUnit.MILLISECONDS.sleep(100);
+            }
+        }
+        throw new IOException("The crawler process did not start in " + STARTUP_TIMEOUT + ", see " + logFile);
+    }
+
+    /**
+     * Reads the peak heap usage printed by the exited crawler process in its log.
+     * @return The peak heap usage in bytes, or -1 if the process did not print it.
+     */
+    private static long readPeakHeapBytes(Path logFile) throws IOException {
+        try (Stream<String> lines = Files.lines(logFile, StandardCharsets.ISO_8859_1)) {
+            return lines.filter(line -> line.startsWith(CrawlerProcess.PEAK_HEAP_PREFIX))
+                    .mapToLong(line -> Long.parseLong(line.substring(CrawlerProcess.PEAK_HEAP_PREFIX.length())))
+                    .findFirst()
+                    .orElse(-1);
+        }
+    }
+
+    private static int findFreePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    /**
+     * The timing of one search, in System.nanoTime() values.
+     */
+    private static class SearchTiming {
+        long firstMatchNanos = -1;
+        long doneNanos;
+        int matches;
+    }
+
+    /**
+     * The measurements of a concurrency level, as written to the report.
+     */
+    private static class LevelResult {
+        final int workers;
+        final int searches;
+        long requests;
+        long errors;
+        double pagesPerSecond;
+        long timeToFirstMatchMillis;
+        long timeToDoneMillis;
+        int matches;
+        long peakHeapBytes;
+
+        LevelResult(int workers, int searches) {
+            this.workers = workers;
+            this.searches = searches;
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.guerrero.backend.harness;
+
+import com.guerrero.backend.Main;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs the crawler application in a process of its own for the CrawlHarness, on the port of the "harness.port"
+ * system property, and samples its heap usage. At exit, it prints the peak heap usage on its standard output
+ * as "peakHeapBytes=N".
+ */
+public class CrawlerProcess {
+
+    /**
+     * The prefix of the line with the peak heap usage.
+     */
+    static final String PEAK_HEAP_PREFIX = "peakHeapBytes=";
+
+    /**
+     * Milliseconds between two samples of the heap usage.
+     */
+    private static final long SAMPLE_INTERVAL_MILLIS = 10;
+
+    public static void main(String[] args) throws Exception {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        AtomicLong peakHeapBytes = new AtomicLong();
+        ScheduledExecutorService sampler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "heap-sampler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        sampler.scheduleAtFixedRate(() -> peakHeapBytes.accumulateAndGet(memory.getHeapMemoryUsage().getUsed(), Math::max),
+                0, SAMPLE_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            sampler.shutdown();
+            System.out.println(PEAK_HEAP_PREFIX + peakHeapBytes.get());
+            System.out.flush();
+        }));
+
+        spark.Spark.port(Integer.getInteger("harness.port", 4567));
+        Main.main(args);
+    }
+}
@@ -0,0 +1,304 @@
+package com.guerrero.backend.harness;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * An embedded HTTP server serving a deterministic synthetic website.
+ * Page 0 is served at "/" and page i at "/page/i.html". Every page links to the next page, so all of them
+ * are reachable, and to random other pages up to its fan-out. Given the same seed, the site is the same on every run:
+ * the links, the text, the pages containing the keyword, the pages answering with an error and the latency of each page.
+ */
+public class SyntheticSite implements AutoCloseable {
+
+    /**
+     * The keyword hidden in the text of some pages.
+     */
+    public static final String KEYWORD = "needle";
+
+    private static final String[] WORDS = {
+            "lorem", "ipsum", "dolor", "sit", "amet", "consectetur", "adipiscing", "elit", "sed", "do",
+            "eiusmod", "tempor", "incididunt", "ut", "labore", "et", "dolore", "magna", "aliqua", "needles"
+    };
+
+    private final int pageCount;
+    private final int fanOut;
+    private final int pageBytes;
+    private final double keywordDensity;
+    private final double errorRate;
+    private final Latency latency;
+    private final long seed;
+
+    private HttpServer server;
+    private ExecutorService executor;
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder bytesServed = new LongAdder();
+
+    /**
+     * Constructs a SyntheticSite, which is served once started.
+     * @param pageCount      The number of pages.
+     * @param fanOut         The number of links on each page.
+     * @param pageBytes      The approximate size of each page.
+     * @param keywordDensity The fraction of the pages containing the keyword, between 0 and 1.
+     * @param errorRate      The fraction of the pages answering 500 Internal Server Error, between 0 and 1.
+     *                       The home page never does.
+     * @param latency        The distribution of the time taken to answer each page.
+     * @param seed           The seed of the site.
+     * @throws IllegalArgumentException if a setting is out of its range.
+     */
+    public SyntheticSite(int pageCount, int fanOut, int pageBytes, double keywordDensity, double errorRate,
+                         Latency latency, long seed) {
+        if (pageCount < 1 || fanOut < 1 || pageBytes < 0) {
+            throw new IllegalArgumentException("The page count and fan-out must be positive and the page size not negative.");
+        }
+        if (keywordDensity < 0 || keywordDensity > 1 || errorRate < 0 || errorRate > 1) {
+            throw new IllegalArgumentException("The keyword density and error rate must be between 0 and 1.");
+        }
+        this.pageCount = pageCount;
+        this.fanOut = fanOut;
+        this.pageBytes = pageBytes;
+        this.keywordDensity = keywordDensity;
+        this.errorRate = errorRate;
+        this.latency = latency;
+        this.seed = seed;
+    }
+
+    /**
+     * Starts serving the site on a free port of the loopback interface.
+     * @throws IOException if the server cannot be started.
+     */
+    public void start() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "synthetic-site");
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.setExecutor(executor);
+        server.createContext("/", this::handle);
+        server.start();
+    }
+
+    /**
+     * Gets the base URL of the started site.
+     * @return The URL of the home page.
+     */
+    public String getBaseUrl() {
+        return "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort() + "/";
+    }
+
+    /**
+     * Counts the pages that contain the keyword and answer without an error, which a complete crawl finds.
+     * @return The number of matching pages.
+     */
+    public int getMatchingPageCount() {
+        int count = 0;
+        for (int page = 0; page < pageCount; page++) {
+            Random random = pageRandom(page);
+            boolean failing = isFailing(page, random);
+            if (random.nextDouble() < keywordDensity && !failing) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Gets the number of requests answered since the site was started.
+     * @return The number of requests.
+     */
+    public long getRequestCount() {
+        return requests.sum();
+    }
+
+    /**
+     * Gets the number of requests answered with an error since the site was started.
+     * @return The number of errors.
+     */
+    public long getErrorCount() {
+        return errors.sum();
+    }
+
+    /**
+     * Gets the number of body bytes served since the site was started.
+     * @return The number of bytes.
+     */
+    public long getBytesServed() {
+        return bytesServed.sum();
+    }
+
+    /**
+     * Stops serving the site.
+     */
+    @Override
+    public void close() {
+        if (server != null) {
+            server.stop(0);
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Answers a request with its page after the latency of the page, with 404 Not Found for unknown paths.
+     */
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            requests.increment();
+            int page = pageOf(exchange.getRequestURI().getPath());
+            if (page < 0) {
+                exchange.sendResponseHeaders(404, -1);
+                return;
+            }
+            Random random = pageRandom(page);
+            boolean failing = isFailing(page, random);
+            boolean matching = random.nextDouble() < keywordDensity;
+            sleep(latency.sample(random));
+            if (failing) {
+                errors.increment();
+                exchange.sendResponseHeaders(500, -1);
+                return;
+            }
+            byte[] body = generatePage(page, matching, random).getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "text/html; charset=utf-8");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream output = exchange.getResponseBody()) {
+                output.write(body);
+            }
+            bytesServed.add(body.length);
+        }
+    }
+
+    /**
+     * Gets the page number of a request path.
+     * @return The page number, or -1 if the path is not a page of the site.
+     */
+    private int pageOf(String path) {
+        if ("/".equals(path)) {
+            return 0;
+        }
+        if (!path.startsWith("/page/") || !path.endsWith(".html")) {
+            return -1;
+        }
+        try {
+            int page = Integer.parseInt(path.substring("/page/".length(), path.length() - ".html".length()));
+            return page > 0 && page < pageCount ? page : -1;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Creates the random number generator of a page. Each page draws, in order: whether it fails,
+     * whether it contains the keyword, its latency, then its links and text.
+     */
+    private Random pageRandom(int page) {
+        return new Random(seed * 1_000_003L + page);
+    }
+
+    private boolean isFailing(int page, Random random) {
+        return random.nextDouble() < errorRate && page != 0;
+    }
+
+    /**
+     * Generates the markup of a page: its links, then paragraphs up to the page size, with the keyword
+     * in a random paragraph if the page contains it.
+     */
+    private String generatePage(int page, boolean matching, Random random) {
+        StringBuilder html = new StringBuilder(pageBytes + 64 * fanOut + 256);
+        html.append("<!DOCTYPE html>\n<html>\n<head><title>Page ").append(page).append("</title></head>\n<body>\n<ul>\n");
+        appendLink(html, (page + 1) % pageCount);
+        for (int i = 1; i < fanOut; i++) {
+            appendLink(html, random.nextInt(pageCount));
+        }
+        html.append("</ul>\n");
+        int keywordPosition = matching ? random.nextInt(Math.max(1, pageBytes)) : -1;
+        while (html.length() < pageBytes || keywordPosition >= 0) {
+            html.append("<p>");
+            for (int i = 0; i < 16; i++) {
+                html.append(WORDS[random.nextInt(WORDS.length)]).append(' ');
+            }
+            if (keywordPosition >= 0 && html.length() >= keywordPosition) {
+                html.append(KEYWORD).append(' ');
+                keywordPosition = -1;
+            }
+            html.append("</p>\n");
+        }
+        return html.append("</body>\n</html>\n").toString();
+    }
+
+    private static void appendLink(StringBuilder html, int page) {
+        String path = page == 0 ? "/" : "/page/" + page + ".html";
+        html.append("<li><a href=\"").append(path).append("\">Page ").append(page).append("</a></li>\n");
+    }
+
+    private static void sleep(long millis) {
+        if (millis > 0) {
+            try {
+                TimeUnit.MILLISECONDS.sleep(millis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * A distribution of response latencies in milliseconds.
+     */
+    public interface Latency {
+
+        /**
+         * Draws a latency.
+         * @param random The random number generator of the page.
+         * @return The latency in milliseconds.
+         */
+        long sample(Random random);
+
+        /**
+         * Parses a latency distribution: "none", "fixed:MS", "uniform:MIN-MAX" or "exponential:MEAN", in milliseconds.
+         * @param specification The distribution.
+         * @return The distribution.
+         * @throws IllegalArgumentException if the distribution is not valid.
+         */
+        static Latency parse(String specification) {
+            String[] parts = specification.trim().split(":", 2);
+            try {
+                switch (parts[0]) {
+                    case "none":
+                        return random -> 0;
+                    case "fixed":
+                        long fixed = Long.parseLong(parts[1]);
+                        return random -> fixed;
+                    case "uniform":
+                        String[] bounds = parts[1].split("-", 2);
+                        long min = Long.parseLong(bounds[0]);
+                        long max = Long.parseLong(bounds[1]);
+                        if (max < min) {
+                            break;
+                        }
+                        return random -> min + (long) (random.nextDouble() * (max - min + 1));
+                    case "exponential":
+                        double mean = Double.parseDouble(parts[1]);
+                        return random -> (long) (-mean * Math.log(1 - random.nextDouble()));
+                    default:
+                        break;
+                }
+            } catch (ArrayIndexOutOfBoundsException | NumberFormatException e) {
+                // Reported below
+            }
+            throw new IllegalArgumentException("Invalid latency distribution: " + specification);
+        }
+    }
+}
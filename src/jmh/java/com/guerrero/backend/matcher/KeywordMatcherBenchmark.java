@@ -0,0 +1,85 @@
+package com.guerrero.backend.matcher;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the KeywordMatcher with the regular expression previously used by htmlContainsKeyword,
+ * on the repository's testPage.html and on generated multi-megabyte pages.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class KeywordMatcherBenchmark {
+
+    /**
+     * The page to be searched: the repository's test page, or a generated page of 2 or 8 MB.
+     */
+    @Param({"testPage", "2MB", "8MB"})
+    public String page;
+
+    /**
+     * Whether the keyword appears (at the end of the page) or not.
+     */
+    @Param({"true", "false"})
+    public boolean present;
+
+    private static final String KEYWORD = "christmas";
+
+    private String rawHTML;
+    private KeywordMatcher keywordMatcher;
+
+    @Setup
+    public void setup() throws IOException {
+        if ("testPage".equals(page)) {
+            rawHTML = Files.readString(Path.of(System.getProperty("user.dir"), "testPage.html")).replace("\n", "");
+        } else {
+            rawHTML = generatePage(Integer.parseInt(page.replace("MB", "")) * 1024 * 1024);
+        }
+        if (present) {
+            rawHTML = rawHTML + "<p>Merry Christmas</p>";
+        }
+        keywordMatcher = KeywordMatcher.forKeyword(KEYWORD);
+    }
+
+    @Benchmark
+    public boolean regex() {
+        String pattern = "(?i).*\\b" + KEYWORD + "\\b.*";
+        return rawHTML.matches(pattern);
+    }
+
+    @Benchmark
+    public boolean keywordMatcher() {
+        return keywordMatcher.containsAny(rawHTML);
+    }
+
+    @Benchmark
+    public boolean keywordMatcherIncludingCompilation() {
+        return KeywordMatcher.forKeyword(KEYWORD).containsAny(rawHTML);
+    }
+
+    /**
+     * Generates markup of about the given size with words that share prefixes with the keyword.
+     */
+    private static String generatePage(int size) {
+        String[] words = {"chris", "christ", "christmastime", "mass", "table", "div", "href", "content", "xmas"};
+        Random random = new Random(42);
+        StringBuilder html = new StringBuilder(size + 64).append("<html><body>");
+        while (html.length() < size) {
+            html.append("<p class=\"item\">");
+            for (int i = 0; i < 12; i++) {
+                html.append(words[random.nextInt(words.length)]).append(' ');
+            }
+            html.append("</p>");
+        }
+        return html.append("</body></html>").toString();
+    }
+}
@@ -0,0 +1,38 @@
+package com.guerrero.backend.metrics;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of recording a duration in a Histogram shared by several threads, as the crawl workers do
+ * for every page, against timing the work alone.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(8)
+@Fork(1)
+public class HistogramBenchmark {
+
+    private final Histogram histogram = new Histogram();
+
+    @Benchmark
+    public long nanoTime() {
+        long start = System.nanoTime();
+        return System.nanoTime() - start;
+    }
+
+    @Benchmark
+    public void observeSince() {
+        histogram.observeSince(System.nanoTime());
+    }
+
+    @Benchmark
+    public void observeNanos() {
+        histogram.observeNanos(ThreadLocalRandom.current().nextLong(TimeUnit.SECONDS.toNanos(1)));
+    }
+}
@@ -0,0 +1,89 @@
+package com.guerrero.backend.parser;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Compares the HtmlLinkExtractor with the regular expression previously used by searchForUrlsOnHTML,
+ * on the repository's testPage.html and on generated pages of 1 MB, with few or many links.
+ * Run with -prof gc to compare the allocation rates.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LinkExtractorBenchmark {
+
+    /**
+     * The page to be scanned: the repository's test page, or a generated page with text or with links.
+     */
+    @Param({"testPage", "1MB-text", "1MB-links"})
+    public String page;
+
+    /**
+     * The pattern previously compiled for every page.
+     */
+    private static final String ANCHOR_PATTERN = "<a\\s+[^>]*href\\s*=\\s*\"([^\"]+)\"[^>]*>";
+
+    private String rawHTML;
+    private final HtmlLinkExtractor linkExtractor = new HtmlLinkExtractor();
+
+    @Setup
+    public void setup() throws IOException {
+        if ("testPage".equals(page)) {
+            rawHTML = Files.readString(Path.of(System.getProperty("user.dir"), "testPage.html"));
+        } else {
+            rawHTML = generatePage(1024 * 1024, page.endsWith("links") ? 2 : 40);
+        }
+    }
+
+    @Benchmark
+    public void regex(Blackhole blackhole) {
+        Matcher matcher = Pattern.compile(ANCHOR_PATTERN).matcher(rawHTML);
+        while (matcher.find()) {
+            blackhole.consume(matcher.group(1));
+        }
+    }
+
+    @Benchmark
+    public void htmlLinkExtractor(Blackhole blackhole) {
+        linkExtractor.extract(rawHTML, (chars, start, end) -> blackhole.consume(end - start));
+    }
+
+    @Benchmark
+    public void htmlLinkExtractorWithStrings(Blackhole blackhole) {
+        linkExtractor.extract(rawHTML, (chars, start, end) -> blackhole.consume(new String(chars, start, end - start)));
+    }
+
+    /**
+     * Generates markup of about the given size, with one anchor element every few paragraphs.
+     */
+    private static String generatePage(int size, int paragraphsPerLink) {
+        String[] words = {"lorem", "ipsum", "dolor", "sit", "amet", "table", "div", "content", "christmas"};
+        Random random = new Random(42);
+        StringBuilder html = new StringBuilder(size + 64).append("<html><body>");
+        int paragraph = 0;
+        while (html.length() < size) {
+            html.append("<p class=\"item\">");
+            for (int i = 0; i < 12; i++) {
+                html.append(words[random.nextInt(words.length)]).append(' ');
+            }
+            html.append("</p>\n");
+            if (++paragraph % paragraphsPerLink == 0) {
+                html.append("<div><a class=\"nav\" href=\"/section/").append(paragraph)
+                        .append("/page.html?ref=home\" title=\"Page ").append(paragraph).append("\">Page</a></div>\n");
+            }
+        }
+        return html.append("</body></html>").toString();
+    }
+}
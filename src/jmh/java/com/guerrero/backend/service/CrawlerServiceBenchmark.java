@@ -0,0 +1,63 @@
+package com.guerrero.backend.service;
+
+import com.guerrero.backend.HtmlFixtures;
+import com.guerrero.backend.matcher.KeywordMatcher;
+import com.guerrero.backend.util.VisitedUrlSet;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the per-page work of a crawl worker: searching the keyword with htmlContainsKeyword,
+ * using matchers built once in the setup as a crawl builds them once per search,
+ * and finding, resolving and queueing the links of the page with searchForUrlsOnHTML,
+ * on the small, large and link-dense fixture pages.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CrawlerServiceBenchmark {
+
+    /**
+     * The fixture page.
+     */
+    @Param({HtmlFixtures.SMALL, HtmlFixtures.LARGE, HtmlFixtures.LINK_DENSE})
+    public String page;
+
+    private String rawHTML;
+    private CrawlerService crawlerService;
+    private KeywordMatcher keywordMatcher;
+    private KeywordMatcher missingKeywordMatcher;
+
+    @Setup
+    public void setup() {
+        rawHTML = HtmlFixtures.page(page);
+        crawlerService = new CrawlerService(HtmlFixtures.BASE_URL);
+        keywordMatcher = KeywordMatcher.forKeyword(HtmlFixtures.KEYWORD);
+        missingKeywordMatcher = KeywordMatcher.forKeyword(HtmlFixtures.MISSING_KEYWORD);
+    }
+
+    @Benchmark
+    public boolean htmlContainsKeyword() {
+        return crawlerService.htmlContainsKeyword(keywordMatcher, rawHTML);
+    }
+
+    @Benchmark
+    public boolean htmlContainsMissingKeyword() {
+        return crawlerService.htmlContainsKeyword(missingKeywordMatcher, rawHTML);
+    }
+
+    /**
+     * Extracts the links of the page into the empty frontier of a new crawl, so every link is new.
+     */
+    @Benchmark
+    public int searchForUrlsOnHTML() {
+        CrawlFrontier frontier = new CrawlFrontier(new ConcurrentLinkedQueue<>(), new VisitedUrlSet());
+        crawlerService.searchForUrlsOnHTML(frontier, HtmlFixtures.PAGE_URL, rawHTML);
+        return frontier.getPendingCount();
+    }
+}
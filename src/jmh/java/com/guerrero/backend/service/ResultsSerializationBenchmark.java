@@ -0,0 +1,62 @@
+package com.guerrero.backend.service;
+
+import com.google.gson.Gson;
+import com.guerrero.backend.HtmlFixtures;
+import com.guerrero.backend.dto.ResultsResponse;
+import com.guerrero.backend.model.Status;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the serialization of a results response by Gson into a string, as the GET handler previously did,
+ * with the JSON and NDJSON writers that stream it, for a few found URLs up to a whole site.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ResultsSerializationBenchmark {
+
+    /**
+     * The number of URLs in the response.
+     */
+    @Param({"10", "1000", "100000"})
+    public int urlCount;
+
+    private final Gson gson = new Gson();
+    private final Writer writer = Writer.nullWriter();
+    private ResultsResponse resultsResponse;
+
+    @Setup
+    public void setup() {
+        List<String> urls = new ArrayList<>(urlCount);
+        for (int i = 0; i < urlCount; i++) {
+            urls.add(HtmlFixtures.BASE_URL + "section/" + (i % 97) + "/page" + i + ".html?lang=en");
+        }
+        resultsResponse = new ResultsResponse("30vbllyb", Status.active, urls);
+    }
+
+    @Benchmark
+    public String gsonToJson() {
+        return gson.toJson(resultsResponse);
+    }
+
+    @Benchmark
+    public Writer streamingJson() throws IOException {
+        CrawlerRequestHandler.writeJson(resultsResponse, writer);
+        return writer;
+    }
+
+    @Benchmark
+    public Writer streamingNdjson() throws IOException {
+        CrawlerRequestHandler.writeNdjson(resultsResponse, writer);
+        return writer;
+    }
+}
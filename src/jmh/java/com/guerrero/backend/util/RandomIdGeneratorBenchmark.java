@@ -0,0 +1,29 @@
+package com.guerrero.backend.util;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the generation of search IDs, which runs on the request thread of every POST /crawl.
+ * Run with several threads (-t 4) to include the contention on the shared SecureRandom of UUID.randomUUID.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RandomIdGeneratorBenchmark {
+
+    /**
+     * The length of the generated IDs: the length of the search IDs, and the maximum length.
+     */
+    @Param({"8", "32"})
+    public int idLength;
+
+    @Benchmark
+    public String generateRandomId() {
+        return RandomIdGenerator.generateRandomId(idLength);
+    }
+}
@@ -0,0 +1,86 @@
+package com.guerrero.backend.util;
+
+import com.guerrero.backend.HtmlFixtures;
+import com.guerrero.backend.parser.HtmlLinkExtractor;
+import org.openjdk.jmh.annotations.*;
+
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the UrlCanonicalizer with the appendBaseUrlIfNeeded method it replaced, resolving one link per operation,
+ * cycling through the links of the link-dense fixture page.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UrlCanonicalizerBenchmark {
+
+    private final UrlCanonicalizer urlCanonicalizer = UrlCanonicalizer.withDefaults();
+    private String[] hrefs;
+    private String[] canonicalUrls;
+    private int next;
+
+    @Setup
+    public void setup() {
+        List<String> links = new ArrayList<>();
+        new HtmlLinkExtractor().extract(HtmlFixtures.page(HtmlFixtures.LINK_DENSE),
+                (chars, start, end) -> links.add(new String(chars, start, end - start)));
+        hrefs = links.toArray(new String[0]);
+
+        List<String> resolved = new ArrayList<>();
+        for (String href : hrefs) {
+            String url = urlCanonicalizer.resolve(HtmlFixtures.PAGE_URL, href);
+            if (url != null) {
+                resolved.add(url);
+            }
+        }
+        canonicalUrls = resolved.toArray(new String[0]);
+    }
+
+    @Benchmark
+    public String resolve() {
+        return urlCanonicalizer.resolve(HtmlFixtures.PAGE_URL, hrefs[nextIndex(hrefs.length)]);
+    }
+
+    /**
+     * Canonicalizes URLs that are already canonical, as for the redirect targets of most pages.
+     */
+    @Benchmark
+    public String canonicalizeCanonical() {
+        return urlCanonicalizer.canonicalize(canonicalUrls[nextIndex(canonicalUrls.length)]);
+    }
+
+    @Benchmark
+    public String appendBaseUrlIfNeeded() {
+        return appendBaseUrlIfNeeded(HtmlFixtures.BASE_URL, hrefs[nextIndex(hrefs.length)]);
+    }
+
+    private int nextIndex(int length) {
+        if (next >= length) {
+            next = 0;
+        }
+        return next++;
+    }
+
+    /**
+     * The method previously used by CrawlerService to resolve relative links against the base URL.
+     */
+    private static String appendBaseUrlIfNeeded(String baseUrl, String url) {
+        try {
+            if (!url.startsWith("http") && !url.startsWith("https")) {
+                URL resolvedUrl = new URL(new URL(baseUrl), url);
+                return resolvedUrl.toString().replaceAll("/\\.\\./", "/");
+            }
+        } catch (MalformedURLException e) {
+            return url;
+        }
+        return url;
+    }
+}
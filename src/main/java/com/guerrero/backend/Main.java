@@ -1,7 +1,27 @@
 package com.guerrero.backend;
 
+import com.guerrero.backend.cache.KeywordResultCache;
+import com.guerrero.backend.cache.PageCache;
+import com.guerrero.backend.fetch.ArchivingPageFetcher;
+import com.guerrero.backend.fetch.HttpClientPageFetcher;
+import com.guerrero.backend.fetch.PageFetcher;
+import com.guerrero.backend.fetch.ThrottledPageFetcher;
+import com.guerrero.backend.service.CrawlExecutor;
 import com.guerrero.backend.service.CrawlerService;
 import com.guerrero.backend.service.CrawlerRequestHandler;
+import com.guerrero.backend.service.IndexRefresher;
+import com.guerrero.backend.service.SearchLifecycleManager;
+import com.guerrero.backend.service.SitemapSeeder;
+import com.guerrero.backend.store.CheckpointStore;
+import com.guerrero.backend.store.PageArchive;
+import com.guerrero.backend.store.ResultStore;
+import com.guerrero.backend.util.ConfigReader;
+import com.guerrero.backend.util.UrlCanonicalizer;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.List;
 
 import static spark.Spark.*;
 
@@ -10,13 +30,85 @@ import static spark.Spark.*;
  * Initializes the CrawlerService and handles HTTP requests using the CrawlerRequestHandler.
  */
 public class Main {
-    public static void main(String[] args) {
+    public static void main(String[] args) throws IOException {
 
-        String baseUrl = System.getenv("BASE_URL");
-        CrawlerService crawlerService = new CrawlerService(baseUrl);
-        CrawlerRequestHandler crawlerRequestHandler = new CrawlerRequestHandler(crawlerService);
+        String baseUrl = ConfigReader.getString("BASE_URL", null);
+        int workerCount = ConfigReader.getInt("CRAWLER_WORKERS", CrawlerService.DEFAULT_WORKER_COUNT);
+        PageCache pageCache = new PageCache(
+                ConfigReader.getLong("PAGE_CACHE_MAX_BYTES", 64L * 1024 * 1024),
+                ConfigReader.getLong("PAGE_CACHE_MAX_AGE_SECONDS", 600),
+                ConfigReader.getBoolean("PAGE_CACHE_COMPRESSED", false));
+        CrawlerService crawlerService = new CrawlerService(baseUrl, workerCount, pageCache);
+        PageFetcher pageFetcher = new ThrottledPageFetcher(new HttpClientPageFetcher(
+                Duration.ofMillis(ConfigReader.getLong("FETCH_CONNECT_TIMEOUT_MS", 5000)),
+                Duration.ofMillis(ConfigReader.getLong("FETCH_RESPONSE_TIMEOUT_MS", 10000)),
+                Duration.ofMillis(ConfigReader.getLong("FETCH_BODY_TIMEOUT_MS", 30000)),
+                ConfigReader.getBoolean("FETCH_HTTP2", true)),
+                ConfigReader.getInt("FETCH_HOST_INITIAL_CONCURRENCY", ThrottledPageFetcher.DEFAULT_INITIAL_CONCURRENCY),
+                ConfigReader.getInt("FETCH_HOST_MAX_CONCURRENCY", ThrottledPageFetcher.DEFAULT_MAX_CONCURRENCY),
+                ConfigReader.getDouble("FETCH_HOST_MAX_REQUESTS_PER_SECOND", 0),
+                ConfigReader.getInt("FETCH_MAX_RETRIES", ThrottledPageFetcher.DEFAULT_MAX_RETRIES));
+        String archiveDirectory = ConfigReader.getString("CRAWL_ARCHIVE_DIR", null);
+        if (archiveDirectory != null) {
+            pageFetcher = new ArchivingPageFetcher(pageFetcher, PageArchive.open(Paths.get(archiveDirectory)),
+                    ConfigReader.getLong("MAX_PAGE_BYTES", CrawlerService.DEFAULT_MAX_PAGE_BYTES));
+        }
+        crawlerService.setPageFetcher(pageFetcher);
+        crawlerService.setResultCache(new KeywordResultCache(
+                ConfigReader.getLong("RESULT_CACHE_FRESHNESS_SECONDS", 300),
+                ConfigReader.getInt("RESULT_CACHE_MAX_ENTRIES", 1000)));
+        crawlerService.setUrlCanonicalizer(new UrlCanonicalizer(
+                List.of(ConfigReader.getString("URL_STRIPPED_PARAMETERS",
+                        String.join(",", UrlCanonicalizer.DEFAULT_STRIPPED_PARAMETERS)).split(",")),
+                ConfigReader.getBoolean("URL_SORT_QUERY_PARAMETERS", true)));
+        crawlerService.setStreamingFetch(ConfigReader.getBoolean("STREAMING_FETCH", false));
+        crawlerService.setBloomFilterExpectedUrls(ConfigReader.getLong("VISITED_SET_BLOOM_FILTER_URLS", 0));
+        crawlerService.setMaxPageBytes(ConfigReader.getLong("MAX_PAGE_BYTES", CrawlerService.DEFAULT_MAX_PAGE_BYTES));
+        crawlerService.setSitemapSeeding(ConfigReader.getBoolean("SITEMAP_SEEDING", false));
+        crawlerService.setMaxSitemapUrls(ConfigReader.getInt("SITEMAP_MAX_URLS", SitemapSeeder.DEFAULT_MAX_URLS));
+        if (ConfigReader.getBoolean("INDEX_MODE", false)) {
+            new IndexRefresher(crawlerService, ConfigReader.getLong("INDEX_REFRESH_MINUTES", 60)).start();
+        }
+        String resultStoreDirectory = ConfigReader.getString("RESULT_STORE_DIR", null);
+        if (resultStoreDirectory != null) {
+            ResultStore resultStore = ResultStore.open(Paths.get(resultStoreDirectory),
+                    ConfigReader.getInt("RESULT_STORE_SEGMENT_BYTES", ResultStore.DEFAULT_SEGMENT_BYTES));
+            resultStore.startCompaction(Duration.ofMinutes(ConfigReader.getLong("RESULT_STORE_COMPACTION_MINUTES", 10)),
+                    ResultStore.DEFAULT_COMPACTION_GARBAGE_RATIO);
+            Runtime.getRuntime().addShutdownHook(new Thread(resultStore::close));
+            crawlerService.setResultStore(resultStore);
+        }
+        SearchLifecycleManager lifecycleManager = crawlerService.getLifecycleManager();
+        Duration resultTtl = Duration.ofMinutes(ConfigReader.getLong("SEARCH_RESULT_TTL_MINUTES", 0));
+        lifecycleManager.setResultTtl(resultTtl);
+        lifecycleManager.setHeapBudget(ConfigReader.getLong("SEARCH_RESULTS_HEAP_BUDGET_BYTES",
+                        SearchLifecycleManager.DEFAULT_HEAP_BUDGET_BYTES),
+                Paths.get(ConfigReader.getString("SEARCH_RESULTS_SPILL_DIR",
+                        Paths.get(System.getProperty("java.io.tmpdir"), "guerrero-webcrawler-results").toString())));
+        if (!resultTtl.isZero()) {
+            lifecycleManager.start(Duration.ofMinutes(1));
+        }
+        CrawlExecutor crawlExecutor = new CrawlExecutor(
+                ConfigReader.getInt("MAX_CONCURRENT_CRAWLS", CrawlExecutor.DEFAULT_MAX_CONCURRENT_CRAWLS));
+        crawlerService.setWorkerExecutor(crawlExecutor);
+        String checkpointDirectory = ConfigReader.getString("CHECKPOINT_DIR", null);
+        if (checkpointDirectory != null) {
+            crawlerService.setCheckpointStore(CheckpointStore.open(Paths.get(checkpointDirectory)));
+            for (String searchId : crawlerService.resumeCheckpointedSearches()) {
+                crawlExecutor.submit(() -> crawlerService.crawl(searchId));
+            }
+            crawlerService.startCheckpoints(Duration.ofSeconds(ConfigReader.getLong("CHECKPOINT_INTERVAL_SECONDS", 60)));
+            Runtime.getRuntime().addShutdownHook(new Thread(crawlerService::checkpointActiveSearches));
+        }
+        CrawlerRequestHandler crawlerRequestHandler = new CrawlerRequestHandler(crawlerService, crawlExecutor);
+        crawlerRequestHandler.setMaxStreams(
+                ConfigReader.getInt("RESULT_STREAM_MAX_CONNECTIONS", CrawlerRequestHandler.DEFAULT_MAX_STREAMS));
+        crawlerRequestHandler.setMaxStreamDuration(Duration.ofSeconds(ConfigReader.getLong("RESULT_STREAM_MAX_SECONDS",
+                CrawlerRequestHandler.DEFAULT_MAX_STREAM_DURATION.getSeconds())));
 
         get(CrawlerRequestHandler.GET_RESULTS_PATH, crawlerRequestHandler::getResults);
+        get(CrawlerRequestHandler.STREAM_RESULTS_PATH, crawlerRequestHandler::streamResults);
         post(CrawlerRequestHandler.START_SEARCH_PATH, crawlerRequestHandler::startSearch);
+        get(CrawlerRequestHandler.METRICS_PATH, crawlerRequestHandler::getMetrics);
     }
 }
@@ -0,0 +1,279 @@
+package com.guerrero.backend.cache;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Process-wide cache of search results by keyword and base URL.
+ * The first search of a keyword leads: it crawls, and its results are cached for a freshness window when it completes.
+ * A repeat search of the keyword inside the window is answered from the cached results. A repeat search that
+ * arrives while the leading search is still crawling follows it: it receives the URLs the leader finds
+ * and completes with it, instead of starting another crawl.
+ */
+public class KeywordResultCache {
+
+    /**
+     * Time in nanoseconds during which completed results are served.
+     */
+    private final long freshnessNanos;
+
+    /**
+     * Maximum number of completed results kept.
+     */
+    private final int maxCompletedEntries;
+
+    /**
+     * The entries by key, the oldest first. Guarded by this cache.
+     */
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>();
+
+    /**
+     * Number of completed entries. Guarded by this cache.
+     */
+    private int completedCount;
+
+    /**
+     * The running entries by the ID of their leading search, read without locking by the leaders.
+     */
+    private final Map<String, Entry> runningByLeader = new ConcurrentHashMap<>();
+
+    /**
+     * Cache statistics.
+     */
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder follows = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * Constructs a KeywordResultCache.
+     * @param freshnessSeconds    The number of seconds the results of a search are served after it completes.
+     *                            0 disables the cache.
+     * @param maxCompletedEntries The maximum number of completed results kept. The oldest ones are removed first.
+     * @throws IllegalArgumentException if the freshness or the maximum is negative.
+     */
+    public KeywordResultCache(long freshnessSeconds, int maxCompletedEntries) {
+        if (freshnessSeconds < 0 || maxCompletedEntries < 0) {
+            throw new IllegalArgumentException("The freshness and the maximum number of entries must not be negative.");
+        }
+        this.freshnessNanos = TimeUnit.SECONDS.toNanos(freshnessSeconds);
+        this.maxCompletedEntries = maxCompletedEntries;
+    }
+
+    /**
+     * Creates a cache that stores nothing, so every search crawls.
+     * @return A disabled KeywordResultCache.
+     */
+    public static KeywordResultCache disabled() {
+        return new KeywordResultCache(0, 0);
+    }
+
+    /**
+     * Looks up the results for a new search.
+     * If there are fresh results, they are returned. If a search of the keyword is running, the new search
+     * becomes one of its followers and the running entry is returned. Otherwise, the new search becomes
+     * the leader of a new running entry and must crawl, then call {@link #complete(String, List)},
+     * or {@link #abandon(String)} if the crawl fails.
+     * @param baseUrl  The base URL of the search.
+     * @param keyword  The normalized keyword of the search.
+     * @param searchId The ID of the new search.
+     * @return A completed or running entry, or null if the new search must crawl.
+     */
+    public Entry claim(String baseUrl, String keyword, String searchId) {
+        return claim(baseUrl, keyword, searchId, entry -> { });
+    }
+
+    /**
+     * Looks up the results for a new search, as {@link #claim(String, String, String)}, and seeds a new follower.
+     * The seeder runs under the lock of the cache, after the new search is registered as a follower,
+     * so the leader cannot complete and finish the follower before it has received the URLs found so far.
+     * @param baseUrl  The base URL of the search.
+     * @param keyword  The normalized keyword of the search.
+     * @param searchId The ID of the new search.
+     * @param seeder   Receives the running entry when the new search follows it, to copy the URLs of the leader.
+     * @return A completed or running entry, or null if the new search must crawl.
+     */
+    public synchronized Entry claim(String baseUrl, String keyword, String searchId, Consumer<Entry> seeder) {
+        if (freshnessNanos == 0) {
+            return null;
+        }
+        String key = keyOf(baseUrl, keyword);
+        Entry entry = entries.get(key);
+        if (entry != null && entry.isCompleted() && System.nanoTime() - entry.completedAtNanos > freshnessNanos) {
+            remove(key);
+            entry = null;
+        }
+        if (entry == null) {
+            misses.increment();
+            entry = new Entry(key, searchId);
+            entries.put(key, entry);
+            runningByLeader.put(searchId, entry);
+            return null;
+        }
+        if (entry.isCompleted()) {
+            hits.increment();
+        } else {
+            follows.increment();
+            entry.followerIds.add(searchId);
+            seeder.accept(entry);
+        }
+        return entry;
+    }
+
+    /**
+     * Gets the followers of a running search, which must receive the URLs it finds.
+     * @param leaderId The ID of the leading search.
+     * @return The IDs of the followers so far, empty if the search leads no entry.
+     */
+    public List<String> getFollowers(String leaderId) {
+        Entry entry = runningByLeader.get(leaderId);
+        return entry == null ? Collections.emptyList() : entry.followerIds;
+    }
+
+    /**
+     * Completes the entry led by a search, caching its results. No search follows the entry afterwards.
+     * @param leaderId The ID of the leading search.
+     * @param urls     The results of the search.
+     * @return The IDs of the followers, which must be completed too.
+     */
+    public synchronized List<String> complete(String leaderId, List<String> urls) {
+        Entry entry = runningByLeader.remove(leaderId);
+        if (entry == null) {
+            return Collections.emptyList();
+        }
+        entry.urls = urls;
+        entry.completedAtNanos = System.nanoTime();
+        completedCount++;
+        Iterator<Entry> oldest = entries.values().iterator();
+        while (completedCount > maxCompletedEntries && oldest.hasNext()) {
+            Entry candidate = oldest.next();
+            if (candidate.isCompleted()) {
+                oldest.remove();
+                completedCount--;
+            }
+        }
+        return List.copyOf(entry.followerIds);
+    }
+
+    /**
+     * Drops the entry led by a search whose crawl failed, without caching its partial results,
+     * so the next search of the keyword crawls again. No search follows the entry afterwards.
+     * @param leaderId The ID of the leading search.
+     * @return The IDs of the followers, which must be completed too.
+     */
+    public synchronized List<String> abandon(String leaderId) {
+        Entry entry = runningByLeader.remove(leaderId);
+        if (entry == null) {
+            return Collections.emptyList();
+        }
+        entries.remove(entry.key, entry);
+        return List.copyOf(entry.followerIds);
+    }
+
+    /**
+     * Gets the number of searches answered from cached results.
+     * @return The number of hits.
+     */
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * Gets the number of searches that followed a running search.
+     * @return The number of follows.
+     */
+    public long getFollowCount() {
+        return follows.sum();
+    }
+
+    /**
+     * Gets the number of searches that had to crawl.
+     * @return The number of misses.
+     */
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    private void remove(String key) {
+        Entry entry = entries.remove(key);
+        if (entry != null && entry.isCompleted()) {
+            completedCount--;
+        }
+    }
+
+    private static String keyOf(String baseUrl, String keyword) {
+        return baseUrl + '\n' + keyword;
+    }
+
+    /**
+     * The results of a keyword: running while its leading search crawls, then completed.
+     */
+    public static class Entry {
+
+        /**
+         * The base URL and keyword of the entry.
+         */
+        private final String key;
+
+        /**
+         * The ID of the search that crawls for the entry.
+         */
+        private final String leaderId;
+
+        /**
+         * The IDs of the searches following the leader while it crawls.
+         */
+        private final List<String> followerIds = new CopyOnWriteArrayList<>();
+
+        /**
+         * The URLs found by the leader, or null while it is crawling.
+         */
+        private volatile List<String> urls;
+
+        /**
+         * When the leader completed, from System.nanoTime().
+         */
+        private volatile long completedAtNanos;
+
+        Entry(String key, String leaderId) {
+            this.key = key;
+            this.leaderId = leaderId;
+        }
+
+        /**
+         * Checks if the leading search has completed.
+         * @return true if the results are available, false if the leader is still crawling.
+         */
+        public boolean isCompleted() {
+            return urls != null;
+        }
+
+        /**
+         * Gets the ID of the search that crawled, or is crawling, for these results.
+         * @return The ID of the leading search.
+         */
+        public String getLeaderId() {
+            return leaderId;
+        }
+
+        /**
+         * Gets the cached results.
+         * @return The URLs found by the leading search, or null if it has not completed.
+         */
+        public List<String> getUrls() {
+            return urls;
+        }
+
+        @Override
+        public String toString() {
+            return "Entry{key=" + key.replace('\n', ' ') + ", leader=" + leaderId + ", completed=" + isCompleted() + "}";
+        }
+    }
+}
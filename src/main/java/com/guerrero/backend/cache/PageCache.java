@@ -0,0 +1,395 @@
+package com.guerrero.backend.cache;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Process-wide cache of fetched pages, shared by all the searches.
+ * Entries are keyed by normalized URL, bounded by their total size in bytes and evicted
+ * in least recently used order. Bodies may optionally be stored gzip compressed.
+ * Concurrent requests for a URL that is being fetched wait for that fetch instead of starting another one.
+ * A page is stored with the URL it was finally served from, so a redirected page is still read against its target.
+ */
+public class PageCache {
+
+    /**
+     * Estimated size in bytes of an entry besides its key and body.
+     */
+    private static final int ENTRY_OVERHEAD_BYTES = 64;
+
+    /**
+     * Maximum total size in bytes of the cached entries. A cache with size 0 stores nothing.
+     */
+    private final long maxBytes;
+
+    /**
+     * Time in nanoseconds after which an entry is no longer served.
+     */
+    private final long maxAgeNanos;
+
+    /**
+     * Whether the bodies are stored gzip compressed.
+     */
+    private final boolean compressed;
+
+    /**
+     * The cached entries in access order, from least to most recently used. Guarded by this cache.
+     */
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    /**
+     * Total size in bytes of the cached entries. Guarded by this cache.
+     */
+    private long currentBytes;
+
+    /**
+     * Fetches in progress by normalized URL.
+     */
+    private final Map<String, CompletableFuture<Page>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * Cache statistics.
+     */
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * Constructs a PageCache.
+     * @param maxBytes      The maximum total size in bytes of the cached pages. 0 disables storage,
+     *                      but concurrent fetches of the same URL are still coalesced.
+     * @param maxAgeSeconds The number of seconds a page is served from the cache after being fetched.
+     * @param compressed    Whether the pages are stored gzip compressed.
+     * @throws IllegalArgumentException if the size or the age is negative.
+     */
+    public PageCache(long maxBytes, long maxAgeSeconds, boolean compressed) {
+        if (maxBytes < 0 || maxAgeSeconds < 0) {
+            throw new IllegalArgumentException("The cache size and entry age must not be negative.");
+        }
+        this.maxBytes = maxBytes;
+        this.maxAgeNanos = TimeUnit.SECONDS.toNanos(maxAgeSeconds);
+        this.compressed = compressed;
+    }
+
+    /**
+     * Creates a cache that stores nothing and only coalesces concurrent fetches.
+     * @return A PageCache with size 0.
+     */
+    public static PageCache disabled() {
+        return new PageCache(0, 0, false);
+    }
+
+    /**
+     * Gets the page at the given URL from the cache, loading it if needed.
+     * If the page is already being loaded by another thread, waits for that load.
+     * Empty pages, which mean the fetch failed, are not stored.
+     * @param url    The URL of the page.
+     * @param loader Fetches the page for a URL.
+     * @return The content of the page.
+     */
+    public String get(String url, Function<String, String> loader) {
+        return getPage(url, pageUrl -> new Page(pageUrl, loader.apply(pageUrl))).getContent();
+    }
+
+    /**
+     * Gets the page at the given URL from the cache, with the URL it was served from, loading it if needed.
+     * If the page is already being loaded by another thread, waits for that load.
+     * Empty pages, which mean the fetch failed, are not stored.
+     * @param url    The URL of the page.
+     * @param loader Fetches the page for a URL.
+     * @return The page.
+     */
+    public Page getPage(String url, Function<String, Page> loader) {
+        String key = normalize(url);
+        Page cachedPage = lookup(key, url);
+        if (cachedPage != null) {
+            hits.increment();
+            return cachedPage;
+        }
+
+        CompletableFuture<Page> load = new CompletableFuture<>();
+        CompletableFuture<Page> existingLoad = inFlight.putIfAbsent(key, load);
+        if (existingLoad != null) {
+            hits.increment();
+            coalesced.increment();
+            return awaitLoad(existingLoad);
+        }
+
+        try {
+            // Another thread may have finished loading between the lookup and the registration
+            Page page = lookup(key, url);
+            if (page != null) {
+                hits.increment();
+            } else {
+                misses.increment();
+                page = loader.apply(url);
+                store(key, url, page);
+            }
+            load.complete(page);
+            return page;
+        } catch (RuntimeException e) {
+            load.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, load);
+        }
+    }
+
+    /**
+     * Removes every page from the cache.
+     */
+    public synchronized void clear() {
+        entries.clear();
+        currentBytes = 0;
+    }
+
+    /**
+     * Gets the number of requests served without fetching, including the ones that waited for another fetch.
+     * @return The number of cache hits.
+     */
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * Gets the number of requests that had to fetch the page.
+     * @return The number of cache misses.
+     */
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * Gets the number of requests that waited for a fetch started by another request.
+     * @return The number of coalesced requests.
+     */
+    public long getCoalescedCount() {
+        return coalesced.sum();
+    }
+
+    /**
+     * Gets the number of pages evicted to stay within the size limit.
+     * @return The number of evictions.
+     */
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    /**
+     * Gets the total size in bytes of the cached pages.
+     * @return The size of the cache.
+     */
+    public synchronized long getSizeInBytes() {
+        return currentBytes;
+    }
+
+    /**
+     * Gets the number of cached pages.
+     * @return The number of entries.
+     */
+    public synchronized int getEntryCount() {
+        return entries.size();
+    }
+
+    /**
+     * Normalizes a URL for use as a cache key: the scheme and host are lower-cased and the fragment is removed.
+     * @param url The URL to normalize.
+     * @return The normalized URL.
+     */
+    static String normalize(String url) {
+        int fragmentStart = url.indexOf('#');
+        String normalized = fragmentStart >= 0 ? url.substring(0, fragmentStart) : url;
+        int schemeEnd = normalized.indexOf("://");
+        if (schemeEnd < 0) {
+            return normalized;
+        }
+        int hostEnd = normalized.indexOf('/', schemeEnd + 3);
+        if (hostEnd < 0) {
+            return normalized.toLowerCase(Locale.ROOT) + "/";
+        }
+        return normalized.substring(0, hostEnd).toLowerCase(Locale.ROOT) + normalized.substring(hostEnd);
+    }
+
+    /**
+     * Looks up a fresh cached page.
+     * @param key The normalized URL.
+     * @param url The requested URL.
+     * @return The page, or null if it is not cached or too old.
+     */
+    private Page lookup(String key, String url) {
+        Entry entry;
+        synchronized (this) {
+            entry = entries.get(key);
+            if (entry == null) {
+                return null;
+            }
+            if (System.nanoTime() - entry.storedAt > maxAgeNanos) {
+                entries.remove(key);
+                currentBytes -= entry.sizeInBytes(key);
+                return null;
+            }
+        }
+        return new Page(entry.finalUrl != null ? entry.finalUrl : url, decode(entry));
+    }
+
+    /**
+     * Stores a page, evicting the least recently used pages if needed.
+     * @param key  The normalized URL.
+     * @param url  The requested URL.
+     * @param page The page.
+     */
+    private void store(String key, String url, Page page) {
+        if (maxBytes == 0 || page.getContent().isEmpty()) {
+            return;
+        }
+        String finalUrl = url.equals(page.getUrl()) ? null : page.getUrl();
+        Entry entry = new Entry(finalUrl, encode(page.getContent()), System.nanoTime());
+        long entrySize = entry.sizeInBytes(key);
+        if (entrySize > maxBytes) {
+            return;
+        }
+        synchronized (this) {
+            Entry previous = entries.put(key, entry);
+            if (previous != null) {
+                currentBytes -= previous.sizeInBytes(key);
+            }
+            currentBytes += entrySize;
+            Iterator<Map.Entry<String, Entry>> eldest = entries.entrySet().iterator();
+            while (currentBytes > maxBytes && eldest.hasNext()) {
+                Map.Entry<String, Entry> evicted = eldest.next();
+                currentBytes -= evicted.getValue().sizeInBytes(evicted.getKey());
+                eldest.remove();
+                evictions.increment();
+            }
+        }
+    }
+
+    /**
+     * Waits for a load started by another thread.
+     * @param load The load in progress.
+     * @return The loaded page.
+     */
+    private static Page awaitLoad(CompletableFuture<Page> load) {
+        try {
+            return load.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Converts a page to the stored form.
+     */
+    private byte[] encode(String page) {
+        byte[] bytes = page.getBytes(StandardCharsets.UTF_8);
+        if (!compressed) {
+            return bytes;
+        }
+        ByteArrayOutputStream output = new ByteArrayOutputStream(bytes.length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(output)) {
+            gzip.write(bytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return output.toByteArray();
+    }
+
+    /**
+     * Converts a stored entry back to the page.
+     */
+    private String decode(Entry entry) {
+        if (!compressed) {
+            return new String(entry.data, StandardCharsets.UTF_8);
+        }
+        try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(entry.data))) {
+            return new String(gzip.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * A page and the URL it was served from.
+     */
+    public static class Page {
+
+        /**
+         * The URL the page was served from, which differs from the requested URL after a redirect.
+         */
+        private final String url;
+
+        /**
+         * The content of the page, empty if the fetch failed.
+         */
+        private final String content;
+
+        /**
+         * Constructs a Page.
+         * @param url     The URL the page was served from.
+         * @param content The content of the page.
+         */
+        public Page(String url, String content) {
+            this.url = url;
+            this.content = content;
+        }
+
+        /**
+         * Gets the URL the page was served from.
+         * @return The final URL of the page.
+         */
+        public String getUrl() {
+            return url;
+        }
+
+        /**
+         * Gets the content of the page.
+         * @return The content, empty if the fetch failed.
+         */
+        public String getContent() {
+            return content;
+        }
+    }
+
+    /**
+     * A cached page.
+     */
+    private static class Entry {
+
+        /**
+         * The URL the page was served from, or null if it is the requested URL.
+         */
+        private final String finalUrl;
+        private final byte[] data;
+        private final long storedAt;
+
+        private Entry(String finalUrl, byte[] data, long storedAt) {
+            this.finalUrl = finalUrl;
+            this.data = data;
+            this.storedAt = storedAt;
+        }
+
+        private long sizeInBytes(String key) {
+            long finalUrlBytes = finalUrl == null ? 0 : 2L * finalUrl.length();
+            return data.length + 2L * key.length() + finalUrlBytes + ENTRY_OVERHEAD_BYTES;
+        }
+    }
+}
@@ -0,0 +1,505 @@
+package com.guerrero.backend.cluster;
+
+import com.guerrero.backend.service.CrawlExecutor;
+import com.guerrero.backend.service.CrawlerService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One node of a cluster that crawls the searches together with the other nodes.
+ * The URLs of a search are split between the nodes by a {@link HashRing}: each node crawls the URLs it owns, and
+ * the URLs it finds that other nodes own are buffered and forwarded to them in batches. The matches of each node
+ * are sent to every other node, so every node has the results of the whole search.
+ * The node where a search starts coordinates it: it tells the other nodes to join, and it detects when the search
+ * is finished everywhere by counting the messages sent and received by every node. When every node is passive and
+ * the total of sent messages equals the total of received messages in two consecutive checks, no message is in
+ * flight and no node can find new URLs, so the coordinator tells every node to finish the search.
+ */
+public class ClusterNode {
+
+    /**
+     * Default number of URLs forwarded to a node in a single message.
+     */
+    public static final int DEFAULT_BATCH_SIZE = 256;
+
+    /**
+     * Default time between two flushes of the buffered URLs and two termination checks.
+     */
+    public static final Duration DEFAULT_FLUSH_INTERVAL = Duration.ofMillis(50);
+
+    /**
+     * Logger for the messages that cannot be delivered.
+     */
+    private static final Logger logger = LoggerFactory.getLogger(ClusterNode.class);
+
+    /**
+     * The ID of this node.
+     */
+    private final String nodeId;
+
+    /**
+     * Assigns the URLs to the nodes.
+     */
+    private final HashRing ring;
+
+    /**
+     * Carries the messages to the other nodes.
+     */
+    private final ClusterTransport transport;
+
+    /**
+     * Crawls the URLs owned by this node.
+     */
+    private final CrawlerService crawlerService;
+
+    /**
+     * Runs the crawls of the searches started on other nodes.
+     */
+    private final CrawlExecutor crawlExecutor;
+
+    /**
+     * Number of URLs forwarded to a node in a single message.
+     */
+    private final int batchSize;
+
+    /**
+     * The state of the searches this node takes part in, by search ID.
+     */
+    private final Map<String, SearchState> searchStates = new ConcurrentHashMap<>();
+
+    /**
+     * The IDs of the searches finished on the cluster, whose late messages are ignored.
+     */
+    private final Set<String> finishedSearches = ConcurrentHashMap.newKeySet();
+
+    /**
+     * The searches coordinated by this node, with the totals of sent and received messages of the last check
+     * in which every node was passive, or null.
+     */
+    private final Map<String, long[]> coordinatedSearches = new ConcurrentHashMap<>();
+
+    /**
+     * Flushes the buffered URLs and checks the coordinated searches, or null when not started.
+     */
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * Constructs a ClusterNode and attaches it to its CrawlerService.
+     * @param nodeId         The ID of this node, which must be one of the nodes of the ring.
+     * @param ring           The ring that assigns the URLs to the nodes.
+     * @param transport      The transport to the other nodes.
+     * @param crawlerService The CrawlerService of this node.
+     * @param crawlExecutor  The executor of the crawls of this node.
+     * @param batchSize      The number of URLs forwarded to a node in a single message.
+     * @throws IllegalArgumentException if the node is not in the ring or the batch size is not positive.
+     */
+    public ClusterNode(String nodeId, HashRing ring, ClusterTransport transport, CrawlerService crawlerService,
+                       CrawlExecutor crawlExecutor, int batchSize) {
+        if (!ring.getNodeIds().contains(nodeId)) {
+            throw new IllegalArgumentException("The node " + nodeId + " is not in the ring.");
+        }
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("The batch size must be positive.");
+        }
+        this.nodeId = nodeId;
+        this.ring = ring;
+        this.transport = transport;
+        this.crawlerService = crawlerService;
+        this.crawlExecutor = crawlExecutor;
+        this.batchSize = batchSize;
+        crawlerService.setClusterNode(this);
+    }
+
+    /**
+     * Starts flushing the buffered URLs and checking the coordinated searches periodically, in a daemon thread.
+     * @param interval The time between two flushes.
+     */
+    public synchronized void start(Duration interval) {
+        if (scheduler != null) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "cluster-node-" + nodeId);
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                flush();
+                checkCoordinatedSearches();
+            } catch (RuntimeException e) {
+                logger.error("Failed to flush or check the searches of node {}", nodeId, e);
+            }
+        }, interval.toMillis(), interval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops flushing the buffered URLs and checking the coordinated searches.
+     */
+    public synchronized void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    /**
+     * Starts coordinating a search created on this node, and tells the other nodes to join it.
+     * @param searchId The ID of the search.
+     * @param keyword  The keyword of the search.
+     */
+    public void startSearch(String searchId, String keyword) {
+        searchStates.putIfAbsent(searchId, new SearchState());
+        coordinatedSearches.put(searchId, new long[0]);
+        for (String otherId : ring.getNodeIds()) {
+            if (!otherId.equals(nodeId)) {
+                try {
+                    transport.startSearch(otherId, searchId, keyword);
+                } catch (IOException e) {
+                    logger.error("Failed to start search {} on node {}", searchId, otherId, e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Checks if this node coordinates a search, because the search was started on it.
+     * @param searchId The ID of the search.
+     * @return true if this node finishes the search on the cluster.
+     */
+    public boolean isCoordinating(String searchId) {
+        return coordinatedSearches.containsKey(searchId);
+    }
+
+    /**
+     * Checks if this node owns a URL.
+     * @param url The URL.
+     * @return true if this node crawls the URL, false if another node does.
+     */
+    public boolean owns(String url) {
+        return ring.ownerOf(url).equals(nodeId);
+    }
+
+    /**
+     * Buffers a found URL for the node that owns it, unless this node owns it.
+     * A full batch is sent right away by the flushing thread, the others at the next flush.
+     * @param searchId The ID of the search.
+     * @param url      The found URL.
+     * The URL is dropped if the search is already finished.
+     * @return true if the URL is forwarded or dropped, false if this node owns it.
+     */
+    public boolean forward(String searchId, String url) {
+        String ownerId = ring.ownerOf(url);
+        if (ownerId.equals(nodeId)) {
+            return false;
+        }
+        SearchState state = searchStates.get(searchId);
+        if (state == null) {
+            return true;
+        }
+        boolean full;
+        synchronized (state) {
+            List<String> batch = state.urlBatches.computeIfAbsent(ownerId, id -> new ArrayList<>());
+            batch.add(url);
+            full = batch.size() == batchSize;
+        }
+        if (full) {
+            flushSoon(searchId);
+        }
+        return true;
+    }
+
+    /**
+     * Buffers a URL matched by this node, to be sent to every other node at the next flush.
+     * The URL is not sent if the search is already finished.
+     * @param searchId The ID of the search.
+     * @param url      The matched URL.
+     */
+    public void shareMatch(String searchId, String url) {
+        if (ring.getNodeIds().size() == 1) {
+            return;
+        }
+        SearchState state = searchStates.get(searchId);
+        if (state == null) {
+            return;
+        }
+        synchronized (state) {
+            state.matchBatch.add(url);
+        }
+    }
+
+    /**
+     * Sends the buffered URLs of every search.
+     */
+    public void flush() {
+        for (Map.Entry<String, SearchState> entry : searchStates.entrySet()) {
+            flush(entry.getKey(), entry.getValue());
+        }
+    }
+
+    /**
+     * Checks the searches coordinated by this node, and finishes the ones that are finished on every node.
+     */
+    public void checkCoordinatedSearches() {
+        Iterator<Map.Entry<String, long[]>> coordinated = coordinatedSearches.entrySet().iterator();
+        while (coordinated.hasNext()) {
+            Map.Entry<String, long[]> entry = coordinated.next();
+            String searchId = entry.getKey();
+            long[] totals = collectTotals(searchId);
+            if (totals.length == 0 || totals[0] != totals[1]) {
+                entry.setValue(new long[0]);
+            } else if (entry.getValue().length == 2 && entry.getValue()[0] == totals[0]) {
+                coordinated.remove();
+                finishEverywhere(searchId);
+            } else {
+                entry.setValue(totals);
+            }
+        }
+    }
+
+    /**
+     * Joins a search started on another node, and starts crawling the URLs of the search owned by this node.
+     * @param searchId The ID of the search.
+     * @param keyword  The keyword of the search.
+     */
+    public void onStartSearch(String searchId, String keyword) {
+        searchStates.putIfAbsent(searchId, new SearchState());
+        crawlerService.joinClusterSearch(searchId, keyword);
+        crawlExecutor.submit(() -> crawlerService.crawl(searchId));
+    }
+
+    /**
+     * Receives a batch of URLs owned by this node, found by another node.
+     * A batch of a finished search is ignored.
+     * @param searchId The ID of the search.
+     * @param urls     The URLs.
+     * @return true if the batch was delivered, false if this node has not joined the search yet,
+     *         in which case the sender must send it again.
+     */
+    public boolean onUrls(String searchId, List<String> urls) {
+        if (finishedSearches.contains(searchId)) {
+            return true;
+        }
+        if (!crawlerService.offerClusterUrls(searchId, urls)) {
+            return false;
+        }
+        countReceived(searchId);
+        return true;
+    }
+
+    /**
+     * Receives a batch of URLs matched by another node.
+     * A batch of a finished search is ignored.
+     * @param searchId The ID of the search.
+     * @param urls     The matched URLs.
+     * @return true if the batch was delivered, false if this node has not joined the search yet,
+     *         in which case the sender must send it again.
+     */
+    public boolean onMatches(String searchId, List<String> urls) {
+        if (finishedSearches.contains(searchId)) {
+            return true;
+        }
+        if (!crawlerService.addClusterMatches(searchId, urls)) {
+            return false;
+        }
+        countReceived(searchId);
+        return true;
+    }
+
+    /**
+     * Gets the state of a search on this node.
+     * @param searchId The ID of the search.
+     * @return The state of the search.
+     */
+    public NodeStatus getStatus(String searchId) {
+        SearchState state = searchStates.get(searchId);
+        if (state == null) {
+            return new NodeStatus(true, 0, 0);
+        }
+        synchronized (state) {
+            boolean passive = state.isEmpty() && crawlerService.getPendingUrlCount(searchId) == 0;
+            return new NodeStatus(passive, state.sentCount, state.receivedCount);
+        }
+    }
+
+    /**
+     * Lets the crawl of a search on this node finish, since the search is finished on every node.
+     * @param searchId The ID of the search.
+     */
+    public void onFinishSearch(String searchId) {
+        finishedSearches.add(searchId);
+        searchStates.remove(searchId);
+        crawlerService.releaseClusterSearch(searchId);
+    }
+
+    /**
+     * Gets the ID of this node.
+     * @return The node ID.
+     */
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    /**
+     * Sends the buffered URLs of a search from the flushing thread, or from the calling thread when not started.
+     */
+    private synchronized void flushSoon(String searchId) {
+        SearchState state = searchStates.get(searchId);
+        if (state == null) {
+            return;
+        }
+        if (scheduler != null) {
+            scheduler.execute(() -> flush(searchId, state));
+        } else {
+            flush(searchId, state);
+        }
+    }
+
+    /**
+     * Sends the buffered URLs of a search. A batch that cannot be sent is buffered again for its receiver.
+     */
+    private void flush(String searchId, SearchState state) {
+        Map<String, List<String>> urlBatches;
+        Map<String, List<String>> matchBatches;
+        synchronized (state) {
+            if (state.isEmpty()) {
+                return;
+            }
+            urlBatches = state.urlBatches;
+            state.urlBatches = new HashMap<>();
+            matchBatches = state.matchRetries;
+            state.matchRetries = new HashMap<>();
+            if (!state.matchBatch.isEmpty()) {
+                for (String otherId : ring.getNodeIds()) {
+                    if (!otherId.equals(nodeId)) {
+                        matchBatches.computeIfAbsent(otherId, id -> new ArrayList<>()).addAll(state.matchBatch);
+                    }
+                }
+                state.matchBatch = new ArrayList<>();
+            }
+            state.sentCount += urlBatches.size() + matchBatches.size();
+        }
+        for (Map.Entry<String, List<String>> batch : urlBatches.entrySet()) {
+            try {
+                transport.sendUrls(batch.getKey(), searchId, batch.getValue());
+            } catch (IOException e) {
+                logger.warn("Failed to forward {} URLs of search {} to node {}, retrying later",
+                        batch.getValue().size(), searchId, batch.getKey(), e);
+                synchronized (state) {
+                    state.sentCount--;
+                    state.urlBatches.computeIfAbsent(batch.getKey(), id -> new ArrayList<>()).addAll(batch.getValue());
+                }
+            }
+        }
+        for (Map.Entry<String, List<String>> batch : matchBatches.entrySet()) {
+            try {
+                transport.sendMatches(batch.getKey(), searchId, batch.getValue());
+            } catch (IOException e) {
+                logger.warn("Failed to send {} matches of search {} to node {}, retrying later",
+                        batch.getValue().size(), searchId, batch.getKey(), e);
+                synchronized (state) {
+                    state.sentCount--;
+                    state.matchRetries.computeIfAbsent(batch.getKey(), id -> new ArrayList<>()).addAll(batch.getValue());
+                }
+            }
+        }
+    }
+
+    /**
+     * Collects the totals of sent and received messages of a search from every node.
+     * @return The totals, or an empty array if a node is not passive or cannot be reached.
+     */
+    private long[] collectTotals(String searchId) {
+        long sent = 0;
+        long received = 0;
+        for (String id : ring.getNodeIds()) {
+            NodeStatus status;
+            try {
+                status = id.equals(nodeId) ? getStatus(searchId) : transport.getStatus(id, searchId);
+            } catch (IOException e) {
+                logger.warn("Failed to get the status of search {} on node {}", searchId, id, e);
+                return new long[0];
+            }
+            if (!status.isPassive()) {
+                return new long[0];
+            }
+            sent += status.getSentCount();
+            received += status.getReceivedCount();
+        }
+        return new long[] {sent, received};
+    }
+
+    /**
+     * Tells every node, this one included, that a search is finished.
+     */
+    private void finishEverywhere(String searchId) {
+        for (String id : ring.getNodeIds()) {
+            if (id.equals(nodeId)) {
+                onFinishSearch(searchId);
+                continue;
+            }
+            try {
+                transport.finishSearch(id, searchId);
+            } catch (IOException e) {
+                logger.error("Failed to finish search {} on node {}", searchId, id, e);
+            }
+        }
+    }
+
+    /**
+     * Counts a message of a search received from another node, unless the search is already finished.
+     */
+    private void countReceived(String searchId) {
+        SearchState state = searchStates.get(searchId);
+        if (state == null) {
+            return;
+        }
+        synchronized (state) {
+            state.receivedCount++;
+        }
+    }
+
+    /**
+     * The buffered URLs and message counts of a search on this node. Guarded by itself.
+     */
+    private static class SearchState {
+
+        /**
+         * The found URLs to be forwarded, by the ID of their owner.
+         */
+        private Map<String, List<String>> urlBatches = new HashMap<>();
+
+        /**
+         * The matched URLs to be sent to every other node.
+         */
+        private List<String> matchBatch = new ArrayList<>();
+
+        /**
+         * The matched URLs that could not be sent, by the ID of their receiver.
+         */
+        private Map<String, List<String>> matchRetries = new HashMap<>();
+
+        /**
+         * Number of messages of the search sent to, and received from, other nodes.
+         */
+        private long sentCount;
+        private long receivedCount;
+
+        boolean isEmpty() {
+            return urlBatches.isEmpty() && matchBatch.isEmpty() && matchRetries.isEmpty();
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.guerrero.backend.cluster;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Carries the messages between the nodes of a cluster.
+ * Messages from one node to another must be delivered in the order they were sent.
+ */
+public interface ClusterTransport {
+
+    /**
+     * Tells a node to join a search, so it crawls the URLs of the search that it owns.
+     * @param nodeId   The ID of the receiving node.
+     * @param searchId The ID of the search.
+     * @param keyword  The keyword of the search.
+     * @throws IOException if the node cannot be reached.
+     */
+    void startSearch(String nodeId, String searchId, String keyword) throws IOException;
+
+    /**
+     * Sends a batch of found URLs to the node that owns them.
+     * @param nodeId   The ID of the receiving node.
+     * @param searchId The ID of the search.
+     * @param urls     The URLs.
+     * @throws IOException if the node cannot be reached or has not joined the search yet.
+     */
+    void sendUrls(String nodeId, String searchId, List<String> urls) throws IOException;
+
+    /**
+     * Sends a batch of matched URLs to a node, so it has the results of the whole search.
+     * @param nodeId   The ID of the receiving node.
+     * @param searchId The ID of the search.
+     * @param urls     The matched URLs.
+     * @throws IOException if the node cannot be reached or has not joined the search yet.
+     */
+    void sendMatches(String nodeId, String searchId, List<String> urls) throws IOException;
+
+    /**
+     * Gets the state of a search on a node.
+     * @param nodeId   The ID of the node.
+     * @param searchId The ID of the search.
+     * @return The state of the search on the node.
+     * @throws IOException if the node cannot be reached.
+     */
+    NodeStatus getStatus(String nodeId, String searchId) throws IOException;
+
+    /**
+     * Tells a node that a search is finished on every node.
+     * @param nodeId   The ID of the receiving node.
+     * @param searchId The ID of the search.
+     * @throws IOException if the node cannot be reached.
+     */
+    void finishSearch(String nodeId, String searchId) throws IOException;
+}
@@ -0,0 +1,100 @@
+package com.guerrero.backend.cluster;
+
+import com.guerrero.backend.util.VisitedUrlSet;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Assigns each URL to one node of a cluster by consistent hashing.
+ * Every node is placed at several points of a ring of 64-bit hashes, and a URL belongs to the node of the first
+ * point at or after the hash of its normalized form. Adding or removing a node only moves the URLs of its points,
+ * and the virtual points spread the URLs evenly between the nodes.
+ */
+public class HashRing {
+
+    /**
+     * Default number of points of each node on the ring.
+     */
+    public static final int DEFAULT_VIRTUAL_NODES = 128;
+
+    /**
+     * The nodes by the position of their points on the ring.
+     */
+    private final TreeMap<Long, String> ring = new TreeMap<>();
+
+    /**
+     * The IDs of the nodes.
+     */
+    private final List<String> nodeIds;
+
+    /**
+     * Constructs a HashRing with the default number of points per node.
+     * @param nodeIds The IDs of the nodes of the cluster.
+     * @throws IllegalArgumentException if there are no nodes.
+     */
+    public HashRing(Collection<String> nodeIds) {
+        this(nodeIds, DEFAULT_VIRTUAL_NODES);
+    }
+
+    /**
+     * Constructs a HashRing.
+     * @param nodeIds      The IDs of the nodes of the cluster.
+     * @param virtualNodes The number of points of each node on the ring.
+     * @throws IllegalArgumentException if there are no nodes or the number of points is not positive.
+     */
+    public HashRing(Collection<String> nodeIds, int virtualNodes) {
+        if (nodeIds.isEmpty() || virtualNodes <= 0) {
+            throw new IllegalArgumentException("The ring needs at least one node and one point per node.");
+        }
+        this.nodeIds = List.copyOf(nodeIds);
+        for (String nodeId : this.nodeIds) {
+            for (int i = 0; i < virtualNodes; i++) {
+                ring.put(VisitedUrlSet.fingerprint(nodeId + '#' + i), nodeId);
+            }
+        }
+    }
+
+    /**
+     * Gets the node that owns a URL.
+     * @param url The URL.
+     * @return The ID of the owner.
+     */
+    public String ownerOf(String url) {
+        Map.Entry<Long, String> point = ring.ceilingEntry(VisitedUrlSet.fingerprint(normalize(url)));
+        return point != null ? point.getValue() : ring.firstEntry().getValue();
+    }
+
+    /**
+     * Gets the IDs of the nodes of the cluster.
+     * @return The node IDs.
+     */
+    public List<String> getNodeIds() {
+        return nodeIds;
+    }
+
+    /**
+     * Normalizes a URL for hashing, so that the forms of a URL that point to the same page have the same owner:
+     * the scheme and host are lower-cased and the fragment is removed.
+     * @param url The URL.
+     * @return The normalized URL.
+     */
+    static String normalize(String url) {
+        int fragment = url.indexOf('#');
+        if (fragment >= 0) {
+            url = url.substring(0, fragment);
+        }
+        int authority = url.indexOf("://");
+        if (authority < 0) {
+            return url;
+        }
+        int path = url.indexOf('/', authority + 3);
+        if (path < 0) {
+            return url.toLowerCase(Locale.ROOT);
+        }
+        return url.substring(0, path).toLowerCase(Locale.ROOT) + url.substring(path);
+    }
+}
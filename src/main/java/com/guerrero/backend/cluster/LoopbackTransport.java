@@ -0,0 +1,63 @@
+package com.guerrero.backend.cluster;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Carries the messages between nodes running in the same process, by calling the receiving node directly.
+ * Used to run a cluster of several nodes on one machine.
+ */
+public class LoopbackTransport implements ClusterTransport {
+
+    /**
+     * The registered nodes by ID.
+     */
+    private final Map<String, ClusterNode> nodes = new ConcurrentHashMap<>();
+
+    /**
+     * Registers a node, so it receives the messages sent to its ID.
+     * @param node The node.
+     */
+    public void register(ClusterNode node) {
+        nodes.put(node.getNodeId(), node);
+    }
+
+    @Override
+    public void startSearch(String nodeId, String searchId, String keyword) throws IOException {
+        nodeOf(nodeId).onStartSearch(searchId, keyword);
+    }
+
+    @Override
+    public void sendUrls(String nodeId, String searchId, List<String> urls) throws IOException {
+        if (!nodeOf(nodeId).onUrls(searchId, List.copyOf(urls))) {
+            throw new IOException("Node " + nodeId + " has not joined search " + searchId);
+        }
+    }
+
+    @Override
+    public void sendMatches(String nodeId, String searchId, List<String> urls) throws IOException {
+        if (!nodeOf(nodeId).onMatches(searchId, List.copyOf(urls))) {
+            throw new IOException("Node " + nodeId + " has not joined search " + searchId);
+        }
+    }
+
+    @Override
+    public NodeStatus getStatus(String nodeId, String searchId) throws IOException {
+        return nodeOf(nodeId).getStatus(searchId);
+    }
+
+    @Override
+    public void finishSearch(String nodeId, String searchId) throws IOException {
+        nodeOf(nodeId).onFinishSearch(searchId);
+    }
+
+    private ClusterNode nodeOf(String nodeId) throws IOException {
+        ClusterNode node = nodes.get(nodeId);
+        if (node == null) {
+            throw new IOException("Unknown node: " + nodeId);
+        }
+        return node;
+    }
+}
@@ -0,0 +1,54 @@
+package com.guerrero.backend.cluster;
+
+/**
+ * The state of a search on one node, as seen by the node coordinating the search.
+ */
+public class NodeStatus {
+
+    /**
+     * Whether the node has no URL left to process and nothing left to send for the search.
+     */
+    private final boolean passive;
+
+    /**
+     * Number of messages of the search the node has sent to, and received from, other nodes.
+     */
+    private final long sentCount;
+    private final long receivedCount;
+
+    /**
+     * Constructs a NodeStatus.
+     * @param passive       Whether the node has nothing left to do for the search.
+     * @param sentCount     The number of messages of the search sent by the node.
+     * @param receivedCount The number of messages of the search received by the node.
+     */
+    public NodeStatus(boolean passive, long sentCount, long receivedCount) {
+        this.passive = passive;
+        this.sentCount = sentCount;
+        this.receivedCount = receivedCount;
+    }
+
+    /**
+     * Checks if the node has no URL left to process and nothing left to send for the search.
+     * @return true if the node is passive, false otherwise.
+     */
+    public boolean isPassive() {
+        return passive;
+    }
+
+    /**
+     * Gets the number of messages of the search the node has sent to other nodes.
+     * @return The number of sent messages.
+     */
+    public long getSentCount() {
+        return sentCount;
+    }
+
+    /**
+     * Gets the number of messages of the search the node has received from other nodes.
+     * @return The number of received messages.
+     */
+    public long getReceivedCount() {
+        return receivedCount;
+    }
+}
@@ -2,28 +2,41 @@ package com.guerrero.backend.dto;
 
 import com.guerrero.backend.model.Status;
 
-import java.util.Set;
+import java.util.Collection;
 
 /**
  * Represents a response object containing search results.
- * Contains the unique identifier, status, and set of URLs associated with the search result.
+ * Contains the unique identifier, status, and URLs associated with the search result.
  */
 public class ResultsResponse {
 
     String id;
     Status status;
-    Set<String> urls;
+    Collection<String> urls;
+    int next;
 
     /**
-     * Constructs a ResultsResponse object with the provided identifier, status, and set of URLs.
+     * Constructs a ResultsResponse object with the provided identifier, status, and URLs.
      * @param id     The unique identifier associated with the search result.
      * @param status The status of the search result (active or done).
-     * @param urls   The set of URLs associated with the search result.
+     * @param urls   The URLs associated with the search result.
      */
-    public ResultsResponse(String id, Status status, Set<String> urls) {
+    public ResultsResponse(String id, Status status, Collection<String> urls) {
+        this(id, status, urls, urls.size());
+    }
+
+    /**
+     * Constructs a ResultsResponse object with the provided identifier, status, URLs and cursor.
+     * @param id     The unique identifier associated with the search result.
+     * @param status The status of the search result (active or done).
+     * @param urls   The URLs found since the cursor of the request.
+     * @param next   The cursor for the next request, which returns the URLs found after these ones.
+     */
+    public ResultsResponse(String id, Status status, Collection<String> urls, int next) {
         this.id = id;
         this.status = status;
-        this.urls =urls;
+        this.urls = urls;
+        this.next = next;
     }
 
     /**
@@ -43,10 +56,18 @@ public class ResultsResponse {
     }
 
     /**
-     * Gets the set of URLs associated with the search result.
-     * @return The set of URLs.
+     * Gets the URLs associated with the search result.
+     * @return The URLs.
      */
-    public Set<String> getUrls() {
+    public Collection<String> getUrls() {
         return urls;
     }
+
+    /**
+     * Gets the cursor for the next request.
+     * @return The number of URLs found up to the last one of this response.
+     */
+    public int getNext() {
+        return next;
+    }
 }
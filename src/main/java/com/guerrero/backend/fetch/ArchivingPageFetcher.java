@@ -0,0 +1,250 @@
+package com.guerrero.backend.fetch;
+
+import com.guerrero.backend.store.ArchivedPage;
+import com.guerrero.backend.store.PageArchive;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Fetches pages through another fetcher, keeping them in a {@link PageArchive} so recrawls do not download
+ * unchanged pages again. A page already archived is fetched with a conditional request, sending its ETag
+ * in If-None-Match and its Last-Modified date in If-Modified-Since. Only the header of the archived page is read
+ * for that. When the server answers 304 (Not Modified), the archived body is read and verified, and returned
+ * as a 200 response, so the crawler scans it as if it had been downloaded.
+ * Other successful responses with an ETag or a Last-Modified date are archived while the crawler reads them,
+ * once their whole body has been read.
+ */
+public class ArchivingPageFetcher implements PageFetcher {
+
+    /**
+     * Status code of a conditional request whose page has not changed.
+     */
+    private static final int STATUS_NOT_MODIFIED = 304;
+
+    /**
+     * Logger for the pages that cannot be archived.
+     */
+    private static final Logger logger = LoggerFactory.getLogger(ArchivingPageFetcher.class);
+
+    private final PageFetcher delegate;
+    private final PageArchive archive;
+
+    /**
+     * Maximum size of a body kept in the archive. Longer bodies are not archived.
+     */
+    private final long maxBodyBytes;
+
+    /**
+     * Archive statistics.
+     */
+    private final LongAdder revalidated = new LongAdder();
+    private final LongAdder archived = new LongAdder();
+
+    /**
+     * Constructs an ArchivingPageFetcher.
+     * @param delegate     The fetcher of the pages.
+     * @param archive      The archive of the fetched pages.
+     * @param maxBodyBytes The maximum size of a body kept in the archive.
+     * @throws IllegalArgumentException if the size is not positive.
+     */
+    public ArchivingPageFetcher(PageFetcher delegate, PageArchive archive, long maxBodyBytes) {
+        if (maxBodyBytes <= 0) {
+            throw new IllegalArgumentException("The maximum body size must be positive.");
+        }
+        this.delegate = delegate;
+        this.archive = archive;
+        this.maxBodyBytes = maxBodyBytes;
+    }
+
+    @Override
+    public FetchResponse fetch(String url, Map<String, String> headers) throws IOException {
+        PageArchive.Header archivedHeader = archive.readHeader(url);
+        Map<String, String> requestHeaders = headers;
+        if (archivedHeader != null && archivedHeader.hasValidators()) {
+            requestHeaders = new HashMap<>(headers);
+            if (archivedHeader.getEtag() != null) {
+                requestHeaders.put("If-None-Match", archivedHeader.getEtag());
+            }
+            if (archivedHeader.getLastModified() != null) {
+                requestHeaders.put("If-Modified-Since", archivedHeader.getLastModified());
+            }
+        }
+        FetchResponse response = delegate.fetch(url, requestHeaders);
+        if (response.getStatusCode() == STATUS_NOT_MODIFIED && archivedHeader != null) {
+            response.close();
+            ArchivedPage archivedPage = archive.read(url);
+            if (archivedPage != null && Arrays.equals(archivedPage.getContentHash(), archivedHeader.getContentHash())) {
+                revalidated.increment();
+                return fromArchive(archivedPage, response);
+            }
+            // The archived page was replaced or damaged since its header was read, so it is fetched again in full
+            archivedHeader = null;
+            response = delegate.fetch(url, headers);
+        }
+        if (!response.isSuccessful() || response.isRedirected()
+                || (response.getHeader("ETag") == null && response.getHeader("Last-Modified") == null)) {
+            return response;
+        }
+        FetchResponse fetched = response;
+        InputStream body = new ArchivingInputStream(fetched, archivedHeader);
+        return new FetchResponse(fetched.getUrl(), fetched.getFinalUrl(), fetched.getStatusCode(),
+                fetched.getHeaders(), body, () -> {
+            try {
+                fetched.close();
+            } catch (IOException e) {
+                logger.debug("Failed to close the response of URL {}", url, e);
+            }
+        });
+    }
+
+    /**
+     * Gets the number of fetches answered from the archive, because the page had not changed.
+     * @return The number of revalidated pages.
+     */
+    public long getRevalidatedCount() {
+        return revalidated.sum();
+    }
+
+    /**
+     * Gets the number of pages written to the archive.
+     * @return The number of archived pages.
+     */
+    public long getArchivedCount() {
+        return archived.sum();
+    }
+
+    /**
+     * Builds the response of an unchanged page from its archived version.
+     * The validators of the 304 response replace the archived ones, as they may have been updated.
+     */
+    private static FetchResponse fromArchive(ArchivedPage page, FetchResponse notModified) {
+        Map<String, List<String>> headers = new HashMap<>();
+        putHeader(headers, "Content-Type", page.getContentType());
+        String etag = notModified.getHeader("ETag");
+        putHeader(headers, "ETag", etag != null ? etag : page.getEtag());
+        String lastModified = notModified.getHeader("Last-Modified");
+        putHeader(headers, "Last-Modified", lastModified != null ? lastModified : page.getLastModified());
+        return new FetchResponse(notModified.getUrl(), notModified.getUrl(), FetchResponse.STATUS_OK, headers,
+                new ByteArrayInputStream(page.getBody()), () -> { });
+    }
+
+    private static void putHeader(Map<String, List<String>> headers, String name, String value) {
+        if (value != null) {
+            headers.put(name, List.of(value));
+        }
+    }
+
+    /**
+     * Copies a body into a buffer while it is read, and archives it when it is closed after being read to the end.
+     */
+    private class ArchivingInputStream extends FilterInputStream {
+
+        /**
+         * The response being read, whose headers are archived with the body.
+         */
+        private final FetchResponse response;
+
+        /**
+         * The header of the previous version of the page, or null if it was not archived.
+         */
+        private final PageArchive.Header previousPage;
+
+        /**
+         * The bytes read so far, or null once the body is longer than the maximum.
+         */
+        private ByteArrayOutputStream copy = new ByteArrayOutputStream();
+
+        /**
+         * Whether the end of the body was reached.
+         */
+        private boolean complete;
+
+        ArchivingInputStream(FetchResponse response, PageArchive.Header previousPage) {
+            super(response.getBody());
+            this.response = response;
+            this.previousPage = previousPage;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int value = super.read();
+            if (value < 0) {
+                complete = true;
+            } else if (copy != null) {
+                copy.write(value);
+                checkSize();
+            }
+            return value;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int count = super.read(buffer, offset, length);
+            if (count < 0) {
+                complete = true;
+            } else if (copy != null) {
+                copy.write(buffer, offset, count);
+                checkSize();
+            }
+            return count;
+        }
+
+        @Override
+        public long skip(long count) throws IOException {
+            // Skipped bytes are not copied, so the body cannot be archived
+            copy = null;
+            return super.skip(count);
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+
+        @Override
+        public void close() throws IOException {
+            super.close();
+            if (complete && copy != null) {
+                archive(copy.toByteArray());
+                copy = null;
+            }
+        }
+
+        private void checkSize() {
+            if (copy.size() > maxBodyBytes) {
+                copy = null;
+            }
+        }
+
+        /**
+         * Archives the body, unless the archive already has it with the same validators.
+         */
+        private void archive(byte[] body) {
+            ArchivedPage page = new ArchivedPage(response.getUrl(), response.getHeader("ETag"),
+                    response.getHeader("Last-Modified"), response.getHeader("Content-Type"), body);
+            if (previousPage != null && Arrays.equals(previousPage.getContentHash(), page.getContentHash())
+                    && Objects.equals(previousPage.getEtag(), page.getEtag())
+                    && Objects.equals(previousPage.getLastModified(), page.getLastModified())) {
+                return;
+            }
+            try {
+                archive.write(page);
+                archived.increment();
+            } catch (IOException e) {
+                logger.warn("Failed to archive the page {}: {}", response.getUrl(), e.toString());
+            }
+        }
+    }
+}
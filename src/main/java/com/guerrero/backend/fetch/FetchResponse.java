@@ -0,0 +1,168 @@
+package com.guerrero.backend.fetch;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.IllegalCharsetNameException;
+import java.nio.charset.UnsupportedCharsetException;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Represents the response to a page fetch.
+ * Contains the status code, the headers, the URL the page was finally fetched from after redirects,
+ * and the decoded body as a stream.
+ */
+public class FetchResponse implements Closeable {
+
+    /**
+     * Status code used for schemes without status codes, such as file URLs.
+     */
+    public static final int STATUS_OK = 200;
+
+    private final String url;
+    private final String finalUrl;
+    private final int statusCode;
+    private final Map<String, List<String>> headers;
+    private final InputStream body;
+    private final Runnable onClose;
+
+    /**
+     * Constructs a FetchResponse.
+     * @param url        The requested URL.
+     * @param finalUrl   The URL the response came from, after following redirects.
+     * @param statusCode The status code of the response.
+     * @param headers    The response headers.
+     * @param body       The decoded body of the response.
+     * @param onClose    Runs when the response is closed, after the body is closed.
+     */
+    public FetchResponse(String url, String finalUrl, int statusCode, Map<String, List<String>> headers,
+                         InputStream body, Runnable onClose) {
+        this.url = url;
+        this.finalUrl = finalUrl;
+        this.statusCode = statusCode;
+        this.headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        this.headers.putAll(headers);
+        this.body = body;
+        this.onClose = onClose;
+    }
+
+    /**
+     * Gets the requested URL.
+     * @return The URL passed to the fetcher.
+     */
+    public String getUrl() {
+        return url;
+    }
+
+    /**
+     * Gets the URL the response came from, which differs from the requested URL after a redirect.
+     * @return The final URL.
+     */
+    public String getFinalUrl() {
+        return finalUrl;
+    }
+
+    /**
+     * Checks if the request was redirected.
+     * @return true if the final URL differs from the requested URL, false otherwise.
+     */
+    public boolean isRedirected() {
+        return !url.equals(finalUrl);
+    }
+
+    /**
+     * Gets the status code of the response.
+     * @return The status code.
+     */
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+    /**
+     * Checks if the status code is in the 2xx range.
+     * @return true for a successful response, false otherwise.
+     */
+    public boolean isSuccessful() {
+        return statusCode >= 200 && statusCode < 300;
+    }
+
+    /**
+     * Gets the first value of a response header.
+     * @param name The name of the header, in any case.
+     * @return The value, or null if the header is absent.
+     */
+    public String getHeader(String name) {
+        List<String> values = headers.get(name);
+        return values == null || values.isEmpty() ? null : values.get(0);
+    }
+
+    /**
+     * Gets all the response headers.
+     * @return The headers, with case-insensitive names.
+     */
+    public Map<String, List<String>> getHeaders() {
+        return headers;
+    }
+
+    /**
+     * Checks if the body is text that may hold HTML, based on the Content-Type header.
+     * Responses without a Content-Type are assumed to be text.
+     * @return true if the body should be scanned, false for images, archives and other binary content.
+     */
+    public boolean isText() {
+        String contentType = getHeader("Content-Type");
+        if (contentType == null) {
+            return true;
+        }
+        String mediaType = contentType.toLowerCase(Locale.ROOT);
+        return mediaType.startsWith("text/") || mediaType.contains("html") || mediaType.contains("xml");
+    }
+
+    /**
+     * Gets the charset of the body from the Content-Type header.
+     * @param defaultCharset The charset used when the header has none or an unknown one.
+     * @return The charset of the body.
+     */
+    public Charset getCharset(Charset defaultCharset) {
+        String contentType = getHeader("Content-Type");
+        if (contentType == null) {
+            return defaultCharset;
+        }
+        for (String parameter : contentType.split(";")) {
+            String[] nameAndValue = parameter.trim().split("=", 2);
+            if (nameAndValue.length == 2 && nameAndValue[0].trim().equalsIgnoreCase("charset")) {
+                try {
+                    return Charset.forName(nameAndValue[1].trim().replace("\"", ""));
+                } catch (IllegalCharsetNameException | UnsupportedCharsetException e) {
+                    return defaultCharset;
+                }
+            }
+        }
+        return defaultCharset;
+    }
+
+    /**
+     * Gets the body of the response, already decoded from any content encoding.
+     * @return The body stream.
+     */
+    public InputStream getBody() {
+        return body;
+    }
+
+    /**
+     * Closes the body and releases the connection.
+     * @throws IOException if the body cannot be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            body.close();
+        } finally {
+            onClose.run();
+        }
+    }
+}
@@ -0,0 +1,244 @@
+package com.guerrero.backend.fetch;
+
+import java.io.InterruptedIOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Limits the fetches sent to one host, adapting to how fast the host can serve them.
+ * The number of concurrent fetches follows AIMD: it grows by about one per round of successful fetches and
+ * is cut when the host slows down, fails or asks the crawler to back off. The host is considered slow when the
+ * latency of a fetch exceeds a multiple of the lowest latency seen recently. A token bucket additionally caps the
+ * rate of fetches, and a Retry-After from the host pauses all its fetches until the given time.
+ */
+public class HostThrottle {
+
+    /**
+     * Factor applied to the concurrency limit when the host fails or asks to back off, and when it slows down.
+     */
+    private static final double FAILURE_DECREASE = 0.5;
+    private static final double LATENCY_DECREASE = 0.9;
+
+    /**
+     * Latency, as a multiple of the lowest recent latency, above which the host is considered slow.
+     */
+    private static final double LATENCY_TOLERANCE = 2.0;
+
+    /**
+     * Latency always tolerated above the limit, so the jitter of very fast hosts is not taken for a slowdown.
+     */
+    private static final long LATENCY_SLACK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    /**
+     * Number of fetches over which the lowest latency is measured, so the baseline follows changes of the host.
+     */
+    private static final int LATENCY_WINDOW = 100;
+
+    /**
+     * Lock guarding the state of the throttle, and condition on which fetches wait for a free slot or token.
+     * A lock is used instead of a monitor so that fetches waiting on virtual threads do not pin their carrier threads.
+     */
+    private final Lock lock = new ReentrantLock();
+    private final Condition slotAvailable = lock.newCondition();
+
+    /**
+     * Limits of the concurrency.
+     */
+    private final int minConcurrency;
+    private final int maxConcurrency;
+
+    /**
+     * Maximum fetches per second, or 0 for no limit, and the tokens of the bucket.
+     */
+    private final double maxRatePerSecond;
+    private double tokens;
+    private long lastRefillNanos = System.nanoTime();
+
+    /**
+     * Current number of concurrent fetches allowed, and number of fetches in flight.
+     */
+    private double concurrencyLimit;
+    private int inFlight;
+
+    /**
+     * Lowest latency of the last complete window, of the current window, and number of fetches in the current window.
+     */
+    private long baselineLatencyNanos = Long.MAX_VALUE;
+    private long windowMinLatencyNanos = Long.MAX_VALUE;
+    private int windowCount;
+
+    /**
+     * Smoothed latency, used as the minimum time between two decreases so that one burst of failures
+     * cuts the limit once.
+     */
+    private long smoothedLatencyNanos;
+    private long lastDecreaseNanos;
+
+    /**
+     * Time before which no fetch is sent to the host, after a Retry-After.
+     */
+    private long pausedUntilNanos = System.nanoTime();
+
+    /**
+     * Constructs a HostThrottle.
+     * @param initialConcurrency The number of concurrent fetches allowed at first.
+     * @param maxConcurrency     The maximum number of concurrent fetches.
+     * @param maxRatePerSecond   The maximum number of fetches per second, or 0 for no limit.
+     * @throws IllegalArgumentException if the concurrency is not positive, the initial one exceeds the maximum,
+     *                                  or the rate is negative.
+     */
+    public HostThrottle(int initialConcurrency, int maxConcurrency, double maxRatePerSecond) {
+        if (initialConcurrency < 1 || initialConcurrency > maxConcurrency || maxRatePerSecond < 0) {
+            throw new IllegalArgumentException("The concurrency must be between 1 and the maximum, and the rate must not be negative.");
+        }
+        this.minConcurrency = 1;
+        this.maxConcurrency = maxConcurrency;
+        this.maxRatePerSecond = maxRatePerSecond;
+        this.tokens = Math.max(1, maxRatePerSecond);
+        this.concurrencyLimit = initialConcurrency;
+    }
+
+    /**
+     * Waits until a fetch may be sent: the host is not paused, a concurrency slot is free and a token is available.
+     * Every call must be followed by one call to {@link #release()}.
+     * @throws InterruptedIOException if the thread is interrupted while waiting.
+     */
+    public void acquire() throws InterruptedIOException {
+        lock.lock();
+        try {
+            while (true) {
+                long now = System.nanoTime();
+                long waitNanos = pausedUntilNanos - now;
+                if (waitNanos <= 0 && inFlight >= (int) concurrencyLimit) {
+                    slotAvailable.await();
+                    continue;
+                }
+                if (waitNanos <= 0 && maxRatePerSecond > 0) {
+                    refill(now);
+                    waitNanos = tokens >= 1 ? 0 : (long) ((1 - tokens) / maxRatePerSecond * TimeUnit.SECONDS.toNanos(1));
+                }
+                if (waitNanos <= 0) {
+                    break;
+                }
+                slotAvailable.awaitNanos(waitNanos);
+            }
+            if (maxRatePerSecond > 0) {
+                tokens--;
+            }
+            inFlight++;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for the host");
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Frees the concurrency slot of a fetch.
+     */
+    public void release() {
+        lock.lock();
+        try {
+            inFlight--;
+            slotAvailable.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Records a successful fetch, increasing the limit unless its latency shows the host is slowing down.
+     * @param latencyNanos The time until the response headers were received.
+     */
+    public void onSuccess(long latencyNanos) {
+        lock.lock();
+        try {
+            recordLatency(latencyNanos);
+            if (latencyNanos > LATENCY_TOLERANCE * baselineLatencyNanos + LATENCY_SLACK_NANOS) {
+                decrease(LATENCY_DECREASE);
+            } else {
+                int previousLimit = (int) concurrencyLimit;
+                concurrencyLimit = Math.min(maxConcurrency, concurrencyLimit + 1 / concurrencyLimit);
+                if ((int) concurrencyLimit > previousLimit) {
+                    slotAvailable.signalAll();
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Records a fetch that failed or was refused by the host, cutting the limit.
+     * @param retryAfterNanos How long the host asked to wait before the next fetch, or 0.
+     */
+    public void onFailure(long retryAfterNanos) {
+        lock.lock();
+        try {
+            decrease(FAILURE_DECREASE);
+            long pausedUntil = System.nanoTime() + retryAfterNanos;
+            if (retryAfterNanos > 0 && pausedUntil - pausedUntilNanos > 0) {
+                pausedUntilNanos = pausedUntil;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Gets the current number of concurrent fetches allowed.
+     * @return The concurrency limit.
+     */
+    public int getConcurrencyLimit() {
+        lock.lock();
+        try {
+            return (int) concurrencyLimit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Gets the number of fetches in flight.
+     * @return The number of fetches between acquire and release.
+     */
+    public int getInFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Cuts the concurrency limit, at most once per smoothed latency.
+     */
+    private void decrease(double factor) {
+        long now = System.nanoTime();
+        if (lastDecreaseNanos != 0 && now - lastDecreaseNanos < smoothedLatencyNanos) {
+            return;
+        }
+        lastDecreaseNanos = now;
+        concurrencyLimit = Math.max(minConcurrency, concurrencyLimit * factor);
+    }
+
+    private void recordLatency(long latencyNanos) {
+        smoothedLatencyNanos = smoothedLatencyNanos == 0 ? latencyNanos : (smoothedLatencyNanos * 7 + latencyNanos) / 8;
+        windowMinLatencyNanos = Math.min(windowMinLatencyNanos, latencyNanos);
+        baselineLatencyNanos = Math.min(baselineLatencyNanos, latencyNanos);
+        if (++windowCount == LATENCY_WINDOW) {
+            baselineLatencyNanos = windowMinLatencyNanos;
+            windowMinLatencyNanos = Long.MAX_VALUE;
+            windowCount = 0;
+        }
+    }
+
+    private void refill(long now) {
+        tokens = Math.min(Math.max(1, maxRatePerSecond), tokens + (now - lastRefillNanos) * maxRatePerSecond / TimeUnit.SECONDS.toNanos(1));
+        lastRefillNanos = now;
+    }
+}
@@ -0,0 +1,152 @@
+package com.guerrero.backend.fetch;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Fetches pages with the JDK HTTP client.
+ * The client keeps a pool of connections per host, uses HTTP/2 with multiplexing when the server supports it,
+ * follows redirects and asks for gzip or deflate compressed bodies, which are decoded transparently.
+ * Every fetch is bounded by a connect timeout, a timeout for the response headers and a timeout for
+ * reading the whole body, so a stalled server cannot hang a crawl.
+ * URLs with other schemes than http and https are fetched with a {@link UrlStreamPageFetcher}.
+ */
+public class HttpClientPageFetcher implements PageFetcher {
+
+    /**
+     * Default timeouts.
+     */
+    public static final Duration DEFAULT_CONNECT_TIMEOUT = Duration.ofSeconds(5);
+    public static final Duration DEFAULT_RESPONSE_TIMEOUT = Duration.ofSeconds(10);
+    public static final Duration DEFAULT_BODY_TIMEOUT = Duration.ofSeconds(30);
+
+    /**
+     * Value of the User-Agent request header.
+     */
+    private static final String USER_AGENT = "guerrero-webcrawler/1.0";
+
+    /**
+     * Closes the bodies that take longer than the body timeout to be read. Shared by all the fetchers.
+     */
+    private static final ScheduledExecutorService BODY_TIMEOUTS = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "fetch-body-timeouts");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final HttpClient httpClient;
+    private final Duration responseTimeout;
+    private final Duration bodyTimeout;
+    private final PageFetcher fallbackFetcher = new UrlStreamPageFetcher();
+
+    /**
+     * Constructs an HttpClientPageFetcher with the default timeouts and HTTP/2 enabled.
+     */
+    public HttpClientPageFetcher() {
+        this(DEFAULT_CONNECT_TIMEOUT, DEFAULT_RESPONSE_TIMEOUT, DEFAULT_BODY_TIMEOUT, true);
+    }
+
+    /**
+     * Constructs an HttpClientPageFetcher.
+     * @param connectTimeout  The maximum time to open a connection.
+     * @param responseTimeout The maximum time from sending a request to receiving the response headers.
+     * @param bodyTimeout     The maximum time to read a response body, after the headers were received.
+     * @param http2           Whether to negotiate HTTP/2. When false, HTTP/1.1 with keep-alive is used.
+     */
+    public HttpClientPageFetcher(Duration connectTimeout, Duration responseTimeout, Duration bodyTimeout, boolean http2) {
+        this.httpClient = HttpClient.newBuilder()
+                .version(http2 ? HttpClient.Version.HTTP_2 : HttpClient.Version.HTTP_1_1)
+                .connectTimeout(connectTimeout)
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .build();
+        this.responseTimeout = responseTimeout;
+        this.bodyTimeout = bodyTimeout;
+    }
+
+    @Override
+    public FetchResponse fetch(String url, Map<String, String> headers) throws IOException {
+        URI uri;
+        try {
+            uri = new URI(url);
+        } catch (URISyntaxException e) {
+            throw new IOException("Invalid URL: " + url, e);
+        }
+        String scheme = uri.getScheme() == null ? "" : uri.getScheme().toLowerCase(Locale.ROOT);
+        if (!scheme.equals("http") && !scheme.equals("https")) {
+            return fallbackFetcher.fetch(url, headers);
+        }
+
+        HttpRequest.Builder request = HttpRequest.newBuilder(uri)
+                .timeout(responseTimeout)
+                .header("Accept-Encoding", "gzip, deflate")
+                .header("User-Agent", USER_AGENT)
+                .GET();
+        headers.forEach(request::header);
+
+        HttpResponse<InputStream> response;
+        try {
+            response = httpClient.send(request.build(), HttpResponse.BodyHandlers.ofInputStream());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while fetching " + url);
+        }
+
+        InputStream rawBody = response.body();
+        ScheduledFuture<?> bodyTimeoutTask = BODY_TIMEOUTS.schedule(() -> closeQuietly(rawBody),
+                bodyTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        InputStream body = rawBody;
+        try {
+            if (response.statusCode() != 204 && response.statusCode() != 304) {
+                body = decode(rawBody, response.headers().firstValue("Content-Encoding").orElse(""));
+            }
+        } catch (IOException e) {
+            bodyTimeoutTask.cancel(false);
+            closeQuietly(rawBody);
+            throw e;
+        }
+        return new FetchResponse(url, response.uri().toString(), response.statusCode(),
+                response.headers().map(), body, () -> bodyTimeoutTask.cancel(false));
+    }
+
+    /**
+     * Wraps the body in a decoder for its content encoding.
+     * @param body            The body as received.
+     * @param contentEncoding The value of the Content-Encoding header, or an empty string.
+     * @return The decoded body.
+     * @throws IOException if the body cannot be decoded.
+     */
+    private static InputStream decode(InputStream body, String contentEncoding) throws IOException {
+        switch (contentEncoding.trim().toLowerCase(Locale.ROOT)) {
+            case "gzip":
+            case "x-gzip":
+                return new GZIPInputStream(body);
+            case "deflate":
+                return new InflaterInputStream(body);
+            default:
+                return body;
+        }
+    }
+
+    private static void closeQuietly(InputStream input) {
+        try {
+            input.close();
+        } catch (IOException ignored) {
+            // The body is abandoned anyway
+        }
+    }
+}
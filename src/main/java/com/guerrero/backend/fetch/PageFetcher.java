@@ -0,0 +1,30 @@
+package com.guerrero.backend.fetch;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Fetches the pages visited by the crawler.
+ * Implementations must be thread-safe, since they are shared by all the crawl workers.
+ */
+public interface PageFetcher {
+
+    /**
+     * Fetches the page at the given URL.
+     * @param url The URL of the page.
+     * @return The response, whose body must be closed by the caller.
+     * @throws IOException if the page cannot be fetched.
+     */
+    default FetchResponse fetch(String url) throws IOException {
+        return fetch(url, Map.of());
+    }
+
+    /**
+     * Fetches the page at the given URL with additional request headers.
+     * @param url     The URL of the page.
+     * @param headers The request headers to be sent, which may be ignored by schemes without headers.
+     * @return The response, whose body must be closed by the caller.
+     * @throws IOException if the page cannot be fetched.
+     */
+    FetchResponse fetch(String url, Map<String, String> headers) throws IOException;
+}
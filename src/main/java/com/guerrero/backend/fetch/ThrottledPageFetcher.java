@@ -0,0 +1,196 @@
+package com.guerrero.backend.fetch;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Fetches pages through another fetcher, limiting the fetches sent to each host with a {@link HostThrottle}.
+ * Responses with status 429 (Too Many Requests) or 503 (Service Unavailable) cut the concurrency of their host
+ * and are retried, after the delay of their Retry-After header or else after an exponential backoff.
+ * A fetch holds a concurrency slot of its host until its response is closed.
+ */
+public class ThrottledPageFetcher implements PageFetcher {
+
+    /**
+     * Default settings of the throttles.
+     */
+    public static final int DEFAULT_INITIAL_CONCURRENCY = 4;
+    public static final int DEFAULT_MAX_CONCURRENCY = 64;
+    public static final int DEFAULT_MAX_RETRIES = 3;
+
+    /**
+     * Status codes by which a host asks the crawler to slow down.
+     */
+    private static final int STATUS_TOO_MANY_REQUESTS = 429;
+    private static final int STATUS_SERVICE_UNAVAILABLE = 503;
+
+    /**
+     * Delay before the first retry without Retry-After, doubled for each further retry.
+     */
+    private static final Duration INITIAL_BACKOFF = Duration.ofSeconds(1);
+
+    /**
+     * Longest Retry-After honored, so a host cannot stall a crawl for hours.
+     */
+    private static final Duration MAX_RETRY_AFTER = Duration.ofMinutes(2);
+
+    /**
+     * Logger for the retried fetches.
+     */
+    private static final Logger logger = LoggerFactory.getLogger(ThrottledPageFetcher.class);
+
+    private final PageFetcher delegate;
+    private final int initialConcurrency;
+    private final int maxConcurrency;
+    private final double maxRatePerSecond;
+    private final int maxRetries;
+
+    /**
+     * The throttles by host and port.
+     */
+    private final Map<String, HostThrottle> throttles = new ConcurrentHashMap<>();
+
+    /**
+     * Constructs a ThrottledPageFetcher.
+     * @param delegate           The fetcher of the pages.
+     * @param initialConcurrency The number of concurrent fetches allowed to a host at first.
+     * @param maxConcurrency     The maximum number of concurrent fetches to a host.
+     * @param maxRatePerSecond   The maximum number of fetches per second to a host, or 0 for no limit.
+     * @param maxRetries         The maximum number of retries of a fetch refused with status 429 or 503.
+     * @throws IllegalArgumentException if a limit is not valid.
+     */
+    public ThrottledPageFetcher(PageFetcher delegate, int initialConcurrency, int maxConcurrency,
+                                double maxRatePerSecond, int maxRetries) {
+        if (initialConcurrency < 1 || initialConcurrency > maxConcurrency || maxRatePerSecond < 0 || maxRetries < 0) {
+            throw new IllegalArgumentException("The concurrency must be between 1 and the maximum, "
+                    + "and the rate and the number of retries must not be negative.");
+        }
+        this.delegate = delegate;
+        this.initialConcurrency = initialConcurrency;
+        this.maxConcurrency = maxConcurrency;
+        this.maxRatePerSecond = maxRatePerSecond;
+        this.maxRetries = maxRetries;
+    }
+
+    @Override
+    public FetchResponse fetch(String url, Map<String, String> headers) throws IOException {
+        HostThrottle throttle = throttles.computeIfAbsent(hostOf(url),
+                host -> new HostThrottle(initialConcurrency, maxConcurrency, maxRatePerSecond));
+        for (int attempt = 0; ; attempt++) {
+            throttle.acquire();
+            FetchResponse response;
+            long startNanos = System.nanoTime();
+            try {
+                response = delegate.fetch(url, headers);
+            } catch (IOException | RuntimeException e) {
+                if (!(e instanceof InterruptedIOException)) {
+                    throttle.onFailure(0);
+                }
+                throttle.release();
+                throw e;
+            }
+            int statusCode = response.getStatusCode();
+            if (statusCode != STATUS_TOO_MANY_REQUESTS && statusCode != STATUS_SERVICE_UNAVAILABLE) {
+                if (statusCode >= 500) {
+                    throttle.onFailure(0);
+                } else {
+                    throttle.onSuccess(System.nanoTime() - startNanos);
+                }
+                return releasingOnClose(response, throttle);
+            }
+            Duration retryAfter = parseRetryAfter(response.getHeader("Retry-After"));
+            if (retryAfter == null) {
+                retryAfter = INITIAL_BACKOFF.multipliedBy(1L << Math.min(attempt, 16));
+            }
+            retryAfter = retryAfter.compareTo(MAX_RETRY_AFTER) > 0 ? MAX_RETRY_AFTER : retryAfter;
+            throttle.onFailure(retryAfter.toNanos());
+            if (attempt == maxRetries) {
+                logger.warn("Giving up on URL {} after {} retries: HTTP status {}", url, maxRetries, statusCode);
+                return releasingOnClose(response, throttle);
+            }
+            logger.warn("HTTP status {} for URL {}, retrying in {} ms", statusCode, url, retryAfter.toMillis());
+            try {
+                response.close();
+            } finally {
+                throttle.release();
+            }
+        }
+    }
+
+    /**
+     * Gets the throttle of a host, to inspect its current limits.
+     * @param url A URL of the host.
+     * @return The throttle, or null if no page of the host was fetched.
+     */
+    public HostThrottle getThrottle(String url) {
+        return throttles.get(hostOf(url));
+    }
+
+    /**
+     * Parses a Retry-After header, which holds either a number of seconds or an HTTP date.
+     * @param value The value of the header, or null.
+     * @return The delay, or null if the header is absent or not valid.
+     */
+    static Duration parseRetryAfter(String value) {
+        if (value == null) {
+            return null;
+        }
+        value = value.trim();
+        try {
+            return Duration.ofSeconds(Math.max(0, Long.parseLong(value)));
+        } catch (NumberFormatException e) {
+            // Not a number of seconds, try an HTTP date
+        }
+        try {
+            Duration delay = Duration.between(ZonedDateTime.now(), ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME));
+            return delay.isNegative() ? Duration.ZERO : delay;
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Wraps a response so that closing it also frees the concurrency slot of its fetch.
+     */
+    private static FetchResponse releasingOnClose(FetchResponse response, HostThrottle throttle) {
+        AtomicBoolean released = new AtomicBoolean();
+        return new FetchResponse(response.getUrl(), response.getFinalUrl(), response.getStatusCode(),
+                response.getHeaders(), response.getBody(), () -> {
+            try {
+                response.close();
+            } catch (IOException e) {
+                logger.debug("Failed to close the response of URL {}", response.getUrl(), e);
+            } finally {
+                if (released.compareAndSet(false, true)) {
+                    throttle.release();
+                }
+            }
+        });
+    }
+
+    /**
+     * Gets the host and port of a URL, in lower case.
+     * @return The host and port, or an empty string for URLs without a host.
+     */
+    private static String hostOf(String url) {
+        try {
+            URL parsed = new URL(url);
+            return parsed.getHost().toLowerCase(Locale.ROOT) + ':' + parsed.getPort();
+        } catch (MalformedURLException e) {
+            return "";
+        }
+    }
+}
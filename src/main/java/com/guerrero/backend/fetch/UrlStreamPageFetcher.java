@@ -0,0 +1,20 @@
+package com.guerrero.backend.fetch;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.util.Map;
+
+/**
+ * Fetches pages with {@link URL#openStream()}.
+ * Used for the schemes the HTTP client does not handle, such as file URLs.
+ * Request headers are ignored and every response that can be opened has status 200.
+ */
+public class UrlStreamPageFetcher implements PageFetcher {
+
+    @Override
+    public FetchResponse fetch(String url, Map<String, String> headers) throws IOException {
+        InputStream body = new URL(url).openStream();
+        return new FetchResponse(url, url, FetchResponse.STATUS_OK, Map.of(), body, () -> { });
+    }
+}
@@ -0,0 +1,173 @@
+package com.guerrero.backend.index;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * An immutable inverted index of the pages of a site.
+ * Maps each term found on the pages to the list of pages that contain it.
+ * A term is a maximal sequence of letters, digits and underscores, in lower case,
+ * which matches the word boundaries used by the keyword search.
+ */
+public class InvertedIndex {
+
+    /**
+     * The URL of each page, by page identifier.
+     */
+    private final List<String> pageUrls;
+
+    /**
+     * The posting list of each term.
+     */
+    private final Map<String, PostingList> postings;
+
+    /**
+     * When the index was built, in milliseconds since the epoch.
+     */
+    private final long builtAt;
+
+    private InvertedIndex(List<String> pageUrls, Map<String, PostingList> postings, long builtAt) {
+        this.pageUrls = pageUrls;
+        this.postings = postings;
+        this.builtAt = builtAt;
+    }
+
+    /**
+     * Checks if a keyword can be answered by the index, which is the case when it is a single term.
+     * @param keyword The keyword to be checked.
+     * @return true if the keyword is a single term, false otherwise.
+     */
+    public static boolean isIndexable(String keyword) {
+        if (keyword.isEmpty()) {
+            return false;
+        }
+        for (int i = 0; i < keyword.length(); i++) {
+            if (!isTermChar(keyword.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Finds the pages that contain a keyword.
+     * @param keyword The keyword, which must be a single term.
+     * @return The URLs of the pages containing the keyword.
+     * @throws IllegalArgumentException if the keyword is not a single term.
+     */
+    public List<String> findUrls(String keyword) {
+        if (!isIndexable(keyword)) {
+            throw new IllegalArgumentException("Only single-term keywords can be searched in the index.");
+        }
+        PostingList postingList = postings.get(keyword.toLowerCase());
+        if (postingList == null) {
+            return Collections.emptyList();
+        }
+        int[] pageIds = postingList.toArray();
+        List<String> urls = new ArrayList<>(pageIds.length);
+        for (int pageId : pageIds) {
+            urls.add(pageUrls.get(pageId));
+        }
+        return urls;
+    }
+
+    /**
+     * Gets the number of indexed pages.
+     * @return The number of pages.
+     */
+    public int getPageCount() {
+        return pageUrls.size();
+    }
+
+    /**
+     * Gets the number of distinct terms.
+     * @return The number of terms.
+     */
+    public int getTermCount() {
+        return postings.size();
+    }
+
+    /**
+     * Gets the number of bytes used by the encoded posting lists.
+     * @return The size of the posting lists.
+     */
+    public long getPostingsSizeInBytes() {
+        long size = 0;
+        for (PostingList postingList : postings.values()) {
+            size += postingList.getSizeInBytes();
+        }
+        return size;
+    }
+
+    /**
+     * Gets when the index was built.
+     * @return The build time in milliseconds since the epoch.
+     */
+    public long getBuiltAt() {
+        return builtAt;
+    }
+
+    private static boolean isTermChar(char c) {
+        return Character.isLetterOrDigit(c) || c == '_';
+    }
+
+    /**
+     * Collects the pages of a crawl into an InvertedIndex.
+     * Pages may be added concurrently by several crawl workers.
+     */
+    public static class Builder {
+
+        private final List<String> pageUrls = new ArrayList<>();
+        private final Map<String, PostingList> postings = new HashMap<>();
+
+        /**
+         * Tokenizes a page and adds it to the index.
+         * @param url     The URL of the page.
+         * @param rawHTML The content of the page.
+         */
+        public void addPage(String url, String rawHTML) {
+            Set<String> terms = tokenize(rawHTML);
+            synchronized (this) {
+                int pageId = pageUrls.size();
+                pageUrls.add(url);
+                for (String term : terms) {
+                    postings.computeIfAbsent(term, key -> new PostingList()).add(pageId);
+                }
+            }
+        }
+
+        /**
+         * Builds the index. The builder must not be used afterwards.
+         * @return The InvertedIndex with every page added.
+         */
+        public synchronized InvertedIndex build() {
+            postings.values().forEach(PostingList::trim);
+            return new InvertedIndex(pageUrls, postings, System.currentTimeMillis());
+        }
+
+        /**
+         * Splits the content of a page into its distinct terms.
+         * @param rawHTML The content of the page.
+         * @return The distinct terms in lower case.
+         */
+        static Set<String> tokenize(String rawHTML) {
+            Set<String> terms = new HashSet<>();
+            int termStart = -1;
+            for (int i = 0; i <= rawHTML.length(); i++) {
+                boolean termChar = i < rawHTML.length() && isTermChar(rawHTML.charAt(i));
+                if (termChar && termStart < 0) {
+                    termStart = i;
+                } else if (!termChar && termStart >= 0) {
+                    terms.add(rawHTML.substring(termStart, i).toLowerCase());
+                    termStart = -1;
+                }
+            }
+            return terms;
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.guerrero.backend.index;
+
+import java.util.Arrays;
+
+/**
+ * A list of increasing page identifiers stored compactly.
+ * Each identifier is stored as the difference to the previous one, encoded as a variable-length integer,
+ * so dense lists take about one byte per page.
+ */
+public class PostingList {
+
+    /**
+     * The encoded identifiers.
+     */
+    private byte[] data = new byte[4];
+
+    /**
+     * Number of bytes used in the data array.
+     */
+    private int length;
+
+    /**
+     * Number of identifiers in the list.
+     */
+    private int count;
+
+    /**
+     * The last identifier added, or -1 if the list is empty.
+     */
+    private int lastPageId = -1;
+
+    /**
+     * Adds a page identifier to the end of the list.
+     * @param pageId The identifier, greater than every identifier already in the list.
+     * @throws IllegalArgumentException if the identifier is not greater than the last one.
+     */
+    public void add(int pageId) {
+        if (pageId <= lastPageId) {
+            throw new IllegalArgumentException("Page identifiers must be added in increasing order.");
+        }
+        int delta = pageId - lastPageId;
+        ensureCapacity(length + 5);
+        while ((delta & ~0x7F) != 0) {
+            data[length++] = (byte) ((delta & 0x7F) | 0x80);
+            delta >>>= 7;
+        }
+        data[length++] = (byte) delta;
+        lastPageId = pageId;
+        count++;
+    }
+
+    /**
+     * Decodes the page identifiers.
+     * @return The identifiers in increasing order.
+     */
+    public int[] toArray() {
+        int[] pageIds = new int[count];
+        int position = 0;
+        int pageId = -1;
+        for (int i = 0; i < count; i++) {
+            int delta = 0;
+            int shift = 0;
+            byte current;
+            do {
+                current = data[position++];
+                delta |= (current & 0x7F) << shift;
+                shift += 7;
+            } while ((current & 0x80) != 0);
+            pageId += delta;
+            pageIds[i] = pageId;
+        }
+        return pageIds;
+    }
+
+    /**
+     * Gets the number of page identifiers in the list.
+     * @return The number of identifiers.
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Gets the number of bytes used by the encoded identifiers.
+     * @return The encoded size.
+     */
+    public int getSizeInBytes() {
+        return length;
+    }
+
+    /**
+     * Releases the unused capacity once the list is complete.
+     */
+    void trim() {
+        if (data.length != length) {
+            data = Arrays.copyOf(data, length);
+        }
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > data.length) {
+            data = Arrays.copyOf(data, Math.max(capacity, data.length * 2));
+        }
+    }
+}
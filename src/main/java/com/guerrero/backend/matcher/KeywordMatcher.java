@@ -0,0 +1,421 @@
+package com.guerrero.backend.matcher;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+
+/**
+ * Finds several keywords in a text in a single pass, using an Aho-Corasick automaton.
+ * Matching is case-insensitive and a keyword is only reported when it starts and ends at a word boundary,
+ * with the same meaning as {@code \b} in a regular expression: a word character is a letter, a digit or an underscore.
+ * A compiled matcher is immutable and can be shared by several threads.
+ */
+public class KeywordMatcher {
+
+    /**
+     * Characters below this value have a precomputed transition for every state.
+     */
+    private static final int DENSE_ALPHABET_SIZE = 128;
+
+    /**
+     * Number of characters copied at a time when scanning a CharSequence.
+     */
+    private static final int CHUNK_LENGTH = 4096;
+
+    /**
+     * Lower case and word flag of each character below DENSE_ALPHABET_SIZE.
+     */
+    private static final char[] DENSE_LOWER_CASE = new char[DENSE_ALPHABET_SIZE];
+    private static final boolean[] DENSE_WORD_CHARS = new boolean[DENSE_ALPHABET_SIZE];
+
+    static {
+        for (char c = 0; c < DENSE_ALPHABET_SIZE; c++) {
+            DENSE_LOWER_CASE[c] = Character.toLowerCase(c);
+            DENSE_WORD_CHARS[c] = Character.isLetterOrDigit(c) || c == '_';
+        }
+    }
+
+    /**
+     * The keywords in lower case, by keyword index.
+     */
+    private final String[] keywords;
+
+    /**
+     * Transition of each state for each character below DENSE_ALPHABET_SIZE,
+     * indexed by state * DENSE_ALPHABET_SIZE + character. Failure links are already resolved.
+     */
+    private final int[] denseTransitions;
+
+    /**
+     * Transitions of each state for the other characters, without failure links.
+     */
+    private final List<Map<Character, Integer>> sparseTransitions;
+
+    /**
+     * Failure link of each state.
+     */
+    private final int[] failures;
+
+    /**
+     * Indexes of the keywords that end at each state.
+     */
+    private final int[][] outputs;
+
+    /**
+     * Length of the longest keyword.
+     */
+    private final int maxKeywordLength;
+
+    /**
+     * Compiles a matcher for the given keywords.
+     * @param keywords The keywords to be found, each with at least one character.
+     * @throws IllegalArgumentException if there are no keywords or a keyword is empty.
+     */
+    public KeywordMatcher(List<String> keywords) {
+        if (keywords.isEmpty()) {
+            throw new IllegalArgumentException("At least one keyword is required.");
+        }
+        this.keywords = new String[keywords.size()];
+        List<Map<Character, Integer>> gotoTransitions = new ArrayList<>();
+        List<List<Integer>> stateOutputs = new ArrayList<>();
+        gotoTransitions.add(new HashMap<>());
+        stateOutputs.add(new ArrayList<>());
+        int longest = 0;
+
+        for (int keywordIndex = 0; keywordIndex < keywords.size(); keywordIndex++) {
+            String keyword = toLowerCase(keywords.get(keywordIndex));
+            if (keyword.isEmpty()) {
+                throw new IllegalArgumentException("Keywords must not be empty.");
+            }
+            this.keywords[keywordIndex] = keyword;
+            longest = Math.max(longest, keyword.length());
+            int state = 0;
+            for (int i = 0; i < keyword.length(); i++) {
+                Integer next = gotoTransitions.get(state).get(keyword.charAt(i));
+                if (next == null) {
+                    next = gotoTransitions.size();
+                    gotoTransitions.get(state).put(keyword.charAt(i), next);
+                    gotoTransitions.add(new HashMap<>());
+                    stateOutputs.add(new ArrayList<>());
+                }
+                state = next;
+            }
+            stateOutputs.get(state).add(keywordIndex);
+        }
+
+        int stateCount = gotoTransitions.size();
+        this.maxKeywordLength = longest;
+        this.failures = new int[stateCount];
+        this.denseTransitions = new int[stateCount * DENSE_ALPHABET_SIZE];
+        this.sparseTransitions = new ArrayList<>(stateCount);
+
+        // Breadth-first, so the failure state of a state is always complete before the state itself
+        Queue<Integer> queue = new ArrayDeque<>();
+        for (Map.Entry<Character, Integer> transition : gotoTransitions.get(0).entrySet()) {
+            if (transition.getKey() < DENSE_ALPHABET_SIZE) {
+                denseTransitions[transition.getKey()] = transition.getValue();
+            }
+            queue.add(transition.getValue());
+        }
+        while (!queue.isEmpty()) {
+            int state = queue.remove();
+            int failure = failures[state];
+            stateOutputs.get(state).addAll(stateOutputs.get(failure));
+            System.arraycopy(denseTransitions, failure * DENSE_ALPHABET_SIZE,
+                    denseTransitions, state * DENSE_ALPHABET_SIZE, DENSE_ALPHABET_SIZE);
+            for (Map.Entry<Character, Integer> transition : gotoTransitions.get(state).entrySet()) {
+                char c = transition.getKey();
+                int next = transition.getValue();
+                if (c < DENSE_ALPHABET_SIZE) {
+                    failures[next] = denseTransitions[failure * DENSE_ALPHABET_SIZE + c];
+                    denseTransitions[state * DENSE_ALPHABET_SIZE + c] = next;
+                } else {
+                    failures[next] = sparseTransition(gotoTransitions, failure, c);
+                }
+                queue.add(next);
+            }
+        }
+
+        this.outputs = new int[stateCount][];
+        for (int state = 0; state < stateCount; state++) {
+            outputs[state] = stateOutputs.get(state).stream().mapToInt(Integer::intValue).toArray();
+            Map<Character, Integer> sparse = new HashMap<>();
+            for (Map.Entry<Character, Integer> transition : gotoTransitions.get(state).entrySet()) {
+                if (transition.getKey() >= DENSE_ALPHABET_SIZE) {
+                    sparse.put(transition.getKey(), transition.getValue());
+                }
+            }
+            sparseTransitions.add(sparse.isEmpty() ? Map.of() : sparse);
+        }
+    }
+
+    /**
+     * Compiles a matcher for a single keyword.
+     * @param keyword The keyword to be found.
+     * @return The KeywordMatcher for the keyword.
+     */
+    public static KeywordMatcher forKeyword(String keyword) {
+        return new KeywordMatcher(List.of(keyword));
+    }
+
+    /**
+     * Checks if the text contains any of the keywords.
+     * @param text The text to be searched.
+     * @return true if at least one keyword was found, false otherwise.
+     */
+    public boolean containsAny(CharSequence text) {
+        Scan scan = newScan();
+        char[] buffer = new char[Math.min(CHUNK_LENGTH, text.length())];
+        for (int start = 0; start < text.length(); start += buffer.length) {
+            int length = Math.min(buffer.length, text.length() - start);
+            copyChars(text, start, length, buffer);
+            scan.feed(buffer, 0, length);
+            if (scan.foundCount > 0) {
+                return true;
+            }
+        }
+        return !scan.finish().isEmpty();
+    }
+
+    /**
+     * Finds which keywords appear in the text.
+     * @param text The text to be searched.
+     * @return The indexes of the keywords found, in the order they were given to the constructor.
+     */
+    public BitSet findAll(CharSequence text) {
+        Scan scan = newScan();
+        scan.feed(text);
+        return scan.finish();
+    }
+
+    /**
+     * Starts an incremental scan, for a text that is received in parts.
+     * @return A new Scan positioned at the start of a text.
+     */
+    public Scan newScan() {
+        return new Scan();
+    }
+
+    /**
+     * Gets the keywords of this matcher.
+     * @return The keywords in lower case, by keyword index.
+     */
+    public List<String> getKeywords() {
+        return Arrays.asList(keywords.clone());
+    }
+
+    /**
+     * Gets the number of states of the automaton.
+     * @return The number of states.
+     */
+    public int getStateCount() {
+        return failures.length;
+    }
+
+    /**
+     * Checks if a character is part of a word for the word boundary checks.
+     * @param c The character to be checked.
+     * @return true for letters, digits and underscores, false otherwise.
+     */
+    public static boolean isWordChar(char c) {
+        return Character.isLetterOrDigit(c) || c == '_';
+    }
+
+    /**
+     * Computes the transition for a lower case character at or above DENSE_ALPHABET_SIZE.
+     */
+    private int sparseTransition(int state, char c) {
+        while (true) {
+            Integer next = sparseTransitions.get(state).get(c);
+            if (next != null) {
+                return next;
+            }
+            if (state == 0) {
+                return 0;
+            }
+            state = failures[state];
+        }
+    }
+
+    /**
+     * Computes a transition for a character at or above DENSE_ALPHABET_SIZE during construction,
+     * following the failure links computed so far.
+     */
+    private int sparseTransition(List<Map<Character, Integer>> gotoTransitions, int state, char c) {
+        while (true) {
+            Integer next = gotoTransitions.get(state).get(c);
+            if (next != null) {
+                return next;
+            }
+            if (state == 0) {
+                return 0;
+            }
+            state = failures[state];
+        }
+    }
+
+    /**
+     * Copies characters of a text to a buffer, in bulk when the text is a String.
+     */
+    private static void copyChars(CharSequence text, int start, int length, char[] buffer) {
+        if (text instanceof String) {
+            ((String) text).getChars(start, start + length, buffer, 0);
+        } else {
+            for (int i = 0; i < length; i++) {
+                buffer[i] = text.charAt(start + i);
+            }
+        }
+    }
+
+    private static String toLowerCase(String keyword) {
+        StringBuilder lowerCase = new StringBuilder(keyword.length());
+        for (int i = 0; i < keyword.length(); i++) {
+            lowerCase.append(Character.toLowerCase(keyword.charAt(i)));
+        }
+        return lowerCase.toString();
+    }
+
+    /**
+     * The state of a scan over a text received in parts.
+     * Keeps only the automaton state and the word flags of the last characters, so its memory does not
+     * depend on the length of the text. A Scan must only be used by one thread.
+     */
+    public class Scan {
+
+        /**
+         * Whether each of the last characters is a word character, indexed by position masked with ringMask.
+         */
+        private final boolean[] wordRing;
+        private final int ringMask;
+
+        /**
+         * Keywords that ended at the previous character and started at a word boundary,
+         * waiting for the next character to check the boundary at their end.
+         */
+        private final int[] pendingKeywords = new int[keywords.length];
+        private int pendingCount;
+
+        private final BitSet found = new BitSet(keywords.length);
+        private int foundCount;
+        private int state;
+        private long position;
+
+        private Scan() {
+            int ringLength = Integer.highestOneBit(maxKeywordLength) << 1;
+            wordRing = new boolean[ringLength];
+            ringMask = ringLength - 1;
+        }
+
+        /**
+         * Scans the next part of the text.
+         * @param text The next characters of the text.
+         */
+        public void feed(CharSequence text) {
+            char[] buffer = new char[Math.min(CHUNK_LENGTH, text.length())];
+            for (int start = 0; start < text.length(); start += buffer.length) {
+                int length = Math.min(buffer.length, text.length() - start);
+                copyChars(text, start, length, buffer);
+                feed(buffer, 0, length);
+            }
+        }
+
+        /**
+         * Scans the next part of the text.
+         * @param buffer The array holding the next characters of the text.
+         * @param offset The index of the first character.
+         * @param length The number of characters.
+         */
+        public void feed(char[] buffer, int offset, int length) {
+            // Local copies of the fields read in the loop
+            int[] dense = denseTransitions;
+            int[][] stateOutputs = outputs;
+            boolean[] ring = wordRing;
+            int mask = ringMask;
+            int currentState = state;
+            long currentPosition = position;
+            for (int i = offset; i < offset + length; i++) {
+                char c = buffer[i];
+                boolean wordChar;
+                if (c < DENSE_ALPHABET_SIZE) {
+                    wordChar = DENSE_WORD_CHARS[c];
+                    currentState = dense[currentState * DENSE_ALPHABET_SIZE + DENSE_LOWER_CASE[c]];
+                } else {
+                    wordChar = isWordChar(c);
+                    currentState = sparseTransition(currentState, Character.toLowerCase(c));
+                }
+                if (pendingCount > 0) {
+                    resolvePending(currentPosition, wordChar);
+                }
+                ring[(int) currentPosition & mask] = wordChar;
+                if (stateOutputs[currentState].length > 0) {
+                    collectOutputs(currentState, currentPosition);
+                }
+                currentPosition++;
+            }
+            state = currentState;
+            position = currentPosition;
+        }
+
+        /**
+         * Ends the scan.
+         * @return The indexes of the keywords found.
+         */
+        public BitSet finish() {
+            resolvePending(position, false);
+            return found;
+        }
+
+        /**
+         * Checks if every keyword has already been found, in which case the rest of the text can be skipped.
+         * @return true if every keyword was found, false otherwise.
+         */
+        public boolean allFound() {
+            return foundCount == keywords.length;
+        }
+
+        /**
+         * Records the keywords ending at the given position that start at a word boundary.
+         */
+        private void collectOutputs(int outputState, long endPosition) {
+            for (int keywordIndex : outputs[outputState]) {
+                if (!found.get(keywordIndex) && isBoundaryAt(endPosition - keywords[keywordIndex].length() + 1)) {
+                    pendingKeywords[pendingCount++] = keywordIndex;
+                }
+            }
+        }
+
+        /**
+         * Checks the boundary at the end of the pending keywords.
+         * @param nextPosition   The position of the character after them.
+         * @param nextIsWordChar Whether the character after them is a word character.
+         */
+        private void resolvePending(long nextPosition, boolean nextIsWordChar) {
+            if (pendingCount == 0) {
+                return;
+            }
+            boolean lastIsWordChar = wordRing[(int) (nextPosition - 1) & ringMask];
+            if (lastIsWordChar != nextIsWordChar) {
+                for (int i = 0; i < pendingCount; i++) {
+                    if (!found.get(pendingKeywords[i])) {
+                        found.set(pendingKeywords[i]);
+                        foundCount++;
+                    }
+                }
+            }
+            pendingCount = 0;
+        }
+
+        /**
+         * Checks if there is a word boundary before the character at the given position.
+         */
+        private boolean isBoundaryAt(long start) {
+            boolean previousIsWordChar = start > 0 && wordRing[(int) (start - 1) & ringMask];
+            return previousIsWordChar != wordRing[(int) start & ringMask];
+        }
+    }
+}
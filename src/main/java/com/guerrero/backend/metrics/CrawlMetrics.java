@@ -0,0 +1,169 @@
+package com.guerrero.backend.metrics;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.ConnectException;
+import java.net.NoRouteToHostException;
+import java.net.SocketTimeoutException;
+import java.net.UnknownHostException;
+import java.net.http.HttpTimeoutException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters and latency histograms of the crawls, shared by all the searches.
+ * Every counter is a striped LongAdder, so the crawl workers record their pages without contending.
+ */
+public class CrawlMetrics {
+
+    /**
+     * Causes of failed fetches.
+     */
+    public static final String CAUSE_TIMEOUT = "timeout";
+    public static final String CAUSE_CONNECT = "connect";
+    public static final String CAUSE_INTERRUPTED = "interrupted";
+    public static final String CAUSE_IO = "io";
+    public static final String CAUSE_OTHER = "other";
+
+    private final LongAdder pagesFetched = new LongAdder();
+    private final LongAdder bytesDownloaded = new LongAdder();
+
+    /**
+     * Failed fetches by cause: an exception class, or the class of an HTTP error status such as "http_5xx".
+     */
+    private final Map<String, LongAdder> fetchErrors = new ConcurrentHashMap<>();
+
+    private final Histogram fetchLatency = new Histogram();
+    private final Histogram parseLatency = new Histogram();
+    private final Histogram matchLatency = new Histogram();
+
+    /**
+     * Records a page fetched successfully.
+     * @param bytes The number of bytes read from its body.
+     */
+    public void recordPageFetched(long bytes) {
+        pagesFetched.increment();
+        bytesDownloaded.add(bytes);
+    }
+
+    /**
+     * Records a fetch answered with an HTTP error status.
+     * @param statusCode The status code.
+     */
+    public void recordFetchError(int statusCode) {
+        recordFetchError("http_" + statusCode / 100 + "xx");
+    }
+
+    /**
+     * Records a fetch that failed with an exception.
+     * @param exception The exception.
+     */
+    public void recordFetchError(Exception exception) {
+        recordFetchError(causeOf(exception));
+    }
+
+    private void recordFetchError(String cause) {
+        LongAdder counter = fetchErrors.get(cause);
+        if (counter == null) {
+            counter = fetchErrors.computeIfAbsent(cause, key -> new LongAdder());
+        }
+        counter.increment();
+    }
+
+    /**
+     * Classifies the exception of a failed fetch.
+     * @param exception The exception.
+     * @return The cause: timeout, connect, interrupted, io or other.
+     */
+    static String causeOf(Exception exception) {
+        if (exception instanceof HttpTimeoutException || exception instanceof SocketTimeoutException) {
+            return CAUSE_TIMEOUT;
+        }
+        if (exception instanceof ConnectException || exception instanceof UnknownHostException
+                || exception instanceof NoRouteToHostException) {
+            return CAUSE_CONNECT;
+        }
+        if (exception instanceof InterruptedIOException) {
+            return CAUSE_INTERRUPTED;
+        }
+        return exception instanceof IOException ? CAUSE_IO : CAUSE_OTHER;
+    }
+
+    /**
+     * Gets the histogram of the time taken to fetch a page, from the request to the end of its body.
+     * @return The histogram.
+     */
+    public Histogram getFetchLatency() {
+        return fetchLatency;
+    }
+
+    /**
+     * Gets the histogram of the time taken to find the links of a page.
+     * @return The histogram.
+     */
+    public Histogram getParseLatency() {
+        return parseLatency;
+    }
+
+    /**
+     * Gets the histogram of the time taken to search a page for the keyword.
+     * @return The histogram.
+     */
+    public Histogram getMatchLatency() {
+        return matchLatency;
+    }
+
+    /**
+     * Gets the number of pages fetched successfully.
+     * @return The count.
+     */
+    public long getPagesFetched() {
+        return pagesFetched.sum();
+    }
+
+    /**
+     * Gets the number of bytes read from the bodies of the fetched pages.
+     * @return The count.
+     */
+    public long getBytesDownloaded() {
+        return bytesDownloaded.sum();
+    }
+
+    /**
+     * Gets the number of failed fetches with a cause.
+     * @param cause The cause, such as "timeout" or "http_5xx".
+     * @return The count.
+     */
+    public long getFetchErrors(String cause) {
+        LongAdder counter = fetchErrors.get(cause);
+        return counter == null ? 0 : counter.sum();
+    }
+
+    /**
+     * Writes the counters and histograms.
+     * @param prometheus The writer of the metrics.
+     * @throws IOException if the metrics cannot be written.
+     */
+    public void writeTo(PrometheusWriter prometheus) throws IOException {
+        prometheus.family("crawler_pages_fetched_total", PrometheusWriter.COUNTER, "Pages fetched successfully.")
+                .sample("crawler_pages_fetched_total", "", pagesFetched.sum());
+        prometheus.family("crawler_bytes_downloaded_total", PrometheusWriter.COUNTER,
+                        "Bytes read from the bodies of the fetched pages.")
+                .sample("crawler_bytes_downloaded_total", "", bytesDownloaded.sum());
+        prometheus.family("crawler_fetch_errors_total", PrometheusWriter.COUNTER, "Failed fetches by cause.");
+        for (Map.Entry<String, LongAdder> entry : fetchErrors.entrySet()) {
+            prometheus.sample("crawler_fetch_errors_total", PrometheusWriter.labels("cause", entry.getKey()),
+                    entry.getValue().sum());
+        }
+        prometheus.family("crawler_fetch_duration_seconds", PrometheusWriter.HISTOGRAM,
+                        "Time taken to fetch a page, from the request to the end of its body.")
+                .histogram("crawler_fetch_duration_seconds", "", fetchLatency);
+        prometheus.family("crawler_parse_duration_seconds", PrometheusWriter.HISTOGRAM,
+                        "Time taken to find the links of a page.")
+                .histogram("crawler_parse_duration_seconds", "", parseLatency);
+        prometheus.family("crawler_match_duration_seconds", PrometheusWriter.HISTOGRAM,
+                        "Time taken to search a page for the keyword.")
+                .histogram("crawler_match_duration_seconds", "", matchLatency);
+    }
+}
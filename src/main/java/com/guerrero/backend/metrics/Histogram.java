@@ -0,0 +1,122 @@
+package com.guerrero.backend.metrics;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A histogram of durations with fixed buckets, exposed in seconds.
+ * Each bucket, the sum and the count are striped LongAdder counters, so threads recording at the same time
+ * do not contend, and an observation costs a binary search and two increments.
+ */
+public class Histogram {
+
+    /**
+     * Upper bounds, in seconds, of the default buckets, from half a millisecond to 10 seconds.
+     */
+    public static final double[] DEFAULT_BUCKETS_SECONDS = {
+            0.0005, 0.001, 0.0025, 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10
+    };
+
+    /**
+     * Upper bounds of the buckets, in seconds and in nanoseconds.
+     */
+    private final double[] bucketsSeconds;
+    private final long[] bucketsNanos;
+
+    /**
+     * Observations per bucket, not cumulative. The last one counts the observations above every bound.
+     */
+    private final LongAdder[] bucketCounts;
+    private final LongAdder sumNanos = new LongAdder();
+
+    /**
+     * Constructs a Histogram with the default buckets.
+     */
+    public Histogram() {
+        this(DEFAULT_BUCKETS_SECONDS);
+    }
+
+    /**
+     * Constructs a Histogram with the given buckets.
+     * @param bucketsSeconds The upper bounds of the buckets in seconds, in increasing order.
+     * @throws IllegalArgumentException if there are no bounds or they are not increasing.
+     */
+    public Histogram(double[] bucketsSeconds) {
+        if (bucketsSeconds.length == 0) {
+            throw new IllegalArgumentException("A histogram needs at least one bucket.");
+        }
+        this.bucketsSeconds = bucketsSeconds.clone();
+        this.bucketsNanos = new long[bucketsSeconds.length];
+        for (int i = 0; i < bucketsSeconds.length; i++) {
+            if (i > 0 && bucketsSeconds[i] <= bucketsSeconds[i - 1]) {
+                throw new IllegalArgumentException("The bucket bounds must be increasing.");
+            }
+            bucketsNanos[i] = (long) (bucketsSeconds[i] * TimeUnit.SECONDS.toNanos(1));
+        }
+        this.bucketCounts = new LongAdder[bucketsSeconds.length + 1];
+        for (int i = 0; i < bucketCounts.length; i++) {
+            bucketCounts[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Records a duration.
+     * @param nanos The duration in nanoseconds.
+     */
+    public void observeNanos(long nanos) {
+        int index = Arrays.binarySearch(bucketsNanos, nanos);
+        bucketCounts[index >= 0 ? index : -index - 1].increment();
+        sumNanos.add(nanos);
+    }
+
+    /**
+     * Records the time elapsed since a start time.
+     * @param startNanos The start time, as returned by System.nanoTime().
+     */
+    public void observeSince(long startNanos) {
+        observeNanos(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Gets the upper bounds of the buckets.
+     * @return The bounds in seconds, without the implicit +Inf bucket.
+     */
+    public double[] getBucketsSeconds() {
+        return bucketsSeconds.clone();
+    }
+
+    /**
+     * Gets the cumulative counts of the buckets, as exposed by Prometheus.
+     * @return For each bound, the number of observations less than or equal to it, followed by the total count.
+     */
+    public long[] getCumulativeCounts() {
+        long[] counts = new long[bucketCounts.length];
+        long total = 0;
+        for (int i = 0; i < bucketCounts.length; i++) {
+            total += bucketCounts[i].sum();
+            counts[i] = total;
+        }
+        return counts;
+    }
+
+    /**
+     * Gets the number of observations.
+     * @return The count.
+     */
+    public long getCount() {
+        long count = 0;
+        for (LongAdder bucketCount : bucketCounts) {
+            count += bucketCount.sum();
+        }
+        return count;
+    }
+
+    /**
+     * Gets the sum of the observations.
+     * @return The sum in seconds.
+     */
+    public double getSumSeconds() {
+        return sumNanos.sum() / (double) TimeUnit.SECONDS.toNanos(1);
+    }
+}
@@ -0,0 +1,131 @@
+package com.guerrero.backend.metrics;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+
+/**
+ * Writes metrics in the Prometheus text exposition format (version 0.0.4).
+ * Each metric family starts with {@link #family(String, String, String)}, followed by its samples.
+ */
+public class PrometheusWriter {
+
+    /**
+     * Content type of the Prometheus text format.
+     */
+    public static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    public static final String COUNTER = "counter";
+    public static final String GAUGE = "gauge";
+    public static final String HISTOGRAM = "histogram";
+
+    private final Writer writer;
+
+    /**
+     * Constructs a PrometheusWriter writing to the given writer.
+     * @param writer The writer of the response body.
+     */
+    public PrometheusWriter(Writer writer) {
+        this.writer = writer;
+    }
+
+    /**
+     * Writes the HELP and TYPE lines of a metric family.
+     * @param name The name of the metric.
+     * @param type The type of the metric: counter, gauge or histogram.
+     * @param help The description of the metric.
+     * @return This writer.
+     * @throws IOException if the metric cannot be written.
+     */
+    public PrometheusWriter family(String name, String type, String help) throws IOException {
+        writer.write("# HELP " + name + " " + help.replace("\\", "\\\\").replace("\n", "\\n") + "\n");
+        writer.write("# TYPE " + name + " " + type + "\n");
+        return this;
+    }
+
+    /**
+     * Writes an integer sample.
+     * @param name   The name of the metric.
+     * @param labels The labels, as formatted by {@link #labels(String...)}, or an empty string.
+     * @param value  The value.
+     * @return This writer.
+     * @throws IOException if the sample cannot be written.
+     */
+    public PrometheusWriter sample(String name, String labels, long value) throws IOException {
+        writer.write(name + labels + " " + value + "\n");
+        return this;
+    }
+
+    /**
+     * Writes a sample.
+     * @param name   The name of the metric.
+     * @param labels The labels, as formatted by {@link #labels(String...)}, or an empty string.
+     * @param value  The value.
+     * @return This writer.
+     * @throws IOException if the sample cannot be written.
+     */
+    public PrometheusWriter sample(String name, String labels, double value) throws IOException {
+        writer.write(name + labels + " " + formatDouble(value) + "\n");
+        return this;
+    }
+
+    /**
+     * Writes the cumulative buckets, the sum and the count of a histogram.
+     * @param name      The name of the metric.
+     * @param labels    The labels, as formatted by {@link #labels(String...)}, or an empty string.
+     * @param histogram The histogram.
+     * @return This writer.
+     * @throws IOException if the histogram cannot be written.
+     */
+    public PrometheusWriter histogram(String name, String labels, Histogram histogram) throws IOException {
+        double[] bounds = histogram.getBucketsSeconds();
+        long[] counts = histogram.getCumulativeCounts();
+        String labelPrefix = labels.isEmpty() ? "{" : labels.substring(0, labels.length() - 1) + ",";
+        for (int i = 0; i < bounds.length; i++) {
+            sample(name + "_bucket", labelPrefix + "le=\"" + formatBound(bounds[i]) + "\"}", counts[i]);
+        }
+        long count = counts[counts.length - 1];
+        sample(name + "_bucket", labelPrefix + "le=\"+Inf\"}", count);
+        sample(name + "_sum", labels, histogram.getSumSeconds());
+        return sample(name + "_count", labels, count);
+    }
+
+    /**
+     * Formats labels, escaping their values.
+     * @param namesAndValues The label names, each followed by its value.
+     * @return The labels between braces.
+     * @throws IllegalArgumentException if a label name has no value.
+     */
+    public static String labels(String... namesAndValues) {
+        if (namesAndValues.length % 2 != 0) {
+            throw new IllegalArgumentException("Every label needs a value.");
+        }
+        StringBuilder labels = new StringBuilder("{");
+        for (int i = 0; i < namesAndValues.length; i += 2) {
+            if (i > 0) {
+                labels.append(',');
+            }
+            labels.append(namesAndValues[i]).append("=\"")
+                    .append(namesAndValues[i + 1].replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n"))
+                    .append('"');
+        }
+        return labels.append('}').toString();
+    }
+
+    private static String formatDouble(double value) {
+        if (Double.isNaN(value)) {
+            return "NaN";
+        }
+        if (Double.isInfinite(value)) {
+            return value > 0 ? "+Inf" : "-Inf";
+        }
+        return Double.toString(value);
+    }
+
+    /**
+     * Formats a bucket bound without exponent or trailing zeros, such as 0.0005 or 10.
+     */
+    private static String formatBound(double bound) {
+        return BigDecimal.valueOf(bound).stripTrailingZeros().toPlainString();
+    }
+}
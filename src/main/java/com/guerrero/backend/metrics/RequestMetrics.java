@@ -0,0 +1,54 @@
+package com.guerrero.backend.metrics;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Latency histograms of the HTTP requests, by method and route.
+ */
+public class RequestMetrics {
+
+    /**
+     * Latency of the requests, by their formatted method and route labels.
+     */
+    private final Map<String, Histogram> latencies = new ConcurrentHashMap<>();
+
+    /**
+     * Records the latency of a request.
+     * @param method     The HTTP method.
+     * @param route      The route of the request, such as "/crawl/:id".
+     * @param startNanos The time the request started, as returned by System.nanoTime().
+     */
+    public void record(String method, String route, long startNanos) {
+        getLatency(method, route).observeSince(startNanos);
+    }
+
+    /**
+     * Gets the latency histogram of a route.
+     * @param method The HTTP method.
+     * @param route  The route.
+     * @return The histogram, created empty if no request was recorded for the route.
+     */
+    public Histogram getLatency(String method, String route) {
+        String labels = PrometheusWriter.labels("method", method, "route", route);
+        Histogram histogram = latencies.get(labels);
+        if (histogram == null) {
+            histogram = latencies.computeIfAbsent(labels, key -> new Histogram());
+        }
+        return histogram;
+    }
+
+    /**
+     * Writes the latency histograms.
+     * @param prometheus The writer of the metrics.
+     * @throws IOException if the metrics cannot be written.
+     */
+    public void writeTo(PrometheusWriter prometheus) throws IOException {
+        prometheus.family("crawler_http_request_duration_seconds", PrometheusWriter.HISTOGRAM,
+                "Time taken to answer an HTTP request.");
+        for (Map.Entry<String, Histogram> entry : latencies.entrySet()) {
+            prometheus.histogram("crawler_http_request_duration_seconds", entry.getKey(), entry.getValue());
+        }
+    }
+}
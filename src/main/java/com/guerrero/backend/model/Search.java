@@ -43,6 +43,18 @@ public class Search {
         this.keyword = keyword.toLowerCase();
     }
 
+    /**
+     * Constructs a Search instance with a known identifier, for a search resumed after a restart.
+     *
+     * @param id      the identifier of the search
+     * @param keyword the keyword for the search
+     * @throws IllegalArgumentException if the keyword length is not between 4 and 32 characters
+     */
+    public Search(String id, String keyword) {
+        this(keyword);
+        this.id = id;
+    }
+
     /**
      * Gets the keyword associated with this search.
      * @return the keyword
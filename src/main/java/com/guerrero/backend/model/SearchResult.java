@@ -1,7 +1,12 @@
 package com.guerrero.backend.model;
 
-import java.util.HashSet;
+import com.guerrero.backend.util.AppendOnlyLog;
+
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 /**
@@ -18,12 +23,28 @@ public class SearchResult {
     /**
      * The status of the search result, indicating whether the search is active or done.
      */
-    Status status;
+    volatile Status status;
+
+    /**
+     * The URLs associated with this search result, in the order they were found.
+     * Crawl workers append to it without locking while request threads read snapshots of it.
+     */
+    private final AppendOnlyLog<String> urls;
+
+    /**
+     * The URLs added so far, so that each URL is appended only once.
+     */
+    private final Set<String> addedUrls;
 
     /**
-     * The set of URLs associated with this search result.
+     * Monitor that readers waiting for new URLs wait on.
      */
-    private Set<String> urls;
+    private final Object changeMonitor = new Object();
+
+    /**
+     * Number of readers waiting for new URLs, so writers only take the monitor when someone is waiting.
+     */
+    private final AtomicInteger waitingReaders = new AtomicInteger();
 
     /**
      * Logger instance for logging messages related to this class.
@@ -38,15 +59,64 @@ public class SearchResult {
     public SearchResult(String id) {
         this.id = id;
         this.status = Status.active;
-        this.urls = new HashSet<String>();
+        this.urls = new AppendOnlyLog<>();
+        this.addedUrls = ConcurrentHashMap.newKeySet();
     }
 
     /**
-     * Adds a URL to the set of URLs associated with this search result.
+     * Adds a URL to the URLs associated with this search result, unless it was already added.
      * @param url the URL to add
+     * @return true if the URL was added, false if it was already there
+     */
+    public boolean addUrl(String url) {
+        if (!addedUrls.add(url)) {
+            return false;
+        }
+        urls.append(url);
+        signalChange();
+        return true;
+    }
+
+    /**
+     * Waits until there are more URLs than the reader knows of, or the search is done.
+     * @param knownUrlCount the number of URLs the reader has already seen
+     * @param timeout       the maximum time to wait
+     * @param unit          the unit of the timeout
+     * @return true if there are new URLs or the search is done, false if the timeout elapsed first
+     * @throws InterruptedException if the thread is interrupted while waiting
      */
-    public void addUrl(String url) {
-        urls.add(url);
+    public boolean awaitChange(int knownUrlCount, long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        waitingReaders.incrementAndGet();
+        try {
+            synchronized (changeMonitor) {
+                while (!hasChanged(knownUrlCount)) {
+                    long remainingMillis = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+                    if (remainingMillis <= 0) {
+                        return false;
+                    }
+                    changeMonitor.wait(remainingMillis);
+                }
+                return true;
+            }
+        } finally {
+            waitingReaders.decrementAndGet();
+        }
+    }
+
+    private boolean hasChanged(int knownUrlCount) {
+        return status == Status.done || urls.size() > knownUrlCount;
+    }
+
+    /**
+     * Wakes up the readers waiting for new URLs, if there are any.
+     */
+    private void signalChange() {
+        if (waitingReaders.get() > 0) {
+            synchronized (changeMonitor) {
+                changeMonitor.notifyAll();
+            }
+        }
     }
 
     /**
@@ -66,11 +136,29 @@ public class SearchResult {
     }
 
     /**
-     * Gets the set of URLs associated with this search result.
-     * @return the set of URLs
+     * Gets a snapshot of the URLs associated with this search result, in the order they were found.
+     * The snapshot does not change when more URLs are added.
+     * @return an immutable list of the URLs
+     */
+    public List<String> getUrls() {
+        return urls.snapshot();
+    }
+
+    /**
+     * Gets a snapshot of the URLs found after the first ones, in the order they were found.
+     * @param from the number of URLs to skip
+     * @return an immutable list of the URLs from that position
+     */
+    public List<String> getUrls(int from) {
+        return urls.snapshot(from);
+    }
+
+    /**
+     * Gets the number of URLs associated with this search result.
+     * @return the number of URLs
      */
-    public Set<String> getUrls() {
-        return urls;
+    public int getUrlCount() {
+        return urls.size();
     }
 
     /**
@@ -79,5 +167,6 @@ public class SearchResult {
      */
     public void setStatus(Status status) {
         this.status = status;
+        signalChange();
     }
 }
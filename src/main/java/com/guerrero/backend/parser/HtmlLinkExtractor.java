@@ -0,0 +1,512 @@
+package com.guerrero.backend.parser;
+
+import java.util.Arrays;
+
+/**
+ * Extracts the href values of the anchor and base elements of HTML pages with a hand-written state machine,
+ * a small subset of the HTML tokenizer. Tag and attribute names are matched in any case, and double-quoted,
+ * single-quoted and unquoted values are supported. Comments and the content of script and style elements
+ * are skipped, and character references in the values are decoded.
+ * The machine keeps its state between the parts of a page, so a tag cut by the end of a buffer needs no copy:
+ * only the characters of the href value being read are kept, in a buffer reused by the scan.
+ */
+public class HtmlLinkExtractor implements LinkExtractor {
+
+    /**
+     * Default maximum length of a link. Longer links are skipped.
+     */
+    public static final int DEFAULT_MAX_LINK_LENGTH = 8192;
+
+    /**
+     * States of the machine.
+     */
+    private static final int TEXT = 0;
+    private static final int TAG_OPEN = 1;
+    private static final int TAG_NAME = 2;
+    private static final int BEFORE_ATTRIBUTE = 3;
+    private static final int ATTRIBUTE_NAME = 4;
+    private static final int AFTER_ATTRIBUTE_NAME = 5;
+    private static final int BEFORE_VALUE = 6;
+    private static final int DOUBLE_QUOTED_VALUE = 7;
+    private static final int SINGLE_QUOTED_VALUE = 8;
+    private static final int UNQUOTED_VALUE = 9;
+    private static final int MARKUP_DECLARATION = 10;
+    private static final int COMMENT = 11;
+    private static final int SKIPPED_TAG = 12;
+    private static final int RAW_TEXT = 13;
+
+    /**
+     * Kinds of tags the machine tells apart.
+     */
+    private static final int OTHER_TAG = 0;
+    private static final int ANCHOR_TAG = 1;
+    private static final int BASE_TAG = 2;
+    private static final int SCRIPT_TAG = 3;
+    private static final int STYLE_TAG = 4;
+
+    /**
+     * End tags of the elements whose content is skipped, in lower case.
+     */
+    private static final char[] SCRIPT_END_TAG = "</script".toCharArray();
+    private static final char[] STYLE_END_TAG = "</style".toCharArray();
+
+    /**
+     * Named character references decoded in the values, and their characters.
+     */
+    private static final String[] NAMED_REFERENCES = {"amp", "quot", "apos", "lt", "gt"};
+    private static final char[] NAMED_REFERENCE_CHARS = {'&', '"', '\'', '<', '>'};
+
+    /**
+     * Number of characters of a tag or attribute name kept, enough for the names the machine matches.
+     */
+    private static final int MAX_NAME_LENGTH = 8;
+
+    /**
+     * Initial size of the buffer of a href value.
+     */
+    private static final int INITIAL_VALUE_LENGTH = 256;
+
+    /**
+     * Maximum length of a link.
+     */
+    private final int maxLinkLength;
+
+    /**
+     * Constructs an HtmlLinkExtractor with the default maximum link length.
+     */
+    public HtmlLinkExtractor() {
+        this(DEFAULT_MAX_LINK_LENGTH);
+    }
+
+    /**
+     * Constructs an HtmlLinkExtractor.
+     * @param maxLinkLength The maximum length of a link. Longer links are skipped.
+     * @throws IllegalArgumentException if the length is not positive.
+     */
+    public HtmlLinkExtractor(int maxLinkLength) {
+        if (maxLinkLength <= 0) {
+            throw new IllegalArgumentException("The maximum link length must be positive.");
+        }
+        this.maxLinkLength = maxLinkLength;
+    }
+
+    @Override
+    public Scan newScan(Sink sink) {
+        return new HtmlScan(sink);
+    }
+
+    /**
+     * The state of the machine over one page.
+     */
+    private class HtmlScan implements Scan {
+
+        private final Sink sink;
+        private int state = TEXT;
+
+        /**
+         * The first characters of the current tag name and attribute name, in lower case, and their full lengths.
+         */
+        private final char[] tagName = new char[MAX_NAME_LENGTH];
+        private int tagNameLength;
+        private final char[] attributeName = new char[MAX_NAME_LENGTH];
+        private int attributeNameLength;
+
+        /**
+         * The kind of the current tag, and whether its href was already read.
+         */
+        private int tagKind;
+        private boolean hrefRead;
+
+        /**
+         * The characters of the href value being read, or of nothing when another value is being read.
+         */
+        private char[] value = new char[Math.min(INITIAL_VALUE_LENGTH, maxLinkLength)];
+        private int valueLength;
+        private boolean capturing;
+        private boolean valueTooLong;
+
+        /**
+         * The number of dashes seen in a markup declaration or at the end of a comment.
+         */
+        private int dashCount;
+
+        /**
+         * The end tag of the element whose content is skipped, and the number of its characters matched so far.
+         */
+        private char[] rawTextEndTag;
+        private int rawTextMatched;
+
+        HtmlScan(Sink sink) {
+            this.sink = sink;
+        }
+
+        @Override
+        public void feed(char[] buffer, int offset, int length) {
+            int end = offset + length;
+            int i = offset;
+            while (i < end) {
+                if (state == TEXT) {
+                    // Skip the text up to the next tag without going through the machine
+                    while (i < end && buffer[i] != '<') {
+                        i++;
+                    }
+                    if (i == end) {
+                        break;
+                    }
+                    state = TAG_OPEN;
+                    i++;
+                    continue;
+                }
+                if (capturing && (state == DOUBLE_QUOTED_VALUE || state == SINGLE_QUOTED_VALUE)) {
+                    // Copy the quoted value up to its closing quote in one go
+                    char quote = state == DOUBLE_QUOTED_VALUE ? '"' : '\'';
+                    int valueEnd = i;
+                    while (valueEnd < end && buffer[valueEnd] != quote) {
+                        valueEnd++;
+                    }
+                    appendValue(buffer, i, valueEnd - i);
+                    i = valueEnd;
+                    if (i == end) {
+                        break;
+                    }
+                }
+                step(buffer[i]);
+                i++;
+            }
+        }
+
+        @Override
+        public void finish() {
+            state = TEXT;
+            capturing = false;
+        }
+
+        /**
+         * Moves the machine by one character.
+         */
+        private void step(char c) {
+            switch (state) {
+                case TAG_OPEN:
+                    if (isLetter(c)) {
+                        tagNameLength = 0;
+                        appendName(tagName, tagNameLength++, c);
+                        state = TAG_NAME;
+                    } else if (c == '!') {
+                        dashCount = 0;
+                        state = MARKUP_DECLARATION;
+                    } else if (c == '/' || c == '?') {
+                        state = SKIPPED_TAG;
+                    } else if (c != '<') {
+                        state = TEXT;
+                    }
+                    break;
+                case TAG_NAME:
+                    if (isWhitespace(c) || c == '/') {
+                        startTag();
+                        state = BEFORE_ATTRIBUTE;
+                    } else if (c == '>') {
+                        startTag();
+                        endTag();
+                    } else {
+                        appendName(tagName, tagNameLength++, c);
+                    }
+                    break;
+                case BEFORE_ATTRIBUTE:
+                    if (c == '>') {
+                        endTag();
+                    } else if (!isWhitespace(c) && c != '/') {
+                        startAttribute(c);
+                    }
+                    break;
+                case ATTRIBUTE_NAME:
+                    if (isWhitespace(c)) {
+                        state = AFTER_ATTRIBUTE_NAME;
+                    } else if (c == '=') {
+                        startValue();
+                    } else if (c == '>') {
+                        endTag();
+                    } else if (c == '/') {
+                        state = BEFORE_ATTRIBUTE;
+                    } else {
+                        appendName(attributeName, attributeNameLength++, c);
+                    }
+                    break;
+                case AFTER_ATTRIBUTE_NAME:
+                    if (c == '=') {
+                        startValue();
+                    } else if (c == '>') {
+                        endTag();
+                    } else if (c == '/') {
+                        state = BEFORE_ATTRIBUTE;
+                    } else if (!isWhitespace(c)) {
+                        startAttribute(c);
+                    }
+                    break;
+                case BEFORE_VALUE:
+                    if (c == '"') {
+                        state = DOUBLE_QUOTED_VALUE;
+                    } else if (c == '\'') {
+                        state = SINGLE_QUOTED_VALUE;
+                    } else if (c == '>') {
+                        capturing = false;
+                        endTag();
+                    } else if (!isWhitespace(c)) {
+                        appendValue(c);
+                        state = UNQUOTED_VALUE;
+                    }
+                    break;
+                case DOUBLE_QUOTED_VALUE:
+                case SINGLE_QUOTED_VALUE:
+                    if (c == (state == DOUBLE_QUOTED_VALUE ? '"' : '\'')) {
+                        endValue();
+                        state = BEFORE_ATTRIBUTE;
+                    } else {
+                        appendValue(c);
+                    }
+                    break;
+                case UNQUOTED_VALUE:
+                    if (isWhitespace(c)) {
+                        endValue();
+                        state = BEFORE_ATTRIBUTE;
+                    } else if (c == '>') {
+                        endValue();
+                        endTag();
+                    } else {
+                        appendValue(c);
+                    }
+                    break;
+                case MARKUP_DECLARATION:
+                    if (c == '-' && ++dashCount == 2) {
+                        dashCount = 0;
+                        state = COMMENT;
+                    } else if (c == '>') {
+                        state = TEXT;
+                    } else if (c != '-') {
+                        state = SKIPPED_TAG;
+                    }
+                    break;
+                case COMMENT:
+                    if (c == '-') {
+                        dashCount++;
+                    } else if (c == '>' && dashCount >= 2) {
+                        state = TEXT;
+                    } else {
+                        dashCount = 0;
+                    }
+                    break;
+                case SKIPPED_TAG:
+                    if (c == '>') {
+                        state = TEXT;
+                    }
+                    break;
+                case RAW_TEXT:
+                    if (toLowerCase(c) == rawTextEndTag[rawTextMatched]) {
+                        if (++rawTextMatched == rawTextEndTag.length) {
+                            state = SKIPPED_TAG;
+                        }
+                    } else {
+                        rawTextMatched = c == '<' ? 1 : 0;
+                    }
+                    break;
+                default:
+                    throw new IllegalStateException("Unknown state " + state);
+            }
+        }
+
+        private void startTag() {
+            tagKind = classifyTag();
+            hrefRead = false;
+        }
+
+        private void endTag() {
+            if (tagKind == SCRIPT_TAG || tagKind == STYLE_TAG) {
+                rawTextEndTag = tagKind == SCRIPT_TAG ? SCRIPT_END_TAG : STYLE_END_TAG;
+                rawTextMatched = 0;
+                state = RAW_TEXT;
+            } else {
+                state = TEXT;
+            }
+        }
+
+        private void startAttribute(char c) {
+            attributeNameLength = 0;
+            appendName(attributeName, attributeNameLength++, c);
+            state = ATTRIBUTE_NAME;
+        }
+
+        private void startValue() {
+            capturing = (tagKind == ANCHOR_TAG || tagKind == BASE_TAG) && !hrefRead
+                    && nameEquals(attributeName, attributeNameLength, "href");
+            valueLength = 0;
+            valueTooLong = false;
+            state = BEFORE_VALUE;
+        }
+
+        private void appendValue(char c) {
+            if (capturing) {
+                if (valueLength == value.length && !growValue(1)) {
+                    return;
+                }
+                value[valueLength++] = c;
+            }
+        }
+
+        private void appendValue(char[] buffer, int offset, int length) {
+            if (valueLength + length > value.length && !growValue(length)) {
+                return;
+            }
+            System.arraycopy(buffer, offset, value, valueLength, length);
+            valueLength += length;
+        }
+
+        /**
+         * Grows the value buffer for more characters.
+         * @return false if the value is longer than the maximum link length, and is then skipped.
+         */
+        private boolean growValue(int extraLength) {
+            int requiredLength = valueLength + extraLength;
+            if (requiredLength > maxLinkLength) {
+                valueTooLong = true;
+                valueLength = 0;
+                capturing = false;
+                return false;
+            }
+            value = Arrays.copyOf(value, Math.min(Math.max(requiredLength, value.length * 2), maxLinkLength));
+            return true;
+        }
+
+        /**
+         * Hands the href value read to the sink, trimmed and with its character references decoded.
+         */
+        private void endValue() {
+            if (!capturing || valueTooLong) {
+                capturing = false;
+                return;
+            }
+            capturing = false;
+            hrefRead = true;
+            int length = decodeReferences(value, valueLength);
+            int start = 0;
+            while (start < length && value[start] <= ' ') {
+                start++;
+            }
+            while (length > start && value[length - 1] <= ' ') {
+                length--;
+            }
+            if (start == length) {
+                return;
+            }
+            if (tagKind == BASE_TAG) {
+                sink.base(value, start, length);
+            } else {
+                sink.link(value, start, length);
+            }
+        }
+
+        private int classifyTag() {
+            if (nameEquals(tagName, tagNameLength, "a")) {
+                return ANCHOR_TAG;
+            } else if (nameEquals(tagName, tagNameLength, "base")) {
+                return BASE_TAG;
+            } else if (nameEquals(tagName, tagNameLength, "script")) {
+                return SCRIPT_TAG;
+            } else if (nameEquals(tagName, tagNameLength, "style")) {
+                return STYLE_TAG;
+            }
+            return OTHER_TAG;
+        }
+    }
+
+    /**
+     * Stores a character of a name in lower case, if it is among the characters kept.
+     */
+    private static void appendName(char[] name, int index, char c) {
+        if (index < name.length) {
+            name[index] = toLowerCase(c);
+        }
+    }
+
+    private static boolean nameEquals(char[] name, int length, String expected) {
+        return length <= name.length && regionEquals(name, 0, length, expected);
+    }
+
+    /**
+     * Decodes the character references of a value in place: &amp;amp;, &amp;quot;, &amp;apos;, &amp;lt;, &amp;gt;
+     * and numeric references. Other references are kept as they are.
+     * @return The length of the decoded value.
+     */
+    static int decodeReferences(char[] value, int length) {
+        int written = 0;
+        int i = 0;
+        while (i < length) {
+            char c = value[i];
+            if (c == '&') {
+                int semicolon = i + 1;
+                while (semicolon < length && semicolon - i <= MAX_NAME_LENGTH && value[semicolon] != ';') {
+                    semicolon++;
+                }
+                if (semicolon < length && value[semicolon] == ';') {
+                    int decoded = decodeReference(value, i + 1, semicolon);
+                    if (decoded >= 0) {
+                        value[written++] = (char) decoded;
+                        i = semicolon + 1;
+                        continue;
+                    }
+                }
+            }
+            value[written++] = c;
+            i++;
+        }
+        return written;
+    }
+
+    /**
+     * Decodes the character reference between an ampersand and a semicolon.
+     * @return The character, or -1 if the reference is not supported.
+     */
+    private static int decodeReference(char[] value, int start, int end) {
+        int length = end - start;
+        if (length > 1 && value[start] == '#') {
+            boolean hex = value[start + 1] == 'x' || value[start + 1] == 'X';
+            int codePoint = 0;
+            for (int i = start + (hex ? 2 : 1); i < end; i++) {
+                int digit = Character.digit(value[i], hex ? 16 : 10);
+                if (digit < 0) {
+                    return -1;
+                }
+                codePoint = codePoint * (hex ? 16 : 10) + digit;
+            }
+            return codePoint > 0 && codePoint <= Character.MAX_VALUE ? codePoint : -1;
+        }
+        for (int i = 0; i < NAMED_REFERENCES.length; i++) {
+            if (regionEquals(value, start, end, NAMED_REFERENCES[i])) {
+                return NAMED_REFERENCE_CHARS[i];
+            }
+        }
+        return -1;
+    }
+
+    private static boolean regionEquals(char[] value, int start, int end, String expected) {
+        if (end - start != expected.length()) {
+            return false;
+        }
+        for (int i = start; i < end; i++) {
+            if (value[i] != expected.charAt(i - start)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isLetter(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+
+    private static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\n' || c == '\t' || c == '\r' || c == '\f';
+    }
+
+    private static char toLowerCase(char c) {
+        return c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
+    }
+}
@@ -0,0 +1,93 @@
+package com.guerrero.backend.parser;
+
+/**
+ * Extracts the links of HTML pages.
+ * A page is fed to a {@link Scan} in parts, as it is read, and the href values found are handed to a {@link Sink}
+ * as spans of a char array, so no String is created for markup that is not a link.
+ */
+public interface LinkExtractor {
+
+    /**
+     * Starts the extraction of the links of a page.
+     * @param sink Receives the links of the page.
+     * @return The scan, to be fed the page in order.
+     */
+    Scan newScan(Sink sink);
+
+    /**
+     * Extracts the links of a whole page.
+     * @param html The page.
+     * @param sink Receives the links of the page.
+     */
+    default void extract(CharSequence html, Sink sink) {
+        Scan scan = newScan(sink);
+        scan.feed(html);
+        scan.finish();
+    }
+
+    /**
+     * Receives the links found in a page. The spans are only valid during the call.
+     */
+    interface Sink {
+
+        /**
+         * Receives the href value of an anchor element.
+         * @param chars The array holding the value.
+         * @param start The index of the first character of the value.
+         * @param end   The index after the last character of the value.
+         */
+        void link(char[] chars, int start, int end);
+
+        /**
+         * Receives the href value of a base element, which relative links after it are resolved against.
+         * @param chars The array holding the value.
+         * @param start The index of the first character of the value.
+         * @param end   The index after the last character of the value.
+         */
+        default void base(char[] chars, int start, int end) {
+        }
+    }
+
+    /**
+     * The state of the extraction of a page received in parts. A Scan must only be used by one thread.
+     */
+    interface Scan {
+
+        /**
+         * Number of characters copied at a time by {@link #feed(CharSequence)}.
+         */
+        int CHUNK_LENGTH = 8192;
+
+        /**
+         * Scans the next part of the page.
+         * @param buffer The array holding the next characters of the page.
+         * @param offset The index of the first character.
+         * @param length The number of characters.
+         */
+        void feed(char[] buffer, int offset, int length);
+
+        /**
+         * Scans the next part of the page.
+         * @param text The next characters of the page.
+         */
+        default void feed(CharSequence text) {
+            char[] buffer = new char[Math.min(CHUNK_LENGTH, text.length())];
+            for (int start = 0; start < text.length(); start += buffer.length) {
+                int length = Math.min(buffer.length, text.length() - start);
+                if (text instanceof String) {
+                    ((String) text).getChars(start, start + length, buffer, 0);
+                } else {
+                    for (int i = 0; i < length; i++) {
+                        buffer[i] = text.charAt(start + i);
+                    }
+                }
+                feed(buffer, 0, length);
+            }
+        }
+
+        /**
+         * Ends the scan. A link cut by the end of the page is dropped.
+         */
+        void finish();
+    }
+}
@@ -0,0 +1,248 @@
+package com.guerrero.backend.service;
+
+import com.guerrero.backend.metrics.PrometheusWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs the crawls and their workers, which spend most of their time blocked on network I/O.
+ * Each crawl, and each extra worker of a crawl, gets its own thread: a virtual thread when the JDK supports them,
+ * or a daemon platform thread otherwise.
+ * At most a fixed number of crawls run at the same time. The others wait in a queue without holding a thread,
+ * and are started in submission order as running crawls finish.
+ */
+public class CrawlExecutor {
+
+    /**
+     * Default maximum number of crawls running at the same time.
+     */
+    public static final int DEFAULT_MAX_CONCURRENT_CRAWLS = 64;
+
+    /**
+     * Logger for crawls that fail.
+     */
+    private static final Logger logger = LoggerFactory.getLogger(CrawlExecutor.class);
+
+    /**
+     * Runs each started crawl on a thread of its own.
+     */
+    private final ExecutorService threads;
+
+    /**
+     * Whether the threads are virtual threads.
+     */
+    private final boolean virtualThreads;
+
+    /**
+     * Maximum number of crawls running at the same time.
+     */
+    private final int maxConcurrentCrawls;
+
+    /**
+     * One permit per crawl that may still be started.
+     */
+    private final Semaphore permits;
+
+    /**
+     * The crawls waiting for a permit.
+     */
+    private final Queue<Runnable> queuedCrawls = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Gauges of the queued and running crawls, and the number of finished crawls.
+     */
+    private final AtomicInteger queuedCount = new AtomicInteger();
+    private final AtomicInteger activeCount = new AtomicInteger();
+    private final AtomicLong completedCount = new AtomicLong();
+
+    /**
+     * Number of the next platform thread, used in its name.
+     */
+    private final AtomicInteger threadNumber = new AtomicInteger(1);
+
+    /**
+     * Constructs a CrawlExecutor with the default concurrency ceiling.
+     */
+    public CrawlExecutor() {
+        this(DEFAULT_MAX_CONCURRENT_CRAWLS);
+    }
+
+    /**
+     * Constructs a CrawlExecutor.
+     * @param maxConcurrentCrawls The maximum number of crawls running at the same time.
+     * @throws IllegalArgumentException if the maximum is not positive.
+     */
+    public CrawlExecutor(int maxConcurrentCrawls) {
+        if (maxConcurrentCrawls <= 0) {
+            throw new IllegalArgumentException("The maximum number of concurrent crawls must be positive.");
+        }
+        ExecutorService virtualThreadExecutor = newVirtualThreadExecutor();
+        this.virtualThreads = virtualThreadExecutor != null;
+        this.threads = virtualThreads ? virtualThreadExecutor : Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "crawl-" + threadNumber.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.maxConcurrentCrawls = maxConcurrentCrawls;
+        this.permits = new Semaphore(maxConcurrentCrawls);
+    }
+
+    /**
+     * Submits a crawl. It starts right away if fewer crawls than the maximum are running, otherwise it is queued.
+     * @param crawl The crawl to be run.
+     */
+    public void submit(Runnable crawl) {
+        queuedCount.incrementAndGet();
+        queuedCrawls.add(crawl);
+        startQueuedCrawls();
+    }
+
+    /**
+     * Starts a worker of a running crawl on a thread of its own. Workers are not limited by the maximum number
+     * of concurrent crawls, since the crawl they work for already holds a permit.
+     * @param worker The worker to be run.
+     * @return The future of the worker, which can be cancelled to interrupt it.
+     * @throws java.util.concurrent.RejectedExecutionException if the executor was shut down.
+     */
+    public Future<?> startWorker(Runnable worker) {
+        return threads.submit(worker);
+    }
+
+    /**
+     * Starts queued crawls while there are permits left.
+     * A permit is taken before polling, so a crawl queued while the last running crawl finishes is never left behind.
+     */
+    private void startQueuedCrawls() {
+        while (!queuedCrawls.isEmpty() && permits.tryAcquire()) {
+            Runnable crawl = queuedCrawls.poll();
+            if (crawl == null) {
+                permits.release();
+                continue;
+            }
+            queuedCount.decrementAndGet();
+            activeCount.incrementAndGet();
+            threads.execute(() -> run(crawl));
+        }
+    }
+
+    /**
+     * Runs a crawl and then starts the next queued one.
+     * Exceptions that escape the crawl are only logged, so the crawl must set its search to a terminal state itself,
+     * as {@link CrawlerService#crawl(String)} does.
+     * @param crawl The crawl to be run.
+     */
+    private void run(Runnable crawl) {
+        try {
+            crawl.run();
+        } catch (RuntimeException e) {
+            logger.error("Crawl failed", e);
+        } finally {
+            activeCount.decrementAndGet();
+            completedCount.incrementAndGet();
+            permits.release();
+            startQueuedCrawls();
+        }
+    }
+
+    /**
+     * Stops accepting crawls and waits for the running ones to finish. Queued crawls are dropped.
+     * @param timeout The maximum time to wait.
+     * @param unit    The unit of the timeout.
+     * @return true if every running crawl finished, false if the timeout elapsed first.
+     * @throws InterruptedException if the thread is interrupted while waiting.
+     */
+    public boolean shutdown(long timeout, TimeUnit unit) throws InterruptedException {
+        queuedCrawls.clear();
+        queuedCount.set(0);
+        threads.shutdown();
+        return threads.awaitTermination(timeout, unit);
+    }
+
+    /**
+     * Gets the number of crawls waiting to be started.
+     * @return The queue length.
+     */
+    public int getQueuedCount() {
+        return queuedCount.get();
+    }
+
+    /**
+     * Gets the number of crawls running.
+     * @return The number of active crawls.
+     */
+    public int getActiveCount() {
+        return activeCount.get();
+    }
+
+    /**
+     * Gets the number of crawls that have finished, including the failed ones.
+     * @return The number of completed crawls.
+     */
+    public long getCompletedCount() {
+        return completedCount.get();
+    }
+
+    /**
+     * Gets the maximum number of crawls running at the same time.
+     * @return The concurrency ceiling.
+     */
+    public int getMaxConcurrentCrawls() {
+        return maxConcurrentCrawls;
+    }
+
+    /**
+     * Checks if the crawls run on virtual threads.
+     * @return true on virtual threads, false on platform threads.
+     */
+    public boolean isVirtualThreads() {
+        return virtualThreads;
+    }
+
+    /**
+     * Writes the number of queued, running and completed crawls.
+     * @param prometheus The writer of the metrics.
+     * @throws IOException if the metrics cannot be written.
+     */
+    public void writeMetrics(PrometheusWriter prometheus) throws IOException {
+        prometheus.family("crawler_executor_queued_crawls", PrometheusWriter.GAUGE, "Crawls waiting to be started.")
+                .sample("crawler_executor_queued_crawls", "", getQueuedCount());
+        prometheus.family("crawler_executor_active_crawls", PrometheusWriter.GAUGE, "Crawls running.")
+                .sample("crawler_executor_active_crawls", "", getActiveCount());
+        prometheus.family("crawler_executor_completed_crawls_total", PrometheusWriter.COUNTER,
+                        "Crawls that have finished, including the failed ones.")
+                .sample("crawler_executor_completed_crawls_total", "", getCompletedCount());
+    }
+
+    /**
+     * Creates an executor that starts a virtual thread per task, looked up by reflection
+     * so that the application still builds and runs on JDKs without virtual threads.
+     * @return The executor, or null if virtual threads are not available.
+     */
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException | UnsupportedOperationException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "CrawlExecutor{active=" + getActiveCount() + ", queued=" + getQueuedCount()
+                + ", completed=" + getCompletedCount() + ", max=" + maxConcurrentCrawls
+                + ", virtualThreads=" + virtualThreads + "}";
+    }
+}
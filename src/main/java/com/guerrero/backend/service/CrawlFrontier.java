@@ -0,0 +1,294 @@
+package com.guerrero.backend.service;
+
+import com.guerrero.backend.util.VisitedUrlSet;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+
+/**
+ * The set of URLs shared by all the workers of a single crawl.
+ * Wraps the URL queue and the found URLs set of a search and keeps count of the URLs
+ * that were found but not processed yet, so the workers can tell an empty queue
+ * (other workers may still add URLs) from a finished crawl.
+ * The URLs being processed are tracked too, so that a snapshot of the frontier can be taken while it is crawled.
+ * In a cluster, the frontier holds only the URLs owned by its node: the other ones are handed to a forwarder,
+ * and the frontier is held open until the whole cluster has finished, since other nodes may still send URLs.
+ */
+public class CrawlFrontier {
+
+    /**
+     * How long an idle worker waits for new URLs before checking the queue again.
+     */
+    private static final long IDLE_WAIT_MILLIS = 50;
+
+    /**
+     * The URLs waiting to be processed. Must be a thread-safe queue.
+     */
+    private final Queue<String> urlQueue;
+
+    /**
+     * Every URL that has ever been added to the queue.
+     */
+    private final VisitedUrlSet foundUrls;
+
+    /**
+     * Number of URLs added to the queue whose processing has not finished yet.
+     */
+    private final AtomicInteger pendingUrls;
+
+    /**
+     * The URLs taken from the queue whose processing has not finished yet.
+     */
+    private final Set<String> inFlightUrls = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Shared by the workers changing the frontier, and held exclusively while a snapshot is taken,
+     * so that every found URL is either queued, in flight or processed in the snapshot.
+     */
+    private final ReadWriteLock snapshotLock = new ReentrantReadWriteLock();
+
+    /**
+     * Lock and condition on which idle workers wait for new URLs. A lock is used instead of a monitor
+     * so that waiting workers running on virtual threads do not pin their carrier threads.
+     */
+    private final Lock idleLock = new ReentrantLock();
+    private final Condition urlsAvailable = idleLock.newCondition();
+
+    /**
+     * Takes the found URLs owned by other nodes, returning true for them, or false for the URLs to be queued here.
+     */
+    private volatile Predicate<String> forwarder = url -> false;
+
+    /**
+     * Whether the crawl must not finish yet, even when all the URLs found so far were processed.
+     */
+    private volatile boolean held;
+
+    /**
+     * Constructs a CrawlFrontier over the given URL queue and found URLs set.
+     * The URLs already in the queue are counted as pending.
+     * @param urlQueue  A thread-safe queue with the URLs to be processed.
+     * @param foundUrls The set of URLs already added to the queue.
+     */
+    public CrawlFrontier(Queue<String> urlQueue, VisitedUrlSet foundUrls) {
+        this.urlQueue = urlQueue;
+        this.foundUrls = foundUrls;
+        this.pendingUrls = new AtomicInteger(urlQueue.size());
+    }
+
+    /**
+     * Adds a URL to the queue if it has not been found before, or hands it to the forwarder if another node owns it.
+     * @param url The URL to be added.
+     * @return true if the URL was added or forwarded, false if it had already been found.
+     */
+    public boolean offer(String url) {
+        snapshotLock.readLock().lock();
+        try {
+            if (!foundUrls.add(url)) {
+                return false;
+            }
+            if (forwarder.test(url)) {
+                return true;
+            }
+            pendingUrls.incrementAndGet();
+            urlQueue.add(url);
+        } finally {
+            snapshotLock.readLock().unlock();
+        }
+        wakeUpWorkers();
+        return true;
+    }
+
+    /**
+     * Takes the next URL to be processed, waiting while the queue is empty
+     * but other workers are still processing URLs or the frontier is held open.
+     * Every URL returned by this method must be passed to {@link #markProcessed(String)} afterwards.
+     * @return The next URL, or null if the crawl is finished.
+     * @throws InterruptedException if the thread is interrupted while waiting.
+     */
+    public String next() throws InterruptedException {
+        while (true) {
+            String url = poll();
+            if (url != null) {
+                return url;
+            }
+            idleLock.lock();
+            try {
+                if (pendingUrls.get() == 0 && !held) {
+                    return null;
+                }
+                if (urlQueue.isEmpty()) {
+                    urlsAvailable.await(IDLE_WAIT_MILLIS, TimeUnit.MILLISECONDS);
+                }
+            } finally {
+                idleLock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Marks a URL taken with {@link #next()} as processed.
+     * @param url The processed URL.
+     */
+    public void markProcessed(String url) {
+        int remaining;
+        snapshotLock.readLock().lock();
+        try {
+            inFlightUrls.remove(url);
+            remaining = pendingUrls.decrementAndGet();
+        } finally {
+            snapshotLock.readLock().unlock();
+        }
+        if (remaining == 0) {
+            wakeUpWorkers();
+        }
+    }
+
+    /**
+     * Records the URL a processed URL was redirected to as found, so links to it are not crawled again.
+     * @param finalUrl The URL the redirect led to.
+     * @return true if the URL had not been found before, false otherwise.
+     */
+    public boolean recordRedirect(String finalUrl) {
+        snapshotLock.readLock().lock();
+        try {
+            return foundUrls.add(finalUrl);
+        } finally {
+            snapshotLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Sets the forwarder of the found URLs owned by other nodes.
+     * @param forwarder Takes a URL owned by another node and returns true, or returns false for a URL owned by this node.
+     */
+    public void setForwarder(Predicate<String> forwarder) {
+        this.forwarder = forwarder;
+    }
+
+    /**
+     * Keeps the crawl open when all the URLs found so far were processed, until {@link #release()} is called.
+     */
+    public void hold() {
+        held = true;
+    }
+
+    /**
+     * Lets the crawl finish once all the URLs found so far were processed.
+     */
+    public void release() {
+        held = false;
+        wakeUpWorkers();
+    }
+
+    /**
+     * Takes a consistent snapshot of the frontier: the URLs to be processed, including the ones in flight,
+     * and the URLs found so far. Workers are paused only while the URLs are copied.
+     * @return The snapshot.
+     */
+    public Snapshot snapshot() {
+        snapshotLock.writeLock().lock();
+        try {
+            List<String> pending = new ArrayList<>(inFlightUrls.size() + urlQueue.size());
+            pending.addAll(inFlightUrls);
+            pending.addAll(urlQueue);
+            return new Snapshot(pending, foundUrls.copy());
+        } finally {
+            snapshotLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Checks if all the URLs found so far were processed.
+     * @return true if there is nothing left to process, false otherwise.
+     */
+    public boolean isDrained() {
+        return pendingUrls.get() == 0;
+    }
+
+    /**
+     * Gets the number of URLs found but not processed yet.
+     * @return The number of pending URLs.
+     */
+    public int getPendingCount() {
+        return pendingUrls.get();
+    }
+
+    /**
+     * Takes a URL from the queue and records it as in flight.
+     * @return The URL, or null if the queue is empty.
+     */
+    private String poll() {
+        snapshotLock.readLock().lock();
+        try {
+            String url = urlQueue.poll();
+            if (url != null) {
+                inFlightUrls.add(url);
+            }
+            return url;
+        } finally {
+            snapshotLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Wakes up the workers waiting for new URLs.
+     */
+    private void wakeUpWorkers() {
+        idleLock.lock();
+        try {
+            urlsAvailable.signalAll();
+        } finally {
+            idleLock.unlock();
+        }
+    }
+
+    /**
+     * The state of a frontier at one point in time.
+     */
+    public static class Snapshot {
+
+        /**
+         * The URLs found but not processed, in flight first.
+         */
+        private final List<String> pendingUrls;
+
+        /**
+         * A copy of the URLs found so far.
+         */
+        private final VisitedUrlSet foundUrls;
+
+        Snapshot(List<String> pendingUrls, VisitedUrlSet foundUrls) {
+            this.pendingUrls = Collections.unmodifiableList(pendingUrls);
+            this.foundUrls = foundUrls;
+        }
+
+        /**
+         * Gets the URLs found but not processed yet, including the ones being processed.
+         * @return The pending URLs.
+         */
+        public List<String> getPendingUrls() {
+            return pendingUrls;
+        }
+
+        /**
+         * Gets the URLs found so far.
+         * @return A copy of the found URLs set.
+         */
+        public VisitedUrlSet getFoundUrls() {
+            return foundUrls;
+        }
+    }
+}
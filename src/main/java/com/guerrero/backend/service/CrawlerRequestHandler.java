@@ -3,12 +3,27 @@ package com.guerrero.backend.service;
 import com.guerrero.backend.dto.CrawlResponse;
 import com.guerrero.backend.dto.ResultsResponse;
 import com.guerrero.backend.dto.SearchRequest;
+import com.guerrero.backend.metrics.PrometheusWriter;
+import com.guerrero.backend.metrics.RequestMetrics;
 import com.guerrero.backend.model.SearchResult;
+import com.guerrero.backend.model.Status;
 import com.google.gson.Gson;
+import com.google.gson.stream.JsonWriter;
 import spark.Request;
 import spark.Response;
 
-import java.util.concurrent.CompletableFuture;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPOutputStream;
 
 /**
  * Handles HTTP requests related to the crawler functionality.
@@ -27,6 +42,55 @@ public class CrawlerRequestHandler {
      */
     public final static String START_SEARCH_PATH = "/crawl";
 
+    /**
+     * HTTP path for following search results as server-sent events.
+     */
+    public final static String STREAM_RESULTS_PATH = "/crawl/:id/stream";
+
+    /**
+     * HTTP path for the metrics of the crawler, in the Prometheus text format.
+     */
+    public final static String METRICS_PATH = "/metrics";
+
+    /**
+     * How long a results stream waits for new URLs before sending a comment,
+     * which keeps proxies from closing the connection and detects clients that went away.
+     */
+    private static final long STREAM_HEARTBEAT_SECONDS = 15;
+
+    /**
+     * Default maximum number of results streams open at the same time.
+     * Each open stream holds a server thread, so the limit keeps threads free for the other requests.
+     */
+    public static final int DEFAULT_MAX_STREAMS = 32;
+
+    /**
+     * Default time after which a results stream is closed. Clients reconnect with the Last-Event-ID header
+     * and resume where they left off, which frees the threads held by clients that stopped reading.
+     */
+    public static final Duration DEFAULT_MAX_STREAM_DURATION = Duration.ofMinutes(10);
+
+    /**
+     * Query parameter with the cursor of a results request.
+     */
+    public final static String SINCE_PARAMETER = "since";
+
+    /**
+     * Query parameter with the format of a results request, and the NDJSON media type.
+     */
+    public final static String FORMAT_PARAMETER = "format";
+    public final static String NDJSON_TYPE = "application/x-ndjson";
+
+    /**
+     * Size of the buffers between the serializer and the response.
+     */
+    private static final int RESPONSE_BUFFER_LENGTH = 8192;
+
+    /**
+     * Serializer shared by all the requests. Gson instances are thread-safe.
+     */
+    private static final Gson GSON = new Gson();
+
     /**
      * The associated CrawlerService instance that performs
      * search initiation and result retrieval.
@@ -34,40 +98,363 @@ public class CrawlerRequestHandler {
     private final CrawlerService crawlerService;
 
     /**
-     * Constructs a CrawlerRequestHandler with the given CrawlerService.
+     * Runs the crawls of the initiated searches.
+     */
+    private final CrawlExecutor crawlExecutor;
+
+    /**
+     * Latency of the GET and POST requests.
+     */
+    private final RequestMetrics requestMetrics = new RequestMetrics();
+
+    /**
+     * Number of results streams open.
+     */
+    private final AtomicInteger openStreams = new AtomicInteger();
+
+    /**
+     * Maximum number of results streams open at the same time.
+     */
+    private volatile int maxStreams = DEFAULT_MAX_STREAMS;
+
+    /**
+     * Time after which a results stream is closed.
+     */
+    private volatile Duration maxStreamDuration = DEFAULT_MAX_STREAM_DURATION;
+
+    /**
+     * Constructs a CrawlerRequestHandler with the given CrawlerService and a default CrawlExecutor.
      * @param crawlerService The CrawlerService instance to handle requests.
      */
     public CrawlerRequestHandler(CrawlerService crawlerService) {
+        this(crawlerService, new CrawlExecutor());
+    }
+
+    /**
+     * Constructs a CrawlerRequestHandler with the given CrawlerService and CrawlExecutor.
+     * @param crawlerService The CrawlerService instance to handle requests.
+     * @param crawlExecutor  The CrawlExecutor that runs the crawls.
+     */
+    public CrawlerRequestHandler(CrawlerService crawlerService, CrawlExecutor crawlExecutor) {
         this.crawlerService = crawlerService;
+        this.crawlExecutor = crawlExecutor;
     }
 
     /**
      * Handles HTTP GET requests to retrieve search results.
+     * The optional "since" query parameter is a cursor returned as "next" by a previous request:
+     * only the URLs found after it are returned. The response has an ETag for its format and encoding,
+     * and a request whose If-None-Match header lists it, or is "*", gets a 304 response without a body.
+     * The results are written straight to the response as they are serialized, so the memory used does not
+     * grow with the number of URLs. They are written as NDJSON when the "format" query parameter is "ndjson"
+     * or the Accept header asks for it, and compressed with gzip when the Accept-Encoding header allows it.
+     * @param request  The Spark request object.
+     * @param response The Spark response object.
+     * @return An empty string, since the results are written directly to the response.
+     * @throws IOException if the response cannot be written.
+     */
+    public String getResults(Request request, Response response) throws IOException {
+        long start = System.nanoTime();
+        try {
+            return writeResults(request, response);
+        } finally {
+            requestMetrics.record("GET", GET_RESULTS_PATH, start);
+        }
+    }
+
+    /**
+     * Writes the search results requested by a GET request, as described in {@link #getResults(Request, Response)}.
+     * @param request  The Spark request object.
+     * @param response The Spark response object.
+     * @return An empty string, since the results are written directly to the response.
+     * @throws IOException if the response cannot be written.
+     */
+    private String writeResults(Request request, Response response) throws IOException {
+        String searchId = request.params("id");
+        int since;
+        try {
+            since = parseCursor(request.queryParams(SINCE_PARAMETER));
+        } catch (IllegalArgumentException e) {
+            response.status(400);
+            return "";
+        }
+        ResultsResponse resultsResponse = createResultsResponse(searchId, since);
+        if (resultsResponse == null) {
+            response.status(404);
+            return "";
+        }
+        boolean ndjson = isNdjsonRequested(request);
+        boolean gzip = isGzipAccepted(request);
+        String eTag = createETag(resultsResponse, since, ndjson, gzip);
+        response.header("ETag", eTag);
+        response.header("Vary", "Accept, Accept-Encoding");
+        if (matchesETag(request.headers("If-None-Match"), eTag)) {
+            response.status(304);
+            return "";
+        }
+
+        response.type(ndjson ? NDJSON_TYPE : "application/json");
+        response.status(200);
+        if (gzip) {
+            response.header("Content-Encoding", "gzip");
+        }
+        OutputStream output = response.raw().getOutputStream();
+        GZIPOutputStream gzipOutput = gzip ? new GZIPOutputStream(output, RESPONSE_BUFFER_LENGTH) : null;
+        Writer writer = new BufferedWriter(new OutputStreamWriter(gzip ? gzipOutput : output, StandardCharsets.UTF_8),
+                RESPONSE_BUFFER_LENGTH);
+        if (ndjson) {
+            writeNdjson(resultsResponse, writer);
+        } else {
+            writeJson(resultsResponse, writer);
+        }
+        writer.flush();
+        if (gzipOutput != null) {
+            gzipOutput.finish();
+        }
+        output.flush();
+        return "";
+    }
+
+    /**
+     * Writes a results response as a JSON object, with the same fields Gson would write.
+     * @param resultsResponse The response.
+     * @param writer          The writer of the response body.
+     * @throws IOException if the response cannot be written.
+     */
+    static void writeJson(ResultsResponse resultsResponse, Writer writer) throws IOException {
+        JsonWriter json = new JsonWriter(writer);
+        json.beginObject();
+        json.name("id").value(resultsResponse.getId());
+        json.name("status").value(resultsResponse.getStatus().name());
+        json.name("urls").beginArray();
+        for (String url : resultsResponse.getUrls()) {
+            json.value(url);
+        }
+        json.endArray();
+        json.name("next").value(resultsResponse.getNext());
+        json.endObject();
+        json.flush();
+    }
+
+    /**
+     * Writes a results response as NDJSON: a first line with the id, status and cursor,
+     * followed by one line per URL.
+     * @param resultsResponse The response.
+     * @param writer          The writer of the response body.
+     * @throws IOException if the response cannot be written.
+     */
+    static void writeNdjson(ResultsResponse resultsResponse, Writer writer) throws IOException {
+        JsonWriter json = new JsonWriter(writer);
+        json.setLenient(true);
+        json.beginObject();
+        json.name("id").value(resultsResponse.getId());
+        json.name("status").value(resultsResponse.getStatus().name());
+        json.name("next").value(resultsResponse.getNext());
+        json.endObject();
+        for (String url : resultsResponse.getUrls()) {
+            writer.write('\n');
+            json.beginObject();
+            json.name("url").value(url);
+            json.endObject();
+        }
+        writer.write('\n');
+        json.flush();
+    }
+
+    /**
+     * Checks if a results request asks for NDJSON.
+     * @param request The Spark request object.
+     * @return true for NDJSON, false for a JSON object.
+     */
+    private static boolean isNdjsonRequested(Request request) {
+        String accept = request.headers("Accept");
+        return "ndjson".equals(request.queryParams(FORMAT_PARAMETER))
+                || (accept != null && accept.contains(NDJSON_TYPE));
+    }
+
+    /**
+     * Checks if a request accepts a gzip compressed response.
+     * @param request The Spark request object.
+     * @return true if gzip is accepted, false otherwise.
+     */
+    private static boolean isGzipAccepted(Request request) {
+        String acceptEncoding = request.headers("Accept-Encoding");
+        return acceptEncoding != null && acceptEncoding.toLowerCase(Locale.ROOT).contains("gzip");
+    }
+
+    /**
+     * Handles HTTP GET requests to follow search results as server-sent events.
+     * The URLs already found are sent first, then each new URL as soon as it is found, as "url" events
+     * whose id is the cursor after them. A final "done" event carries the results response
+     * with the final cursor and no URLs, since they were all sent before.
+     * The stream starts after the "since" query parameter or the Last-Event-ID header, if present.
+     * Each subscriber reads the search results at its own pace from its own cursor,
+     * so a slow client never blocks the crawl and nothing is buffered for it.
+     * Each open stream holds a server thread, so beyond the maximum number of streams the request gets
+     * a 503 response, and a stream is closed after the maximum stream duration. Clients then reconnect
+     * with the Last-Event-ID header.
      * @param request  The Spark request object.
      * @param response The Spark response object.
-     * @return A JSON representation of the search results.
+     * @return An empty string, since the events are written directly to the response.
+     * @throws IOException if the response cannot be written, which usually means the client went away.
+     * @throws InterruptedException if the thread is interrupted while waiting for new URLs.
      */
-    public String getResults(Request request, Response response) {
+    public String streamResults(Request request, Response response) throws IOException, InterruptedException {
         String searchId = request.params("id");
-        ResultsResponse resultsResponse = createResultsResponse(searchId);
-        String jsonResponse = new Gson().toJson(resultsResponse);
-        response.type("application/json");
+        SearchResult searchResult = crawlerService.getSearchResult(searchId);
+        if (searchResult == null) {
+            response.status(404);
+            return "";
+        }
+        int cursor;
+        try {
+            String lastEventId = request.headers("Last-Event-ID");
+            cursor = parseCursor(lastEventId != null ? lastEventId : request.queryParams(SINCE_PARAMETER));
+        } catch (IllegalArgumentException e) {
+            response.status(400);
+            return "";
+        }
+
+        if (openStreams.incrementAndGet() > maxStreams) {
+            openStreams.decrementAndGet();
+            response.status(503);
+            response.header("Retry-After", String.valueOf(STREAM_HEARTBEAT_SECONDS));
+            return "";
+        }
+        try {
+            return writeEvents(searchId, searchResult, cursor, response);
+        } finally {
+            openStreams.decrementAndGet();
+        }
+    }
+
+    /**
+     * Writes the events of a results stream until the search is done or the stream has been open
+     * for the maximum stream duration.
+     * @param searchId     The ID of the search.
+     * @param searchResult The results of the search.
+     * @param cursor       The number of URLs the client already has.
+     * @param response     The Spark response object.
+     * @return An empty string, since the events are written directly to the response.
+     * @throws IOException if the response cannot be written.
+     * @throws InterruptedException if the thread is interrupted while waiting for new URLs.
+     */
+    private String writeEvents(String searchId, SearchResult searchResult, int cursor, Response response)
+            throws IOException, InterruptedException {
+        long deadline = System.nanoTime() + maxStreamDuration.toNanos();
         response.status(200);
-        return jsonResponse;
+        response.type("text/event-stream");
+        response.header("Cache-Control", "no-cache");
+        Writer writer = new BufferedWriter(new OutputStreamWriter(response.raw().getOutputStream(), StandardCharsets.UTF_8));
+        while (true) {
+            Status status = searchResult.getStatus();
+            List<String> urls = searchResult.getUrls(cursor);
+            for (String url : urls) {
+                cursor++;
+                writer.write("event: url\nid: " + cursor + "\ndata: " + url + "\n\n");
+            }
+            if (status == Status.done) {
+                ResultsResponse resultsResponse = new ResultsResponse(searchId, status, List.of(), cursor);
+                writer.write("event: done\nid: " + cursor + "\ndata: " + GSON.toJson(resultsResponse) + "\n\n");
+                writer.flush();
+                return "";
+            }
+            long remainingNanos = deadline - System.nanoTime();
+            if (remainingNanos <= 0) {
+                writer.flush();
+                return "";
+            }
+            long waitNanos = Math.min(remainingNanos, TimeUnit.SECONDS.toNanos(STREAM_HEARTBEAT_SECONDS));
+            if (urls.isEmpty() && !searchResult.awaitChange(cursor, waitNanos, TimeUnit.NANOSECONDS)) {
+                writer.write(": keep-alive\n\n");
+            }
+            writer.flush();
+        }
     }
 
     /**
      * Creates a ResultsResponse based on the provided search ID.
+     * The status is read before the URLs, so a done response always has every URL.
      * @param searchId The ID of the search for which results are requested.
-     * @return A ResultsResponse containing search results information.
+     * @param since    The number of URLs already returned to the client.
+     * @return A ResultsResponse containing search results information, or null if the search is unknown.
      */
-    private ResultsResponse createResultsResponse(String searchId) {
+    private ResultsResponse createResultsResponse(String searchId, int since) {
         SearchResult searchResult = crawlerService.getSearchResult(searchId);
-        return new ResultsResponse(
-                searchResult.getId(),
-                searchResult.getStatus(),
-                searchResult.getUrls()
-        );
+        if (searchResult == null) {
+            return null;
+        }
+        Status status = searchResult.getStatus();
+        List<String> urls = searchResult.getUrls(since);
+        return new ResultsResponse(searchResult.getId(), status, urls, since + urls.size());
+    }
+
+    /**
+     * Parses the cursor of a results request.
+     * @param since The value of the "since" query parameter, or null.
+     * @return The cursor, 0 if there is none.
+     * @throws IllegalArgumentException if the cursor is not a non-negative number.
+     */
+    private static int parseCursor(String since) {
+        if (since == null || since.isEmpty()) {
+            return 0;
+        }
+        int cursor = Integer.parseInt(since);
+        if (cursor < 0) {
+            throw new IllegalArgumentException("The cursor must not be negative.");
+        }
+        return cursor;
+    }
+
+    /**
+     * Creates the ETag of a results response. The status and the number of URLs identify the content,
+     * since URLs are only ever appended, and the format and encoding identify its representation.
+     * @param resultsResponse The response.
+     * @param since           The cursor of the request.
+     * @param ndjson          Whether the response is written as NDJSON.
+     * @param gzip            Whether the response is compressed with gzip.
+     * @return The quoted ETag.
+     */
+    private static String createETag(ResultsResponse resultsResponse, int since, boolean ndjson, boolean gzip) {
+        return "\"" + resultsResponse.getId() + "-" + resultsResponse.getStatus() + "-" + since
+                + "-" + resultsResponse.getNext() + (ndjson ? "-ndjson" : "-json") + (gzip ? "-gzip" : "") + "\"";
+    }
+
+    /**
+     * Checks if an If-None-Match header matches an ETag, with the weak comparison of RFC 9110:
+     * the header is "*" or a comma-separated list of ETags, and a "W/" prefix is ignored on both sides.
+     * @param ifNoneMatch The If-None-Match header, or null.
+     * @param eTag        The quoted ETag of the response.
+     * @return true if the header matches, false if it is missing, malformed or does not list the ETag.
+     */
+    static boolean matchesETag(String ifNoneMatch, String eTag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        String opaqueTag = eTag.startsWith("W/") ? eTag.substring(2) : eTag;
+        int position = 0;
+        while (position < ifNoneMatch.length()) {
+            char c = ifNoneMatch.charAt(position);
+            if (c == ',' || c == ' ' || c == '\t') {
+                position++;
+                continue;
+            }
+            if (c == '*') {
+                return true;
+            }
+            if (ifNoneMatch.startsWith("W/", position)) {
+                position += 2;
+            }
+            int end = ifNoneMatch.indexOf('"', position + 1);
+            if (position >= ifNoneMatch.length() || ifNoneMatch.charAt(position) != '"' || end < 0) {
+                return false;
+            }
+            if (end + 1 - position == opaqueTag.length() && ifNoneMatch.startsWith(opaqueTag, position)) {
+                return true;
+            }
+            position = end + 1;
+        }
+        return false;
     }
 
     /**
@@ -77,23 +464,88 @@ public class CrawlerRequestHandler {
      * @return A JSON representation containing the id of the initiated search.
      */
     public String startSearch(Request request, Response response) {
-        String keyword = getKeyword(request);
-        String searchId = initiateCrawlerService(keyword);
-        CrawlResponse crawlResponse = new CrawlResponse(searchId);
-        String jsonResponse = new Gson().toJson(crawlResponse);
-        response.type("application/json");
+        long start = System.nanoTime();
+        try {
+            String keyword = getKeyword(request);
+            String searchId = initiateCrawlerService(keyword);
+            CrawlResponse crawlResponse = new CrawlResponse(searchId);
+            String jsonResponse = GSON.toJson(crawlResponse);
+            response.type("application/json");
+            response.status(200);
+            return jsonResponse;
+        } finally {
+            requestMetrics.record("POST", START_SEARCH_PATH, start);
+        }
+    }
+
+    /**
+     * Handles HTTP GET requests for the metrics of the crawler, in the Prometheus text format:
+     * the crawl counters and latency histograms, the progress of each search being crawled,
+     * the crawl executor queue, the latency of the GET and POST requests and the open results streams.
+     * @param request  The Spark request object.
+     * @param response The Spark response object.
+     * @return An empty string, since the metrics are written directly to the response.
+     * @throws IOException if the response cannot be written.
+     */
+    public String getMetrics(Request request, Response response) throws IOException {
         response.status(200);
-        return jsonResponse;
+        response.type(PrometheusWriter.CONTENT_TYPE);
+        Writer writer = new BufferedWriter(new OutputStreamWriter(response.raw().getOutputStream(), StandardCharsets.UTF_8),
+                RESPONSE_BUFFER_LENGTH);
+        PrometheusWriter prometheus = new PrometheusWriter(writer);
+        crawlerService.getMetrics().writeTo(prometheus);
+        crawlerService.writeSearchMetrics(prometheus);
+        crawlExecutor.writeMetrics(prometheus);
+        requestMetrics.writeTo(prometheus);
+        prometheus.family("crawler_result_streams", PrometheusWriter.GAUGE, "Results streams open.")
+                .sample("crawler_result_streams", "", getOpenStreamCount());
+        writer.flush();
+        return "";
+    }
+
+    /**
+     * Sets the maximum number of results streams open at the same time.
+     * @param maxStreams The maximum number of streams.
+     * @throws IllegalArgumentException if the maximum is less than 1.
+     */
+    public void setMaxStreams(int maxStreams) {
+        if (maxStreams < 1) {
+            throw new IllegalArgumentException("The maximum number of streams must be at least 1.");
+        }
+        this.maxStreams = maxStreams;
+    }
+
+    /**
+     * Sets the time after which a results stream is closed.
+     * @param maxStreamDuration The maximum duration of a stream.
+     * @throws IllegalArgumentException if the duration is not positive.
+     */
+    public void setMaxStreamDuration(Duration maxStreamDuration) {
+        if (maxStreamDuration.isNegative() || maxStreamDuration.isZero()) {
+            throw new IllegalArgumentException("The maximum stream duration must be positive.");
+        }
+        this.maxStreamDuration = maxStreamDuration;
+    }
+
+    /**
+     * Gets the number of results streams open.
+     * @return The number of open streams.
+     */
+    public int getOpenStreamCount() {
+        return openStreams.get();
     }
 
     /**
-     * Initiates a new search using the CrawlerService asynchronously.
+     * Initiates a new search using the CrawlerService on the crawl executor,
+     * unless the search can be completed right away without crawling.
      * @param keyword The keyword for the new search.
      * @return The ID of the initiated search.
      */
     private String initiateCrawlerService(String keyword) {
         String searchId = crawlerService.initializeDataStructures(keyword);
-        CompletableFuture.runAsync(() -> crawlerService.crawl(searchId));
+        if (!crawlerService.completeWithoutCrawling(searchId)) {
+            crawlExecutor.submit(() -> crawlerService.crawl(searchId));
+        }
         return searchId;
     }
 
@@ -103,7 +555,7 @@ public class CrawlerRequestHandler {
      * @return The keyword extracted from the request.
      */
     private String getKeyword(Request request) {
-        SearchRequest searchRequest = new Gson().fromJson(request.body(), SearchRequest.class);
+        SearchRequest searchRequest = GSON.fromJson(request.body(), SearchRequest.class);
         return searchRequest.getKeyword();
     }
 }
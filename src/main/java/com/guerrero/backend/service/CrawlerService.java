@@ -1,18 +1,43 @@
 package com.guerrero.backend.service;
 
+import com.guerrero.backend.cache.KeywordResultCache;
+import com.guerrero.backend.cache.PageCache;
+import com.guerrero.backend.cluster.ClusterNode;
+import com.guerrero.backend.fetch.FetchResponse;
+import com.guerrero.backend.fetch.HttpClientPageFetcher;
+import com.guerrero.backend.fetch.PageFetcher;
+import com.guerrero.backend.index.InvertedIndex;
+import com.guerrero.backend.matcher.KeywordMatcher;
+import com.guerrero.backend.metrics.CrawlMetrics;
+import com.guerrero.backend.metrics.PrometheusWriter;
+import com.guerrero.backend.parser.HtmlLinkExtractor;
+import com.guerrero.backend.parser.LinkExtractor;
+import com.guerrero.backend.store.CheckpointStore;
+import com.guerrero.backend.store.CrawlCheckpoint;
+import com.guerrero.backend.store.ResultStore;
 import com.guerrero.backend.model.Search;
 import com.guerrero.backend.model.SearchResult;
 import com.guerrero.backend.model.Status;
+import com.guerrero.backend.util.LimitedInputStream;
+import com.guerrero.backend.util.UrlCanonicalizer;
+import com.guerrero.backend.util.VisitedUrlSet;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.BufferedReader;
+import java.io.IOException;
 import java.io.InputStreamReader;
-import java.net.MalformedURLException;
-import java.net.URL;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.time.Duration;
 import java.util.*;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 /**
  * Manages the crawling process for a specific base URL.
@@ -27,38 +52,169 @@ public class CrawlerService {
      */
     private String baseUrl;
 
+    /**
+     * The canonical form of the base URL, which the found URLs must start with.
+     */
+    private String canonicalBaseUrl;
+
+    /**
+     * Canonicalizes the found URLs, so the variants of a URL are crawled once.
+     */
+    private UrlCanonicalizer urlCanonicalizer = UrlCanonicalizer.withDefaults();
+
+    /**
+     * Number of workers fetching pages concurrently for a single search.
+     */
+    private final int workerCount;
+
+    /**
+     * Cache of fetched pages, shared by all the searches.
+     */
+    private final PageCache pageCache;
+
+    /**
+     * Runs the extra workers of each crawl, on virtual threads when the JDK supports them.
+     */
+    private volatile CrawlExecutor workerExecutor = new CrawlExecutor();
+
+    /**
+     * Index of the site built from the last completed index crawl, or null if there is none.
+     */
+    private volatile InvertedIndex siteIndex;
+
+    /**
+     * Fetches the pages, shared by all the searches.
+     */
+    private PageFetcher pageFetcher = new HttpClientPageFetcher();
+
+    /**
+     * Whether searches scan the pages while they are read, instead of reading each page into memory first.
+     */
+    private boolean streamingFetch;
+
+    /**
+     * Maximum number of bytes read from a page. The rest of a longer page is ignored.
+     */
+    private long maxPageBytes = DEFAULT_MAX_PAGE_BYTES;
+
+    /**
+     * Number of URLs a Bloom filter visited set is sized for, or 0 for exact visited sets.
+     */
+    private long bloomFilterExpectedUrls;
+
+    /**
+     * False positive rate of Bloom filter visited sets.
+     */
+    private static final double BLOOM_FILTER_FALSE_POSITIVE_RATE = 0.001;
+
+    /**
+     * Extracts the links of the pages.
+     */
+    private final LinkExtractor linkExtractor = new HtmlLinkExtractor();
+
+    /**
+     * Scans the pages in streaming mode.
+     */
+    private final StreamingPageScanner pageScanner =
+            new StreamingPageScanner(StreamingPageScanner.DEFAULT_BUFFER_LENGTH, linkExtractor);
+
     /**
      * Map to store searches by their IDs.
      */
-    private Map<String, Search> searches = new HashMap<String, Search>();
+    private final Map<String, Search> searches = new ConcurrentHashMap<>();
 
     /**
      * Map to store search results by their IDs.
      */
-    private Map<String, SearchResult> searchResults = new HashMap<String, SearchResult>();
+    private final Map<String, SearchResult> searchResults = new ConcurrentHashMap<>();
 
     /**
      * Map to store URL queues by search IDs.
      * For each search, the crawler will navigate its URLs queue until the queue is empty.
      */
-    private Map<String, Queue<String>> urlQueues = new HashMap<String, Queue<String>>();
+    private final Map<String, Queue<String>> urlQueues = new ConcurrentHashMap<>();
 
     /**
      * Map to store found URLs by search IDs.
-     * For each search, the foundUrls list is useful for knowing
+     * For each search, the foundUrls set is useful for knowing
      * which URLs have already been added to the queue before.
      */
-    private Map<String, List<String>> foundUrlsMap = new HashMap<String, List<String>>();
+    private final Map<String, VisitedUrlSet> foundUrlsMap = new ConcurrentHashMap<>();
+
+    /**
+     * Map to store the frontiers of the searches being crawled by their IDs.
+     */
+    private final Map<String, CrawlFrontier> activeFrontiers = new ConcurrentHashMap<>();
+
+    /**
+     * IDs of the searches restored from their checkpoints whose crawls have not started again.
+     */
+    private final Set<String> resumedSearchIds = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Expires and spills the results of finished searches.
+     */
+    private final SearchLifecycleManager lifecycleManager = new SearchLifecycleManager(searchResults, searches);
+
+    /**
+     * Cache of search results by keyword, shared by all the searches.
+     */
+    private volatile KeywordResultCache resultCache = KeywordResultCache.disabled();
 
     /**
-     * String constants used for URL cleaning
-     * and URL extraction from HTML content.
+     * Persists the searches and their results, or null when they are only kept in memory.
      */
-    private static final String HTTP = "http";
-    private static final String HTTPS = "https";
-    private static final String CLEANING_REGEX = "/\\.\\./";
-    private static final String SLASH = "/";
-    private static final String ANCHOR_PATTERN = "<a\\s+[^>]*href\\s*=\\s*\"([^\"]+)\"[^>]*>";
+    private volatile ResultStore resultStore;
+
+    /**
+     * Persists checkpoints of the searches being crawled, or null when crawls cannot be resumed after a restart.
+     */
+    private volatile CheckpointStore checkpointStore;
+
+    /**
+     * Held while a checkpoint is written or deleted, so a finished search is never checkpointed again.
+     */
+    private final Object checkpointLock = new Object();
+
+    /**
+     * Checkpoints the searches being crawled periodically, or null when not started.
+     */
+    private ScheduledExecutorService checkpointer;
+
+    /**
+     * The node of the cluster that crawls the searches together with this service, or null when crawling alone.
+     */
+    private volatile ClusterNode clusterNode;
+
+    /**
+     * Whether new crawls are seeded with the URLs listed in the sitemaps of the site.
+     */
+    private boolean sitemapSeeding;
+
+    /**
+     * Maximum number of URLs a crawl is seeded with from the sitemaps.
+     */
+    private int maxSitemapUrls = SitemapSeeder.DEFAULT_MAX_URLS;
+
+    /**
+     * Counters and latency histograms of the crawls.
+     */
+    private final CrawlMetrics metrics = new CrawlMetrics();
+
+    /**
+     * Default number of workers per search, which crawls one URL at a time.
+     */
+    public static final int DEFAULT_WORKER_COUNT = 1;
+
+    /**
+     * Default maximum number of bytes read from a page.
+     */
+    public static final long DEFAULT_MAX_PAGE_BYTES = 10L * 1024 * 1024;
+
+    /**
+     * Number of characters read at a time when downloading a page.
+     */
+    private static final int READ_BUFFER_LENGTH = 8192;
 
     /**
      * Logger for messages related to the crawling process.
@@ -70,32 +226,149 @@ public class CrawlerService {
      * @param baseURL The base URL for the crawling process.
      */
     public CrawlerService(String baseURL) {
+        this(baseURL, DEFAULT_WORKER_COUNT);
+    }
+
+    /**
+     * Constructs a CrawlerService instance with the specified base URL and number of workers per search.
+     * @param baseURL     The base URL for the crawling process.
+     * @param workerCount The number of workers fetching pages concurrently for each search.
+     * @throws IllegalArgumentException if the number of workers is less than 1.
+     */
+    public CrawlerService(String baseURL, int workerCount) {
+        this(baseURL, workerCount, PageCache.disabled());
+    }
+
+    /**
+     * Constructs a CrawlerService instance with the specified base URL, number of workers per search and page cache.
+     * @param baseURL     The base URL for the crawling process.
+     * @param workerCount The number of workers fetching pages concurrently for each search.
+     * @param pageCache   The cache of fetched pages shared by all the searches.
+     * @throws IllegalArgumentException if the number of workers is less than 1.
+     */
+    public CrawlerService(String baseURL, int workerCount, PageCache pageCache) {
+        if (workerCount < 1) {
+            throw new IllegalArgumentException("The number of workers must be at least 1.");
+        }
         baseUrl = baseURL;
+        canonicalBaseUrl = urlCanonicalizer.canonicalize(baseURL);
+        this.workerCount = workerCount;
+        this.pageCache = pageCache;
     }
 
     /**
      * Initiates data structures for a new search based on the provided keyword.
+     * In a cluster, the other nodes join the search and the base URL is sent to the node that owns it.
      * @param keyword The keyword for the new search.
      * @return The ID of the initiated search.
      * @throws IllegalArgumentException If the keyword length is invalid.
      */
     public String initializeDataStructures(String keyword) throws IllegalArgumentException {
         Search search = createSearch(keyword);
+        ClusterNode node = clusterNode;
+        if (node != null) {
+            joinClusterSearch(search.getId(), search.getKeyword());
+            node.startSearch(search.getId(), search.getKeyword());
+            activeFrontiers.get(search.getId()).offer(baseUrl);
+            return search.getId();
+        }
         SearchResult searchResult = createSearchResult(search);
         Queue<String> urlQueue = createUrlQueue();
-        List<String> foundUrls = createFoundUrls();
+        VisitedUrlSet foundUrls = createFoundUrls();
         saveDataStructures(search, searchResult, urlQueue, foundUrls);
+        ResultStore store = resultStore;
+        if (store != null) {
+            store.appendSearch(search.getId(), search.getKeyword());
+        }
         return search.getId();
     }
 
+    /**
+     * Initiates data structures for a search crawled by the whole cluster, with an empty frontier held open
+     * until the cluster finishes the search. The URLs owned by other nodes are forwarded to them.
+     * @param searchId The ID of the search.
+     * @param keyword  The keyword of the search.
+     * @throws IllegalArgumentException If the keyword length is invalid.
+     */
+    public void joinClusterSearch(String searchId, String keyword) {
+        Search search = new Search(searchId, keyword);
+        Queue<String> urlQueue = new ConcurrentLinkedQueue<>();
+        VisitedUrlSet foundUrls = createEmptyFoundUrls();
+        saveDataStructures(search, createSearchResult(search), urlQueue, foundUrls);
+        ResultStore store = resultStore;
+        if (store != null) {
+            store.appendSearch(searchId, search.getKeyword());
+        }
+        CrawlFrontier frontier = new CrawlFrontier(urlQueue, foundUrls);
+        ClusterNode node = clusterNode;
+        frontier.setForwarder(url -> node.forward(searchId, url));
+        frontier.hold();
+        activeFrontiers.put(searchId, frontier);
+    }
+
+    /**
+     * Adds URLs sent by another node of the cluster to the frontier of a search.
+     * @param searchId The ID of the search.
+     * @param urls     The URLs owned by this node.
+     * @return true if the URLs were added, false if the search is not being crawled by this service.
+     */
+    public boolean offerClusterUrls(String searchId, List<String> urls) {
+        CrawlFrontier frontier = activeFrontiers.get(searchId);
+        if (frontier == null) {
+            return false;
+        }
+        for (String url : urls) {
+            frontier.offer(url);
+        }
+        return true;
+    }
+
+    /**
+     * Adds URLs matched by another node of the cluster to the result of a search.
+     * @param searchId The ID of the search.
+     * @param urls     The matched URLs.
+     * @return true if the URLs were added, false if the search is unknown to this service.
+     */
+    public boolean addClusterMatches(String searchId, List<String> urls) {
+        SearchResult searchResult = searchResults.get(searchId);
+        if (searchResult == null) {
+            return false;
+        }
+        for (String url : urls) {
+            recordUrl(searchResult, url);
+        }
+        return true;
+    }
+
+    /**
+     * Lets the crawl of a cluster search finish, once the whole cluster has finished it.
+     * @param searchId The ID of the search.
+     */
+    public void releaseClusterSearch(String searchId) {
+        CrawlFrontier frontier = activeFrontiers.get(searchId);
+        if (frontier != null) {
+            frontier.release();
+        }
+    }
+
+    /**
+     * Gets the number of URLs of a search found but not processed yet by this service.
+     * @param searchId The ID of the search.
+     * @return The number of pending URLs, 0 if the search is not being crawled.
+     */
+    public int getPendingUrlCount(String searchId) {
+        CrawlFrontier frontier = activeFrontiers.get(searchId);
+        return frontier == null ? 0 : frontier.getPendingCount();
+    }
+
     /**
      * Saves the data structures in their respective maps.
      * @param search the search object to be saved.
      * @param searchResult the searchResult object to be saved.
      * @param urlQueue the urlQueue to be saved.
-     * @param foundUrls the foundUrls list to be saved.
+     * @param foundUrls the foundUrls set to be saved.
      */
-    private void saveDataStructures(Search search, SearchResult searchResult, Queue<String> urlQueue, List<String> foundUrls) {
+    private void saveDataStructures(Search search, SearchResult searchResult, Queue<String> urlQueue, VisitedUrlSet foundUrls) {
         String searchId = search.getId();
         searches.put(searchId, search);
         searchResults.put(searchId, searchResult);
@@ -104,21 +377,33 @@ public class CrawlerService {
     }
 
     /**
-     * Creates a list of found URLs containing the baseUrl.
-     * @return the list of found URLs.
+     * Creates a set of found URLs containing the baseUrl.
+     * @return the set of found URLs.
      */
-    private List<String> createFoundUrls() {
-        List<String> foundUrls = new ArrayList<>();
+    private VisitedUrlSet createFoundUrls() {
+        VisitedUrlSet foundUrls = createEmptyFoundUrls();
         foundUrls.add(baseUrl);
+        foundUrls.add(canonicalBaseUrl);
         return foundUrls;
     }
 
+    /**
+     * Creates an empty set of found URLs.
+     * The set is backed by a Bloom filter when an expected number of URLs was configured.
+     * @return the set of found URLs.
+     */
+    private VisitedUrlSet createEmptyFoundUrls() {
+        return bloomFilterExpectedUrls > 0
+                ? VisitedUrlSet.approximate(bloomFilterExpectedUrls, BLOOM_FILTER_FALSE_POSITIVE_RATE)
+                : new VisitedUrlSet();
+    }
+
     /**
      * Creates a queue of URLs containing the baseUrl.
      * @return the queue of URLs to be processed.
      */
     private Queue<String> createUrlQueue() {
-        Queue<String> urlQueue = new LinkedList<>();
+        Queue<String> urlQueue = new ConcurrentLinkedQueue<>();
         urlQueue.add(baseUrl);
         return urlQueue;
     }
@@ -138,7 +423,74 @@ public class CrawlerService {
      * @return A SearchResult containing an id, status and a list of URLs.
      */
     public SearchResult getSearchResult(String searchId) {
-        return searchResults.get(searchId);
+        SearchResult searchResult = searchResults.get(searchId);
+        if (searchResult == null) {
+            searchResult = lifecycleManager.load(searchId);
+        }
+        if (searchResult == null) {
+            searchResult = loadStoredSearchResult(searchId);
+        }
+        return searchResult;
+    }
+
+    /**
+     * Loads the result of a search from the result store, for searches started before the application restarted.
+     * A search that was still active is set to done, since its crawl stopped with the previous process.
+     * @param searchId The identification of the search.
+     * @return The stored result, or null if there is no result store or the search is not in it.
+     */
+    private SearchResult loadStoredSearchResult(String searchId) {
+        ResultStore store = resultStore;
+        if (store == null) {
+            return null;
+        }
+        SearchResult searchResult = store.load(searchId);
+        if (searchResult == null) {
+            return null;
+        }
+        if (searchResult.getStatus() != Status.done) {
+            logger.warn("Search {} was interrupted by a restart, returning its partial results", searchId);
+            searchResult.setStatus(Status.done);
+            store.appendStatus(searchId, Status.done);
+        }
+        SearchResult loadedConcurrently = searchResults.putIfAbsent(searchId, searchResult);
+        if (loadedConcurrently != null) {
+            return loadedConcurrently;
+        }
+        lifecycleManager.onSearchFinished(searchId);
+        return searchResult;
+    }
+
+    /**
+     * Adds a matched URL to a search result and to the results of the searches following it.
+     * In a cluster, the URL is also sent to the other nodes.
+     * @param searchResult The result of the search.
+     * @param url          The matched URL.
+     */
+    private void addMatch(SearchResult searchResult, String url) {
+        recordUrl(searchResult, url);
+        ClusterNode node = clusterNode;
+        if (node != null) {
+            node.shareMatch(searchResult.getId(), url);
+        }
+        for (String followerId : resultCache.getFollowers(searchResult.getId())) {
+            SearchResult followerResult = searchResults.get(followerId);
+            if (followerResult != null) {
+                recordUrl(followerResult, url);
+            }
+        }
+    }
+
+    /**
+     * Adds a URL to a search result, and to the result store if there is one.
+     * @param searchResult The result of the search.
+     * @param url          The URL.
+     */
+    private void recordUrl(SearchResult searchResult, String url) {
+        ResultStore store = resultStore;
+        if (searchResult.addUrl(url) && store != null) {
+            store.appendUrl(searchResult.getId(), url);
+        }
     }
 
     /**
@@ -146,122 +498,614 @@ public class CrawlerService {
      * This method fetches HTML content from URLs in the search's URL queue, searches for additional
      * URLs within the HTML content, and checks for the presence of the specified keyword.
      * If the keyword is found, the corresponding URL is added to the search result.
+     * The search is only set to done after every URL found was processed.
+     * If the crawl fails, the search is set to done with the URLs found so far, the searches following it
+     * in the result cache are completed too, and its partial results are not cached.
+     * An Error is treated as a crash instead: it is rethrown and the checkpoint of the search is kept,
+     * so the search resumes after a restart.
      * @param searchId The ID of the active search for which crawling is initiated.
      */
     public void crawl(String searchId) {
+        try {
+            crawlSearch(searchId);
+        } catch (RuntimeException e) {
+            logger.error("Crawl of search {} failed, finishing it with the URLs found so far", searchId, e);
+            releaseFollowers(searchId);
+        } catch (Error e) {
+            releaseFollowers(searchId);
+            throw e;
+        }
+        finishSearch(searchId);
+    }
+
+    /**
+     * Crawls the frontier of a search until every URL found was processed.
+     * @param searchId The ID of the search.
+     */
+    private void crawlSearch(String searchId) {
         String keyword = searches.get(searchId).getKeyword();
         logger.info("Starting search for keyword: {}, id: {}", keyword, searchId);
-        boolean keywordIsFound;
-        Queue<String> urlQueue = urlQueues.get(searchId);
-        while (!urlQueue.isEmpty()) {
-            String currentURL = urlQueue.remove();
-            String rawHTML = fetchHTML(currentURL);
-            searchForUrlsOnHTML(searchId, rawHTML);
-            keywordIsFound = htmlContainsKeyword(keyword, rawHTML);
-            if (keywordIsFound) {
-                SearchResult searchResult = searchResults.get(searchId);
-                searchResult.addUrl(currentURL);
-            }
+        SearchResult searchResult = searchResults.get(searchId);
+        KeywordMatcher keywordMatcher = KeywordMatcher.forKeyword(keyword);
+        boolean resumed = resumedSearchIds.remove(searchId);
+        CrawlFrontier frontier = activeFrontiers.computeIfAbsent(searchId,
+                id -> new CrawlFrontier(urlQueues.get(id), foundUrlsMap.get(id)));
+        ClusterNode node = clusterNode;
+        if (node == null ? !resumed : node.isCoordinating(searchId)) {
+            seedFromSitemaps(frontier);
+        }
+        if (streamingFetch) {
+            crawlFrontier(frontier, currentURL -> {
+                if (streamPage(frontier, currentURL, keywordMatcher)) {
+                    addMatch(searchResult, currentURL);
+                }
+            });
+        } else {
+            crawlFrontier(frontier, currentURL -> {
+                String rawHTML = fetchPage(frontier, currentURL);
+                long matchStart = System.nanoTime();
+                boolean matched = htmlContainsKeyword(keywordMatcher, rawHTML);
+                metrics.getMatchLatency().observeSince(matchStart);
+                if (matched) {
+                    addMatch(searchResult, currentURL);
+                }
+            });
         }
-        setSearchStatusToDone(searchId);
         logger.info("# End of search for keyword: {}, id: {}", keyword, searchId);
+        logger.info("Visited URLs: {}", foundUrlsMap.get(searchId));
+        logger.info("Page cache hits: {}, misses: {}", pageCache.getHitCount(), pageCache.getMissCount());
+    }
+
+    /**
+     * Completes the searches following a search whose crawl failed, and drops its entry from the result cache,
+     * so the followers do not wait for it forever and the next search of the keyword crawls again.
+     * @param searchId The ID of the search whose crawl failed.
+     */
+    private void releaseFollowers(String searchId) {
+        List<String> followerIds = resultCache.abandon(searchId);
+        if (!followerIds.isEmpty()) {
+            logger.warn("Crawl of search {} failed, completing its {} followers", searchId, followerIds.size());
+        }
+        for (String followerId : followerIds) {
+            finishSearch(followerId);
+        }
+    }
+
+    /**
+     * Adds the same-base URLs listed in the sitemaps of the site to a new frontier, when sitemap seeding is enabled,
+     * so all the workers have URLs to crawl from the start.
+     * @param frontier The frontier of the crawl.
+     */
+    private void seedFromSitemaps(CrawlFrontier frontier) {
+        if (sitemapSeeding) {
+            new SitemapSeeder(pageFetcher, maxSitemapUrls).seed(baseUrl, url -> {
+                String canonicalUrl = urlCanonicalizer.canonicalize(url);
+                return hasSameBaseURL(canonicalUrl) && frontier.offer(canonicalUrl);
+            });
+        }
+    }
+
+    /**
+     * Processes the frontier with the configured number of workers until it is drained.
+     * The extra workers run on the worker executor. The calling thread works as one of the workers,
+     * so the crawl makes progress even when the extra workers cannot start.
+     * @param frontier      The frontier of the crawl.
+     * @param pageProcessor Fetches and processes the page at a URL taken from the frontier.
+     */
+    private void crawlFrontier(CrawlFrontier frontier, Consumer<String> pageProcessor) {
+        List<Future<?>> helpers = new ArrayList<>(workerCount - 1);
+        try {
+            for (int i = 1; i < workerCount; i++) {
+                helpers.add(workerExecutor.startWorker(() -> processFrontier(frontier, pageProcessor)));
+            }
+        } catch (RejectedExecutionException e) {
+            logger.warn("Only {} of {} workers could start: {}", helpers.size() + 1, workerCount, e.toString());
+        }
+        try {
+            processFrontier(frontier, pageProcessor);
+        } finally {
+            for (Future<?> helper : helpers) {
+                helper.cancel(true);
+            }
+        }
+    }
+
+    /**
+     * Takes URLs from the frontier until it is drained, handing each one to the page processor.
+     * @param frontier      The frontier of the crawl.
+     * @param pageProcessor Fetches and processes the page at a URL taken from the frontier.
+     */
+    private void processFrontier(CrawlFrontier frontier, Consumer<String> pageProcessor) {
+        try {
+            String currentURL;
+            while ((currentURL = frontier.next()) != null) {
+                try {
+                    pageProcessor.accept(currentURL);
+                } catch (RuntimeException e) {
+                    logger.error("Error in processing URL {}: {}", currentURL, e.toString());
+                } finally {
+                    frontier.markProcessed(currentURL);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Fetches a page and adds the URLs found on it to the frontier, resolving them against the URL
+     * the page was served from. A page redirected to a URL that was already found is skipped,
+     * since that URL is crawled on its own.
+     * @param frontier The frontier of the crawl.
+     * @param url      The URL of the page.
+     * @return The raw HTML content of the page, or an empty string if it is skipped.
+     */
+    private String fetchPage(CrawlFrontier frontier, String url) {
+        PageCache.Page page = fetchHTML(url);
+        if (!recordRedirect(frontier, url, page.getUrl())) {
+            return "";
+        }
+        long parseStart = System.nanoTime();
+        searchForUrlsOnHTML(frontier, page.getUrl(), page.getContent());
+        metrics.getParseLatency().observeSince(parseStart);
+        return page.getContent();
+    }
+
+    /**
+     * Scans a page while it is read, adding the URLs found on it to the frontier
+     * and checking for the keyword, without holding the whole page in memory.
+     * Streamed pages do not go through the page cache. Since the page is parsed and matched while it is read,
+     * the whole scan is recorded as the fetch latency.
+     * @param frontier       The frontier of the crawl.
+     * @param url            The URL of the page.
+     * @param keywordMatcher The matcher of the search's keyword.
+     * @return true if the page contains the keyword, false otherwise.
+     */
+    private boolean streamPage(CrawlFrontier frontier, String url, KeywordMatcher keywordMatcher) {
+        KeywordMatcher.Scan keywordScan = keywordMatcher.newScan();
+        long fetchStart = System.nanoTime();
+        try (FetchResponse response = openPage(url)) {
+            if (response == null) {
+                return false;
+            }
+            String documentUrl = getDocumentUrl(url, response);
+            if (!recordRedirect(frontier, url, documentUrl)) {
+                return false;
+            }
+            LimitedInputStream input = new LimitedInputStream(response.getBody(), maxPageBytes);
+            Reader reader = new InputStreamReader(input, response.getCharset(Charset.defaultCharset()));
+            pageScanner.scan(reader, keywordScan, new PageLinks(frontier, documentUrl));
+            metrics.getFetchLatency().observeSince(fetchStart);
+            metrics.recordPageFetched(input.getBytesRead());
+            logIfTruncated(url, input);
+        } catch (Exception e) {
+            metrics.recordFetchError(e);
+            logger.error("Error in fetching HTML from URL: {}", url);
+            logger.error("Exception: {}", e.toString());
+        }
+        return !keywordScan.finish().isEmpty();
     }
 
     /**
-     * Sets the status of a search to done.
-     * @param searchId the id of the search to be modified.
+     * Completes a search without crawling, if possible.
+     * The site index can answer keywords that are a single term once an index crawl has completed.
+     * Otherwise, the result cache can answer keywords searched recently, and a search of a keyword
+     * that is being crawled follows that crawl.
+     * When this method returns false, the search leads its keyword in the result cache and must be crawled.
+     * In a cluster, searches are always crawled.
+     * @param searchId The ID of the search.
+     * @return true if the search was completed, or will be completed by another crawl, false if it must be crawled.
      */
-    private void setSearchStatusToDone(String searchId) {
+    public boolean completeWithoutCrawling(String searchId) {
+        if (clusterNode != null) {
+            return false;
+        }
+        InvertedIndex index = siteIndex;
+        String keyword = searches.get(searchId).getKeyword();
+        SearchResult searchResult = searchResults.get(searchId);
+        if (index != null && InvertedIndex.isIndexable(keyword)) {
+            for (String url : index.findUrls(keyword)) {
+                addMatch(searchResult, url);
+            }
+            logger.info("Search for keyword: {}, id: {} answered from the site index", keyword, searchId);
+            finishSearch(searchId);
+            return true;
+        }
+
+        KeywordResultCache.Entry cached = resultCache.claim(baseUrl, keyword, searchId, running -> {
+            SearchResult leaderResult = searchResults.get(running.getLeaderId());
+            if (leaderResult != null) {
+                for (String url : leaderResult.getUrls()) {
+                    recordUrl(searchResult, url);
+                }
+            }
+        });
+        if (cached == null) {
+            return false;
+        }
+        if (cached.isCompleted()) {
+            for (String url : cached.getUrls()) {
+                addMatch(searchResult, url);
+            }
+            logger.info("Search for keyword: {}, id: {} answered from the result cache of search {}",
+                    keyword, searchId, cached.getLeaderId());
+            finishSearch(searchId);
+            return true;
+        }
+        logger.info("Search for keyword: {}, id: {} follows the running search {}", keyword, searchId, cached.getLeaderId());
+        return true;
+    }
+
+    /**
+     * Crawls the whole site and replaces the site index with a new one built from the crawled pages.
+     * Searches keep being answered by the previous index while the crawl runs.
+     */
+    public void rebuildIndex() {
+        logger.info("Starting index crawl of {}", baseUrl);
+        Queue<String> urlQueue = createUrlQueue();
+        CrawlFrontier frontier = new CrawlFrontier(urlQueue, createFoundUrls());
+        seedFromSitemaps(frontier);
+        InvertedIndex.Builder indexBuilder = new InvertedIndex.Builder();
+        crawlFrontier(frontier, currentURL -> indexBuilder.addPage(currentURL, fetchPage(frontier, currentURL)));
+        InvertedIndex index = indexBuilder.build();
+        siteIndex = index;
+        logger.info("# End of index crawl: {} pages, {} terms, {} bytes of postings",
+                index.getPageCount(), index.getTermCount(), index.getPostingsSizeInBytes());
+    }
+
+    /**
+     * Sets the status of a search to done and releases its URL queue, found URLs set and checkpoint,
+     * which are only needed while crawling. The searches following it are finished too.
+     * @param searchId the id of the search to be finished.
+     */
+    private void finishSearch(String searchId) {
+        urlQueues.remove(searchId);
+        foundUrlsMap.remove(searchId);
+        deleteCheckpoint(searchId);
         SearchResult searchResult = searchResults.get(searchId);
         searchResult.setStatus(Status.done);
+        ResultStore store = resultStore;
+        if (store != null) {
+            store.appendStatus(searchId, Status.done);
+        }
+        lifecycleManager.onSearchFinished(searchId);
+        for (String followerId : resultCache.complete(searchId, searchResult.getUrls())) {
+            finishSearch(followerId);
+        }
+    }
+
+    /**
+     * Writes a checkpoint of every search being crawled, from which its crawl can be resumed after a restart.
+     * @return The number of checkpoints written.
+     */
+    public int checkpointActiveSearches() {
+        if (checkpointStore == null) {
+            return 0;
+        }
+        long startNanos = System.nanoTime();
+        int written = 0;
+        long bytes = 0;
+        for (Map.Entry<String, CrawlFrontier> entry : activeFrontiers.entrySet()) {
+            long checkpointBytes = checkpointSearch(entry.getKey(), entry.getValue());
+            if (checkpointBytes >= 0) {
+                written++;
+                bytes += checkpointBytes;
+            }
+        }
+        if (written > 0) {
+            logger.info("Checkpointed {} searches: {} bytes in {} ms", written, bytes,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+        }
+        return written;
+    }
+
+    /**
+     * Writes a checkpoint of a search being crawled.
+     * The frontier is copied before the results, so every URL processed before the copy has its match in the results.
+     * @param searchId The ID of the search.
+     * @param frontier The frontier of its crawl.
+     * @return The size of the checkpoint in bytes, or -1 if it was not written.
+     */
+    private long checkpointSearch(String searchId, CrawlFrontier frontier) {
+        synchronized (checkpointLock) {
+            CheckpointStore store = checkpointStore;
+            if (store == null || activeFrontiers.get(searchId) != frontier) {
+                return -1;
+            }
+            CrawlFrontier.Snapshot snapshot = frontier.snapshot();
+            List<String> resultUrls = searchResults.get(searchId).getUrls();
+            try {
+                return store.write(new CrawlCheckpoint(searchId, searches.get(searchId).getKeyword(),
+                        snapshot.getPendingUrls(), snapshot.getFoundUrls(), resultUrls));
+            } catch (IOException e) {
+                logger.error("Failed to checkpoint search {}", searchId, e);
+                return -1;
+            }
+        }
+    }
+
+    /**
+     * Deletes the checkpoint of a search that is no longer crawled.
+     * @param searchId The ID of the search.
+     */
+    private void deleteCheckpoint(String searchId) {
+        synchronized (checkpointLock) {
+            activeFrontiers.remove(searchId);
+            CheckpointStore store = checkpointStore;
+            if (store == null) {
+                return;
+            }
+            try {
+                store.delete(searchId);
+            } catch (IOException e) {
+                logger.warn("Failed to delete the checkpoint of search {}", searchId, e);
+            }
+        }
+    }
+
+    /**
+     * Restores the searches whose crawls were interrupted, from their checkpoints, under their previous IDs.
+     * The restored searches are active and must be crawled again, which resumes them from their checkpoints.
+     * Their results are merged with the ones in the result store, which may be more recent.
+     * @return The IDs of the restored searches.
+     */
+    public List<String> resumeCheckpointedSearches() {
+        CheckpointStore store = checkpointStore;
+        if (store == null) {
+            return Collections.emptyList();
+        }
+        List<CrawlCheckpoint> checkpoints;
+        try {
+            checkpoints = store.readAll();
+        } catch (IOException e) {
+            logger.error("Failed to read the checkpoints", e);
+            return Collections.emptyList();
+        }
+        List<String> resumedIds = new ArrayList<>();
+        for (CrawlCheckpoint checkpoint : checkpoints) {
+            String searchId = checkpoint.getSearchId();
+            if (searches.containsKey(searchId)) {
+                continue;
+            }
+            Search search;
+            try {
+                search = new Search(searchId, checkpoint.getKeyword());
+            } catch (IllegalArgumentException e) {
+                logger.error("Skipping the checkpoint of search {}: {}", searchId, e.getMessage());
+                continue;
+            }
+            SearchResult searchResult = restoreSearchResult(checkpoint);
+            Queue<String> urlQueue = new ConcurrentLinkedQueue<>(checkpoint.getPendingUrls());
+            VisitedUrlSet foundUrls = checkpoint.getFoundUrls();
+            for (String url : checkpoint.getPendingUrls()) {
+                foundUrls.add(url);
+            }
+            saveDataStructures(search, searchResult, urlQueue, foundUrls);
+            logger.info("Resuming search for keyword: {}, id: {} with {} pending URLs and {} results",
+                    search.getKeyword(), searchId, urlQueue.size(), searchResult.getUrlCount());
+            resumedSearchIds.add(searchId);
+            resumedIds.add(searchId);
+        }
+        return resumedIds;
     }
 
     /**
-     * Fetches HTML content from the specified URL.
+     * Rebuilds the result of a checkpointed search, adding it to the result store if it is not there.
+     * @param checkpoint The checkpoint of the search.
+     * @return The result, with the URLs of the checkpoint and of the result store.
+     */
+    private SearchResult restoreSearchResult(CrawlCheckpoint checkpoint) {
+        String searchId = checkpoint.getSearchId();
+        SearchResult searchResult = new SearchResult(searchId);
+        ResultStore store = resultStore;
+        SearchResult storedResult = store != null ? store.load(searchId) : null;
+        if (storedResult != null) {
+            for (String url : storedResult.getUrls()) {
+                searchResult.addUrl(url);
+            }
+        } else if (store != null) {
+            store.appendSearch(searchId, checkpoint.getKeyword());
+        }
+        for (String url : checkpoint.getResultUrls()) {
+            recordUrl(searchResult, url);
+        }
+        return searchResult;
+    }
+
+    /**
+     * Fetches HTML content from the specified URL through the page cache.
      * @param url The URL from which to fetch HTML content.
-     * @return The raw HTML content as a string.
+     * @return The raw HTML content, with the URL it was served from.
+     */
+    private PageCache.Page fetchHTML(String url) {
+        return pageCache.getPage(url, this::downloadHTML);
+    }
+
+    /**
+     * Downloads HTML content from the specified URL, up to the maximum page size.
+     * The page is shared by the searches through the page cache, so redirects are recorded by each search afterwards.
+     * @param url The URL from which to download HTML content.
+     * @return The raw HTML content, empty if the download failed, with the canonical URL it was served from.
      */
-    private String fetchHTML(String url) {
+    private PageCache.Page downloadHTML(String url) {
         StringBuilder rawHTML = new StringBuilder();
-        try {
-            URL urlObject = new URL(url);
-            BufferedReader input = new BufferedReader(new InputStreamReader(urlObject.openStream()));
-            String inputLine;
-            while ((inputLine = input.readLine()) != null) {
-                rawHTML.append(inputLine);
+        String documentUrl = url;
+        long fetchStart = System.nanoTime();
+        try (FetchResponse response = openPage(url)) {
+            if (response == null) {
+                return new PageCache.Page(url, "");
+            }
+            documentUrl = getDocumentUrl(url, response);
+            LimitedInputStream input = new LimitedInputStream(response.getBody(), maxPageBytes);
+            Reader reader = new InputStreamReader(input, response.getCharset(Charset.defaultCharset()));
+            char[] buffer = new char[READ_BUFFER_LENGTH];
+            int count;
+            while ((count = reader.read(buffer)) >= 0) {
+                rawHTML.append(buffer, 0, count);
             }
-            input.close();
+            metrics.getFetchLatency().observeSince(fetchStart);
+            metrics.recordPageFetched(input.getBytesRead());
+            logIfTruncated(url, input);
         } catch (Exception e) {
+            metrics.recordFetchError(e);
             logger.error("Error in fetching HTML from URL: {}", url);
             logger.error("Exception: {}", e.toString());
         }
-        return rawHTML.toString();
+        return new PageCache.Page(documentUrl, rawHTML.toString());
     }
 
     /**
-     * Searches for URLs within the HTML content and updates the URL queue and found URLs list.
-     * @param searchId The ID of the active search.
+     * Fetches a page, skipping it when its content should not be scanned: error responses,
+     * redirects to outside the base URL and binary content.
+     * @param url The URL to be fetched.
+     * @return The response, or null if the page is skipped.
+     * @throws IOException if the page cannot be fetched.
+     */
+    private FetchResponse openPage(String url) throws IOException {
+        FetchResponse response = pageFetcher.fetch(url);
+        String skipReason = null;
+        String finalUrl = getDocumentUrl(url, response);
+        if (!response.isSuccessful()) {
+            metrics.recordFetchError(response.getStatusCode());
+            skipReason = "HTTP status " + response.getStatusCode();
+        } else if (response.isRedirected() && !hasSameBaseURL(finalUrl)) {
+            skipReason = "redirect to " + response.getFinalUrl();
+        } else if (!response.isText()) {
+            skipReason = "content type " + response.getHeader("Content-Type");
+        }
+        if (skipReason != null) {
+            logger.warn("Skipping URL {}: {}", url, skipReason);
+            response.close();
+            return null;
+        }
+        return response;
+    }
+
+    /**
+     * Gets the URL a page was served from, against which its relative links are resolved.
+     * @param url      The requested URL.
+     * @param response The response to the request.
+     * @return The canonical URL the request was redirected to, or the requested URL.
+     */
+    private String getDocumentUrl(String url, FetchResponse response) {
+        return response.isRedirected() ? urlCanonicalizer.canonicalize(response.getFinalUrl()) : url;
+    }
+
+    /**
+     * Records the target of a redirect in the frontier, so links to it are not crawled again.
+     * @param frontier    The frontier of the crawl.
+     * @param url         The requested URL.
+     * @param documentUrl The URL the page was served from.
+     * @return true if the page must be scanned, false if it was redirected to a URL that was already found.
+     */
+    private boolean recordRedirect(CrawlFrontier frontier, String url, String documentUrl) {
+        if (documentUrl.equals(url) || frontier.recordRedirect(documentUrl)) {
+            return true;
+        }
+        logger.debug("Skipping URL {}: redirect to {}, which was already found", url, documentUrl);
+        return false;
+    }
+
+    /**
+     * Logs a warning if a page was longer than the maximum page size.
+     * @param url   The URL of the page.
+     * @param input The stream from which the page was read.
+     */
+    private void logIfTruncated(String url, LimitedInputStream input) {
+        if (input.isTruncated()) {
+            logger.warn("Page {} is larger than {} bytes, the rest was ignored", url, maxPageBytes);
+        }
+    }
+
+    /**
+     * Searches for URLs within the HTML content and adds the new ones to the frontier.
+     * @param frontier The frontier of the active crawl.
+     * @param url      The URL of the page.
      * @param rawHTML  The raw HTML content to process.
      */
-    private void searchForUrlsOnHTML(String searchId, String rawHTML) {
-        Pattern pattern = Pattern.compile(ANCHOR_PATTERN);
-        Matcher matcher = pattern.matcher(rawHTML);
-        List<String> foundUrls = foundUrlsMap.get(searchId);
-        Queue<String> urlQueue = urlQueues.get(searchId);
+    void searchForUrlsOnHTML(CrawlFrontier frontier, String url, String rawHTML) {
+        linkExtractor.extract(rawHTML, new PageLinks(frontier, url));
+    }
 
-        while (matcher.find()) {
-            String foundURL = matcher.group(1);
-            foundURL = appendBaseUrlIfNeeded(foundURL);
+    /**
+     * Adds a URL found on a page to the frontier in its canonical form, if it has the same base URL.
+     * @param frontier     The frontier of the active crawl.
+     * @param documentBase The base relative URLs are resolved against: the URL of the page, or its base element.
+     * @param foundURL     The URL as found on the page, which may be relative.
+     */
+    private void addFoundUrl(CrawlFrontier frontier, UrlCanonicalizer.Base documentBase, String foundURL) {
+        String canonicalUrl = documentBase == null ? null : urlCanonicalizer.resolve(documentBase, foundURL);
 
-            if (hasSameBaseURL(foundURL) && !foundUrls.contains(foundURL)) {
-                urlQueue.add(foundURL);
-                foundUrls.add(foundURL);
-            }
+        if (canonicalUrl == null) {
+            logger.debug("Ignoring URL {}, which cannot be resolved", foundURL);
+        } else if (hasSameBaseURL(canonicalUrl)) {
+            frontier.offer(canonicalUrl);
         }
     }
 
     /**
-     * Appends the base URL to the provided URL if needed and resolves any relative paths.
-     * @param url The URL to be cleaned and resolved.
-     * @return The cleaned and resolved URL.
+     * Adds the links of a page to the frontier, resolving them against the page URL
+     * or against the first base element of the page.
      */
-    private String appendBaseUrlIfNeeded(String url) {
-        try {
-            if (!url.startsWith(HTTP) && !url.startsWith(HTTPS)) {
-                URL baseUrl = new URL(this.baseUrl);
-                URL resolvedUrl = new URL(baseUrl, url);
-                String cleanedUrl = resolvedUrl.toString();
-
-                // Remove unnecessary components like "../"
-                cleanedUrl = cleanedUrl.replaceAll(CLEANING_REGEX, SLASH);
-                return cleanedUrl;
+    private class PageLinks implements LinkExtractor.Sink {
+
+        private final CrawlFrontier frontier;
+
+        /**
+         * The base relative links are resolved against, parsed once per page, or null if the page URL has no scheme.
+         */
+        private UrlCanonicalizer.Base documentBase;
+        private boolean baseFound;
+
+        PageLinks(CrawlFrontier frontier, String pageUrl) {
+            this.frontier = frontier;
+            this.documentBase = urlCanonicalizer.parseBase(pageUrl);
+        }
+
+        @Override
+        public void link(char[] chars, int start, int end) {
+            addFoundUrl(frontier, documentBase, new String(chars, start, end - start));
+        }
+
+        @Override
+        public void base(char[] chars, int start, int end) {
+            if (!baseFound && documentBase != null) {
+                baseFound = true;
+                String baseHref = urlCanonicalizer.resolve(documentBase, new String(chars, start, end - start));
+                if (baseHref != null) {
+                    documentBase = urlCanonicalizer.parseBase(baseHref);
+                }
             }
-        } catch (MalformedURLException e) {
-            logger.error("Error in cleaning URL {}: {}", url, e.toString());
         }
-        // Return the original URL if there's an issue with parsing or if it starts with "http" or "https"
-        return url;
     }
 
     /**
-     * Checks if the provided URL has the same base as the baseUrl.
-     * @param url the URL to be checked.
+     * Checks if the provided canonical URL has the same base as the baseUrl, comparing their canonical forms.
+     * The base must end on a path segment boundary of the URL, so a base of "http://x.com/docs" admits
+     * "http://x.com/docs/a" but not "http://x.com/docs-old/a".
+     * @param url the canonical URL to be checked.
      * @return true if the provided URL has the same base as the baseUrl, false otherwise.
      */
     private boolean hasSameBaseURL(String url) {
-        return url.startsWith(baseUrl);
+        if (!url.startsWith(canonicalBaseUrl)) {
+            return false;
+        }
+        if (url.length() == canonicalBaseUrl.length() || canonicalBaseUrl.endsWith("/")) {
+            return true;
+        }
+        char next = url.charAt(canonicalBaseUrl.length());
+        return next == '/' || next == '?';
     }
 
     /**
-     * Checks if the provided HTML contains the provided keyword.
-     * @param keyword the keyword to be checked.
+     * Checks if the provided HTML contains the keyword of the provided matcher.
+     * The matcher is built once per search and shared by the pages of its crawl.
+     * @param keywordMatcher the matcher of the keyword to be checked.
      * @param rawHTML the raw HTML content.
      * @return true if the HTML contains the keyword, false otherwise.
      */
-    public boolean htmlContainsKeyword(String keyword, String rawHTML) {
-        // Case-insensitive search for the keyword with word boundaries
-        String pattern = "(?i).*\\b" + keyword + "\\b.*";
-        return rawHTML.matches(pattern);
+    public boolean htmlContainsKeyword(KeywordMatcher keywordMatcher, String rawHTML) {
+        return keywordMatcher.containsAny(rawHTML);
     }
 
     /**
@@ -301,7 +1145,230 @@ public class CrawlerService {
      * Get the foundUrlsMap.
      * @return The foundUrlsMap.
      */
-    public Map<String, List<String>> getFoundUrlsMap() {
+    public Map<String, VisitedUrlSet> getFoundUrlsMap() {
         return foundUrlsMap;
     }
+
+    /**
+     * Sets the cache of search results by keyword.
+     * @param resultCache The KeywordResultCache shared by all the searches.
+     */
+    public void setResultCache(KeywordResultCache resultCache) {
+        this.resultCache = resultCache;
+    }
+
+    /**
+     * Sets the store that persists the searches and their results across restarts.
+     * The searches whose results expire are deleted from it.
+     * @param resultStore The result store, or null to keep the searches only in memory.
+     */
+    public void setResultStore(ResultStore resultStore) {
+        this.resultStore = resultStore;
+        lifecycleManager.setExpirationListener(resultStore != null ? resultStore::delete : searchId -> { });
+    }
+
+    /**
+     * Makes this service crawl the searches together with the other nodes of a cluster.
+     * Called by the ClusterNode when it is constructed.
+     * @param clusterNode The node of this service.
+     */
+    public void setClusterNode(ClusterNode clusterNode) {
+        this.clusterNode = clusterNode;
+    }
+
+    /**
+     * Sets the store that persists checkpoints of the searches being crawled, so they can be resumed after a restart.
+     * @param checkpointStore The checkpoint store, or null to never checkpoint.
+     */
+    public void setCheckpointStore(CheckpointStore checkpointStore) {
+        this.checkpointStore = checkpointStore;
+    }
+
+    /**
+     * Starts checkpointing the searches being crawled periodically, in a daemon thread.
+     * @param interval The time between two checkpoints of a search.
+     */
+    public synchronized void startCheckpoints(Duration interval) {
+        if (checkpointer != null) {
+            return;
+        }
+        checkpointer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "crawl-checkpointer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        checkpointer.scheduleWithFixedDelay(() -> {
+            try {
+                checkpointActiveSearches();
+            } catch (RuntimeException e) {
+                logger.error("Failed to checkpoint the active searches", e);
+            }
+        }, interval.toMillis(), interval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops checkpointing the searches being crawled.
+     */
+    public synchronized void stopCheckpoints() {
+        if (checkpointer != null) {
+            checkpointer.shutdownNow();
+            checkpointer = null;
+        }
+    }
+
+    /**
+     * Sets the canonicalizer of the found URLs.
+     * @param urlCanonicalizer The UrlCanonicalizer shared by all the searches.
+     */
+    public void setUrlCanonicalizer(UrlCanonicalizer urlCanonicalizer) {
+        this.urlCanonicalizer = urlCanonicalizer;
+        this.canonicalBaseUrl = urlCanonicalizer.canonicalize(baseUrl);
+    }
+
+    /**
+     * Sets the executor that runs the extra workers of each crawl, usually the one that runs the crawls themselves.
+     * @param workerExecutor The CrawlExecutor shared by all the searches.
+     */
+    public void setWorkerExecutor(CrawlExecutor workerExecutor) {
+        this.workerExecutor = workerExecutor;
+    }
+
+    /**
+     * Sets the fetcher of the pages.
+     * @param pageFetcher The PageFetcher shared by all the searches.
+     */
+    public void setPageFetcher(PageFetcher pageFetcher) {
+        this.pageFetcher = pageFetcher;
+    }
+
+    /**
+     * Sets whether searches scan the pages while they are read, instead of reading each page into memory first.
+     * @param streamingFetch true to scan the pages while they are read.
+     */
+    public void setStreamingFetch(boolean streamingFetch) {
+        this.streamingFetch = streamingFetch;
+    }
+
+    /**
+     * Sets the maximum number of bytes read from a page.
+     * @param maxPageBytes The maximum page size in bytes.
+     * @throws IllegalArgumentException if the size is not positive.
+     */
+    public void setMaxPageBytes(long maxPageBytes) {
+        if (maxPageBytes <= 0) {
+            throw new IllegalArgumentException("The maximum page size must be positive.");
+        }
+        this.maxPageBytes = maxPageBytes;
+    }
+
+    /**
+     * Sets whether new crawls are seeded with the same-base URLs listed in the sitemaps of the site,
+     * found through the Sitemap directives of its robots.txt or at /sitemap.xml.
+     * @param sitemapSeeding true to seed the crawls from the sitemaps.
+     */
+    public void setSitemapSeeding(boolean sitemapSeeding) {
+        this.sitemapSeeding = sitemapSeeding;
+    }
+
+    /**
+     * Sets the maximum number of URLs a crawl is seeded with from the sitemaps.
+     * @param maxSitemapUrls The maximum number of URLs.
+     * @throws IllegalArgumentException if the maximum is not positive.
+     */
+    public void setMaxSitemapUrls(int maxSitemapUrls) {
+        if (maxSitemapUrls <= 0) {
+            throw new IllegalArgumentException("The maximum number of sitemap URLs must be positive.");
+        }
+        this.maxSitemapUrls = maxSitemapUrls;
+    }
+
+    /**
+     * Makes new searches track their found URLs in a Bloom filter of fixed size instead of an exact set.
+     * Uses much less memory on very large sites, but about 1 in 1000 new URLs is skipped as already visited.
+     * @param expectedUrls The number of URLs the filter is sized for, or 0 to use exact sets.
+     * @throws IllegalArgumentException if the number is negative.
+     */
+    public void setBloomFilterExpectedUrls(long expectedUrls) {
+        if (expectedUrls < 0) {
+            throw new IllegalArgumentException("The expected number of URLs must not be negative.");
+        }
+        this.bloomFilterExpectedUrls = expectedUrls;
+    }
+
+    /**
+     * Gets the index of the site.
+     * @return The index built by the last completed index crawl, or null if there is none.
+     */
+    public InvertedIndex getSiteIndex() {
+        return siteIndex;
+    }
+
+    /**
+     * Gets the cache of fetched pages.
+     * @return The page cache.
+     */
+    public PageCache getPageCache() {
+        return pageCache;
+    }
+
+    /**
+     * Gets the manager of the results of finished searches, to configure their expiration and spilling.
+     * @return The search lifecycle manager.
+     */
+    public SearchLifecycleManager getLifecycleManager() {
+        return lifecycleManager;
+    }
+
+    /**
+     * Gets the counters and latency histograms of the crawls.
+     * @return The crawl metrics.
+     */
+    public CrawlMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Writes the number of active searches and, for each of them, the URLs pending in its frontier,
+     * the URLs found and the matches. Searches waiting for the crawl executor are active too.
+     * @param prometheus The writer of the metrics.
+     * @throws IOException if the metrics cannot be written.
+     */
+    public void writeSearchMetrics(PrometheusWriter prometheus) throws IOException {
+        List<Map.Entry<String, VisitedUrlSet>> searchesFoundUrls = new ArrayList<>(foundUrlsMap.entrySet());
+        prometheus.family("crawler_active_searches", PrometheusWriter.GAUGE, "Searches started and not finished.")
+                .sample("crawler_active_searches", "", searchesFoundUrls.size());
+        prometheus.family("crawler_search_frontier_urls", PrometheusWriter.GAUGE,
+                "URLs found by an active search and not processed yet.");
+        for (Map.Entry<String, VisitedUrlSet> entry : searchesFoundUrls) {
+            CrawlFrontier frontier = activeFrontiers.get(entry.getKey());
+            Queue<String> urlQueue = urlQueues.get(entry.getKey());
+            if (frontier != null || urlQueue != null) {
+                prometheus.sample("crawler_search_frontier_urls", PrometheusWriter.labels("search", entry.getKey()),
+                        frontier != null ? frontier.getPendingCount() : urlQueue.size());
+            }
+        }
+        prometheus.family("crawler_search_visited_urls", PrometheusWriter.GAUGE,
+                "URLs found by an active search, processed or not.");
+        for (Map.Entry<String, VisitedUrlSet> entry : searchesFoundUrls) {
+            prometheus.sample("crawler_search_visited_urls", PrometheusWriter.labels("search", entry.getKey()),
+                    entry.getValue().size());
+        }
+        prometheus.family("crawler_search_matches", PrometheusWriter.GAUGE,
+                "Pages containing the keyword of an active search.");
+        for (Map.Entry<String, VisitedUrlSet> entry : searchesFoundUrls) {
+            SearchResult searchResult = searchResults.get(entry.getKey());
+            if (searchResult != null) {
+                prometheus.sample("crawler_search_matches", PrometheusWriter.labels("search", entry.getKey()),
+                        searchResult.getUrlCount());
+            }
+        }
+    }
+
+    /**
+     * Gets the number of workers fetching pages concurrently for each search.
+     * @return The number of workers.
+     */
+    public int getWorkerCount() {
+        return workerCount;
+    }
 }
\ No newline at end of file
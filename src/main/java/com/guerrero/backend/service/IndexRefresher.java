@@ -0,0 +1,77 @@
+package com.guerrero.backend.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the site index of a CrawlerService fresh by rebuilding it in the background at a fixed interval.
+ */
+public class IndexRefresher {
+
+    /**
+     * The CrawlerService whose index is rebuilt.
+     */
+    private final CrawlerService crawlerService;
+
+    /**
+     * Minutes between the end of an index crawl and the start of the next one.
+     */
+    private final long refreshIntervalMinutes;
+
+    /**
+     * Runs the index crawls.
+     */
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "index-refresher");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Logger for messages related to the index refresh.
+     */
+    static final Logger logger = LoggerFactory.getLogger(IndexRefresher.class);
+
+    /**
+     * Constructs an IndexRefresher.
+     * @param crawlerService         The CrawlerService whose index is rebuilt.
+     * @param refreshIntervalMinutes Minutes between the end of an index crawl and the start of the next one.
+     * @throws IllegalArgumentException if the interval is not positive.
+     */
+    public IndexRefresher(CrawlerService crawlerService, long refreshIntervalMinutes) {
+        if (refreshIntervalMinutes <= 0) {
+            throw new IllegalArgumentException("The index refresh interval must be positive.");
+        }
+        this.crawlerService = crawlerService;
+        this.refreshIntervalMinutes = refreshIntervalMinutes;
+    }
+
+    /**
+     * Starts building the index right away and then at every interval.
+     */
+    public void start() {
+        scheduler.scheduleWithFixedDelay(this::refresh, 0, refreshIntervalMinutes, TimeUnit.MINUTES);
+    }
+
+    /**
+     * Stops the index refresh.
+     */
+    public void stop() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * Rebuilds the index, logging any error so the next refresh is still scheduled.
+     */
+    private void refresh() {
+        try {
+            crawlerService.rebuildIndex();
+        } catch (RuntimeException e) {
+            logger.error("Error in rebuilding the site index: {}", e.toString());
+        }
+    }
+}
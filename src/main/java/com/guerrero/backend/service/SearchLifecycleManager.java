@@ -0,0 +1,442 @@
+package com.guerrero.backend.service;
+
+import com.guerrero.backend.model.Search;
+import com.guerrero.backend.model.SearchResult;
+import com.guerrero.backend.model.Status;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Manages the results of finished searches, so they do not accumulate on the heap forever.
+ * Finished results can expire after a time to live, after which their search is forgotten.
+ * When a heap budget is set, the oldest finished results beyond it are spilled to compressed files
+ * and removed from the heap. A spilled result is loaded back when it is requested.
+ * The spill files are written and read outside the lock of the manager, and the outcome is published under it.
+ * By default results never expire and are never spilled; the application sets a heap budget of
+ * {@link #DEFAULT_HEAP_BUDGET_BYTES}.
+ */
+public class SearchLifecycleManager {
+
+    /**
+     * Heap budget of the finished results used by the application when none is configured.
+     */
+    public static final long DEFAULT_HEAP_BUDGET_BYTES = 256L * 1024 * 1024;
+
+    /**
+     * Estimated heap used per URL of a result besides its characters: the String, its entry
+     * in the set of added URLs and its slot in the log.
+     */
+    private static final long HEAP_BYTES_PER_URL = 120;
+
+    /**
+     * Extension of the spill files.
+     */
+    private static final String SPILL_FILE_EXTENSION = ".urls.gz";
+
+    /**
+     * Logger for spilled, loaded and expired results.
+     */
+    private static final Logger logger = LoggerFactory.getLogger(SearchLifecycleManager.class);
+
+    /**
+     * The search results and searches of the CrawlerService, shared with it.
+     */
+    private final Map<String, SearchResult> searchResults;
+    private final Map<String, Search> searches;
+
+    /**
+     * How long finished results are kept, or zero to keep them forever.
+     */
+    private volatile Duration resultTtl = Duration.ZERO;
+
+    /**
+     * Estimated heap size of the finished results kept in memory before they are spilled, or 0 for no limit.
+     */
+    private volatile long heapBudgetBytes;
+
+    /**
+     * Directory of the spilled results, or null when results are never spilled.
+     */
+    private volatile Path spillDirectory;
+
+    /**
+     * Finished results in memory with their estimated heap size, the least recently finished or loaded first.
+     */
+    private final LinkedHashMap<String, Long> resultsInMemory = new LinkedHashMap<>();
+
+    /**
+     * When each finished search finished, in milliseconds since the epoch.
+     */
+    private final Map<String, Long> finishTimes = new HashMap<>();
+
+    /**
+     * Total estimated heap size of the finished results in memory.
+     */
+    private long heapBytes;
+
+    /**
+     * Results in memory whose spill file is being written, and their total estimated heap size.
+     */
+    private final Set<String> spilling = new HashSet<>();
+    private long spillingBytes;
+
+    /**
+     * Receives the ID of each search removed because its result expired.
+     */
+    private volatile Consumer<String> expirationListener = searchId -> { };
+
+    /**
+     * Removes the expired results periodically, or null when not started.
+     */
+    private ScheduledExecutorService sweeper;
+
+    /**
+     * Constructs a SearchLifecycleManager over the maps of a CrawlerService.
+     * @param searchResults The search results by search ID. Must be a concurrent map.
+     * @param searches      The searches by search ID. Must be a concurrent map.
+     */
+    public SearchLifecycleManager(Map<String, SearchResult> searchResults, Map<String, Search> searches) {
+        this.searchResults = searchResults;
+        this.searches = searches;
+    }
+
+    /**
+     * Sets how long finished results are kept.
+     * @param resultTtl The time to live after a search finishes, or zero to keep results forever.
+     * @throws IllegalArgumentException if the time to live is negative.
+     */
+    public void setResultTtl(Duration resultTtl) {
+        if (resultTtl.isNegative()) {
+            throw new IllegalArgumentException("The time to live of the results must not be negative.");
+        }
+        this.resultTtl = resultTtl;
+    }
+
+    /**
+     * Sets the heap budget of the finished results, beyond which the oldest ones are spilled to disk.
+     * Spill files already in the directory are deleted, since the searches they belong to are not known.
+     * @param heapBudgetBytes The estimated heap size of the results kept in memory, or 0 for no limit.
+     * @param spillDirectory  The directory of the spilled results. It is created if needed.
+     * @throws IllegalArgumentException if the budget is negative.
+     * @throws UncheckedIOException if the directory cannot be created or cleared.
+     */
+    public void setHeapBudget(long heapBudgetBytes, Path spillDirectory) {
+        if (heapBudgetBytes < 0) {
+            throw new IllegalArgumentException("The heap budget must not be negative.");
+        }
+        if (heapBudgetBytes > 0 && !spillDirectory.equals(this.spillDirectory)) {
+            try {
+                Files.createDirectories(spillDirectory);
+                try (DirectoryStream<Path> spillFiles = Files.newDirectoryStream(spillDirectory, "*" + SPILL_FILE_EXTENSION)) {
+                    for (Path spillFile : spillFiles) {
+                        Files.deleteIfExists(spillFile);
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        synchronized (this) {
+            this.heapBudgetBytes = heapBudgetBytes;
+            this.spillDirectory = spillDirectory;
+        }
+        enforceHeapBudget();
+    }
+
+    /**
+     * Sets the listener that receives the ID of each search removed because its result expired.
+     * @param expirationListener The listener.
+     */
+    public void setExpirationListener(Consumer<String> expirationListener) {
+        this.expirationListener = expirationListener;
+    }
+
+    /**
+     * Records that a search finished, spilling older results if the heap budget is exceeded.
+     * @param searchId The ID of the finished search.
+     */
+    public void onSearchFinished(String searchId) {
+        synchronized (this) {
+            SearchResult searchResult = searchResults.get(searchId);
+            if (searchResult == null) {
+                return;
+            }
+            finishTimes.put(searchId, System.currentTimeMillis());
+            trackInMemory(searchId, searchResult);
+        }
+        enforceHeapBudget();
+    }
+
+    /**
+     * Loads a spilled result back into memory.
+     * @param searchId The ID of the search.
+     * @return The result, or null if the search is unknown or was not spilled.
+     */
+    public SearchResult load(String searchId) {
+        Path spillFile;
+        synchronized (this) {
+            SearchResult searchResult = searchResults.get(searchId);
+            if (searchResult != null || !isSpilled(searchId)) {
+                return searchResult;
+            }
+            spillFile = spillFileOf(searchId);
+        }
+        SearchResult loaded = new SearchResult(searchId);
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(Files.newInputStream(spillFile)), StandardCharsets.UTF_8))) {
+            String url;
+            while ((url = reader.readLine()) != null) {
+                loaded.addUrl(url);
+            }
+        } catch (IOException e) {
+            logger.error("Failed to load the spilled results of search {}", searchId, e);
+            return null;
+        }
+        loaded.setStatus(Status.done);
+        synchronized (this) {
+            SearchResult searchResult = searchResults.get(searchId);
+            if (searchResult != null || !isSpilled(searchId)) {
+                return searchResult;
+            }
+            searchResults.put(searchId, loaded);
+            trackInMemory(searchId, loaded);
+        }
+        logger.info("Loaded the spilled results of search {}: {} URLs", searchId, loaded.getUrlCount());
+        enforceHeapBudget();
+        return loaded;
+    }
+
+    /**
+     * Forgets the finished searches whose results have outlived their time to live.
+     * @return The number of searches removed.
+     */
+    public synchronized int removeExpiredResults() {
+        long ttlMillis = resultTtl.toMillis();
+        if (ttlMillis <= 0) {
+            return 0;
+        }
+        long expiredBefore = System.currentTimeMillis() - ttlMillis;
+        int removed = 0;
+        Iterator<Map.Entry<String, Long>> finished = finishTimes.entrySet().iterator();
+        while (finished.hasNext()) {
+            Map.Entry<String, Long> entry = finished.next();
+            if (entry.getValue() < expiredBefore) {
+                String searchId = entry.getKey();
+                finished.remove();
+                untrackInMemory(searchId);
+                searchResults.remove(searchId);
+                searches.remove(searchId);
+                deleteSpillFile(searchId);
+                expirationListener.accept(searchId);
+                removed++;
+            }
+        }
+        if (removed > 0) {
+            logger.info("Removed {} expired search results", removed);
+        }
+        return removed;
+    }
+
+    /**
+     * Starts removing the expired results periodically, in a daemon thread.
+     * @param interval The time between two sweeps.
+     */
+    public synchronized void start(Duration interval) {
+        if (sweeper != null) {
+            return;
+        }
+        sweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "search-lifecycle");
+            thread.setDaemon(true);
+            return thread;
+        });
+        sweeper.scheduleWithFixedDelay(() -> {
+            try {
+                removeExpiredResults();
+            } catch (RuntimeException e) {
+                logger.error("Failed to remove the expired search results", e);
+            }
+        }, interval.toMillis(), interval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops removing the expired results.
+     */
+    public synchronized void stop() {
+        if (sweeper != null) {
+            sweeper.shutdownNow();
+            sweeper = null;
+        }
+    }
+
+    /**
+     * Gets the estimated heap size of the finished results in memory.
+     * @return The size in bytes.
+     */
+    public synchronized long getHeapBytes() {
+        return heapBytes;
+    }
+
+    /**
+     * Checks if the result of a search is spilled to disk and not in memory.
+     * @param searchId The ID of the search.
+     * @return true if the result is spilled, false otherwise.
+     */
+    public synchronized boolean isSpilled(String searchId) {
+        return finishTimes.containsKey(searchId) && !resultsInMemory.containsKey(searchId);
+    }
+
+    /**
+     * Records a finished result as being in memory, as the most recently used one.
+     */
+    private void trackInMemory(String searchId, SearchResult searchResult) {
+        untrackInMemory(searchId);
+        long bytes = estimateHeapBytes(searchResult);
+        resultsInMemory.put(searchId, bytes);
+        heapBytes += bytes;
+    }
+
+    /**
+     * Records that a finished result is no longer in memory.
+     */
+    private void untrackInMemory(String searchId) {
+        Long bytes = resultsInMemory.remove(searchId);
+        if (bytes != null) {
+            heapBytes -= bytes;
+            if (spilling.remove(searchId)) {
+                spillingBytes -= bytes;
+            }
+        }
+    }
+
+    /**
+     * Spills the least recently used results until the results in memory fit in the heap budget.
+     * The results to spill are chosen under the lock, their files are written outside of it, and they are
+     * removed from memory under the lock if they were neither expired nor finished again meanwhile.
+     */
+    private void enforceHeapBudget() {
+        Map<String, SearchResult> toSpill = new LinkedHashMap<>();
+        synchronized (this) {
+            Iterator<Map.Entry<String, Long>> inMemory = resultsInMemory.entrySet().iterator();
+            while (heapBudgetBytes > 0 && heapBytes - spillingBytes > heapBudgetBytes && inMemory.hasNext()) {
+                Map.Entry<String, Long> entry = inMemory.next();
+                String searchId = entry.getKey();
+                SearchResult searchResult = searchResults.get(searchId);
+                if (searchResult != null && spilling.add(searchId)) {
+                    spillingBytes += entry.getValue();
+                    toSpill.put(searchId, searchResult);
+                }
+            }
+        }
+        if (toSpill.isEmpty()) {
+            return;
+        }
+        Set<String> written = new HashSet<>();
+        for (Map.Entry<String, SearchResult> entry : toSpill.entrySet()) {
+            if (writeSpillFile(entry.getKey(), entry.getValue())) {
+                written.add(entry.getKey());
+            }
+        }
+        List<String> stale = new ArrayList<>();
+        synchronized (this) {
+            for (String searchId : toSpill.keySet()) {
+                if (!spilling.remove(searchId)) {
+                    stale.add(searchId);
+                    continue;
+                }
+                spillingBytes -= resultsInMemory.get(searchId);
+                if (written.contains(searchId)) {
+                    untrackInMemory(searchId);
+                    searchResults.remove(searchId);
+                    logger.info("Spilled the results of search {} to {}", searchId, spillFileOf(searchId));
+                }
+            }
+        }
+        // The files of results that expired or finished again while they were written are out of date.
+        for (String searchId : stale) {
+            deleteSpillFile(searchId);
+        }
+    }
+
+    /**
+     * Writes a result to its spill file, unless it was written before.
+     * @return true if the spill file exists, false if it could not be written.
+     */
+    private boolean writeSpillFile(String searchId, SearchResult searchResult) {
+        Path spillFile = spillFileOf(searchId);
+        if (!Files.exists(spillFile)) {
+            Path tempFile = spillFile.resolveSibling(spillFile.getFileName() + ".tmp");
+            try (Writer writer = new BufferedWriter(new OutputStreamWriter(
+                    new GZIPOutputStream(Files.newOutputStream(tempFile)), StandardCharsets.UTF_8))) {
+                for (String url : searchResult.getUrls()) {
+                    writer.write(url);
+                    writer.write('\n');
+                }
+            } catch (IOException e) {
+                logger.error("Failed to spill the results of search {}", searchId, e);
+                return false;
+            }
+            try {
+                Files.move(tempFile, spillFile);
+            } catch (IOException e) {
+                logger.error("Failed to spill the results of search {}", searchId, e);
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void deleteSpillFile(String searchId) {
+        Path directory = spillDirectory;
+        if (directory == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(spillFileOf(searchId));
+        } catch (IOException e) {
+            logger.warn("Failed to delete the spilled results of search {}", searchId, e);
+        }
+    }
+
+    private Path spillFileOf(String searchId) {
+        return spillDirectory.resolve(searchId + SPILL_FILE_EXTENSION);
+    }
+
+    /**
+     * Estimates the heap used by a result from the length of its URLs.
+     */
+    private static long estimateHeapBytes(SearchResult searchResult) {
+        long bytes = 0;
+        for (String url : searchResult.getUrls()) {
+            bytes += url.length() + HEAP_BYTES_PER_URL;
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,282 @@
+package com.guerrero.backend.service;
+
+import com.guerrero.backend.fetch.FetchResponse;
+import com.guerrero.backend.fetch.PageFetcher;
+import com.guerrero.backend.util.LimitedInputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Finds the URLs of a site listed in its sitemaps, to seed the frontier of a crawl.
+ * The sitemaps are the ones listed by the Sitemap directives of the site's robots.txt, or /sitemap.xml when
+ * there are none. Sitemap indexes are followed to the sitemaps they list on the same host. Sitemaps are parsed as
+ * streams, so a sitemap of 50,000 URLs never needs to be held in memory, and gzipped sitemaps are decompressed on the fly.
+ */
+public class SitemapSeeder {
+
+    /**
+     * Default maximum number of URLs taken from the sitemaps of a site.
+     */
+    public static final int DEFAULT_MAX_URLS = 100_000;
+
+    /**
+     * Maximum number of sitemap files read for a site, and default maximum size of each one once decompressed.
+     * The sitemap protocol limits a sitemap to 50 MB uncompressed.
+     */
+    private static final int MAX_SITEMAPS = 1000;
+    private static final long MAX_SITEMAP_BYTES = 50L * 1024 * 1024;
+
+    /**
+     * Maximum size of a robots.txt file.
+     */
+    private static final long MAX_ROBOTS_BYTES = 512 * 1024;
+
+    /**
+     * Prefix of the robots.txt lines that list a sitemap, in lower case.
+     */
+    private static final String SITEMAP_DIRECTIVE = "sitemap:";
+
+    /**
+     * Parses the sitemaps without resolving DTDs or external entities.
+     */
+    private static final XMLInputFactory XML_INPUT_FACTORY = createXmlInputFactory();
+
+    /**
+     * Logger for the sitemaps that cannot be read.
+     */
+    private static final Logger logger = LoggerFactory.getLogger(SitemapSeeder.class);
+
+    private final PageFetcher pageFetcher;
+    private final int maxUrls;
+
+    /**
+     * Maximum size of a sitemap once decompressed.
+     */
+    private final long maxSitemapBytes;
+
+    /**
+     * Constructs a SitemapSeeder.
+     * @param pageFetcher The fetcher of robots.txt and of the sitemaps.
+     * @param maxUrls     The maximum number of URLs taken from the sitemaps of a site.
+     * @throws IllegalArgumentException if the maximum is not positive.
+     */
+    public SitemapSeeder(PageFetcher pageFetcher, int maxUrls) {
+        this(pageFetcher, maxUrls, MAX_SITEMAP_BYTES);
+    }
+
+    /**
+     * Constructs a SitemapSeeder with a maximum sitemap size.
+     * @param pageFetcher     The fetcher of robots.txt and of the sitemaps.
+     * @param maxUrls         The maximum number of URLs taken from the sitemaps of a site.
+     * @param maxSitemapBytes The maximum size of a sitemap once decompressed. The rest of a larger sitemap is ignored.
+     * @throws IllegalArgumentException if a maximum is not positive.
+     */
+    SitemapSeeder(PageFetcher pageFetcher, int maxUrls, long maxSitemapBytes) {
+        if (maxUrls <= 0 || maxSitemapBytes <= 0) {
+            throw new IllegalArgumentException("The maximum number of URLs and sitemap size must be positive.");
+        }
+        this.pageFetcher = pageFetcher;
+        this.maxUrls = maxUrls;
+        this.maxSitemapBytes = maxSitemapBytes;
+    }
+
+    /**
+     * Reads the sitemaps of a site and hands every URL they list to a consumer.
+     * The sitemaps listed by a sitemap index are only read if they are on the host of the site.
+     * @param baseUrl  A URL of the site.
+     * @param consumer Takes a listed URL, returning true if it was added to the frontier.
+     * @return The number of URLs added.
+     */
+    public int seed(String baseUrl, Predicate<String> consumer) {
+        List<String> sitemapUrls = findSitemaps(baseUrl);
+        Deque<String> pending = new ArrayDeque<>(sitemapUrls);
+        Set<String> seen = new HashSet<>(sitemapUrls);
+        int[] added = {0};
+        int sitemapCount = 0;
+        while (!pending.isEmpty() && sitemapCount < MAX_SITEMAPS && added[0] < maxUrls) {
+            String sitemapUrl = pending.poll();
+            sitemapCount++;
+            readSitemap(sitemapUrl, nestedSitemapUrl -> {
+                if (!isSameHost(baseUrl, nestedSitemapUrl)) {
+                    logger.debug("Skipping sitemap {}, which is not on the host of {}", nestedSitemapUrl, baseUrl);
+                } else if (seen.add(nestedSitemapUrl)) {
+                    pending.add(nestedSitemapUrl);
+                }
+            }, url -> {
+                if (added[0] >= maxUrls) {
+                    return false;
+                }
+                if (consumer.test(url)) {
+                    added[0]++;
+                }
+                return true;
+            });
+        }
+        logger.info("Seeded {} URLs from {} sitemaps of {}", added[0], sitemapCount, baseUrl);
+        return added[0];
+    }
+
+    /**
+     * Finds the sitemaps of a site in its robots.txt.
+     * @param baseUrl A URL of the site.
+     * @return The sitemap URLs, or /sitemap.xml if robots.txt lists none.
+     */
+    private List<String> findSitemaps(String baseUrl) {
+        List<String> sitemapUrls = new ArrayList<>();
+        String robotsUrl = resolve(baseUrl, "/robots.txt");
+        if (robotsUrl == null) {
+            return sitemapUrls;
+        }
+        try (FetchResponse response = pageFetcher.fetch(robotsUrl)) {
+            if (response.isSuccessful()) {
+                BufferedReader reader = new BufferedReader(new InputStreamReader(
+                        new LimitedInputStream(response.getBody(), MAX_ROBOTS_BYTES), StandardCharsets.UTF_8));
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    int comment = line.indexOf('#');
+                    line = (comment >= 0 ? line.substring(0, comment) : line).trim();
+                    if (line.toLowerCase(Locale.ROOT).startsWith(SITEMAP_DIRECTIVE)) {
+                        String sitemapUrl = resolve(robotsUrl, line.substring(SITEMAP_DIRECTIVE.length()).trim());
+                        if (sitemapUrl != null) {
+                            sitemapUrls.add(sitemapUrl);
+                        }
+                    }
+                }
+            }
+        } catch (IOException e) {
+            logger.debug("Failed to read {}: {}", robotsUrl, e.toString());
+        }
+        if (sitemapUrls.isEmpty()) {
+            String defaultSitemapUrl = resolve(baseUrl, "/sitemap.xml");
+            if (defaultSitemapUrl != null) {
+                sitemapUrls.add(defaultSitemapUrl);
+            }
+        }
+        return sitemapUrls;
+    }
+
+    /**
+     * Reads a sitemap or a sitemap index as a stream, up to the maximum sitemap size once decompressed,
+     * so a small gzipped sitemap cannot expand without limit.
+     * @param sitemapUrl      The URL of the sitemap.
+     * @param sitemapConsumer Takes the sitemaps listed by a sitemap index.
+     * @param urlConsumer     Takes the page URLs listed by a sitemap, returning false to stop reading.
+     */
+    private void readSitemap(String sitemapUrl, Consumer<String> sitemapConsumer,
+                             Predicate<String> urlConsumer) {
+        try (FetchResponse response = pageFetcher.fetch(sitemapUrl)) {
+            if (!response.isSuccessful()) {
+                logger.debug("Skipping sitemap {}: HTTP status {}", sitemapUrl, response.getStatusCode());
+                return;
+            }
+            InputStream body = new LimitedInputStream(decompressIfGzipped(response.getBody()), maxSitemapBytes);
+            XMLStreamReader reader = XML_INPUT_FACTORY.createXMLStreamReader(body);
+            try {
+                parseSitemap(reader, sitemapConsumer, urlConsumer);
+            } finally {
+                reader.close();
+            }
+        } catch (IOException | XMLStreamException e) {
+            logger.warn("Failed to read sitemap {}: {}", sitemapUrl, e.toString());
+        }
+    }
+
+    /**
+     * Parses the loc elements of a sitemap: the ones in sitemap elements list sitemaps,
+     * the ones in url elements list pages.
+     */
+    private static void parseSitemap(XMLStreamReader reader, Consumer<String> sitemapConsumer,
+                                     Predicate<String> urlConsumer) throws XMLStreamException {
+        boolean inSitemap = false;
+        while (reader.hasNext()) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                String name = reader.getLocalName();
+                if ("sitemap".equals(name)) {
+                    inSitemap = true;
+                } else if ("url".equals(name)) {
+                    inSitemap = false;
+                } else if ("loc".equals(name)) {
+                    String loc = reader.getElementText().trim();
+                    if (loc.isEmpty()) {
+                        continue;
+                    }
+                    if (inSitemap) {
+                        sitemapConsumer.accept(loc);
+                    } else if (!urlConsumer.test(loc)) {
+                        return;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Decompresses a stream that starts with the gzip magic bytes, whatever its content type.
+     */
+    private static InputStream decompressIfGzipped(InputStream input) throws IOException {
+        BufferedInputStream buffered = new BufferedInputStream(input);
+        buffered.mark(2);
+        int first = buffered.read();
+        int second = buffered.read();
+        buffered.reset();
+        if (first == 0x1f && second == 0x8b) {
+            return new GZIPInputStream(buffered);
+        }
+        return buffered;
+    }
+
+    /**
+     * Checks if two URLs are on the same host, ignoring case.
+     * @return true if both URLs are valid and have the same host.
+     */
+    private static boolean isSameHost(String baseUrl, String url) {
+        try {
+            return new URL(baseUrl).getHost().equalsIgnoreCase(new URL(url).getHost());
+        } catch (MalformedURLException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Resolves a URL against another.
+     * @return The resolved URL, or null if it is not valid.
+     */
+    private static String resolve(String baseUrl, String url) {
+        try {
+            return new URL(new URL(baseUrl), url).toString();
+        } catch (MalformedURLException e) {
+            return null;
+        }
+    }
+
+    private static XMLInputFactory createXmlInputFactory() {
+        XMLInputFactory factory = XMLInputFactory.newFactory();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        return factory;
+    }
+}
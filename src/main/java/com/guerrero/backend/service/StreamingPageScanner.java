@@ -0,0 +1,70 @@
+package com.guerrero.backend.service;
+
+import com.guerrero.backend.matcher.KeywordMatcher;
+import com.guerrero.backend.parser.HtmlLinkExtractor;
+import com.guerrero.backend.parser.LinkExtractor;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Scans a page while it is being read, without holding the whole page in memory.
+ * The page is read in fixed-size buffers which are fed both to an incremental keyword scan
+ * and to an incremental link scan, which keep their state from one buffer to the next.
+ */
+public class StreamingPageScanner {
+
+    /**
+     * Default number of characters read at a time.
+     */
+    public static final int DEFAULT_BUFFER_LENGTH = 8192;
+
+    /**
+     * Number of characters read at a time.
+     */
+    private final int bufferLength;
+
+    /**
+     * Extracts the links of the pages.
+     */
+    private final LinkExtractor linkExtractor;
+
+    /**
+     * Constructs a StreamingPageScanner with the default buffer length and link extractor.
+     */
+    public StreamingPageScanner() {
+        this(DEFAULT_BUFFER_LENGTH, new HtmlLinkExtractor());
+    }
+
+    /**
+     * Constructs a StreamingPageScanner.
+     * @param bufferLength  The number of characters read at a time.
+     * @param linkExtractor The extractor of the links of the pages.
+     * @throws IllegalArgumentException if the length is not positive.
+     */
+    public StreamingPageScanner(int bufferLength, LinkExtractor linkExtractor) {
+        if (bufferLength <= 0) {
+            throw new IllegalArgumentException("The buffer length must be positive.");
+        }
+        this.bufferLength = bufferLength;
+        this.linkExtractor = linkExtractor;
+    }
+
+    /**
+     * Reads a page to the end, scanning it for the keywords and for its links.
+     * @param reader      The reader of the page. It is not closed by this method.
+     * @param keywordScan The keyword scan, which receives every character of the page.
+     * @param linkSink    Receives the links of the page, in page order.
+     * @throws IOException if the page cannot be read.
+     */
+    public void scan(Reader reader, KeywordMatcher.Scan keywordScan, LinkExtractor.Sink linkSink) throws IOException {
+        char[] buffer = new char[bufferLength];
+        LinkExtractor.Scan linkScan = linkExtractor.newScan(linkSink);
+        int count;
+        while ((count = reader.read(buffer)) >= 0) {
+            keywordScan.feed(buffer, 0, count);
+            linkScan.feed(buffer, 0, count);
+        }
+        linkScan.finish();
+    }
+}
@@ -0,0 +1,119 @@
+package com.guerrero.backend.store;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * A page kept in the crawl archive: its body with the validators needed to revalidate it,
+ * so a later crawl can ask the server whether the page changed instead of downloading it again.
+ */
+public class ArchivedPage {
+
+    /**
+     * The URL of the page.
+     */
+    private final String url;
+
+    /**
+     * The values of the ETag, Last-Modified and Content-Type response headers, or null when absent.
+     */
+    private final String etag;
+    private final String lastModified;
+    private final String contentType;
+
+    /**
+     * The SHA-256 hash of the body.
+     */
+    private final byte[] contentHash;
+
+    /**
+     * The decoded body of the page.
+     */
+    private final byte[] body;
+
+    /**
+     * Constructs an ArchivedPage, hashing its body.
+     * @param url          The URL of the page.
+     * @param etag         The ETag of the page, or null.
+     * @param lastModified The Last-Modified date of the page, or null.
+     * @param contentType  The Content-Type of the page, or null.
+     * @param body         The decoded body of the page. Must not be changed afterwards.
+     */
+    public ArchivedPage(String url, String etag, String lastModified, String contentType, byte[] body) {
+        this.url = url;
+        this.etag = etag;
+        this.lastModified = lastModified;
+        this.contentType = contentType;
+        this.body = body;
+        this.contentHash = hash(body);
+    }
+
+    /**
+     * Computes the SHA-256 hash of a body.
+     * @param body The body.
+     * @return The 32-byte hash.
+     */
+    public static byte[] hash(byte[] body) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(body);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not supported", e);
+        }
+    }
+
+    /**
+     * Checks if the page can be revalidated with a conditional request.
+     * @return true if the page has an ETag or a Last-Modified date.
+     */
+    public boolean hasValidators() {
+        return etag != null || lastModified != null;
+    }
+
+    /**
+     * Gets the URL of the page.
+     * @return The URL.
+     */
+    public String getUrl() {
+        return url;
+    }
+
+    /**
+     * Gets the ETag of the page.
+     * @return The ETag, or null if the server sent none.
+     */
+    public String getEtag() {
+        return etag;
+    }
+
+    /**
+     * Gets the Last-Modified date of the page.
+     * @return The date as sent by the server, or null if it sent none.
+     */
+    public String getLastModified() {
+        return lastModified;
+    }
+
+    /**
+     * Gets the Content-Type of the page.
+     * @return The content type, or null if the server sent none.
+     */
+    public String getContentType() {
+        return contentType;
+    }
+
+    /**
+     * Gets the SHA-256 hash of the body.
+     * @return The hash. Must not be changed.
+     */
+    public byte[] getContentHash() {
+        return contentHash;
+    }
+
+    /**
+     * Gets the decoded body of the page.
+     * @return The body. Must not be changed.
+     */
+    public byte[] getBody() {
+        return body;
+    }
+}
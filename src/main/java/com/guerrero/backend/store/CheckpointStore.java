@@ -0,0 +1,197 @@
+package com.guerrero.backend.store;
+
+import com.guerrero.backend.util.VisitedUrlSet;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Persists checkpoints of the active searches, one file per search, so their crawls can be resumed after a restart.
+ * A checkpoint is written in a compact binary form: the search ID and keyword, the result URLs and the pending URLs
+ * as length-prefixed UTF-8 strings, and the found URLs as their 64-bit fingerprints.
+ * It is written to a temporary file, forced to disk and then moved over the previous checkpoint of the search,
+ * so a crash never leaves a partial checkpoint behind.
+ */
+public class CheckpointStore {
+
+    /**
+     * First bytes of a checkpoint file, and version of its format.
+     */
+    private static final int MAGIC = 0x43524b50;
+    private static final byte VERSION = 1;
+
+    /**
+     * Extension of the checkpoint files, and of the temporary files they are written to.
+     */
+    private static final String CHECKPOINT_EXTENSION = ".ckpt";
+    private static final String TEMP_EXTENSION = ".tmp";
+
+    /**
+     * Size of the buffers of the checkpoint files.
+     */
+    private static final int BUFFER_BYTES = 64 * 1024;
+
+    /**
+     * Logger for checkpoints that cannot be read.
+     */
+    private static final Logger logger = LoggerFactory.getLogger(CheckpointStore.class);
+
+    /**
+     * The directory of the checkpoint files.
+     */
+    private final Path directory;
+
+    private CheckpointStore(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Opens the store in a directory, creating the directory if needed.
+     * @param directory The directory of the checkpoint files.
+     * @return The opened store.
+     * @throws IOException if the directory cannot be created.
+     */
+    public static CheckpointStore open(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        return new CheckpointStore(directory);
+    }
+
+    /**
+     * Writes the checkpoint of a search, replacing its previous one atomically.
+     * @param checkpoint The checkpoint.
+     * @return The size of the checkpoint file in bytes.
+     * @throws IOException if the checkpoint cannot be written.
+     */
+    public long write(CrawlCheckpoint checkpoint) throws IOException {
+        Path checkpointFile = checkpointFileOf(checkpoint.getSearchId());
+        Path tempFile = checkpointFile.resolveSibling(checkpointFile.getFileName() + TEMP_EXTENSION);
+        try (FileOutputStream file = new FileOutputStream(tempFile.toFile());
+             DataOutputStream output = new DataOutputStream(new BufferedOutputStream(file, BUFFER_BYTES))) {
+            output.writeInt(MAGIC);
+            output.writeByte(VERSION);
+            writeString(output, checkpoint.getSearchId());
+            writeString(output, checkpoint.getKeyword());
+            writeStrings(output, checkpoint.getResultUrls());
+            writeStrings(output, checkpoint.getPendingUrls());
+            checkpoint.getFoundUrls().writeTo(output);
+            output.flush();
+            file.getFD().sync();
+        }
+        Files.move(tempFile, checkpointFile, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        return Files.size(checkpointFile);
+    }
+
+    /**
+     * Reads the checkpoint of a search.
+     * @param searchId The ID of the search.
+     * @return The checkpoint, or null if the search has none.
+     * @throws IOException if the checkpoint cannot be read or is not valid.
+     */
+    public CrawlCheckpoint read(String searchId) throws IOException {
+        Path checkpointFile = checkpointFileOf(searchId);
+        return Files.exists(checkpointFile) ? read(checkpointFile) : null;
+    }
+
+    /**
+     * Reads the checkpoints of all the searches. Checkpoints that cannot be read are logged and skipped,
+     * and temporary files left by a crash are deleted.
+     * @return The checkpoints.
+     * @throws IOException if the directory cannot be listed.
+     */
+    public List<CrawlCheckpoint> readAll() throws IOException {
+        List<CrawlCheckpoint> checkpoints = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                if (name.endsWith(TEMP_EXTENSION)) {
+                    Files.deleteIfExists(file);
+                } else if (name.endsWith(CHECKPOINT_EXTENSION)) {
+                    try {
+                        checkpoints.add(read(file));
+                    } catch (IOException e) {
+                        logger.error("Failed to read the checkpoint {}", file, e);
+                    }
+                }
+            }
+        }
+        return checkpoints;
+    }
+
+    /**
+     * Deletes the checkpoint of a search, once it no longer needs to be resumed.
+     * @param searchId The ID of the search.
+     * @throws IOException if the checkpoint cannot be deleted.
+     */
+    public void delete(String searchId) throws IOException {
+        Files.deleteIfExists(checkpointFileOf(searchId));
+    }
+
+    private CrawlCheckpoint read(Path checkpointFile) throws IOException {
+        try (DataInputStream input = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(checkpointFile), BUFFER_BYTES))) {
+            if (input.readInt() != MAGIC || input.readByte() != VERSION) {
+                throw new IOException("Not a checkpoint of a supported version: " + checkpointFile);
+            }
+            String searchId = readString(input);
+            String keyword = readString(input);
+            List<String> resultUrls = readStrings(input);
+            List<String> pendingUrls = readStrings(input);
+            VisitedUrlSet foundUrls = VisitedUrlSet.readFrom(input);
+            return new CrawlCheckpoint(searchId, keyword, pendingUrls, foundUrls, resultUrls);
+        }
+    }
+
+    private Path checkpointFileOf(String searchId) {
+        return directory.resolve(searchId + CHECKPOINT_EXTENSION);
+    }
+
+    private static void writeStrings(DataOutput output, List<String> strings) throws IOException {
+        output.writeInt(strings.size());
+        for (String string : strings) {
+            writeString(output, string);
+        }
+    }
+
+    private static void writeString(DataOutput output, String string) throws IOException {
+        byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+        output.writeInt(bytes.length);
+        output.write(bytes);
+    }
+
+    private static List<String> readStrings(DataInput input) throws IOException {
+        int count = input.readInt();
+        if (count < 0) {
+            throw new IOException("Invalid number of strings: " + count);
+        }
+        List<String> strings = new ArrayList<>(Math.min(count, BUFFER_BYTES));
+        for (int i = 0; i < count; i++) {
+            strings.add(readString(input));
+        }
+        return strings;
+    }
+
+    private static String readString(DataInput input) throws IOException {
+        int length = input.readInt();
+        if (length < 0) {
+            throw new IOException("Invalid string length: " + length);
+        }
+        byte[] bytes = new byte[length];
+        input.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
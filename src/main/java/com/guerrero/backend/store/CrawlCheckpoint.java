@@ -0,0 +1,91 @@
+package com.guerrero.backend.store;
+
+import com.guerrero.backend.util.VisitedUrlSet;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The state of an active search at one point in time, from which its crawl can be resumed:
+ * the frontier, the URLs found so far and the results so far.
+ */
+public class CrawlCheckpoint {
+
+    /**
+     * The ID and keyword of the search.
+     */
+    private final String searchId;
+    private final String keyword;
+
+    /**
+     * The URLs found but not processed yet, including the ones being processed when the checkpoint was taken.
+     */
+    private final List<String> pendingUrls;
+
+    /**
+     * The URLs found so far.
+     */
+    private final VisitedUrlSet foundUrls;
+
+    /**
+     * The URLs matched so far.
+     */
+    private final List<String> resultUrls;
+
+    /**
+     * Constructs a CrawlCheckpoint.
+     * @param searchId    The ID of the search.
+     * @param keyword     The keyword of the search.
+     * @param pendingUrls The URLs found but not processed yet.
+     * @param foundUrls   The URLs found so far. Must not be changed afterwards.
+     * @param resultUrls  The URLs matched so far.
+     */
+    public CrawlCheckpoint(String searchId, String keyword, List<String> pendingUrls,
+                           VisitedUrlSet foundUrls, List<String> resultUrls) {
+        this.searchId = searchId;
+        this.keyword = keyword;
+        this.pendingUrls = Collections.unmodifiableList(pendingUrls);
+        this.foundUrls = foundUrls;
+        this.resultUrls = Collections.unmodifiableList(resultUrls);
+    }
+
+    /**
+     * Gets the ID of the search.
+     * @return The search ID.
+     */
+    public String getSearchId() {
+        return searchId;
+    }
+
+    /**
+     * Gets the keyword of the search.
+     * @return The keyword.
+     */
+    public String getKeyword() {
+        return keyword;
+    }
+
+    /**
+     * Gets the URLs found but not processed yet.
+     * @return The pending URLs.
+     */
+    public List<String> getPendingUrls() {
+        return pendingUrls;
+    }
+
+    /**
+     * Gets the URLs found so far.
+     * @return The found URLs set.
+     */
+    public VisitedUrlSet getFoundUrls() {
+        return foundUrls;
+    }
+
+    /**
+     * Gets the URLs matched so far.
+     * @return The result URLs.
+     */
+    public List<String> getResultUrls() {
+        return resultUrls;
+    }
+}
@@ -0,0 +1,321 @@
+package com.guerrero.backend.store;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Persists the fetched pages of the crawls, one file per URL, so later crawls of the site can revalidate them.
+ * A page is written in a compact binary form, like a WARC record without the raw HTTP message: the URL,
+ * the ETag, Last-Modified and Content-Type headers as length-prefixed UTF-8 strings, the SHA-256 hash
+ * of the body and the deflated body. Everything before the body is the header of the page, which can be read
+ * without the body to revalidate the page. The hash is checked when the body is read back.
+ * The files are named after the hash of their URL, in two levels of subdirectories named after its first bytes,
+ * so no directory holds more than a small share of the pages.
+ * A page is written to a temporary file and then moved over the previous version of the page,
+ * so readers never see a partial page.
+ */
+public class PageArchive {
+
+    /**
+     * First bytes of a page file, and version of its format.
+     */
+    private static final int MAGIC = 0x43524b41;
+    private static final byte VERSION = 1;
+
+    /**
+     * Extension of the page files, and of the temporary files they are written to.
+     */
+    private static final String PAGE_EXTENSION = ".page";
+    private static final String TEMP_EXTENSION = ".tmp";
+
+    /**
+     * Size of the buffers of the page files, and of the buffer used to read only their header.
+     */
+    private static final int BUFFER_BYTES = 64 * 1024;
+    private static final int HEADER_BUFFER_BYTES = 1024;
+
+    /**
+     * Logger for pages that cannot be read.
+     */
+    private static final Logger logger = LoggerFactory.getLogger(PageArchive.class);
+
+    /**
+     * The directory of the page files.
+     */
+    private final Path directory;
+
+    private PageArchive(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Opens the archive in a directory, creating the directory if needed.
+     * Page files left directly in the directory by earlier versions are moved to their subdirectory.
+     * @param directory The directory of the page files.
+     * @return The opened archive.
+     * @throws IOException if the directory cannot be created or the page files cannot be moved.
+     */
+    public static PageArchive open(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        PageArchive archive = new PageArchive(directory);
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + PAGE_EXTENSION)) {
+            for (Path file : files) {
+                Path shardedFile = archive.shardOf(file.getFileName().toString());
+                Files.createDirectories(shardedFile.getParent());
+                Files.move(file, shardedFile, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        return archive;
+    }
+
+    /**
+     * Writes a page, replacing its previous version atomically.
+     * @param page The page.
+     * @throws IOException if the page cannot be written.
+     */
+    public void write(ArchivedPage page) throws IOException {
+        Path pageFile = pageFileOf(page.getUrl());
+        Files.createDirectories(pageFile.getParent());
+        Path tempFile = Files.createTempFile(pageFile.getParent(), pageFile.getFileName().toString(), TEMP_EXTENSION);
+        try {
+            try (FileOutputStream file = new FileOutputStream(tempFile.toFile());
+                 DataOutputStream output = new DataOutputStream(new BufferedOutputStream(file, BUFFER_BYTES))) {
+                output.writeInt(MAGIC);
+                output.writeByte(VERSION);
+                writeString(output, page.getUrl());
+                writeString(output, page.getEtag());
+                writeString(output, page.getLastModified());
+                writeString(output, page.getContentType());
+                output.write(page.getContentHash());
+                output.writeInt(page.getBody().length);
+                try (DeflaterOutputStream deflater = new DeflaterOutputStream(output)) {
+                    deflater.write(page.getBody());
+                }
+            }
+            Files.move(tempFile, pageFile, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    /**
+     * Reads the header of the archived version of a page, without reading its body.
+     * A page file whose header is not valid is logged and ignored.
+     * @param url The URL of the page.
+     * @return The header, or null if the page is not archived.
+     */
+    public Header readHeader(String url) {
+        Path pageFile = pageFileOf(url);
+        try (DataInputStream input = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(pageFile), HEADER_BUFFER_BYTES))) {
+            return readHeader(input, url);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            logger.warn("Ignoring the archived page {} of {}: {}", pageFile, url, e.toString());
+            return null;
+        }
+    }
+
+    /**
+     * Reads the archived version of a page.
+     * A page file that is not valid, or whose body does not match its hash, is logged and ignored.
+     * @param url The URL of the page.
+     * @return The page, or null if it is not archived.
+     */
+    public ArchivedPage read(String url) {
+        Path pageFile = pageFileOf(url);
+        try (DataInputStream input = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(pageFile), BUFFER_BYTES))) {
+            Header header = readHeader(input, url);
+            if (header == null) {
+                return null;
+            }
+            byte[] body = new byte[header.bodyLength];
+            Inflater inflater = new Inflater();
+            try {
+                new DataInputStream(new InflaterInputStream(input, inflater)).readFully(body);
+            } finally {
+                inflater.end();
+            }
+            ArchivedPage page = new ArchivedPage(url, header.etag, header.lastModified, header.contentType, body);
+            if (!Arrays.equals(header.contentHash, page.getContentHash())) {
+                throw new IOException("The body does not match its hash");
+            }
+            return page;
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            logger.warn("Ignoring the archived page {} of {}: {}", pageFile, url, e.toString());
+            return null;
+        }
+    }
+
+    /**
+     * Deletes the archived version of a page.
+     * @param url The URL of the page.
+     * @throws IOException if the page cannot be deleted.
+     */
+    public void delete(String url) throws IOException {
+        Files.deleteIfExists(pageFileOf(url));
+    }
+
+    /**
+     * Gets the file of a page, named after the hash of its URL.
+     */
+    private Path pageFileOf(String url) {
+        byte[] urlHash = ArchivedPage.hash(url.getBytes(StandardCharsets.UTF_8));
+        StringBuilder name = new StringBuilder(32 + PAGE_EXTENSION.length());
+        for (int i = 0; i < 16; i++) {
+            name.append(Character.forDigit((urlHash[i] >> 4) & 0xf, 16)).append(Character.forDigit(urlHash[i] & 0xf, 16));
+        }
+        return shardOf(name.append(PAGE_EXTENSION).toString());
+    }
+
+    /**
+     * Gets the path of a page file in the subdirectories named after the first two bytes of its name.
+     */
+    private Path shardOf(String fileName) {
+        return directory.resolve(fileName.substring(0, 2)).resolve(fileName.substring(2, 4)).resolve(fileName);
+    }
+
+    /**
+     * Reads the header of a page file, up to its body.
+     * @return The header, or null if the file is the page of another URL with the same file name.
+     */
+    private static Header readHeader(DataInput input, String url) throws IOException {
+        if (input.readInt() != MAGIC || input.readByte() != VERSION) {
+            throw new IOException("Not an archived page of a supported version");
+        }
+        String archivedUrl = readString(input);
+        if (!url.equals(archivedUrl)) {
+            // Two URLs with the same file name: the other one is archived
+            return null;
+        }
+        String etag = readString(input);
+        String lastModified = readString(input);
+        String contentType = readString(input);
+        byte[] contentHash = new byte[32];
+        input.readFully(contentHash);
+        int length = input.readInt();
+        if (length < 0) {
+            throw new IOException("Invalid body length: " + length);
+        }
+        return new Header(url, etag, lastModified, contentType, contentHash, length);
+    }
+
+    /**
+     * Writes a string that may be null, with a length of -1.
+     */
+    private static void writeString(DataOutput output, String string) throws IOException {
+        if (string == null) {
+            output.writeInt(-1);
+            return;
+        }
+        byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+        output.writeInt(bytes.length);
+        output.write(bytes);
+    }
+
+    private static String readString(DataInput input) throws IOException {
+        int length = input.readInt();
+        if (length < -1) {
+            throw new IOException("Invalid string length: " + length);
+        }
+        if (length == -1) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        input.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * The header of an archived page: its validators and the hash of its body, enough to revalidate it.
+     */
+    public static class Header {
+
+        private final String url;
+        private final String etag;
+        private final String lastModified;
+        private final String contentType;
+        private final byte[] contentHash;
+        private final int bodyLength;
+
+        Header(String url, String etag, String lastModified, String contentType, byte[] contentHash, int bodyLength) {
+            this.url = url;
+            this.etag = etag;
+            this.lastModified = lastModified;
+            this.contentType = contentType;
+            this.contentHash = contentHash;
+            this.bodyLength = bodyLength;
+        }
+
+        /**
+         * Checks if the page can be revalidated with a conditional request.
+         * @return true if the page has an ETag or a Last-Modified date.
+         */
+        public boolean hasValidators() {
+            return etag != null || lastModified != null;
+        }
+
+        /**
+         * Gets the URL of the page.
+         * @return The URL.
+         */
+        public String getUrl() {
+            return url;
+        }
+
+        /**
+         * Gets the ETag of the page.
+         * @return The ETag, or null if the server sent none.
+         */
+        public String getEtag() {
+            return etag;
+        }
+
+        /**
+         * Gets the Last-Modified date of the page.
+         * @return The date as sent by the server, or null if it sent none.
+         */
+        public String getLastModified() {
+            return lastModified;
+        }
+
+        /**
+         * Gets the Content-Type of the page.
+         * @return The content type, or null if the server sent none.
+         */
+        public String getContentType() {
+            return contentType;
+        }
+
+        /**
+         * Gets the SHA-256 hash of the body.
+         * @return The hash. Must not be changed.
+         */
+        public byte[] getContentHash() {
+            return contentHash;
+        }
+    }
+}
@@ -0,0 +1,1041 @@
+package com.guerrero.backend.store;
+
+import com.guerrero.backend.model.SearchResult;
+import com.guerrero.backend.model.Status;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * Persists the searches and their results in an append-only log of memory-mapped segment files.
+ * Every search creation, matched URL, status change and deletion is appended as a record with a fixed-size
+ * header: its total length, its type and the 8-character search ID, followed by a UTF-8 payload.
+ * The length is written last, so a record cut short by a crash is never read back. URL records are appended
+ * concurrently, each one in space reserved with an atomic offset, so a crash while one of them is written
+ * also loses the records reserved after it.
+ * When a segment is full, an index file is written next to it with the effect of the segment on each search
+ * and the offsets of the URL records of the search. Opening the store maps the index files of the full segments
+ * and only walks the record headers of the last one, so the URL offsets stay on the disk until a search is loaded.
+ * Records of deleted searches and replaced statuses become garbage, which compaction removes
+ * by rewriting the live records into new segments.
+ */
+public class ResultStore implements Closeable {
+
+    /**
+     * Default size of a segment file.
+     */
+    public static final int DEFAULT_SEGMENT_BYTES = 64 * 1024 * 1024;
+
+    /**
+     * Default fraction of garbage in the log above which it is compacted.
+     */
+    public static final double DEFAULT_COMPACTION_GARBAGE_RATIO = 0.5;
+
+    /**
+     * Record types.
+     */
+    private static final byte RECORD_SEARCH = 1;
+    private static final byte RECORD_URL = 2;
+    private static final byte RECORD_STATUS = 3;
+    private static final byte RECORD_DELETE = 4;
+
+    /**
+     * Length of the search IDs, and of a record header: length, type and search ID.
+     */
+    private static final int ID_LENGTH = 8;
+    private static final int HEADER_LENGTH = Integer.BYTES + 1 + ID_LENGTH;
+
+    /**
+     * Name of the segment files: the prefix, a sequence number and the suffix. The index file of a segment
+     * has the same name with another suffix.
+     */
+    private static final String SEGMENT_PREFIX = "results-";
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final String INDEX_SUFFIX = ".idx";
+
+    /**
+     * Header of an index file: a magic number, the end of the records in the segment and the number of entries.
+     */
+    private static final int INDEX_MAGIC = 0x52534958;
+    private static final int INDEX_HEADER_LENGTH = 3 * Integer.BYTES;
+
+    /**
+     * Layout of an index entry: the search ID, the type of the last search or delete record of the search,
+     * its last status, the offset and length of its search record, the length of its status record,
+     * and the number, table offset and total bytes of its URL records.
+     */
+    private static final int ENTRY_RESET = ID_LENGTH;
+    private static final int ENTRY_STATUS = ENTRY_RESET + 1;
+    private static final int ENTRY_SEARCH_OFFSET = ENTRY_STATUS + 1;
+    private static final int ENTRY_SEARCH_LENGTH = ENTRY_SEARCH_OFFSET + Integer.BYTES;
+    private static final int ENTRY_STATUS_LENGTH = ENTRY_SEARCH_LENGTH + Integer.BYTES;
+    private static final int ENTRY_URL_COUNT = ENTRY_STATUS_LENGTH + Integer.BYTES;
+    private static final int ENTRY_URL_TABLE = ENTRY_URL_COUNT + Integer.BYTES;
+    private static final int ENTRY_URL_BYTES = ENTRY_URL_TABLE + Integer.BYTES;
+    private static final int ENTRY_LENGTH = ENTRY_URL_BYTES + Long.BYTES;
+
+    /**
+     * Reset type of an entry without search or delete record, and status of an entry without status record.
+     */
+    private static final byte NO_RESET = 0;
+    private static final byte NO_STATUS = -1;
+
+    /**
+     * Logger for opening and compacting the store.
+     */
+    private static final Logger logger = LoggerFactory.getLogger(ResultStore.class);
+
+    /**
+     * The directory of the segment files.
+     */
+    private final Path directory;
+
+    /**
+     * Size of a new segment file.
+     */
+    private final int segmentBytes;
+
+    /**
+     * Guards the segments and the index. URL records are appended under the read lock, everything else that
+     * changes the store takes the write lock.
+     */
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * The segments by sequence number, oldest first. The last one receives the new records.
+     */
+    private final LinkedHashMap<Long, Segment> segments = new LinkedHashMap<>();
+
+    /**
+     * The segment that receives the new records.
+     */
+    private Segment activeSegment;
+
+    /**
+     * The sequence number of the newest segment.
+     */
+    private long lastSequence;
+
+    /**
+     * The stored searches by ID.
+     */
+    private final Map<String, StoredSearch> index = new HashMap<>();
+
+    /**
+     * Total bytes of records in the log, and bytes of the records of stored searches.
+     */
+    private final AtomicLong totalBytes = new AtomicLong();
+    private final AtomicLong liveBytes = new AtomicLong();
+
+    /**
+     * Compacts the log periodically, or null when not started.
+     */
+    private ScheduledExecutorService compactor;
+
+    private ResultStore(Path directory, int segmentBytes) {
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+    }
+
+    /**
+     * Opens the store in a directory, creating the directory if needed, and rebuilds its index.
+     * The full segments are read from their index files, and an index file is written for those without one.
+     * @param directory    The directory of the segment files.
+     * @param segmentBytes The size of a new segment file.
+     * @return The opened store.
+     * @throws IllegalArgumentException if the segment size is too small for a record.
+     * @throws IOException if the segments cannot be read.
+     */
+    public static ResultStore open(Path directory, int segmentBytes) throws IOException {
+        if (segmentBytes < 4096) {
+            throw new IllegalArgumentException("The segment size must be at least 4096 bytes.");
+        }
+        Files.createDirectories(directory);
+        ResultStore store = new ResultStore(directory, segmentBytes);
+        long startNanos = System.nanoTime();
+        long[] sequences = store.listSegmentSequences();
+        for (int i = 0; i < sequences.length; i++) {
+            Segment segment = store.mapSegment(sequences[i], false);
+            store.segments.put(sequences[i], segment);
+            store.lastSequence = sequences[i];
+            if (i == sequences.length - 1) {
+                Files.deleteIfExists(store.indexPathOf(segment.sequence));
+                store.activeSegment = segment;
+                store.scan(segment);
+            } else if (!store.readIndex(segment)) {
+                store.activeSegment = segment;
+                store.scan(segment);
+                store.sealActiveSegment();
+            }
+        }
+        if (store.activeSegment == null) {
+            store.startSegment();
+        }
+        logger.info("Opened result store {}: {} searches in {} segments in {} ms", directory, store.index.size(),
+                store.segments.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+        return store;
+    }
+
+    /**
+     * Records a new search.
+     * @param searchId The ID of the search.
+     * @param keyword  The keyword of the search.
+     */
+    public void appendSearch(String searchId, String keyword) {
+        lock.writeLock().lock();
+        try {
+            append(RECORD_SEARCH, searchId, keyword.getBytes(StandardCharsets.UTF_8));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Records a URL matched by a search. URLs of different searches, or of the same search, can be recorded
+     * concurrently.
+     * @param searchId The ID of the search.
+     * @param url      The matched URL.
+     */
+    public void appendUrl(String searchId, String url) {
+        append(RECORD_URL, searchId, url.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Records a status change of a search.
+     * @param searchId The ID of the search.
+     * @param status   The new status.
+     */
+    public void appendStatus(String searchId, Status status) {
+        lock.writeLock().lock();
+        try {
+            append(RECORD_STATUS, searchId, new byte[]{(byte) status.ordinal()});
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Deletes a search and its results.
+     * @param searchId The ID of the search.
+     */
+    public void delete(String searchId) {
+        lock.writeLock().lock();
+        try {
+            if (index.containsKey(searchId)) {
+                append(RECORD_DELETE, searchId, new byte[0]);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Checks if a search is stored.
+     * @param searchId The ID of the search.
+     * @return true if the search is stored, false otherwise.
+     */
+    public boolean contains(String searchId) {
+        lock.readLock().lock();
+        try {
+            return index.containsKey(searchId);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Gets the keyword of a stored search.
+     * @param searchId The ID of the search.
+     * @return The keyword, or null if the search is not stored.
+     */
+    public String getKeyword(String searchId) {
+        lock.readLock().lock();
+        try {
+            StoredSearch storedSearch = index.get(searchId);
+            return storedSearch == null ? null : storedSearch.keyword;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Loads the result of a stored search, reading its URLs from the segments.
+     * @param searchId The ID of the search.
+     * @return The result with the stored URLs and status, or null if the search is not stored.
+     */
+    public SearchResult load(String searchId) {
+        lock.readLock().lock();
+        try {
+            StoredSearch storedSearch = index.get(searchId);
+            if (storedSearch == null) {
+                return null;
+            }
+            SearchResult searchResult = new SearchResult(searchId);
+            forEachUrl(segments, activeSegment, searchId, storedSearch, searchResult::addUrl);
+            searchResult.setStatus(storedSearch.status);
+            return searchResult;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Gets the IDs of the stored searches.
+     * @return A copy of the IDs.
+     */
+    public Set<String> getSearchIds() {
+        lock.readLock().lock();
+        try {
+            return Set.copyOf(index.keySet());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Compacts the log if the fraction of garbage reaches a ratio.
+     * @param minGarbageRatio The fraction of garbage bytes that triggers the compaction.
+     * @return true if the log was compacted, false otherwise.
+     * @throws UncheckedIOException if the new segments cannot be written.
+     */
+    public boolean compactIfNeeded(double minGarbageRatio) {
+        lock.writeLock().lock();
+        try {
+            long total = totalBytes.get();
+            if (total == 0 || (double) (total - liveBytes.get()) / total < minGarbageRatio) {
+                return false;
+            }
+            compact();
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Rewrites the records of the stored searches into new segments, with their index files,
+     * and deletes the old segments.
+     * If the process stops before the old segments are deleted, opening the store again reads the search records
+     * of the new segments after the old ones, and each of them replaces the older state of its search.
+     * @throws UncheckedIOException if the new segments cannot be written.
+     */
+    public void compact() {
+        lock.writeLock().lock();
+        try {
+            long previousTotalBytes = totalBytes.get();
+            Map<Long, Segment> oldSegments = new LinkedHashMap<>(segments);
+            Segment oldActiveSegment = activeSegment;
+            Map<String, StoredSearch> oldIndex = new LinkedHashMap<>(index);
+            segments.clear();
+            index.clear();
+            totalBytes.set(0);
+            liveBytes.set(0);
+            startSegment();
+            for (Map.Entry<String, StoredSearch> entry : oldIndex.entrySet()) {
+                String searchId = entry.getKey();
+                StoredSearch storedSearch = entry.getValue();
+                appendSearch(searchId, storedSearch.keyword);
+                forEachUrl(oldSegments, oldActiveSegment, searchId, storedSearch, url -> appendUrl(searchId, url));
+                if (storedSearch.statusLength > 0) {
+                    appendStatus(searchId, storedSearch.status);
+                }
+            }
+            force();
+            for (Segment segment : oldSegments.values()) {
+                segment.close();
+                try {
+                    Files.deleteIfExists(indexPathOf(segment.sequence));
+                    Files.deleteIfExists(segment.path);
+                } catch (IOException e) {
+                    logger.warn("Failed to delete compacted segment {}", segment.path, e);
+                }
+            }
+            logger.info("Compacted result store {} from {} to {} bytes", directory, previousTotalBytes, totalBytes);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Starts compacting the log periodically, in a daemon thread, when its garbage reaches a ratio.
+     * @param interval        The time between two checks.
+     * @param minGarbageRatio The fraction of garbage bytes that triggers the compaction.
+     */
+    public void startCompaction(Duration interval, double minGarbageRatio) {
+        lock.writeLock().lock();
+        try {
+            if (compactor != null) {
+                return;
+            }
+            compactor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "result-store-compactor");
+                thread.setDaemon(true);
+                return thread;
+            });
+            compactor.scheduleWithFixedDelay(() -> {
+                try {
+                    force();
+                    compactIfNeeded(minGarbageRatio);
+                } catch (RuntimeException e) {
+                    logger.error("Failed to compact result store {}", directory, e);
+                }
+            }, interval.toMillis(), interval.toMillis(), TimeUnit.MILLISECONDS);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Writes the mapped segments to the disk.
+     */
+    public void force() {
+        lock.readLock().lock();
+        try {
+            for (Segment segment : segments.values()) {
+                segment.buffer.force();
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Gets the number of stored searches.
+     * @return The number of searches.
+     */
+    public int getSearchCount() {
+        lock.readLock().lock();
+        try {
+            return index.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Gets the number of segment files.
+     * @return The number of segments.
+     */
+    public int getSegmentCount() {
+        lock.readLock().lock();
+        try {
+            return segments.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Gets the bytes of all the records in the log.
+     * @return The size of the log.
+     */
+    public long getTotalBytes() {
+        return totalBytes.get();
+    }
+
+    /**
+     * Gets the bytes of the records of the stored searches.
+     * @return The size of the live records.
+     */
+    public long getLiveBytes() {
+        return liveBytes.get();
+    }
+
+    @Override
+    public void close() {
+        lock.writeLock().lock();
+        try {
+            if (compactor != null) {
+                compactor.shutdownNow();
+                compactor = null;
+            }
+            force();
+            for (Segment segment : segments.values()) {
+                segment.close();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Appends a record to the active segment, starting a new segment if it does not fit, and applies it to the index.
+     * The space of the record is reserved under the read lock, and a new segment is started under the write lock.
+     */
+    private void append(byte type, String searchId, byte[] payload) {
+        byte[] id = searchId.getBytes(StandardCharsets.US_ASCII);
+        if (id.length != ID_LENGTH) {
+            throw new IllegalArgumentException("The search ID must have " + ID_LENGTH + " characters.");
+        }
+        int length = HEADER_LENGTH + payload.length;
+        if (length > segmentBytes) {
+            throw new IllegalArgumentException("The record of " + length + " bytes does not fit in a segment.");
+        }
+        while (true) {
+            Segment segment;
+            lock.readLock().lock();
+            try {
+                segment = activeSegment;
+                int offset = segment.reserve(length);
+                if (offset >= 0) {
+                    segment.write(offset, type, id, payload);
+                    apply(type, searchId, offset, length, payload);
+                    return;
+                }
+            } finally {
+                lock.readLock().unlock();
+            }
+            lock.writeLock().lock();
+            try {
+                if (activeSegment == segment) {
+                    rollSegment();
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * Reads the record headers of the active segment into the index and finds the end of its records.
+     * The scan stops at the first record with an invalid length or status.
+     */
+    private void scan(Segment segment) {
+        MappedByteBuffer buffer = segment.buffer;
+        int limit = buffer.capacity();
+        int offset = 0;
+        byte[] id = new byte[ID_LENGTH];
+        while (offset + HEADER_LENGTH <= limit) {
+            int length = buffer.getInt(offset);
+            if (length < HEADER_LENGTH || offset + length > limit) {
+                break;
+            }
+            byte type = buffer.get(offset + Integer.BYTES);
+            for (int i = 0; i < ID_LENGTH; i++) {
+                id[i] = buffer.get(offset + Integer.BYTES + 1 + i);
+            }
+            byte[] payload = null;
+            if (type == RECORD_SEARCH || type == RECORD_STATUS) {
+                payload = readBytes(buffer, offset + HEADER_LENGTH, length - HEADER_LENGTH);
+            }
+            if (type == RECORD_STATUS && decodeStatus(payload) == null) {
+                logger.warn("Stopping at an invalid status record at offset {} of segment {}", offset, segment.path);
+                break;
+            }
+            apply(type, new String(id, StandardCharsets.US_ASCII), offset, length, payload);
+            offset += length;
+        }
+        segment.writeOffset.set(offset);
+    }
+
+    /**
+     * Applies a record of the active segment to the index and to the entry of its search in the segment.
+     * URL records are applied under the read lock, so they only change the atomic counters and the entries.
+     * @param payload The payload of the record. Only needed for search and status records.
+     */
+    private void apply(byte type, String searchId, int offset, int length, byte[] payload) {
+        totalBytes.addAndGet(length);
+        Map<String, SegmentEntry> entries = activeSegment.entries;
+        StoredSearch storedSearch = index.get(searchId);
+        switch (type) {
+            case RECORD_SEARCH:
+                if (storedSearch != null) {
+                    liveBytes.addAndGet(-storedSearch.bytes.get());
+                }
+                index.put(searchId, new StoredSearch(new String(payload, StandardCharsets.UTF_8), length));
+                liveBytes.addAndGet(length);
+                SegmentEntry created = new SegmentEntry(RECORD_SEARCH);
+                created.searchOffset = offset;
+                created.searchLength = length;
+                entries.put(searchId, created);
+                break;
+            case RECORD_URL:
+                if (storedSearch != null) {
+                    entries.computeIfAbsent(searchId, key -> new SegmentEntry(NO_RESET)).addUrl(offset, length);
+                    storedSearch.bytes.addAndGet(length);
+                    liveBytes.addAndGet(length);
+                }
+                break;
+            case RECORD_STATUS:
+                if (storedSearch != null) {
+                    Status status = decodeStatus(payload);
+                    setStatus(storedSearch, status, length);
+                    SegmentEntry entry = entries.computeIfAbsent(searchId, key -> new SegmentEntry(NO_RESET));
+                    entry.status = (byte) status.ordinal();
+                    entry.statusLength = length;
+                }
+                break;
+            case RECORD_DELETE:
+                if (storedSearch != null) {
+                    index.remove(searchId);
+                    liveBytes.addAndGet(-storedSearch.bytes.get());
+                    entries.put(searchId, new SegmentEntry(RECORD_DELETE));
+                }
+                break;
+            default:
+                logger.warn("Skipping record of unknown type {} in result store {}", type, directory);
+        }
+    }
+
+    /**
+     * Replaces the status of a stored search, and the length of its status record in the live bytes.
+     */
+    private void setStatus(StoredSearch storedSearch, Status status, int length) {
+        storedSearch.bytes.addAndGet(length - storedSearch.statusLength);
+        liveBytes.addAndGet(length - storedSearch.statusLength);
+        storedSearch.status = status;
+        storedSearch.statusLength = length;
+    }
+
+    /**
+     * Decodes the payload of a status record.
+     * @return The status, or null if the payload is not a valid status.
+     */
+    private static Status decodeStatus(byte[] payload) {
+        Status[] statuses = Status.values();
+        if (payload.length != 1 || payload[0] < 0 || payload[0] >= statuses.length) {
+            return null;
+        }
+        return statuses[payload[0]];
+    }
+
+    /**
+     * Writes the index file of the full active segment, with one entry per search that has records in it,
+     * and points the stored searches with URL records in the segment to their entries.
+     * @throws UncheckedIOException if the index file cannot be written.
+     */
+    private void sealActiveSegment() {
+        Segment segment = activeSegment;
+        List<String> searchIds = new ArrayList<>(segment.entries.keySet());
+        List<int[]> urlOffsets = new ArrayList<>(searchIds.size());
+        int urlTable = INDEX_HEADER_LENGTH + searchIds.size() * ENTRY_LENGTH;
+        int indexLength = urlTable;
+        for (String searchId : searchIds) {
+            int[] offsets = segment.entries.get(searchId).getUrlOffsets();
+            urlOffsets.add(offsets);
+            indexLength += offsets.length * Integer.BYTES;
+        }
+        ByteBuffer indexBuffer = ByteBuffer.allocate(indexLength);
+        indexBuffer.putInt(INDEX_MAGIC).putInt(segment.writeOffset.get()).putInt(searchIds.size());
+        for (int i = 0; i < searchIds.size(); i++) {
+            SegmentEntry entry = segment.entries.get(searchIds.get(i));
+            int[] offsets = urlOffsets.get(i);
+            indexBuffer.put(searchIds.get(i).getBytes(StandardCharsets.US_ASCII))
+                    .put(entry.reset)
+                    .put(entry.status)
+                    .putInt(entry.searchOffset)
+                    .putInt(entry.searchLength)
+                    .putInt(entry.statusLength)
+                    .putInt(offsets.length)
+                    .putInt(urlTable)
+                    .putLong(entry.getUrlBytes());
+            urlTable += offsets.length * Integer.BYTES;
+        }
+        for (int[] offsets : urlOffsets) {
+            for (int offset : offsets) {
+                indexBuffer.putInt(offset);
+            }
+        }
+        indexBuffer.flip();
+        segment.buffer.force();
+        try {
+            Path indexPath = indexPathOf(segment.sequence);
+            Path temporaryPath = indexPath.resolveSibling(indexPath.getFileName() + ".tmp");
+            try (FileChannel channel = FileChannel.open(temporaryPath, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                while (indexBuffer.hasRemaining()) {
+                    channel.write(indexBuffer);
+                }
+                channel.force(true);
+            }
+            Files.move(temporaryPath, indexPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            segment.index = mapIndex(indexPath);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        for (int i = 0; i < searchIds.size(); i++) {
+            StoredSearch storedSearch = index.get(searchIds.get(i));
+            if (storedSearch != null && urlOffsets.get(i).length > 0) {
+                storedSearch.addRun(positionOf(segment.sequence, i));
+            }
+        }
+        segment.entries = null;
+    }
+
+    /**
+     * Applies the index file of a full segment to the index.
+     * @return true if the index file was read, false if it is missing or invalid and the segment must be scanned.
+     */
+    private boolean readIndex(Segment segment) throws IOException {
+        Path indexPath = indexPathOf(segment.sequence);
+        if (!Files.exists(indexPath)) {
+            return false;
+        }
+        MappedByteBuffer indexBuffer = mapIndex(indexPath);
+        if (!isValidIndex(segment, indexBuffer)) {
+            logger.warn("Ignoring invalid index file {}", indexPath);
+            return false;
+        }
+        int entryCount = indexBuffer.getInt(2 * Integer.BYTES);
+        byte[] id = new byte[ID_LENGTH];
+        for (int i = 0; i < entryCount; i++) {
+            int entry = INDEX_HEADER_LENGTH + i * ENTRY_LENGTH;
+            indexBuffer.get(entry, id);
+            String searchId = new String(id, StandardCharsets.US_ASCII);
+            StoredSearch storedSearch = index.get(searchId);
+            byte reset = indexBuffer.get(entry + ENTRY_RESET);
+            if (reset != NO_RESET && storedSearch != null) {
+                index.remove(searchId);
+                liveBytes.addAndGet(-storedSearch.bytes.get());
+                storedSearch = null;
+            }
+            if (reset == RECORD_SEARCH) {
+                int searchLength = indexBuffer.getInt(entry + ENTRY_SEARCH_LENGTH);
+                storedSearch = new StoredSearch(readPayload(segment.buffer, indexBuffer.getInt(entry + ENTRY_SEARCH_OFFSET)),
+                        searchLength);
+                index.put(searchId, storedSearch);
+                liveBytes.addAndGet(searchLength);
+            }
+            if (storedSearch == null) {
+                continue;
+            }
+            byte status = indexBuffer.get(entry + ENTRY_STATUS);
+            if (status != NO_STATUS) {
+                setStatus(storedSearch, Status.values()[status], indexBuffer.getInt(entry + ENTRY_STATUS_LENGTH));
+            }
+            if (indexBuffer.getInt(entry + ENTRY_URL_COUNT) > 0) {
+                long urlBytes = indexBuffer.getLong(entry + ENTRY_URL_BYTES);
+                storedSearch.addRun(positionOf(segment.sequence, i));
+                storedSearch.bytes.addAndGet(urlBytes);
+                liveBytes.addAndGet(urlBytes);
+            }
+        }
+        int end = indexBuffer.getInt(Integer.BYTES);
+        segment.writeOffset.set(end);
+        segment.index = indexBuffer;
+        segment.entries = null;
+        totalBytes.addAndGet(end);
+        return true;
+    }
+
+    /**
+     * Checks that an index file matches its segment and that its entries are within bounds, without reading
+     * the URL offsets.
+     */
+    private static boolean isValidIndex(Segment segment, ByteBuffer indexBuffer) {
+        int capacity = indexBuffer.capacity();
+        if (capacity < INDEX_HEADER_LENGTH || indexBuffer.getInt(0) != INDEX_MAGIC) {
+            return false;
+        }
+        int end = indexBuffer.getInt(Integer.BYTES);
+        int entryCount = indexBuffer.getInt(2 * Integer.BYTES);
+        if (end < 0 || end > segment.buffer.capacity() || entryCount < 0
+                || INDEX_HEADER_LENGTH + (long) entryCount * ENTRY_LENGTH > capacity) {
+            return false;
+        }
+        for (int i = 0; i < entryCount; i++) {
+            int entry = INDEX_HEADER_LENGTH + i * ENTRY_LENGTH;
+            byte reset = indexBuffer.get(entry + ENTRY_RESET);
+            byte status = indexBuffer.get(entry + ENTRY_STATUS);
+            int searchOffset = indexBuffer.getInt(entry + ENTRY_SEARCH_OFFSET);
+            int searchLength = indexBuffer.getInt(entry + ENTRY_SEARCH_LENGTH);
+            int urlCount = indexBuffer.getInt(entry + ENTRY_URL_COUNT);
+            int urlTable = indexBuffer.getInt(entry + ENTRY_URL_TABLE);
+            if (reset != NO_RESET && reset != RECORD_SEARCH && reset != RECORD_DELETE) {
+                return false;
+            }
+            if (status != NO_STATUS && (status < 0 || status >= Status.values().length)) {
+                return false;
+            }
+            if (reset == RECORD_SEARCH && (searchOffset < 0 || searchLength < HEADER_LENGTH
+                    || (long) searchOffset + searchLength > end || segment.buffer.getInt(searchOffset) != searchLength)) {
+                return false;
+            }
+            if (urlCount < 0 || urlTable < 0 || urlTable + (long) urlCount * Integer.BYTES > capacity) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Passes the URLs of a stored search to an action: those of the full segments, read through their
+     * index files, then those of the active segment.
+     */
+    private static void forEachUrl(Map<Long, Segment> segments, Segment activeSegment, String searchId,
+                                   StoredSearch storedSearch, Consumer<String> action) {
+        for (int i = 0; i < storedSearch.runCount; i++) {
+            long run = storedSearch.runs[i];
+            Segment segment = segments.get(run >>> 32);
+            int entry = INDEX_HEADER_LENGTH + (int) run * ENTRY_LENGTH;
+            int urlCount = segment.index.getInt(entry + ENTRY_URL_COUNT);
+            int urlTable = segment.index.getInt(entry + ENTRY_URL_TABLE);
+            for (int j = 0; j < urlCount; j++) {
+                action.accept(readPayload(segment.buffer, segment.index.getInt(urlTable + j * Integer.BYTES)));
+            }
+        }
+        SegmentEntry entry = activeSegment.entries.get(searchId);
+        if (entry != null) {
+            for (int offset : entry.getUrlOffsets()) {
+                action.accept(readPayload(activeSegment.buffer, offset));
+            }
+        }
+    }
+
+    private static String readPayload(ByteBuffer buffer, int offset) {
+        int length = buffer.getInt(offset);
+        return new String(readBytes(buffer, offset + HEADER_LENGTH, length - HEADER_LENGTH), StandardCharsets.UTF_8);
+    }
+
+    private static byte[] readBytes(ByteBuffer buffer, int offset, int length) {
+        byte[] bytes = new byte[length];
+        ByteBuffer view = buffer.duplicate();
+        view.position(offset);
+        view.get(bytes);
+        return bytes;
+    }
+
+    /**
+     * Encodes the position of an index entry: the sequence number of its segment and its number in the index file.
+     */
+    private static long positionOf(long sequence, int entry) {
+        return (sequence << 32) | entry;
+    }
+
+    /**
+     * Writes the index file of the active segment and starts a new active segment.
+     * @throws UncheckedIOException if a file cannot be written.
+     */
+    private void rollSegment() {
+        sealActiveSegment();
+        startSegment();
+    }
+
+    /**
+     * Starts a new active segment after the newest one.
+     * @throws UncheckedIOException if the segment file cannot be created.
+     */
+    private void startSegment() {
+        long sequence = lastSequence + 1;
+        try {
+            Files.deleteIfExists(indexPathOf(sequence));
+            activeSegment = mapSegment(sequence, true);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        lastSequence = sequence;
+        segments.put(sequence, activeSegment);
+    }
+
+    /**
+     * Maps a segment file, creating it with the segment size if requested.
+     */
+    private Segment mapSegment(long sequence, boolean create) throws IOException {
+        Path path = directory.resolve(SEGMENT_PREFIX + String.format("%012d", sequence) + SEGMENT_SUFFIX);
+        try (RandomAccessFile file = new RandomAccessFile(path.toFile(), "rw")) {
+            if (create) {
+                file.setLength(segmentBytes);
+            }
+            FileChannel channel = file.getChannel();
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+            return new Segment(sequence, path, buffer);
+        }
+    }
+
+    /**
+     * Maps an index file for reading.
+     */
+    private static MappedByteBuffer mapIndex(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    private Path indexPathOf(long sequence) {
+        return directory.resolve(SEGMENT_PREFIX + String.format("%012d", sequence) + INDEX_SUFFIX);
+    }
+
+    /**
+     * Lists the sequence numbers of the segment files, in increasing order.
+     */
+    private long[] listSegmentSequences() throws IOException {
+        List<Long> sequences = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                try {
+                    sequences.add(Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length())));
+                } catch (NumberFormatException e) {
+                    logger.warn("Ignoring file {} in result store {}", name, directory);
+                }
+            }
+        }
+        long[] sorted = sequences.stream().mapToLong(Long::longValue).toArray();
+        Arrays.sort(sorted);
+        return sorted;
+    }
+
+    /**
+     * A mapped segment file.
+     */
+    private static class Segment {
+
+        private final long sequence;
+        private final Path path;
+        private final MappedByteBuffer buffer;
+
+        /**
+         * Offset after the last reserved record.
+         */
+        private final AtomicInteger writeOffset = new AtomicInteger();
+
+        /**
+         * The entries of the searches with records in the segment while it is active, then null.
+         */
+        private Map<String, SegmentEntry> entries = new ConcurrentHashMap<>();
+
+        /**
+         * The mapped index file once the segment is full, or null.
+         */
+        private MappedByteBuffer index;
+
+        Segment(long sequence, Path path, MappedByteBuffer buffer) {
+            this.sequence = sequence;
+            this.path = path;
+            this.buffer = buffer;
+        }
+
+        /**
+         * Reserves the space of a record after the last one.
+         * @return The offset of the record, or -1 if it does not fit in the segment.
+         */
+        int reserve(int length) {
+            while (true) {
+                int offset = writeOffset.get();
+                if (offset + length > buffer.capacity()) {
+                    return -1;
+                }
+                if (writeOffset.compareAndSet(offset, offset + length)) {
+                    return offset;
+                }
+            }
+        }
+
+        /**
+         * Writes a record in reserved space, its length last.
+         */
+        void write(int offset, byte type, byte[] id, byte[] payload) {
+            ByteBuffer record = buffer.duplicate();
+            record.position(offset + Integer.BYTES);
+            record.put(type).put(id).put(payload);
+            buffer.putInt(offset, HEADER_LENGTH + payload.length);
+        }
+
+        /**
+         * Writes the segment to the disk. The mapping itself is released when the buffer is garbage collected.
+         */
+        void close() {
+            buffer.force();
+        }
+    }
+
+    /**
+     * The effect of the records of a segment on a search: whether its last search or delete record is in the segment,
+     * its last status record, and the URL records after its last search record.
+     */
+    private static class SegmentEntry {
+
+        private final byte reset;
+        private int searchOffset = -1;
+        private int searchLength;
+        private byte status = NO_STATUS;
+        private int statusLength;
+        private int[] urlOffsets = new int[4];
+        private int urlCount;
+        private long urlBytes;
+
+        SegmentEntry(byte reset) {
+            this.reset = reset;
+        }
+
+        synchronized void addUrl(int offset, int length) {
+            if (urlCount == urlOffsets.length) {
+                urlOffsets = Arrays.copyOf(urlOffsets, urlCount * 2);
+            }
+            urlOffsets[urlCount++] = offset;
+            urlBytes += length;
+        }
+
+        synchronized int[] getUrlOffsets() {
+            return Arrays.copyOf(urlOffsets, urlCount);
+        }
+
+        synchronized long getUrlBytes() {
+            return urlBytes;
+        }
+    }
+
+    /**
+     * The index entry of a stored search: its keyword, status and the index entries of the full segments
+     * with its URL records.
+     */
+    private static class StoredSearch {
+
+        private final String keyword;
+        private Status status = Status.active;
+
+        /**
+         * Length of the last status record, or 0 if there is none.
+         */
+        private int statusLength;
+
+        private long[] runs = new long[2];
+        private int runCount;
+
+        /**
+         * Bytes of the live records of the search.
+         */
+        private final AtomicLong bytes;
+
+        StoredSearch(String keyword, int searchLength) {
+            this.keyword = keyword;
+            this.bytes = new AtomicLong(searchLength);
+        }
+
+        void addRun(long position) {
+            if (runCount == runs.length) {
+                runs = Arrays.copyOf(runs, runCount * 2);
+            }
+            runs[runCount++] = position;
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package com.guerrero.backend.util;
+
+import java.util.AbstractList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A thread-safe, append-only list that many threads can append to without locking
+ * while other threads take consistent snapshots of it.
+ * The elements are stored in segments that double in size, so appending never copies elements
+ * and a slot is never written twice. A writer reserves a slot with an atomic increment and then publishes its
+ * element in it. A snapshot covers the published prefix of the log: the elements up to the first slot
+ * still being written. Since published slots never change, a snapshot is an immutable view that costs
+ * nothing to create, and it never sees an element appended after it was taken.
+ * @param <E> The type of the elements.
+ */
+public class AppendOnlyLog<E> {
+
+    /**
+     * Number of slots of the first segment. Must be a power of two.
+     */
+    private static final int FIRST_SEGMENT_LENGTH = 16;
+    private static final int FIRST_SEGMENT_SHIFT = Integer.numberOfTrailingZeros(FIRST_SEGMENT_LENGTH);
+
+    /**
+     * Number of segments, enough for Integer.MAX_VALUE elements.
+     */
+    private static final int SEGMENT_COUNT = 32 - FIRST_SEGMENT_SHIFT;
+
+    /**
+     * The segments, allocated as they are first needed. Segment k has FIRST_SEGMENT_LENGTH * 2^k slots.
+     */
+    private final AtomicReferenceArray<AtomicReferenceArray<E>> segments = new AtomicReferenceArray<>(SEGMENT_COUNT);
+
+    /**
+     * Number of slots reserved by writers.
+     */
+    private final AtomicInteger reserved = new AtomicInteger();
+
+    /**
+     * A lower bound of the published prefix length, so snapshots only check the slots published since the last one.
+     */
+    private final AtomicInteger publishedHint = new AtomicInteger();
+
+    /**
+     * Appends an element.
+     * @param element The element to be appended.
+     * @return The position of the element in the log.
+     * @throws IllegalArgumentException if the element is null.
+     * @throws IllegalStateException if the log is full.
+     */
+    public int append(E element) {
+        if (element == null) {
+            throw new IllegalArgumentException("The log does not accept null elements.");
+        }
+        int index = reserved.getAndIncrement();
+        if (index < 0) {
+            throw new IllegalStateException("The log is full.");
+        }
+        segmentFor(index).set(offsetOf(index), element);
+        return index;
+    }
+
+    /**
+     * Gets the number of elements published so far. Writers may still be publishing elements after them.
+     * @return The length of the published prefix.
+     */
+    public int size() {
+        int size = publishedHint.get();
+        int limit = reserved.get();
+        while (size < limit && elementAt(size) != null) {
+            size++;
+        }
+        publishedHint.accumulateAndGet(size, Math::max);
+        return size;
+    }
+
+    /**
+     * Takes a snapshot of the published elements, in append order.
+     * @return An immutable list of the elements.
+     */
+    public List<E> snapshot() {
+        return snapshot(0);
+    }
+
+    /**
+     * Takes a snapshot of the published elements from a position onwards, in append order.
+     * @param from The position of the first element.
+     * @return An immutable list of the elements from that position, empty if there are none yet.
+     * @throws IllegalArgumentException if the position is negative.
+     */
+    public List<E> snapshot(int from) {
+        if (from < 0) {
+            throw new IllegalArgumentException("The position must not be negative.");
+        }
+        int size = size();
+        return new Snapshot(Math.min(from, size), size);
+    }
+
+    /**
+     * Reads the element in a slot.
+     * @return The element, or null if it is not published yet.
+     */
+    private E elementAt(int index) {
+        AtomicReferenceArray<E> segment = segments.get(segmentIndexOf(index));
+        return segment == null ? null : segment.get(offsetOf(index));
+    }
+
+    /**
+     * Gets the segment holding a slot, allocating it if needed.
+     */
+    private AtomicReferenceArray<E> segmentFor(int index) {
+        int segmentIndex = segmentIndexOf(index);
+        AtomicReferenceArray<E> segment = segments.get(segmentIndex);
+        if (segment == null) {
+            segments.compareAndSet(segmentIndex, null, new AtomicReferenceArray<>(FIRST_SEGMENT_LENGTH << segmentIndex));
+            segment = segments.get(segmentIndex);
+        }
+        return segment;
+    }
+
+    /**
+     * Maps a position to its segment: the slots before segment k add up to FIRST_SEGMENT_LENGTH * (2^k - 1).
+     */
+    private static int segmentIndexOf(int index) {
+        long position = (long) index + FIRST_SEGMENT_LENGTH;
+        return 63 - Long.numberOfLeadingZeros(position) - FIRST_SEGMENT_SHIFT;
+    }
+
+    private static int offsetOf(int index) {
+        long position = (long) index + FIRST_SEGMENT_LENGTH;
+        return (int) (position - Long.highestOneBit(position));
+    }
+
+    /**
+     * An immutable view of a range of published elements.
+     */
+    private class Snapshot extends AbstractList<E> {
+
+        private final int from;
+        private final int to;
+
+        Snapshot(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        public E get(int index) {
+            if (index < 0 || index >= to - from) {
+                throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + (to - from));
+            }
+            return elementAt(from + index);
+        }
+
+        @Override
+        public int size() {
+            return to - from;
+        }
+    }
+}
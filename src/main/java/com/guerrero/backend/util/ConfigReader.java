@@ -0,0 +1,97 @@
+package com.guerrero.backend.util;
+
+/**
+ * Utility class for reading configuration values.
+ * A value is looked up first as a JVM system property and then as an environment variable,
+ * so the same setting can be given with -DNAME=value or with an exported NAME.
+ */
+public class ConfigReader {
+
+    /**
+     * Gets a string setting.
+     * @param name         The name of the setting.
+     * @param defaultValue The value returned when the setting is absent or blank.
+     * @return The configured value, or the default value.
+     */
+    public static String getString(String name, String defaultValue) {
+        String value = System.getProperty(name);
+        if (value == null || value.isBlank()) {
+            value = System.getenv(name);
+        }
+        if (value == null || value.isBlank()) {
+            return defaultValue;
+        }
+        return value.trim();
+    }
+
+    /**
+     * Gets an integer setting.
+     * @param name         The name of the setting.
+     * @param defaultValue The value returned when the setting is absent.
+     * @return The configured value, or the default value.
+     * @throws IllegalArgumentException if the configured value is not an integer.
+     */
+    public static int getInt(String name, int defaultValue) {
+        String value = getString(name, null);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Setting " + name + " must be an integer: " + value);
+        }
+    }
+
+    /**
+     * Gets a long setting.
+     * @param name         The name of the setting.
+     * @param defaultValue The value returned when the setting is absent.
+     * @return The configured value, or the default value.
+     * @throws IllegalArgumentException if the configured value is not a long.
+     */
+    public static long getLong(String name, long defaultValue) {
+        String value = getString(name, null);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Setting " + name + " must be a number: " + value);
+        }
+    }
+
+    /**
+     * Gets a decimal setting.
+     * @param name         The name of the setting.
+     * @param defaultValue The value returned when the setting is absent.
+     * @return The configured value, or the default value.
+     * @throws IllegalArgumentException if the configured value is not a number.
+     */
+    public static double getDouble(String name, double defaultValue) {
+        String value = getString(name, null);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Setting " + name + " must be a number: " + value);
+        }
+    }
+
+    /**
+     * Gets a boolean setting. Only "true" (ignoring case) is read as true.
+     * @param name         The name of the setting.
+     * @param defaultValue The value returned when the setting is absent.
+     * @return The configured value, or the default value.
+     */
+    public static boolean getBoolean(String name, boolean defaultValue) {
+        String value = getString(name, null);
+        if (value == null) {
+            return defaultValue;
+        }
+        return Boolean.parseBoolean(value);
+    }
+}
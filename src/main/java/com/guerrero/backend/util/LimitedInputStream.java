@@ -0,0 +1,103 @@
+package com.guerrero.backend.util;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * An input stream that ends after a maximum number of bytes, even if the underlying stream has more.
+ */
+public class LimitedInputStream extends FilterInputStream {
+
+    /**
+     * Maximum number of bytes to be read.
+     */
+    private final long maxBytes;
+
+    /**
+     * Number of bytes that can still be read.
+     */
+    private long remaining;
+
+    /**
+     * Whether the underlying stream had more bytes than the limit.
+     */
+    private boolean truncated;
+
+    /**
+     * Constructs a LimitedInputStream.
+     * @param input    The underlying stream.
+     * @param maxBytes The maximum number of bytes to be read.
+     */
+    public LimitedInputStream(InputStream input, long maxBytes) {
+        super(input);
+        this.maxBytes = maxBytes;
+        this.remaining = maxBytes;
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (remaining <= 0) {
+            checkTruncated();
+            return -1;
+        }
+        int value = super.read();
+        if (value >= 0) {
+            remaining--;
+        }
+        return value;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+        if (remaining <= 0) {
+            checkTruncated();
+            return -1;
+        }
+        int count = super.read(buffer, offset, (int) Math.min(length, remaining));
+        if (count > 0) {
+            remaining -= count;
+        }
+        return count;
+    }
+
+    @Override
+    public long skip(long count) throws IOException {
+        long skipped = super.skip(Math.min(count, remaining));
+        remaining -= skipped;
+        return skipped;
+    }
+
+    @Override
+    public int available() throws IOException {
+        return (int) Math.min(super.available(), remaining);
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    /**
+     * Checks if the underlying stream had more bytes than the limit.
+     * Only known once the limit has been reached and another read was attempted.
+     * @return true if the stream was cut at the limit, false otherwise.
+     */
+    public boolean isTruncated() {
+        return truncated;
+    }
+
+    /**
+     * Gets the number of bytes read or skipped so far, up to the limit.
+     * @return The number of bytes.
+     */
+    public long getBytesRead() {
+        return maxBytes - remaining;
+    }
+
+    private void checkTruncated() throws IOException {
+        if (!truncated && super.read() >= 0) {
+            truncated = true;
+        }
+    }
+}
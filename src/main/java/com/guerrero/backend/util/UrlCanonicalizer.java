@@ -0,0 +1,496 @@
+package com.guerrero.backend.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Rewrites URLs into a canonical form, so the variants of a URL are crawled once.
+ * Applies the syntax-based and scheme-based normalizations of RFC 3986, section 6.2:
+ * lower-case scheme and host, no default port, "/" for an empty path, no dot segments,
+ * upper-case hex digits in percent-encodings and unreserved characters decoded.
+ * The fragment is dropped, query parameters matching the stripped names are removed,
+ * and the remaining parameters can be sorted by name.
+ * A URL is rewritten in buffers reused by each thread, and a URL that is already canonical is returned as is.
+ * Relative references are resolved as in RFC 3986, section 5.2, against a base parsed once per page.
+ */
+public class UrlCanonicalizer {
+
+    /**
+     * Query parameters stripped by default: campaign tracking parameters, which do not change the page.
+     */
+    public static final List<String> DEFAULT_STRIPPED_PARAMETERS = List.of("utm_*", "gclid", "fbclid");
+
+    /**
+     * Default ports of the schemes that have one.
+     */
+    private static final int HTTP_PORT = 80;
+    private static final int HTTPS_PORT = 443;
+
+    /**
+     * The buffers of each thread.
+     */
+    private static final ThreadLocal<Buffers> BUFFERS = ThreadLocal.withInitial(Buffers::new);
+
+    /**
+     * Names of the stripped query parameters, and prefixes of the ones given as "prefix*".
+     */
+    private final List<String> strippedNames = new ArrayList<>();
+    private final List<String> strippedPrefixes = new ArrayList<>();
+
+    /**
+     * Whether the query parameters are sorted by name.
+     */
+    private final boolean sortQueryParameters;
+
+    /**
+     * Constructs a UrlCanonicalizer.
+     * @param strippedParameters  The names of the query parameters to remove. A name ending with "*"
+     *                            removes every parameter starting with the rest of it. Blank names are ignored.
+     * @param sortQueryParameters true to sort the query parameters by name. Parameters with the same name
+     *                            keep their order.
+     */
+    public UrlCanonicalizer(Collection<String> strippedParameters, boolean sortQueryParameters) {
+        for (String parameter : strippedParameters) {
+            String name = parameter.trim();
+            if (name.endsWith("*")) {
+                strippedPrefixes.add(name.substring(0, name.length() - 1));
+            } else if (!name.isEmpty()) {
+                strippedNames.add(name);
+            }
+        }
+        this.sortQueryParameters = sortQueryParameters;
+    }
+
+    /**
+     * Creates a canonicalizer that strips the default parameters and sorts the query parameters.
+     * @return The UrlCanonicalizer.
+     */
+    public static UrlCanonicalizer withDefaults() {
+        return new UrlCanonicalizer(DEFAULT_STRIPPED_PARAMETERS, true);
+    }
+
+    /**
+     * Resolves a reference found on a page against a URL, and canonicalizes the result.
+     * @param baseUrl   The absolute URL the reference is relative to.
+     * @param reference The reference, absolute or relative.
+     * @return The canonical absolute URL, or null if the base URL has no scheme or the reference
+     *         is an absolute URL of a scheme other than HTTP, HTTPS and the scheme of the base URL.
+     */
+    public String resolve(String baseUrl, String reference) {
+        Base base = parseBase(baseUrl);
+        return base == null ? null : resolve(base, reference);
+    }
+
+    /**
+     * Parses the URL the references of a page are relative to, so they can be resolved without parsing it again.
+     * @param baseUrl The absolute URL.
+     * @return The parsed base, or null if the URL has no scheme.
+     */
+    public Base parseBase(String baseUrl) {
+        String url = canonicalize(baseUrl.trim());
+        return schemeEnd(url) < 0 ? null : new Base(url);
+    }
+
+    /**
+     * Resolves a reference found on a page against a parsed base, and canonicalizes the result.
+     * The target URL is merged from the components of the base and the reference in the buffers of the thread.
+     * @param base      The parsed base.
+     * @param reference The reference, absolute or relative.
+     * @return The canonical absolute URL, or null if the reference is an absolute URL of a scheme
+     *         other than HTTP, HTTPS and the scheme of the base.
+     */
+    public String resolve(Base base, String reference) {
+        String trimmed = reference.trim();
+        int schemeEnd = schemeEnd(trimmed);
+        if (schemeEnd >= 0) {
+            boolean followed = (schemeEnd == 4 && trimmed.regionMatches(true, 0, "http", 0, 4))
+                    || (schemeEnd == 5 && trimmed.regionMatches(true, 0, "https", 0, 5))
+                    || (schemeEnd == base.schemeEnd && trimmed.regionMatches(true, 0, base.url, 0, schemeEnd));
+            return followed ? canonicalize(trimmed) : null;
+        }
+        StringBuilder target = BUFFERS.get().target;
+        target.setLength(0);
+        String url = base.url;
+        if (trimmed.startsWith("//")) {
+            target.append(url, 0, base.schemeEnd + 1);
+        } else if (trimmed.startsWith("/")) {
+            target.append(url, 0, base.pathStart);
+        } else if (trimmed.isEmpty() || trimmed.charAt(0) == '#') {
+            target.append(url);
+        } else if (trimmed.charAt(0) == '?') {
+            target.append(url, 0, base.queryStart);
+        } else if (base.hasAuthority && base.pathStart == base.queryStart) {
+            target.append(url, 0, base.pathStart).append('/');
+        } else {
+            target.append(url, 0, base.directoryEnd);
+        }
+        return canonicalize(target.append(trimmed).toString());
+    }
+
+    /**
+     * Canonicalizes an absolute URL.
+     * @param url The URL.
+     * @return The canonical URL, which is the URL itself if it is already canonical or has no scheme.
+     */
+    public String canonicalize(String url) {
+        if (url == null) {
+            return null;
+        }
+        int schemeEnd = schemeEnd(url);
+        if (schemeEnd < 0) {
+            return url;
+        }
+        Buffers buffers = BUFFERS.get();
+        StringBuilder output = buffers.output;
+        output.setLength(0);
+        for (int i = 0; i < schemeEnd; i++) {
+            output.append(toLowerCase(url.charAt(i)));
+        }
+        output.append(':');
+        int defaultPort = url.regionMatches(true, 0, "https:", 0, 6) ? HTTPS_PORT
+                : url.regionMatches(true, 0, "http:", 0, 5) ? HTTP_PORT : -1;
+
+        int end = url.indexOf('#');
+        if (end < 0) {
+            end = url.length();
+        }
+        int position = schemeEnd + 1;
+        boolean hasAuthority = url.startsWith("//", position);
+        if (hasAuthority) {
+            position = appendAuthority(url, position + 2, end, defaultPort, output);
+        }
+        int queryStart = url.indexOf('?', position);
+        if (queryStart < 0 || queryStart > end) {
+            queryStart = end;
+        }
+        StringBuilder path = buffers.component;
+        path.setLength(0);
+        appendPercentNormalized(url, position, queryStart, path);
+        if (path.length() > 0 && path.charAt(0) == '/') {
+            appendWithoutDotSegments(path, output);
+        } else if (hasAuthority) {
+            output.append('/').append(path);
+        } else {
+            output.append(path);
+        }
+        if (queryStart < end) {
+            appendQuery(url, queryStart + 1, end, buffers, output);
+        }
+        return url.contentEquals(output) ? url : output.toString();
+    }
+
+    /**
+     * Appends the canonical authority of a URL: the user info as is, then the host in lower case
+     * and the port unless it is the default one of the scheme.
+     * @return The position where the authority ends.
+     */
+    private static int appendAuthority(String url, int start, int end, int defaultPort, StringBuilder output) {
+        int authorityEnd = start;
+        while (authorityEnd < end && url.charAt(authorityEnd) != '/' && url.charAt(authorityEnd) != '?') {
+            authorityEnd++;
+        }
+        output.append("//");
+        int hostStart = url.lastIndexOf('@', authorityEnd - 1) + 1;
+        if (hostStart > start) {
+            output.append(url, start, hostStart);
+        } else {
+            hostStart = start;
+        }
+        int portStart = url.lastIndexOf(':', authorityEnd - 1);
+        if (portStart < hostStart || url.lastIndexOf(']', authorityEnd - 1) > portStart) {
+            portStart = authorityEnd;
+        }
+        for (int i = hostStart; i < portStart; i++) {
+            output.append(toLowerCase(url.charAt(i)));
+        }
+        if (portStart + 1 < authorityEnd && !isPort(url, portStart + 1, authorityEnd, defaultPort)) {
+            output.append(url, portStart, authorityEnd);
+        }
+        return authorityEnd;
+    }
+
+    private static boolean isPort(String url, int start, int end, int expectedPort) {
+        int port = 0;
+        for (int i = start; i < end; i++) {
+            char c = url.charAt(i);
+            if (c < '0' || c > '9' || port > 0xffff) {
+                return false;
+            }
+            port = port * 10 + (c - '0');
+        }
+        return port == expectedPort;
+    }
+
+    /**
+     * Appends an absolute path without its "." and ".." segments, as in RFC 3986, section 5.2.4.
+     */
+    private static void appendWithoutDotSegments(CharSequence path, StringBuilder output) {
+        int base = output.length();
+        int length = path.length();
+        int start = 1;
+        while (true) {
+            int end = start;
+            while (end < length && path.charAt(end) != '/') {
+                end++;
+            }
+            boolean last = end == length;
+            int segmentLength = end - start;
+            if (segmentLength == 1 && path.charAt(start) == '.') {
+                if (last) {
+                    output.append('/');
+                }
+            } else if (segmentLength == 2 && path.charAt(start) == '.' && path.charAt(start + 1) == '.') {
+                int slash = output.lastIndexOf("/");
+                if (slash >= base) {
+                    output.setLength(slash);
+                }
+                if (last) {
+                    output.append('/');
+                }
+            } else {
+                output.append('/').append(path, start, end);
+            }
+            if (last) {
+                break;
+            }
+            start = end + 1;
+        }
+        if (output.length() == base) {
+            output.append('/');
+        }
+    }
+
+    /**
+     * Appends the query without the stripped parameters, sorted by name if required.
+     * Nothing is appended when no parameter is left.
+     */
+    private void appendQuery(String url, int start, int end, Buffers buffers, StringBuilder output) {
+        StringBuilder query = buffers.component;
+        query.setLength(0);
+        appendPercentNormalized(url, start, end, query);
+        int count = 0;
+        int parameterStart = 0;
+        int length = query.length();
+        while (parameterStart <= length) {
+            int parameterEnd = query.indexOf("&", parameterStart);
+            if (parameterEnd < 0) {
+                parameterEnd = length;
+            }
+            if (parameterEnd > parameterStart && !isStripped(query, parameterStart, parameterEnd)) {
+                buffers.ensureBounds(count + 1);
+                buffers.starts[count] = parameterStart;
+                buffers.ends[count] = parameterEnd;
+                count++;
+            }
+            parameterStart = parameterEnd + 1;
+        }
+        if (count == 0) {
+            return;
+        }
+        if (sortQueryParameters) {
+            sortByName(query, buffers.starts, buffers.ends, count);
+        }
+        output.append('?');
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                output.append('&');
+            }
+            output.append(query, buffers.starts[i], buffers.ends[i]);
+        }
+    }
+
+    private boolean isStripped(CharSequence query, int start, int end) {
+        int nameEnd = start;
+        while (nameEnd < end && query.charAt(nameEnd) != '=') {
+            nameEnd++;
+        }
+        for (String name : strippedNames) {
+            if (name.length() == nameEnd - start && regionMatches(query, start, name)) {
+                return true;
+            }
+        }
+        for (String prefix : strippedPrefixes) {
+            if (prefix.length() <= nameEnd - start && regionMatches(query, start, prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Sorts the parameters by name with an insertion sort, which is stable and fast for the few parameters of a URL.
+     */
+    private static void sortByName(CharSequence query, int[] starts, int[] ends, int count) {
+        for (int i = 1; i < count; i++) {
+            int start = starts[i];
+            int end = ends[i];
+            int j = i - 1;
+            while (j >= 0 && compareNames(query, starts[j], ends[j], start, end) > 0) {
+                starts[j + 1] = starts[j];
+                ends[j + 1] = ends[j];
+                j--;
+            }
+            starts[j + 1] = start;
+            ends[j + 1] = end;
+        }
+    }
+
+    private static int compareNames(CharSequence query, int start1, int end1, int start2, int end2) {
+        while (true) {
+            boolean nameEnded1 = start1 == end1 || query.charAt(start1) == '=';
+            boolean nameEnded2 = start2 == end2 || query.charAt(start2) == '=';
+            if (nameEnded1 || nameEnded2) {
+                return Boolean.compare(!nameEnded1, !nameEnded2);
+            }
+            int difference = query.charAt(start1++) - query.charAt(start2++);
+            if (difference != 0) {
+                return difference;
+            }
+        }
+    }
+
+    /**
+     * Appends a component with the hex digits of its percent-encodings in upper case,
+     * and the percent-encoded unreserved characters decoded.
+     */
+    private static void appendPercentNormalized(String url, int start, int end, StringBuilder output) {
+        for (int i = start; i < end; i++) {
+            char c = url.charAt(i);
+            if (c == '%' && i + 2 < end) {
+                int high = Character.digit(url.charAt(i + 1), 16);
+                int low = Character.digit(url.charAt(i + 2), 16);
+                if (high >= 0 && low >= 0) {
+                    char decoded = (char) (high << 4 | low);
+                    if (isUnreserved(decoded)) {
+                        output.append(decoded);
+                    } else {
+                        output.append('%').append(Character.toUpperCase(url.charAt(i + 1)))
+                                .append(Character.toUpperCase(url.charAt(i + 2)));
+                    }
+                    i += 2;
+                    continue;
+                }
+            }
+            output.append(c);
+        }
+    }
+
+    private static boolean isUnreserved(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9')
+                || c == '-' || c == '.' || c == '_' || c == '~';
+    }
+
+    /**
+     * Gets the position of the colon ending the scheme of a URL.
+     * @return The position, or -1 if the URL has no scheme.
+     */
+    private static int schemeEnd(String url) {
+        for (int i = 0; i < url.length(); i++) {
+            char c = url.charAt(i);
+            if (c == ':') {
+                return i > 0 ? i : -1;
+            }
+            boolean letter = (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+            if (!letter && (i == 0 || !((c >= '0' && c <= '9') || c == '+' || c == '-' || c == '.'))) {
+                return -1;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean regionMatches(CharSequence text, int start, String prefix) {
+        for (int i = 0; i < prefix.length(); i++) {
+            if (text.charAt(start + i) != prefix.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static char toLowerCase(char c) {
+        return c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
+    }
+
+    /**
+     * The buffers a thread canonicalizes URLs in.
+     */
+    private static class Buffers {
+
+        /**
+         * The canonical URL being built.
+         */
+        private final StringBuilder output = new StringBuilder(256);
+
+        /**
+         * The path or the query being normalized.
+         */
+        private final StringBuilder component = new StringBuilder(256);
+
+        /**
+         * The target URL of a relative reference being merged.
+         */
+        private final StringBuilder target = new StringBuilder(256);
+
+        /**
+         * The bounds of the kept query parameters in the component.
+         */
+        private int[] starts = new int[16];
+        private int[] ends = new int[16];
+
+        void ensureBounds(int count) {
+            if (count > starts.length) {
+                starts = Arrays.copyOf(starts, starts.length * 2);
+                ends = Arrays.copyOf(ends, ends.length * 2);
+            }
+        }
+    }
+
+    /**
+     * A canonical absolute URL that references are resolved against, with the bounds of its components.
+     */
+    public static class Base {
+
+        private final String url;
+
+        /**
+         * The position of the colon ending the scheme, and whether an authority follows it.
+         */
+        private final int schemeEnd;
+        private final boolean hasAuthority;
+
+        /**
+         * The positions where the path and the query start, the query starting at the end when there is none,
+         * and the position after the last slash of the path.
+         */
+        private final int pathStart;
+        private final int queryStart;
+        private final int directoryEnd;
+
+        Base(String url) {
+            this.url = url;
+            schemeEnd = schemeEnd(url);
+            hasAuthority = url.startsWith("//", schemeEnd + 1);
+            int position = schemeEnd + 1;
+            if (hasAuthority) {
+                position += 2;
+                while (position < url.length() && url.charAt(position) != '/' && url.charAt(position) != '?') {
+                    position++;
+                }
+            }
+            pathStart = position;
+            int query = url.indexOf('?', pathStart);
+            queryStart = query < 0 ? url.length() : query;
+            directoryEnd = Math.max(pathStart, url.lastIndexOf('/', queryStart - 1) + 1);
+        }
+
+        /**
+         * Gets the URL.
+         * @return The canonical URL.
+         */
+        public String getUrl() {
+            return url;
+        }
+    }
+}
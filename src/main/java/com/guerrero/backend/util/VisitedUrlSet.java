@@ -0,0 +1,370 @@
+package com.guerrero.backend.util;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * A thread-safe set of visited URLs that stores a 64-bit fingerprint of each URL instead of the URL itself.
+ * By default the fingerprints are kept in an open-addressing hash table held in a primitive array,
+ * which uses less than 16 bytes per URL and checks a URL in constant time. Two different URLs are treated
+ * as the same one only if their fingerprints collide, which is unlikely below billions of URLs.
+ * For very large crawls the set can instead be backed by a Bloom filter of fixed size, which may report a new URL
+ * as already visited. Its size follows from the false positive rate given to {@link #approximate(long, double)}:
+ * about 1.44 * log2(1 / rate) bits per URL, so 9.6 bits at 1% and 14.4 bits at the 0.1% used by the crawler.
+ */
+public class VisitedUrlSet {
+
+    /**
+     * Number of slots of a new table.
+     */
+    private static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * Maximum fraction of used slots before the table grows.
+     */
+    private static final double MAX_LOAD_FACTOR = 0.8;
+
+    /**
+     * How much the table grows. Growing by less than 2 keeps the table at most 8 / (0.8 / 1.5) = 15 bytes per URL,
+     * which is reached right after growing.
+     */
+    private static final double GROWTH_FACTOR = 1.5;
+
+    /**
+     * Value of an empty slot. A fingerprint equal to it is replaced with EMPTY_REPLACEMENT.
+     */
+    private static final long EMPTY = 0;
+    private static final long EMPTY_REPLACEMENT = 1;
+
+    /**
+     * The fingerprints, or null when the set is backed by a Bloom filter.
+     */
+    private long[] table;
+
+    /**
+     * The Bloom filter bits, or null when the set is exact.
+     */
+    private final long[] bloomBits;
+
+    /**
+     * Number of bits of the Bloom filter and number of bits set per URL.
+     */
+    private final long bloomBitCount;
+    private final int bloomHashCount;
+
+    /**
+     * Number of URLs added.
+     */
+    private int size;
+
+    /**
+     * Constructs an empty exact VisitedUrlSet.
+     */
+    public VisitedUrlSet() {
+        this.table = new long[INITIAL_CAPACITY];
+        this.bloomBits = null;
+        this.bloomBitCount = 0;
+        this.bloomHashCount = 0;
+    }
+
+    private VisitedUrlSet(long bitCount, int hashCount) {
+        this.table = null;
+        this.bloomBits = new long[(int) ((bitCount + 63) / 64)];
+        this.bloomBitCount = bitCount;
+        this.bloomHashCount = hashCount;
+    }
+
+    /**
+     * Creates a VisitedUrlSet backed by a Bloom filter of fixed size.
+     * @param expectedUrls      The number of URLs the filter is sized for.
+     * @param falsePositiveRate The probability that a new URL is reported as visited, once the filter holds the expected number of URLs.
+     * @return The approximate VisitedUrlSet.
+     * @throws IllegalArgumentException if the number of URLs is not positive or the rate is not between 0 and 1.
+     */
+    public static VisitedUrlSet approximate(long expectedUrls, double falsePositiveRate) {
+        if (expectedUrls <= 0 || falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("The expected URLs must be positive and the false positive rate between 0 and 1.");
+        }
+        double ln2 = Math.log(2);
+        long bitCount = Math.max(64, (long) Math.ceil(-expectedUrls * Math.log(falsePositiveRate) / (ln2 * ln2)));
+        if (bitCount > 64L * Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("The Bloom filter for " + expectedUrls + " URLs is too large.");
+        }
+        int hashCount = Math.max(1, (int) Math.round((double) bitCount / expectedUrls * ln2));
+        return new VisitedUrlSet(bitCount, hashCount);
+    }
+
+    /**
+     * Adds a URL to the set.
+     * @param url The URL to be added.
+     * @return true if the URL was not in the set, false otherwise.
+     */
+    public boolean add(String url) {
+        return addFingerprint(fingerprint(url));
+    }
+
+    /**
+     * Checks if a URL is in the set.
+     * @param url The URL to be checked.
+     * @return true if the URL was added before, false otherwise.
+     */
+    public boolean contains(String url) {
+        return containsFingerprint(fingerprint(url));
+    }
+
+    /**
+     * Adds a URL fingerprint to the set.
+     * @param fingerprint The fingerprint, as computed by {@link #fingerprint(String)}.
+     * @return true if the fingerprint was not in the set, false otherwise.
+     */
+    public synchronized boolean addFingerprint(long fingerprint) {
+        if (bloomBits != null) {
+            return addToBloomFilter(fingerprint);
+        }
+        if (fingerprint == EMPTY) {
+            fingerprint = EMPTY_REPLACEMENT;
+        }
+        if (size + 1 > table.length * MAX_LOAD_FACTOR) {
+            resize((int) Math.min(Integer.MAX_VALUE - 8, (long) (table.length * GROWTH_FACTOR) + 1));
+        }
+        if (!insert(table, fingerprint)) {
+            return false;
+        }
+        size++;
+        return true;
+    }
+
+    /**
+     * Checks if a URL fingerprint is in the set.
+     * @param fingerprint The fingerprint, as computed by {@link #fingerprint(String)}.
+     * @return true if the fingerprint was added before, false otherwise.
+     */
+    public synchronized boolean containsFingerprint(long fingerprint) {
+        if (bloomBits != null) {
+            return bloomFilterContains(fingerprint);
+        }
+        if (fingerprint == EMPTY) {
+            fingerprint = EMPTY_REPLACEMENT;
+        }
+        int capacity = table.length;
+        for (int slot = slotOf(fingerprint, capacity); table[slot] != EMPTY; slot = nextSlot(slot, capacity)) {
+            if (table[slot] == fingerprint) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Gets the number of URLs added to the set.
+     * @return The number of URLs.
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Checks if the set is backed by a Bloom filter.
+     * @return true if the set is approximate, false if it is exact.
+     */
+    public boolean isApproximate() {
+        return bloomBits != null;
+    }
+
+    /**
+     * Gets the memory used by the fingerprints or by the Bloom filter bits.
+     * @return The footprint in bytes.
+     */
+    public synchronized long getMemoryFootprintBytes() {
+        return 8L * (bloomBits != null ? bloomBits.length : table.length);
+    }
+
+    /**
+     * Gets the fingerprints in the set, in no particular order.
+     * @return A copy of the fingerprints.
+     * @throws IllegalStateException if the set is backed by a Bloom filter, which does not keep them.
+     */
+    public synchronized long[] getFingerprints() {
+        if (bloomBits != null) {
+            throw new IllegalStateException("An approximate set does not keep the fingerprints.");
+        }
+        long[] fingerprints = new long[size];
+        int count = 0;
+        for (long fingerprint : table) {
+            if (fingerprint != EMPTY) {
+                fingerprints[count++] = fingerprint;
+            }
+        }
+        return fingerprints;
+    }
+
+    /**
+     * Creates a copy of the set, which is not affected by the URLs added to this set afterwards.
+     * @return The copy.
+     */
+    public synchronized VisitedUrlSet copy() {
+        VisitedUrlSet copy = bloomBits != null ? new VisitedUrlSet(bloomBitCount, bloomHashCount) : new VisitedUrlSet();
+        if (bloomBits != null) {
+            System.arraycopy(bloomBits, 0, copy.bloomBits, 0, bloomBits.length);
+        } else {
+            copy.table = table.clone();
+        }
+        copy.size = size;
+        return copy;
+    }
+
+    /**
+     * Writes the set in a compact binary form: the fingerprints of an exact set, or the bits of a Bloom filter.
+     * @param output The output to be written to.
+     * @throws IOException if the output cannot be written.
+     */
+    public synchronized void writeTo(DataOutput output) throws IOException {
+        output.writeBoolean(bloomBits != null);
+        output.writeInt(size);
+        if (bloomBits != null) {
+            output.writeLong(bloomBitCount);
+            output.writeInt(bloomHashCount);
+            for (long word : bloomBits) {
+                output.writeLong(word);
+            }
+            return;
+        }
+        for (long fingerprint : table) {
+            if (fingerprint != EMPTY) {
+                output.writeLong(fingerprint);
+            }
+        }
+    }
+
+    /**
+     * Reads a set written by {@link #writeTo(DataOutput)}.
+     * @param input The input to be read from.
+     * @return The set.
+     * @throws IOException if the input cannot be read or does not hold a valid set.
+     */
+    public static VisitedUrlSet readFrom(DataInput input) throws IOException {
+        boolean approximate = input.readBoolean();
+        int size = input.readInt();
+        if (size < 0) {
+            throw new IOException("Invalid visited URL set size: " + size);
+        }
+        if (approximate) {
+            long bitCount = input.readLong();
+            int hashCount = input.readInt();
+            if (bitCount <= 0 || bitCount > 64L * Integer.MAX_VALUE || hashCount <= 0) {
+                throw new IOException("Invalid Bloom filter of " + bitCount + " bits and " + hashCount + " hashes");
+            }
+            VisitedUrlSet set = new VisitedUrlSet(bitCount, hashCount);
+            for (int i = 0; i < set.bloomBits.length; i++) {
+                set.bloomBits[i] = input.readLong();
+            }
+            set.size = size;
+            return set;
+        }
+        VisitedUrlSet set = new VisitedUrlSet();
+        set.table = new long[Math.max(INITIAL_CAPACITY, (int) Math.min(Integer.MAX_VALUE - 8, (long) (size / MAX_LOAD_FACTOR) + 1))];
+        for (int i = 0; i < size; i++) {
+            if (insert(set.table, input.readLong())) {
+                set.size++;
+            }
+        }
+        return set;
+    }
+
+    /**
+     * Computes the 64-bit fingerprint of a URL: FNV-1a over its characters, followed by a final mix
+     * so that every bit depends on every character.
+     * @param url The URL.
+     * @return The fingerprint.
+     */
+    public static long fingerprint(String url) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < url.length(); i++) {
+            hash ^= url.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    private void resize(int capacity) {
+        long[] newTable = new long[capacity];
+        for (long fingerprint : table) {
+            if (fingerprint != EMPTY) {
+                insert(newTable, fingerprint);
+            }
+        }
+        table = newTable;
+    }
+
+    /**
+     * Inserts a fingerprint in a table with linear probing.
+     * @return true if it was inserted, false if it was already there.
+     */
+    private static boolean insert(long[] table, long fingerprint) {
+        int capacity = table.length;
+        int slot = slotOf(fingerprint, capacity);
+        while (table[slot] != EMPTY) {
+            if (table[slot] == fingerprint) {
+                return false;
+            }
+            slot = nextSlot(slot, capacity);
+        }
+        table[slot] = fingerprint;
+        return true;
+    }
+
+    /**
+     * Maps a fingerprint to a slot by multiplying its high 32 bits by the capacity,
+     * which works for any capacity and not only powers of two.
+     */
+    private static int slotOf(long fingerprint, int capacity) {
+        return (int) (((fingerprint >>> 32) * capacity) >>> 32);
+    }
+
+    private static int nextSlot(int slot, int capacity) {
+        return slot + 1 == capacity ? 0 : slot + 1;
+    }
+
+    private boolean addToBloomFilter(long fingerprint) {
+        boolean added = false;
+        long hash1 = fingerprint;
+        long hash2 = Long.rotateLeft(fingerprint, 32) | 1;
+        for (int i = 0; i < bloomHashCount; i++) {
+            long bit = Long.remainderUnsigned(hash1 + i * hash2, bloomBitCount);
+            int word = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            if ((bloomBits[word] & mask) == 0) {
+                bloomBits[word] |= mask;
+                added = true;
+            }
+        }
+        if (added) {
+            size++;
+        }
+        return added;
+    }
+
+    private boolean bloomFilterContains(long fingerprint) {
+        long hash1 = fingerprint;
+        long hash2 = Long.rotateLeft(fingerprint, 32) | 1;
+        for (int i = 0; i < bloomHashCount; i++) {
+            long bit = Long.remainderUnsigned(hash1 + i * hash2, bloomBitCount);
+            if ((bloomBits[(int) (bit >>> 6)] & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "VisitedUrlSet{size=" + size + ", approximate=" + isApproximate()
+                + ", footprintBytes=" + getMemoryFootprintBytes() + "}";
+    }
+}
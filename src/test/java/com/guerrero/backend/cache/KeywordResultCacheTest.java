@@ -0,0 +1,145 @@
+package com.guerrero.backend.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class KeywordResultCacheTest {
+
+    private static final String BASE_URL = "http://example.com/";
+
+    @Test
+    void testClaim_FirstSearchLeads() {
+        // Arrange
+        KeywordResultCache resultCache = new KeywordResultCache(60, 10);
+
+        // Act
+        KeywordResultCache.Entry entry = resultCache.claim(BASE_URL, "needle", "search01");
+
+        // Assert
+        assertNull(entry);
+        assertEquals(1, resultCache.getMissCount());
+    }
+
+    @Test
+    void testClaim_RepeatSearchFollowsRunningSearch() {
+        // Arrange
+        KeywordResultCache resultCache = new KeywordResultCache(60, 10);
+        resultCache.claim(BASE_URL, "needle", "search01");
+
+        // Act
+        KeywordResultCache.Entry entry = resultCache.claim(BASE_URL, "needle", "search02");
+
+        // Assert
+        assertNotNull(entry);
+        assertFalse(entry.isCompleted());
+        assertEquals("search01", entry.getLeaderId());
+        assertEquals(List.of("search02"), resultCache.getFollowers("search01"));
+        assertEquals(List.of("search02"), resultCache.complete("search01", List.of("http://example.com/a")));
+        assertTrue(resultCache.getFollowers("search01").isEmpty());
+    }
+
+    @Test
+    void testClaim_LeaderCannotCompleteWhileFollowerIsSeeded() throws Exception {
+        // Arrange
+        KeywordResultCache resultCache = new KeywordResultCache(60, 10);
+        resultCache.claim(BASE_URL, "needle", "search01");
+        CountDownLatch seeding = new CountDownLatch(1);
+        CountDownLatch seeded = new CountDownLatch(1);
+        List<String> followersWhileSeeding = new ArrayList<>();
+        CompletableFuture<KeywordResultCache.Entry> claim = CompletableFuture.supplyAsync(() ->
+                resultCache.claim(BASE_URL, "needle", "search02", entry -> {
+                    followersWhileSeeding.addAll(resultCache.getFollowers(entry.getLeaderId()));
+                    seeding.countDown();
+                    try {
+                        seeded.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }));
+        assertTrue(seeding.await(5, TimeUnit.SECONDS));
+
+        // Act
+        CompletableFuture<List<String>> complete = CompletableFuture.supplyAsync(() ->
+                resultCache.complete("search01", List.of("http://example.com/a")));
+        Thread.sleep(100);
+        boolean completedWhileSeeding = complete.isDone();
+        seeded.countDown();
+
+        // Assert
+        assertFalse(completedWhileSeeding);
+        assertEquals(List.of("search02"), followersWhileSeeding);
+        assertEquals("search01", claim.get(5, TimeUnit.SECONDS).getLeaderId());
+        assertEquals(List.of("search02"), complete.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void testAbandon_NextSearchLeads() {
+        // Arrange
+        KeywordResultCache resultCache = new KeywordResultCache(60, 10);
+        resultCache.claim(BASE_URL, "needle", "search01");
+        resultCache.claim(BASE_URL, "needle", "search02");
+
+        // Act
+        List<String> followerIds = resultCache.abandon("search01");
+        KeywordResultCache.Entry entry = resultCache.claim(BASE_URL, "needle", "search03");
+
+        // Assert
+        assertEquals(List.of("search02"), followerIds);
+        assertNull(entry);
+        assertTrue(resultCache.abandon("search01").isEmpty());
+        assertTrue(resultCache.complete("search01", List.of()).isEmpty());
+    }
+
+    @Test
+    void testClaim_RepeatSearchAnsweredFromCompletedSearch() {
+        // Arrange
+        KeywordResultCache resultCache = new KeywordResultCache(60, 10);
+        resultCache.claim(BASE_URL, "needle", "search01");
+        resultCache.complete("search01", List.of("http://example.com/a"));
+
+        // Act
+        KeywordResultCache.Entry entry = resultCache.claim(BASE_URL, "needle", "search02");
+
+        // Assert
+        assertTrue(entry.isCompleted());
+        assertEquals(List.of("http://example.com/a"), entry.getUrls());
+        assertEquals(1, resultCache.getHitCount());
+        assertNull(resultCache.claim("http://other.com/", "needle", "search03"));
+    }
+
+    @Test
+    void testComplete_RemovesOldestCompletedEntries() {
+        // Arrange
+        KeywordResultCache resultCache = new KeywordResultCache(60, 1);
+        resultCache.claim(BASE_URL, "first", "search01");
+        resultCache.claim(BASE_URL, "second", "search02");
+        resultCache.complete("search01", List.of());
+
+        // Act
+        resultCache.complete("search02", List.of());
+
+        // Assert
+        assertNull(resultCache.claim(BASE_URL, "first", "search03"));
+        assertNotNull(resultCache.claim(BASE_URL, "second", "search04"));
+    }
+
+    @Test
+    void testDisabled() {
+        // Arrange
+        KeywordResultCache resultCache = KeywordResultCache.disabled();
+        resultCache.claim(BASE_URL, "needle", "search01");
+
+        // Act
+        KeywordResultCache.Entry entry = resultCache.claim(BASE_URL, "needle", "search02");
+
+        // Assert
+        assertNull(entry);
+    }
+}
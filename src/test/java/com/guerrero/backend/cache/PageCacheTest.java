@@ -0,0 +1,133 @@
+package com.guerrero.backend.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PageCacheTest {
+
+    private static final long MAX_AGE_SECONDS = 60;
+
+    @Test
+    void testGet_HitAfterMiss() {
+        // Arrange
+        PageCache pageCache = new PageCache(1024 * 1024, MAX_AGE_SECONDS, false);
+        AtomicInteger loads = new AtomicInteger();
+
+        // Act
+        String first = pageCache.get("http://example.com/page", url -> "content " + loads.incrementAndGet());
+        String second = pageCache.get("HTTP://EXAMPLE.com/page#top", url -> "content " + loads.incrementAndGet());
+
+        // Assert
+        assertEquals("content 1", first);
+        assertEquals("content 1", second);
+        assertEquals(1, loads.get());
+        assertEquals(1, pageCache.getHitCount());
+        assertEquals(1, pageCache.getMissCount());
+    }
+
+    @Test
+    void testGet_Compressed() {
+        // Arrange
+        PageCache pageCache = new PageCache(1024 * 1024, MAX_AGE_SECONDS, true);
+        String page = "<html>" + "repeated text ".repeat(1000) + "</html>";
+
+        // Act
+        pageCache.get("http://example.com/", url -> page);
+        String cachedPage = pageCache.get("http://example.com/", url -> "reloaded");
+
+        // Assert
+        assertEquals(page, cachedPage);
+        assertTrue(pageCache.getSizeInBytes() < page.length());
+    }
+
+    @Test
+    void testGet_EvictsLeastRecentlyUsed() {
+        // Arrange
+        String page = "x".repeat(400);
+        PageCache pageCache = new PageCache(1200, MAX_AGE_SECONDS, false);
+        pageCache.get("http://example.com/a", url -> page);
+        pageCache.get("http://example.com/b", url -> page);
+        pageCache.get("http://example.com/a", url -> page);
+
+        // Act
+        pageCache.get("http://example.com/c", url -> page);
+
+        // Assert
+        assertEquals(2, pageCache.getEntryCount());
+        assertEquals(1, pageCache.getEvictionCount());
+        assertTrue(pageCache.getSizeInBytes() <= 1200);
+        assertEquals(page, pageCache.get("http://example.com/a", url -> "reloaded"));
+        assertEquals("reloaded", pageCache.get("http://example.com/b", url -> "reloaded"));
+    }
+
+    @Test
+    void testGet_DoesNotStoreEmptyPages() {
+        // Arrange
+        PageCache pageCache = new PageCache(1024, MAX_AGE_SECONDS, false);
+
+        // Act
+        pageCache.get("http://example.com/", url -> "");
+        String page = pageCache.get("http://example.com/", url -> "content");
+
+        // Assert
+        assertEquals("content", page);
+        assertEquals(2, pageCache.getMissCount());
+    }
+
+    @Test
+    void testGet_CoalescesConcurrentLoads() throws Exception {
+        // Arrange
+        PageCache pageCache = PageCache.disabled();
+        CountDownLatch loadStarted = new CountDownLatch(1);
+        CountDownLatch releaseLoad = new CountDownLatch(1);
+        AtomicInteger loads = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+
+        // Act
+        Future<String> first = executor.submit(() -> pageCache.get("http://example.com/", url -> {
+            loads.incrementAndGet();
+            loadStarted.countDown();
+            await(releaseLoad);
+            return "content";
+        }));
+        loadStarted.await();
+        Future<String> second = executor.submit(() -> pageCache.get("http://example.com/", url -> {
+            loads.incrementAndGet();
+            return "other content";
+        }));
+        while (pageCache.getCoalescedCount() == 0) {
+            Thread.sleep(1);
+        }
+        releaseLoad.countDown();
+
+        // Assert
+        assertEquals("content", first.get(5, TimeUnit.SECONDS));
+        assertEquals("content", second.get(5, TimeUnit.SECONDS));
+        assertEquals(1, loads.get());
+        assertEquals(1, pageCache.getHitCount());
+        assertEquals(1, pageCache.getMissCount());
+        executor.shutdown();
+    }
+
+    @Test
+    void testConstructor_InvalidSize() {
+        // Act and Assert
+        assertThrows(IllegalArgumentException.class, () -> new PageCache(-1, MAX_AGE_SECONDS, false));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
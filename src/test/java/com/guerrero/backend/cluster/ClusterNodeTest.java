@@ -0,0 +1,235 @@
+package com.guerrero.backend.cluster;
+
+import com.guerrero.backend.fetch.FetchResponse;
+import com.guerrero.backend.fetch.PageFetcher;
+import com.guerrero.backend.fetch.UrlStreamPageFetcher;
+import com.guerrero.backend.model.SearchResult;
+import com.guerrero.backend.model.Status;
+import com.guerrero.backend.service.CrawlExecutor;
+import com.guerrero.backend.service.CrawlerService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ClusterNodeTest {
+
+    @Test
+    void testCrawl_SplitsSearchAcrossNodes(@TempDir Path siteDir) throws IOException, InterruptedException {
+        // Arrange
+        int pageCount = 30;
+        writeLinkedSite(siteDir, pageCount);
+        String url = "file:" + siteDir.toAbsolutePath() + "/";
+        List<String> nodeIds = List.of("node1", "node2", "node3");
+        HashRing ring = new HashRing(nodeIds);
+        LoopbackTransport transport = new LoopbackTransport();
+        PageFetcher site = fileSite();
+        Map<String, String> fetchingNodes = new ConcurrentHashMap<>();
+        List<String> fetchedTwice = new CopyOnWriteArrayList<>();
+        List<CrawlerService> services = new ArrayList<>();
+        List<ClusterNode> nodes = new ArrayList<>();
+        for (String nodeId : nodeIds) {
+            CrawlerService crawlerService = new CrawlerService(url);
+            crawlerService.setPageFetcher((pageUrl, headers) -> {
+                if (fetchingNodes.put(pageUrl, nodeId) != null) {
+                    fetchedTwice.add(pageUrl);
+                }
+                return site.fetch(pageUrl, headers);
+            });
+            ClusterNode node = new ClusterNode(nodeId, ring, transport, crawlerService, new CrawlExecutor(4), 4);
+            transport.register(node);
+            node.start(Duration.ofMillis(10));
+            services.add(crawlerService);
+            nodes.add(node);
+        }
+
+        // Act
+        String searchId = services.get(0).initializeDataStructures("needle");
+        services.get(0).crawl(searchId);
+        for (CrawlerService crawlerService : services) {
+            waitUntilDone(crawlerService, searchId);
+        }
+
+        // Assert
+        assertEquals(pageCount + 1, fetchingNodes.size());
+        assertTrue(fetchedTwice.isEmpty());
+        assertEquals(Set.copyOf(nodeIds), new HashSet<>(fetchingNodes.values()));
+        for (Map.Entry<String, String> fetch : fetchingNodes.entrySet()) {
+            assertEquals(ring.ownerOf(fetch.getKey()), fetch.getValue());
+        }
+        for (CrawlerService crawlerService : services) {
+            SearchResult searchResult = crawlerService.getSearchResult(searchId);
+            assertEquals(Status.done, searchResult.getStatus());
+            assertEquals(pageCount / 3, Set.copyOf(searchResult.getUrls()).size());
+        }
+        for (ClusterNode node : nodes) {
+            node.stop();
+        }
+    }
+
+    @Test
+    void testFlush_RetriesFailedMatches() {
+        // Arrange
+        HashRing ring = new HashRing(List.of("node1", "node2"));
+        List<String> receivedMatches = new CopyOnWriteArrayList<>();
+        AtomicInteger attempts = new AtomicInteger();
+        LoopbackTransport transport = new LoopbackTransport() {
+            @Override
+            public void startSearch(String nodeId, String searchId, String keyword) {
+            }
+
+            @Override
+            public void sendMatches(String nodeId, String searchId, List<String> urls) throws IOException {
+                if (attempts.incrementAndGet() == 1) {
+                    throw new IOException("Simulated network failure");
+                }
+                receivedMatches.addAll(urls);
+            }
+        };
+        ClusterNode node = new ClusterNode("node1", ring, transport,
+                new CrawlerService("http://example.com/"), new CrawlExecutor(), 4);
+        node.startSearch("search1", "needle");
+        node.shareMatch("search1", "http://example.com/a");
+
+        // Act
+        node.flush();
+        boolean passiveAfterFailure = node.getStatus("search1").isPassive();
+        node.shareMatch("search1", "http://example.com/b");
+        node.flush();
+
+        // Assert
+        assertFalse(passiveAfterFailure);
+        assertEquals(List.of("http://example.com/a", "http://example.com/b"), receivedMatches);
+        assertEquals(1, node.getStatus("search1").getSentCount());
+        assertTrue(node.getStatus("search1").isPassive());
+    }
+
+    @Test
+    void testOnUrls_RefusesSearchNotJoined() {
+        // Arrange
+        HashRing ring = new HashRing(List.of("node1", "node2"));
+        LoopbackTransport transport = new LoopbackTransport();
+        ClusterNode node = new ClusterNode("node2", ring, transport,
+                new CrawlerService("http://example.com/"), new CrawlExecutor(), 4);
+        transport.register(node);
+
+        // Act and Assert
+        assertThrows(IOException.class, () -> transport.sendUrls("node2", "search1", List.of("http://example.com/a")));
+        assertThrows(IOException.class, () -> transport.sendMatches("node2", "search1", List.of("http://example.com/a")));
+        assertEquals(0, node.getStatus("search1").getReceivedCount());
+    }
+
+    @Test
+    void testOnFinishSearch_IgnoresLateMessages() {
+        // Arrange
+        HashRing ring = new HashRing(List.of("node1", "node2"));
+        List<String> sentUrls = new CopyOnWriteArrayList<>();
+        LoopbackTransport transport = new LoopbackTransport() {
+            @Override
+            public void startSearch(String nodeId, String searchId, String keyword) {
+            }
+
+            @Override
+            public void sendUrls(String nodeId, String searchId, List<String> urls) {
+                sentUrls.addAll(urls);
+            }
+
+            @Override
+            public void sendMatches(String nodeId, String searchId, List<String> urls) {
+                sentUrls.addAll(urls);
+            }
+        };
+        ClusterNode node = new ClusterNode("node1", ring, transport,
+                new CrawlerService("http://example.com/"), new CrawlExecutor(), 4);
+        String forwardedUrl = "http://example.com/0";
+        for (int i = 1; node.owns(forwardedUrl); i++) {
+            forwardedUrl = "http://example.com/" + i;
+        }
+        node.startSearch("search1", "needle");
+        node.onFinishSearch("search1");
+
+        // Act
+        boolean forwarded = node.forward("search1", forwardedUrl);
+        node.shareMatch("search1", "http://example.com/a");
+        boolean urlsDelivered = node.onUrls("search1", List.of("http://example.com/b"));
+        boolean matchesDelivered = node.onMatches("search1", List.of("http://example.com/c"));
+        node.flush();
+
+        // Assert
+        assertTrue(forwarded);
+        assertTrue(urlsDelivered);
+        assertTrue(matchesDelivered);
+        assertTrue(sentUrls.isEmpty());
+        NodeStatus status = node.getStatus("search1");
+        assertTrue(status.isPassive());
+        assertEquals(0, status.getReceivedCount());
+    }
+
+    @Test
+    void testConstructor_InvalidArguments() {
+        // Arrange
+        HashRing ring = new HashRing(List.of("node1"));
+        CrawlerService crawlerService = new CrawlerService("http://example.com/");
+
+        // Act and Assert
+        assertThrows(IllegalArgumentException.class, () -> new ClusterNode("node2", ring,
+                new LoopbackTransport(), crawlerService, new CrawlExecutor(), 4));
+        assertThrows(IllegalArgumentException.class, () -> new ClusterNode("node1", ring,
+                new LoopbackTransport(), crawlerService, new CrawlExecutor(), 0));
+    }
+
+    private static void waitUntilDone(CrawlerService crawlerService, String searchId) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (crawlerService.getSearchResult(searchId).getStatus() != Status.done
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+
+    /**
+     * Creates a fetcher reading file URLs, which answers a directory URL with the index.html page inside it.
+     */
+    private static PageFetcher fileSite() {
+        UrlStreamPageFetcher urlFetcher = new UrlStreamPageFetcher();
+        return (pageUrl, headers) -> {
+            if (!pageUrl.endsWith("/")) {
+                return urlFetcher.fetch(pageUrl, headers);
+            }
+            FetchResponse index = urlFetcher.fetch(pageUrl + "index.html", headers);
+            return new FetchResponse(pageUrl, pageUrl, index.getStatusCode(), index.getHeaders(), index.getBody(),
+                    () -> { });
+        };
+    }
+
+    /**
+     * Writes a site whose entry page index.html links to page0.html, where each page links to the next two
+     * and every third page contains the word "needle".
+     */
+    private static void writeLinkedSite(Path siteDir, int pageCount) throws IOException {
+        Files.writeString(siteDir.resolve("index.html"), "<html><a href=\"page0.html\">start</a></html>");
+        for (int i = 0; i < pageCount; i++) {
+            StringBuilder html = new StringBuilder("<html><body>");
+            if (i % 3 == 0) {
+                html.append("<p>a needle here</p>");
+            }
+            for (int next = i + 1; next <= i + 2 && next < pageCount; next++) {
+                html.append("<a href=\"page").append(next).append(".html\">next</a>");
+            }
+            html.append("</body></html>");
+            Files.writeString(siteDir.resolve("page" + i + ".html"), html.toString());
+        }
+    }
+}
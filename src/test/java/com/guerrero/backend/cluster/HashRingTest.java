@@ -0,0 +1,69 @@
+package com.guerrero.backend.cluster;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HashRingTest {
+
+    @Test
+    void testOwnerOf_SpreadsUrlsEvenly() {
+        // Arrange
+        HashRing ring = new HashRing(List.of("node1", "node2", "node3"));
+        Map<String, Integer> counts = new HashMap<>();
+
+        // Act
+        for (int i = 0; i < 30_000; i++) {
+            counts.merge(ring.ownerOf("http://example.com/page/" + i), 1, Integer::sum);
+        }
+
+        // Assert
+        assertEquals(3, counts.size());
+        for (int count : counts.values()) {
+            assertTrue(count > 7_000 && count < 13_000, "Unbalanced count: " + count);
+        }
+    }
+
+    @Test
+    void testOwnerOf_SameOwnerForNormalizedForms() {
+        // Arrange
+        HashRing ring = new HashRing(List.of("node1", "node2", "node3"));
+        String owner = ring.ownerOf("http://example.com/Page");
+
+        // Act and Assert
+        assertEquals(owner, ring.ownerOf("HTTP://Example.COM/Page#section"));
+        assertEquals("http://example.com/Page", HashRing.normalize("HTTP://Example.COM/Page#section"));
+    }
+
+    @Test
+    void testOwnerOf_AddingNodeMovesFewUrls() {
+        // Arrange
+        HashRing ring = new HashRing(List.of("node1", "node2", "node3"));
+        HashRing grownRing = new HashRing(List.of("node1", "node2", "node3", "node4"));
+        int moved = 0;
+
+        // Act
+        for (int i = 0; i < 10_000; i++) {
+            String url = "http://example.com/page/" + i;
+            String newOwner = grownRing.ownerOf(url);
+            if (!newOwner.equals(ring.ownerOf(url))) {
+                assertEquals("node4", newOwner);
+                moved++;
+            }
+        }
+
+        // Assert
+        assertTrue(moved > 1_500 && moved < 3_500, "Moved: " + moved);
+    }
+
+    @Test
+    void testConstructor_InvalidArguments() {
+        // Act and Assert
+        assertThrows(IllegalArgumentException.class, () -> new HashRing(List.of()));
+        assertThrows(IllegalArgumentException.class, () -> new HashRing(List.of("node1"), 0));
+    }
+}
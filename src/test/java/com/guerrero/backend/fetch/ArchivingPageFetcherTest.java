@@ -0,0 +1,157 @@
+package com.guerrero.backend.fetch;
+
+import com.guerrero.backend.store.PageArchive;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ArchivingPageFetcherTest {
+
+    private HttpServer server;
+    private String baseUrl;
+    private final AtomicInteger fullResponses = new AtomicInteger();
+    private final AtomicInteger notModifiedResponses = new AtomicInteger();
+    private volatile String etag = "\"v1\"";
+    private volatile String content = "<html>first needle</html>";
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/page", exchange -> {
+            exchange.getResponseHeaders().set("ETag", etag);
+            if (etag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                notModifiedResponses.incrementAndGet();
+                exchange.sendResponseHeaders(304, -1);
+            } else {
+                fullResponses.incrementAndGet();
+                byte[] body = content.getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().set("Content-Type", "text/html; charset=UTF-8");
+                exchange.sendResponseHeaders(200, body.length);
+                exchange.getResponseBody().write(body);
+            }
+            exchange.close();
+        });
+        server.start();
+        baseUrl = "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    void testFetch_RevalidatesArchivedPage(@TempDir Path directory) throws IOException {
+        // Arrange
+        ArchivingPageFetcher fetcher = new ArchivingPageFetcher(new HttpClientPageFetcher(),
+                PageArchive.open(directory), 1024);
+        assertEquals("<html>first needle</html>", fetchBody(fetcher));
+
+        // Act
+        String revalidatedBody;
+        try (FetchResponse response = fetcher.fetch(baseUrl + "/page")) {
+            assertEquals(200, response.getStatusCode());
+            assertTrue(response.isText());
+            revalidatedBody = new String(response.getBody().readAllBytes(), StandardCharsets.UTF_8);
+        }
+
+        // Assert
+        assertEquals("<html>first needle</html>", revalidatedBody);
+        assertEquals(1, fullResponses.get());
+        assertEquals(1, notModifiedResponses.get());
+        assertEquals(1, fetcher.getRevalidatedCount());
+        assertEquals(1, fetcher.getArchivedCount());
+    }
+
+    @Test
+    void testFetch_ArchivesChangedPage(@TempDir Path directory) throws IOException {
+        // Arrange
+        ArchivingPageFetcher fetcher = new ArchivingPageFetcher(new HttpClientPageFetcher(),
+                PageArchive.open(directory), 1024);
+        fetchBody(fetcher);
+        etag = "\"v2\"";
+        content = "<html>second</html>";
+
+        // Act
+        String changedBody = fetchBody(fetcher);
+        String revalidatedBody = fetchBody(fetcher);
+
+        // Assert
+        assertEquals("<html>second</html>", changedBody);
+        assertEquals("<html>second</html>", revalidatedBody);
+        assertEquals(2, fullResponses.get());
+        assertEquals(1, notModifiedResponses.get());
+        assertEquals(2, fetcher.getArchivedCount());
+    }
+
+    @Test
+    void testFetch_DoesNotArchivePartlyReadOrLongPages(@TempDir Path directory) throws IOException {
+        // Arrange
+        ArchivingPageFetcher fetcher = new ArchivingPageFetcher(new HttpClientPageFetcher(),
+                PageArchive.open(directory), 10);
+
+        // Act
+        fetchBody(fetcher);
+        try (FetchResponse response = fetcher.fetch(baseUrl + "/page")) {
+            response.getBody().read();
+        }
+
+        // Assert
+        assertEquals(0, fetcher.getArchivedCount());
+        assertEquals(2, fullResponses.get());
+        assertEquals(0, notModifiedResponses.get());
+    }
+
+    @Test
+    void testFetch_RefetchesDamagedArchivedPage(@TempDir Path directory) throws IOException {
+        // Arrange
+        ArchivingPageFetcher fetcher = new ArchivingPageFetcher(new HttpClientPageFetcher(),
+                PageArchive.open(directory), 1024);
+        fetchBody(fetcher);
+        Path pageFile;
+        try (Stream<Path> files = Files.walk(directory)) {
+            pageFile = files.filter(Files::isRegularFile).findFirst().orElseThrow();
+        }
+        byte[] content = Files.readAllBytes(pageFile);
+        Files.write(pageFile, Arrays.copyOf(content, content.length - 8));
+
+        // Act
+        String body = fetchBody(fetcher);
+
+        // Assert
+        assertEquals("<html>first needle</html>", body);
+        assertEquals(1, notModifiedResponses.get());
+        assertEquals(2, fullResponses.get());
+        assertEquals(0, fetcher.getRevalidatedCount());
+        assertEquals(2, fetcher.getArchivedCount());
+    }
+
+    @Test
+    void testConstructor_InvalidMaxBodyBytes(@TempDir Path directory) throws IOException {
+        // Arrange
+        PageArchive archive = PageArchive.open(directory);
+
+        // Act and Assert
+        assertThrows(IllegalArgumentException.class,
+                () -> new ArchivingPageFetcher(new HttpClientPageFetcher(), archive, 0));
+    }
+
+    private String fetchBody(PageFetcher fetcher) throws IOException {
+        try (FetchResponse response = fetcher.fetch(baseUrl + "/page")) {
+            return new String(response.getBody().readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
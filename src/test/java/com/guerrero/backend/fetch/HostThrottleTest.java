@@ -0,0 +1,134 @@
+package com.guerrero.backend.fetch;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.InterruptedIOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HostThrottleTest {
+
+    @Test
+    void testOnSuccess_IncreasesConcurrencyAdditively() {
+        // Arrange
+        HostThrottle throttle = new HostThrottle(2, 8, 0);
+
+        // Act
+        for (int i = 0; i < 6; i++) {
+            throttle.onSuccess(TimeUnit.MILLISECONDS.toNanos(5));
+        }
+
+        // Assert
+        assertEquals(4, throttle.getConcurrencyLimit());
+    }
+
+    @Test
+    void testOnFailure_HalvesConcurrency() {
+        // Arrange
+        HostThrottle throttle = new HostThrottle(8, 8, 0);
+
+        // Act
+        throttle.onFailure(0);
+
+        // Assert
+        assertEquals(4, throttle.getConcurrencyLimit());
+    }
+
+    @Test
+    void testOnSuccess_SlowResponseDecreasesConcurrency() {
+        // Arrange
+        HostThrottle throttle = new HostThrottle(8, 8, 0);
+        throttle.onSuccess(TimeUnit.MILLISECONDS.toNanos(20));
+
+        // Act
+        throttle.onSuccess(TimeUnit.MILLISECONDS.toNanos(200));
+
+        // Assert
+        assertEquals(7, throttle.getConcurrencyLimit());
+    }
+
+    @Test
+    void testAcquire_WaitsForFreeSlot() throws InterruptedIOException, InterruptedException {
+        // Arrange
+        HostThrottle throttle = new HostThrottle(1, 1, 0);
+        throttle.acquire();
+        CountDownLatch acquired = new CountDownLatch(1);
+        Thread waiter = new Thread(() -> {
+            try {
+                throttle.acquire();
+                acquired.countDown();
+            } catch (InterruptedIOException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        // Act
+        waiter.start();
+        boolean acquiredBeforeRelease = acquired.await(100, TimeUnit.MILLISECONDS);
+        throttle.release();
+
+        // Assert
+        assertFalse(acquiredBeforeRelease);
+        assertTrue(acquired.await(5, TimeUnit.SECONDS));
+        assertEquals(1, throttle.getInFlight());
+    }
+
+    @Test
+    void testAcquire_WakesWhenConcurrencyIncreases() throws InterruptedIOException, InterruptedException {
+        // Arrange
+        HostThrottle throttle = new HostThrottle(1, 2, 0);
+        throttle.acquire();
+        CountDownLatch acquired = new CountDownLatch(1);
+        Thread waiter = new Thread(() -> {
+            try {
+                throttle.acquire();
+                acquired.countDown();
+            } catch (InterruptedIOException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        // Act
+        waiter.start();
+        boolean acquiredBeforeIncrease = acquired.await(100, TimeUnit.MILLISECONDS);
+        throttle.onSuccess(TimeUnit.MILLISECONDS.toNanos(5));
+
+        // Assert
+        assertFalse(acquiredBeforeIncrease);
+        assertTrue(acquired.await(5, TimeUnit.SECONDS));
+        assertEquals(2, throttle.getInFlight());
+    }
+
+    @Test
+    void testAcquire_HonorsRateAndRetryAfter() throws InterruptedIOException {
+        // Arrange
+        HostThrottle rateLimited = new HostThrottle(1, 1, 20);
+        HostThrottle paused = new HostThrottle(4, 4, 0);
+
+        // Act
+        long startNanos = System.nanoTime();
+        for (int i = 0; i < 25; i++) {
+            rateLimited.acquire();
+            rateLimited.release();
+        }
+        long rateLimitedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+        paused.onFailure(TimeUnit.MILLISECONDS.toNanos(150));
+        startNanos = System.nanoTime();
+        paused.acquire();
+        long pausedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+
+        // Assert
+        assertTrue(rateLimitedMillis >= 200, "Took " + rateLimitedMillis + " ms");
+        assertTrue(pausedMillis >= 100, "Paused for " + pausedMillis + " ms");
+    }
+
+    @Test
+    void testConstructor_InvalidArguments() {
+        // Act and Assert
+        assertThrows(IllegalArgumentException.class, () -> new HostThrottle(0, 4, 0));
+        assertThrows(IllegalArgumentException.class, () -> new HostThrottle(5, 4, 0));
+        assertThrows(IllegalArgumentException.class, () -> new HostThrottle(1, 4, -1));
+    }
+}
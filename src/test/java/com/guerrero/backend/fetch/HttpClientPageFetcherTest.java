@@ -0,0 +1,131 @@
+package com.guerrero.backend.fetch;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HttpClientPageFetcherTest {
+
+    private HttpServer server;
+    private String baseUrl;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/plain", exchange -> {
+            byte[] body = "<html>plain page</html>".getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "text/html; charset=UTF-8");
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        server.createContext("/gzip", exchange -> {
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+            try (OutputStream gzip = new GZIPOutputStream(compressed)) {
+                gzip.write("<html>compressed page</html>".getBytes(StandardCharsets.UTF_8));
+            }
+            exchange.getResponseHeaders().set("Content-Type", "text/html");
+            exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+            exchange.sendResponseHeaders(200, compressed.size());
+            exchange.getResponseBody().write(compressed.toByteArray());
+            exchange.close();
+        });
+        server.createContext("/moved", exchange -> {
+            exchange.getResponseHeaders().set("Location", "/plain");
+            exchange.sendResponseHeaders(301, -1);
+            exchange.close();
+        });
+        server.createContext("/slow", exchange -> {
+            try {
+                Thread.sleep(2000);
+                exchange.sendResponseHeaders(200, -1);
+            } catch (InterruptedException | IOException ignored) {
+                // The client gave up
+            }
+            exchange.close();
+        });
+        server.start();
+        baseUrl = "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    void testFetch_PlainPage() throws IOException {
+        // Arrange
+        HttpClientPageFetcher fetcher = new HttpClientPageFetcher();
+
+        // Act
+        try (FetchResponse response = fetcher.fetch(baseUrl + "/plain")) {
+            // Assert
+            assertTrue(response.isSuccessful());
+            assertFalse(response.isRedirected());
+            assertTrue(response.isText());
+            assertEquals(StandardCharsets.UTF_8, response.getCharset(StandardCharsets.ISO_8859_1));
+            assertEquals("<html>plain page</html>", new String(response.getBody().readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    void testFetch_DecodesGzip() throws IOException {
+        // Arrange
+        HttpClientPageFetcher fetcher = new HttpClientPageFetcher();
+
+        // Act
+        try (FetchResponse response = fetcher.fetch(baseUrl + "/gzip")) {
+            // Assert
+            assertEquals("<html>compressed page</html>", new String(response.getBody().readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    void testFetch_FollowsRedirects() throws IOException {
+        // Arrange
+        HttpClientPageFetcher fetcher = new HttpClientPageFetcher();
+
+        // Act
+        try (FetchResponse response = fetcher.fetch(baseUrl + "/moved")) {
+            // Assert
+            assertTrue(response.isSuccessful());
+            assertTrue(response.isRedirected());
+            assertEquals(baseUrl + "/plain", response.getFinalUrl());
+        }
+    }
+
+    @Test
+    void testFetch_NotFound() throws IOException {
+        // Arrange
+        HttpClientPageFetcher fetcher = new HttpClientPageFetcher();
+
+        // Act
+        try (FetchResponse response = fetcher.fetch(baseUrl + "/missing")) {
+            // Assert
+            assertEquals(404, response.getStatusCode());
+            assertFalse(response.isSuccessful());
+        }
+    }
+
+    @Test
+    void testFetch_ResponseTimeout() {
+        // Arrange
+        HttpClientPageFetcher fetcher = new HttpClientPageFetcher(Duration.ofSeconds(1), Duration.ofMillis(200),
+                Duration.ofSeconds(1), false);
+
+        // Act and Assert
+        assertThrows(IOException.class, () -> fetcher.fetch(baseUrl + "/slow"));
+    }
+}
@@ -0,0 +1,90 @@
+package com.guerrero.backend.fetch;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ThrottledPageFetcherTest {
+
+    private static final String URL = "http://example.com/page";
+
+    @Test
+    void testFetch_RetriesTooManyRequests() throws IOException {
+        // Arrange
+        Queue<Integer> statusCodes = new ArrayDeque<>(List.of(429, 503, 200));
+        PageFetcher delegate = (url, headers) -> response(statusCodes.remove(), Map.of("Retry-After", List.of("0")));
+        ThrottledPageFetcher fetcher = new ThrottledPageFetcher(delegate, 4, 8, 0, 3);
+
+        // Act
+        int statusCode;
+        try (FetchResponse response = fetcher.fetch(URL)) {
+            statusCode = response.getStatusCode();
+        }
+
+        // Assert
+        assertEquals(200, statusCode);
+        assertTrue(statusCodes.isEmpty());
+        assertEquals(2, fetcher.getThrottle(URL).getConcurrencyLimit());
+        assertEquals(0, fetcher.getThrottle(URL).getInFlight());
+    }
+
+    @Test
+    void testFetch_GivesUpAfterMaxRetries() throws IOException {
+        // Arrange
+        PageFetcher delegate = (url, headers) -> response(429, Map.of("Retry-After", List.of("0")));
+        ThrottledPageFetcher fetcher = new ThrottledPageFetcher(delegate, 4, 8, 0, 1);
+
+        // Act
+        int statusCode;
+        try (FetchResponse response = fetcher.fetch(URL)) {
+            statusCode = response.getStatusCode();
+        }
+
+        // Assert
+        assertEquals(429, statusCode);
+        assertEquals(0, fetcher.getThrottle(URL).getInFlight());
+    }
+
+    @Test
+    void testFetch_ReleasesSlotWhenDelegateFails() {
+        // Arrange
+        PageFetcher delegate = (url, headers) -> {
+            throw new IOException("Connection refused");
+        };
+        ThrottledPageFetcher fetcher = new ThrottledPageFetcher(delegate, 4, 8, 0, 1);
+
+        // Act and Assert
+        assertThrows(IOException.class, () -> fetcher.fetch(URL));
+        assertEquals(0, fetcher.getThrottle(URL).getInFlight());
+        assertEquals(2, fetcher.getThrottle(URL).getConcurrencyLimit());
+    }
+
+    @Test
+    void testParseRetryAfter() {
+        // Arrange
+        String httpDate = DateTimeFormatter.RFC_1123_DATE_TIME.format(ZonedDateTime.now().plusSeconds(30));
+
+        // Act
+        Duration fromDate = ThrottledPageFetcher.parseRetryAfter(httpDate);
+
+        // Assert
+        assertEquals(Duration.ofSeconds(120), ThrottledPageFetcher.parseRetryAfter(" 120 "));
+        assertTrue(fromDate.getSeconds() > 20 && fromDate.getSeconds() <= 30);
+        assertNull(ThrottledPageFetcher.parseRetryAfter("soon"));
+        assertNull(ThrottledPageFetcher.parseRetryAfter(null));
+    }
+
+    private static FetchResponse response(int statusCode, Map<String, List<String>> headers) {
+        return new FetchResponse(URL, URL, statusCode, headers, new ByteArrayInputStream(new byte[0]), () -> { });
+    }
+}
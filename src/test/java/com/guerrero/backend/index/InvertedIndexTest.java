@@ -0,0 +1,48 @@
+package com.guerrero.backend.index;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class InvertedIndexTest {
+
+    @Test
+    void testFindUrls() {
+        // Arrange
+        InvertedIndex.Builder builder = new InvertedIndex.Builder();
+        builder.addPage("http://example.com/a", "<p>Merry Christmas</p>");
+        builder.addPage("http://example.com/b", "<p>christmas_tree and CHRISTMAS-eve</p>");
+        builder.addPage("http://example.com/c", "<p>nothing here</p>");
+
+        // Act
+        InvertedIndex index = builder.build();
+
+        // Assert
+        assertEquals(List.of("http://example.com/a", "http://example.com/b"), index.findUrls("christmas"));
+        assertEquals(List.of("http://example.com/b"), index.findUrls("Christmas_Tree"));
+        assertTrue(index.findUrls("easter").isEmpty());
+        assertEquals(3, index.getPageCount());
+    }
+
+    @Test
+    void testFindUrls_NotIndexableKeyword() {
+        // Arrange
+        InvertedIndex index = new InvertedIndex.Builder().build();
+
+        // Act and Assert
+        assertFalse(InvertedIndex.isIndexable("merry christmas"));
+        assertThrows(IllegalArgumentException.class, () -> index.findUrls("merry christmas"));
+    }
+
+    @Test
+    void testTokenize() {
+        // Act
+        Set<String> terms = InvertedIndex.Builder.tokenize("<a href=\"x\">Hello, World_1!</a>");
+
+        // Assert
+        assertEquals(Set.of("a", "href", "x", "hello", "world_1"), terms);
+    }
+}
@@ -0,0 +1,48 @@
+package com.guerrero.backend.index;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PostingListTest {
+
+    @Test
+    void testAdd_RoundTrip() {
+        // Arrange
+        PostingList postingList = new PostingList();
+        int[] pageIds = {0, 1, 2, 130, 20000, 3000000};
+
+        // Act
+        for (int pageId : pageIds) {
+            postingList.add(pageId);
+        }
+
+        // Assert
+        assertArrayEquals(pageIds, postingList.toArray());
+        assertEquals(pageIds.length, postingList.size());
+    }
+
+    @Test
+    void testAdd_DenseListsUseOneBytePerPage() {
+        // Arrange
+        PostingList postingList = new PostingList();
+
+        // Act
+        for (int pageId = 0; pageId < 1000; pageId++) {
+            postingList.add(pageId);
+        }
+
+        // Assert
+        assertEquals(1000, postingList.getSizeInBytes());
+    }
+
+    @Test
+    void testAdd_DecreasingPageId() {
+        // Arrange
+        PostingList postingList = new PostingList();
+        postingList.add(5);
+
+        // Act and Assert
+        assertThrows(IllegalArgumentException.class, () -> postingList.add(5));
+    }
+}
@@ -0,0 +1,105 @@
+package com.guerrero.backend.matcher;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class KeywordMatcherTest {
+
+    @Test
+    void testContainsAny_CaseInsensitive() {
+        // Arrange
+        KeywordMatcher keywordMatcher = KeywordMatcher.forKeyword("christmas");
+
+        // Act and Assert
+        assertTrue(keywordMatcher.containsAny("Happy CHRISTMAS, my friend"));
+        assertTrue(keywordMatcher.containsAny("christmas"));
+        assertFalse(keywordMatcher.containsAny("My raw HTML"));
+    }
+
+    @Test
+    void testContainsAny_WordBoundaries() {
+        // Arrange
+        KeywordMatcher keywordMatcher = KeywordMatcher.forKeyword("text");
+
+        // Act and Assert
+        assertTrue(keywordMatcher.containsAny("<p>Some text content.</p>"));
+        assertTrue(keywordMatcher.containsAny("text-align"));
+        assertFalse(keywordMatcher.containsAny("context"));
+        assertFalse(keywordMatcher.containsAny("texts"));
+        assertFalse(keywordMatcher.containsAny("text_area"));
+        assertTrue(keywordMatcher.containsAny("contexts and a text"));
+    }
+
+    @Test
+    void testContainsAny_RegexCharactersAreLiteral() {
+        // Arrange
+        KeywordMatcher keywordMatcher = KeywordMatcher.forKeyword("a.b*c");
+
+        // Act and Assert
+        assertTrue(keywordMatcher.containsAny("x a.b*c y"));
+        assertFalse(keywordMatcher.containsAny("x aXbbbc y"));
+    }
+
+    @Test
+    void testFindAll_MultipleKeywords() {
+        // Arrange
+        KeywordMatcher keywordMatcher = new KeywordMatcher(List.of("he", "she", "hers", "ushers", "ção"));
+
+        // Act
+        BitSet found = keywordMatcher.findAll("she said: hers! AÇÃO");
+
+        // Assert
+        assertFalse(found.get(0));
+        assertTrue(found.get(1));
+        assertTrue(found.get(2));
+        assertFalse(found.get(3));
+        assertFalse(found.get(4));
+        assertTrue(keywordMatcher.findAll("a ção b").get(4));
+    }
+
+    @Test
+    void testScan_AcrossParts() {
+        // Arrange
+        KeywordMatcher keywordMatcher = new KeywordMatcher(List.of("domain", "example"));
+        KeywordMatcher.Scan scan = keywordMatcher.newScan();
+
+        // Act
+        scan.feed("this dom");
+        scan.feed("ain is an exam");
+        scan.feed("ple".toCharArray(), 0, 3);
+        BitSet found = scan.finish();
+
+        // Assert
+        assertTrue(found.get(0));
+        assertTrue(found.get(1));
+        assertTrue(scan.allFound());
+    }
+
+    @Test
+    void testFindAll_AgreesWithRegex() {
+        // Arrange
+        String[] keywords = {"text", "_id", "c++", "a-b", "page"};
+        String[] texts = {"the text_id", "c++ code", "xc++", "a-b-c", "page_", "_id", "ba-b", "Page."};
+
+        // Act and Assert
+        for (String keyword : keywords) {
+            KeywordMatcher keywordMatcher = KeywordMatcher.forKeyword(keyword);
+            Pattern pattern = Pattern.compile("(?i).*\\b" + Pattern.quote(keyword) + "\\b.*");
+            for (String text : texts) {
+                assertEquals(pattern.matcher(text).matches(), keywordMatcher.containsAny(text), keyword + " in " + text);
+            }
+        }
+    }
+
+    @Test
+    void testConstructor_NoKeywords() {
+        // Act and Assert
+        assertThrows(IllegalArgumentException.class, () -> new KeywordMatcher(List.of()));
+        assertThrows(IllegalArgumentException.class, () -> KeywordMatcher.forKeyword(""));
+    }
+}
@@ -0,0 +1,64 @@
+package com.guerrero.backend.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.StringWriter;
+import java.net.ConnectException;
+import java.net.SocketTimeoutException;
+import java.net.http.HttpTimeoutException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CrawlMetricsTest {
+
+    @Test
+    void testRecordFetchError_ByCause() {
+        // Arrange
+        CrawlMetrics metrics = new CrawlMetrics();
+
+        // Act
+        metrics.recordFetchError(new HttpTimeoutException("request timed out"));
+        metrics.recordFetchError(new SocketTimeoutException());
+        metrics.recordFetchError(new ConnectException());
+        metrics.recordFetchError(new InterruptedIOException());
+        metrics.recordFetchError(new FileNotFoundException());
+        metrics.recordFetchError(new IllegalStateException());
+        metrics.recordFetchError(404);
+        metrics.recordFetchError(503);
+        metrics.recordFetchError(500);
+
+        // Assert
+        assertEquals(2, metrics.getFetchErrors(CrawlMetrics.CAUSE_TIMEOUT));
+        assertEquals(1, metrics.getFetchErrors(CrawlMetrics.CAUSE_CONNECT));
+        assertEquals(1, metrics.getFetchErrors(CrawlMetrics.CAUSE_INTERRUPTED));
+        assertEquals(1, metrics.getFetchErrors(CrawlMetrics.CAUSE_IO));
+        assertEquals(1, metrics.getFetchErrors(CrawlMetrics.CAUSE_OTHER));
+        assertEquals(1, metrics.getFetchErrors("http_4xx"));
+        assertEquals(2, metrics.getFetchErrors("http_5xx"));
+    }
+
+    @Test
+    void testWriteTo() throws IOException {
+        // Arrange
+        CrawlMetrics metrics = new CrawlMetrics();
+        metrics.recordPageFetched(1000);
+        metrics.recordPageFetched(24);
+        metrics.recordFetchError(500);
+        metrics.getMatchLatency().observeNanos(1000);
+        StringWriter output = new StringWriter();
+
+        // Act
+        metrics.writeTo(new PrometheusWriter(output));
+
+        // Assert
+        String text = output.toString();
+        assertTrue(text.contains("# TYPE crawler_pages_fetched_total counter\ncrawler_pages_fetched_total 2\n"));
+        assertTrue(text.contains("crawler_bytes_downloaded_total 1024\n"));
+        assertTrue(text.contains("crawler_fetch_errors_total{cause=\"http_5xx\"} 1\n"));
+        assertTrue(text.contains("crawler_match_duration_seconds_count 1\n"));
+        assertTrue(text.contains("crawler_fetch_duration_seconds_count 0\n"));
+    }
+}
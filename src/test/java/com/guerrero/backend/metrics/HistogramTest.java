@@ -0,0 +1,34 @@
+package com.guerrero.backend.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HistogramTest {
+
+    @Test
+    void testObserveNanos_CumulativeCounts() {
+        // Arrange
+        Histogram histogram = new Histogram(new double[]{0.001, 0.01, 0.1});
+
+        // Act
+        histogram.observeNanos(TimeUnit.MICROSECONDS.toNanos(500));
+        histogram.observeNanos(TimeUnit.MILLISECONDS.toNanos(1));
+        histogram.observeNanos(TimeUnit.MILLISECONDS.toNanos(50));
+        histogram.observeNanos(TimeUnit.SECONDS.toNanos(2));
+
+        // Assert
+        assertArrayEquals(new long[]{2, 2, 3, 4}, histogram.getCumulativeCounts());
+        assertEquals(4, histogram.getCount());
+        assertEquals(2.0515, histogram.getSumSeconds(), 1e-9);
+    }
+
+    @Test
+    void testConstructor_InvalidBuckets() {
+        // Act and Assert
+        assertThrows(IllegalArgumentException.class, () -> new Histogram(new double[0]));
+        assertThrows(IllegalArgumentException.class, () -> new Histogram(new double[]{0.1, 0.1}));
+    }
+}
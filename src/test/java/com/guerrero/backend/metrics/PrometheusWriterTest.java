@@ -0,0 +1,49 @@
+package com.guerrero.backend.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PrometheusWriterTest {
+
+    @Test
+    void testHistogram() throws IOException {
+        // Arrange
+        StringWriter output = new StringWriter();
+        Histogram histogram = new Histogram(new double[]{0.0005, 10});
+        histogram.observeNanos(TimeUnit.SECONDS.toNanos(1));
+
+        // Act
+        new PrometheusWriter(output)
+                .family("latency_seconds", PrometheusWriter.HISTOGRAM, "A latency.")
+                .histogram("latency_seconds", PrometheusWriter.labels("route", "/crawl"), histogram);
+
+        // Assert
+        assertEquals("# HELP latency_seconds A latency.\n"
+                + "# TYPE latency_seconds histogram\n"
+                + "latency_seconds_bucket{route=\"/crawl\",le=\"0.0005\"} 0\n"
+                + "latency_seconds_bucket{route=\"/crawl\",le=\"10\"} 1\n"
+                + "latency_seconds_bucket{route=\"/crawl\",le=\"+Inf\"} 1\n"
+                + "latency_seconds_sum{route=\"/crawl\"} 1.0\n"
+                + "latency_seconds_count{route=\"/crawl\"} 1\n", output.toString());
+    }
+
+    @Test
+    void testLabels_EscapesValues() {
+        // Act
+        String labels = PrometheusWriter.labels("search", "a\"b\\c\nd", "route", "/");
+
+        // Assert
+        assertEquals("{search=\"a\\\"b\\\\c\\nd\",route=\"/\"}", labels);
+    }
+
+    @Test
+    void testLabels_MissingValue() {
+        // Act and Assert
+        assertThrows(IllegalArgumentException.class, () -> PrometheusWriter.labels("search"));
+    }
+}
@@ -2,7 +2,8 @@ package com.guerrero.backend.model;
 
 import org.junit.jupiter.api.Test;
 
-import java.util.Set;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -84,10 +85,75 @@ class SearchResultTest {
 
 
         // Act
-        Set<String> urls = searchResult.getUrls();
+        List<String> urls = searchResult.getUrls();
 
         // Assert
         assertEquals(expectedSetSize, urls.size());
         assertTrue(urls.contains(urlToAdd));
     }
+
+    @Test
+    void testAddUrl_Duplicate() {
+        // Arrange
+        SearchResult searchResult = new SearchResult("search123");
+        searchResult.addUrl("http://example.com/a");
+
+        // Act
+        boolean added = searchResult.addUrl("http://example.com/a");
+
+        // Assert
+        assertFalse(added);
+        assertEquals(1, searchResult.getUrlCount());
+    }
+
+    @Test
+    void testGetUrls_FromPosition() {
+        // Arrange
+        SearchResult searchResult = new SearchResult("search123");
+        searchResult.addUrl("http://example.com/a");
+        searchResult.addUrl("http://example.com/b");
+        searchResult.addUrl("http://example.com/c");
+
+        // Act
+        List<String> urls = searchResult.getUrls(1);
+
+        // Assert
+        assertEquals(List.of("http://example.com/b", "http://example.com/c"), urls);
+    }
+
+    @Test
+    void testAwaitChange_WakesUpOnNewUrl() throws InterruptedException {
+        // Arrange
+        SearchResult searchResult = new SearchResult("search123");
+        Thread writer = new Thread(() -> {
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            searchResult.addUrl("http://example.com");
+        });
+
+        // Act
+        writer.start();
+        boolean changed = searchResult.awaitChange(0, 5, TimeUnit.SECONDS);
+        writer.join();
+
+        // Assert
+        assertTrue(changed);
+        assertEquals(1, searchResult.getUrlCount());
+    }
+
+    @Test
+    void testAwaitChange_Timeout() throws InterruptedException {
+        // Arrange
+        SearchResult searchResult = new SearchResult("search123");
+        searchResult.addUrl("http://example.com");
+
+        // Act
+        boolean changed = searchResult.awaitChange(1, 10, TimeUnit.MILLISECONDS);
+
+        // Assert
+        assertFalse(changed);
+    }
 }
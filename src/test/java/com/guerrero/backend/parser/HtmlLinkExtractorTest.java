@@ -0,0 +1,106 @@
+package com.guerrero.backend.parser;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HtmlLinkExtractorTest {
+
+    @Test
+    void testExtract_AttributeForms() {
+        // Arrange
+        String html = "<a href=\"/double\">1</a><A HREF='/single'>2</A><a class=x href=/unquoted>3</a>"
+                + "<a\n\thref = \" /spaced \" >4</a><a title=\"a > b\" href=\"/after-gt\">5</a>"
+                + "<a href=\"/q?a=1&amp;b=2&#38;c=&#x33;\">6</a><a href=\"/first\" href=\"/second\">7</a>"
+                + "<abbr href=\"/not-anchor\"></abbr><a data-href=\"/not-href\" href=\"\">8</a>";
+        List<String> links = new ArrayList<>();
+
+        // Act
+        new HtmlLinkExtractor().extract(html, collectTo(links, null));
+
+        // Assert
+        assertEquals(List.of("/double", "/single", "/unquoted", "/spaced", "/after-gt", "/q?a=1&b=2&c=3", "/first"), links);
+    }
+
+    @Test
+    void testExtract_SkipsCommentsScriptsAndStyles() {
+        // Arrange
+        String html = "<!DOCTYPE html><!-- <a href=\"/comment\"> --><script>var s = '<a href=\"/script\">';</script>"
+                + "<style>a[href=\"/style\"] {}</STYLE><a href=\"/kept\">kept</a>";
+        List<String> links = new ArrayList<>();
+
+        // Act
+        new HtmlLinkExtractor().extract(html, collectTo(links, null));
+
+        // Assert
+        assertEquals(List.of("/kept"), links);
+    }
+
+    @Test
+    void testExtract_BaseElement() {
+        // Arrange
+        String html = "<head><BASE href=\"https://example.com/docs/\"></head><a href=\"page\">page</a>";
+        List<String> links = new ArrayList<>();
+        List<String> bases = new ArrayList<>();
+
+        // Act
+        new HtmlLinkExtractor().extract(html, collectTo(links, bases));
+
+        // Assert
+        assertEquals(List.of("https://example.com/docs/"), bases);
+        assertEquals(List.of("page"), links);
+    }
+
+    @Test
+    void testFeed_OneCharacterAtATime() {
+        // Arrange
+        String html = "<p>text</p><a class='x' href=\"/one\">1</a><!-- c --><a href=/two>2</a>";
+        List<String> links = new ArrayList<>();
+        LinkExtractor.Scan scan = new HtmlLinkExtractor().newScan(collectTo(links, null));
+
+        // Act
+        for (char c : html.toCharArray()) {
+            scan.feed(new char[] {c}, 0, 1);
+        }
+        scan.finish();
+
+        // Assert
+        assertEquals(List.of("/one", "/two"), links);
+    }
+
+    @Test
+    void testExtract_SkipsLinksLongerThanLimit() {
+        // Arrange
+        String html = "<a href=\"/" + "x".repeat(300) + "\">long</a><a href=\"/short\">short</a>";
+        List<String> links = new ArrayList<>();
+
+        // Act
+        new HtmlLinkExtractor(100).extract(html, collectTo(links, null));
+
+        // Assert
+        assertEquals(List.of("/short"), links);
+    }
+
+    @Test
+    void testConstructor_InvalidMaxLinkLength() {
+        // Act and Assert
+        assertThrows(IllegalArgumentException.class, () -> new HtmlLinkExtractor(0));
+    }
+
+    private static LinkExtractor.Sink collectTo(List<String> links, List<String> bases) {
+        return new LinkExtractor.Sink() {
+            @Override
+            public void link(char[] chars, int start, int end) {
+                links.add(new String(chars, start, end - start));
+            }
+
+            @Override
+            public void base(char[] chars, int start, int end) {
+                bases.add(new String(chars, start, end - start));
+            }
+        };
+    }
+}
@@ -0,0 +1,69 @@
+package com.guerrero.backend.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CrawlExecutorTest {
+
+    @Test
+    void testConstructor_InvalidMaximum() {
+        // Act and Assert
+        assertThrows(IllegalArgumentException.class, () -> new CrawlExecutor(0));
+    }
+
+    @Test
+    void testSubmit_QueuesCrawlsOverTheMaximum() throws InterruptedException {
+        // Arrange
+        CrawlExecutor crawlExecutor = new CrawlExecutor(2);
+        CountDownLatch started = new CountDownLatch(2);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch finished = new CountDownLatch(5);
+        Runnable crawl = () -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            finished.countDown();
+        };
+
+        // Act
+        for (int i = 0; i < 5; i++) {
+            crawlExecutor.submit(crawl);
+        }
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        int activeWhileBlocked = crawlExecutor.getActiveCount();
+        int queuedWhileBlocked = crawlExecutor.getQueuedCount();
+        release.countDown();
+
+        // Assert
+        assertEquals(2, activeWhileBlocked);
+        assertEquals(3, queuedWhileBlocked);
+        assertTrue(finished.await(5, TimeUnit.SECONDS));
+        assertTrue(crawlExecutor.shutdown(5, TimeUnit.SECONDS));
+        assertEquals(5, crawlExecutor.getCompletedCount());
+        assertEquals(0, crawlExecutor.getActiveCount());
+        assertEquals(0, crawlExecutor.getQueuedCount());
+    }
+
+    @Test
+    void testSubmit_FailedCrawlReleasesItsSlot() throws InterruptedException {
+        // Arrange
+        CrawlExecutor crawlExecutor = new CrawlExecutor(1);
+        CountDownLatch finished = new CountDownLatch(1);
+
+        // Act
+        crawlExecutor.submit(() -> {
+            throw new IllegalStateException("Crawl failure");
+        });
+        crawlExecutor.submit(finished::countDown);
+
+        // Assert
+        assertTrue(finished.await(5, TimeUnit.SECONDS));
+    }
+}
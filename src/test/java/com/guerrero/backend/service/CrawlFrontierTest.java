@@ -0,0 +1,96 @@
+package com.guerrero.backend.service;
+
+import com.guerrero.backend.util.VisitedUrlSet;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CrawlFrontierTest {
+
+    @Test
+    void testOffer_SkipsFoundUrls() {
+        // Arrange
+        Queue<String> urlQueue = new ConcurrentLinkedQueue<>();
+        VisitedUrlSet foundUrls = new VisitedUrlSet();
+        CrawlFrontier frontier = new CrawlFrontier(urlQueue, foundUrls);
+
+        // Act
+        boolean firstOffer = frontier.offer("http://example.com/a");
+        boolean secondOffer = frontier.offer("http://example.com/a");
+
+        // Assert
+        assertTrue(firstOffer);
+        assertFalse(secondOffer);
+        assertEquals(1, urlQueue.size());
+        assertEquals(1, foundUrls.size());
+        assertEquals(1, frontier.getPendingCount());
+    }
+
+    @Test
+    void testNext_ReturnsNullWhenDrained() throws InterruptedException {
+        // Arrange
+        Queue<String> urlQueue = new ConcurrentLinkedQueue<>();
+        urlQueue.add("http://example.com/");
+        CrawlFrontier frontier = new CrawlFrontier(urlQueue, new VisitedUrlSet());
+
+        // Act
+        String url = frontier.next();
+        frontier.offer("http://example.com/b");
+        frontier.markProcessed(url);
+        String nextUrl = frontier.next();
+        frontier.markProcessed(nextUrl);
+
+        // Assert
+        assertEquals("http://example.com/", url);
+        assertEquals("http://example.com/b", nextUrl);
+        assertTrue(frontier.isDrained());
+        assertNull(frontier.next());
+    }
+
+    @Test
+    void testNext_WaitsForInFlightUrls() throws InterruptedException {
+        // Arrange
+        Queue<String> urlQueue = new ConcurrentLinkedQueue<>();
+        urlQueue.add("http://example.com/");
+        CrawlFrontier frontier = new CrawlFrontier(urlQueue, new VisitedUrlSet());
+        frontier.next();
+        Thread worker = new Thread(() -> {
+            frontier.offer("http://example.com/late");
+            frontier.markProcessed("http://example.com/");
+        });
+
+        // Act
+        worker.start();
+        String url = frontier.next();
+        worker.join();
+
+        // Assert
+        assertEquals("http://example.com/late", url);
+    }
+
+    @Test
+    void testSnapshot_IncludesInFlightUrls() throws InterruptedException {
+        // Arrange
+        Queue<String> urlQueue = new ConcurrentLinkedQueue<>();
+        urlQueue.add("http://example.com/");
+        VisitedUrlSet foundUrls = new VisitedUrlSet();
+        foundUrls.add("http://example.com/");
+        CrawlFrontier frontier = new CrawlFrontier(urlQueue, foundUrls);
+        String url = frontier.next();
+        frontier.offer("http://example.com/a");
+
+        // Act
+        CrawlFrontier.Snapshot snapshot = frontier.snapshot();
+        frontier.markProcessed(url);
+        frontier.offer("http://example.com/b");
+
+        // Assert
+        assertEquals(List.of("http://example.com/", "http://example.com/a"), snapshot.getPendingUrls());
+        assertEquals(2, snapshot.getFoundUrls().size());
+        assertFalse(snapshot.getFoundUrls().contains("http://example.com/b"));
+    }
+}
@@ -1,23 +1,36 @@
 package com.guerrero.backend.service;
 
 import com.guerrero.backend.dto.CrawlResponse;
+import com.guerrero.backend.metrics.CrawlMetrics;
+import com.guerrero.backend.metrics.PrometheusWriter;
 import com.guerrero.backend.model.SearchResult;
 import com.guerrero.backend.model.Status;
 import com.google.gson.*;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import spark.Request;
 import spark.Response;
 
-import java.util.concurrent.CompletableFuture;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.zip.GZIPInputStream;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 public class CrawlerRequestHandlerTest {
 
     @Test
-    void testGetResults() {
+    void testGetResults() throws IOException {
         // Arrange
         CrawlerService crawlerService = mock(CrawlerService.class);
         CrawlerRequestHandler requestHandler = new CrawlerRequestHandler(crawlerService);
@@ -33,11 +46,13 @@ public class CrawlerRequestHandlerTest {
         searchResult.addUrl(url2);
         searchResult.setStatus(Status.done);
         when(crawlerService.getSearchResult(searchId)).thenReturn(searchResult);
+        ByteArrayOutputStream body = captureBody(response);
 
         // Act
-        String jsonResponse = requestHandler.getResults(request, response);
+        requestHandler.getResults(request, response);
 
         // Assert
+        String jsonResponse = body.toString(StandardCharsets.UTF_8);
         assertNotNull(jsonResponse);
         verify(response).type("application/json");
         verify(response).status(200);
@@ -81,14 +96,439 @@ public class CrawlerRequestHandlerTest {
         verify(crawlerService).initializeDataStructures("testing");
 
         // Wait for the asynchronous operation to complete
-        CompletableFuture<Void> asyncOperation = CompletableFuture.runAsync(() -> {
-            verify(crawlerService).crawl(mockSearchId);
-        });
-        // Join the CompletableFuture to wait for completion
-        asyncOperation.join();
+        verify(crawlerService, timeout(5000)).crawl(mockSearchId);
 
         // Verify that the returned JSON response contains the expected searchId
         CrawlResponse crawlResponse = new Gson().fromJson(jsonResponse, CrawlResponse.class);
         assertEquals(mockSearchId, crawlResponse.getId());
     }
+
+    @Test
+    void testStartSearch_CompletedWithoutCrawling() {
+        // Arrange
+        CrawlerService crawlerService = mock(CrawlerService.class);
+        CrawlerRequestHandler requestHandler = new CrawlerRequestHandler(crawlerService);
+        Request request = mock(Request.class);
+        Response response = mock(Response.class);
+        when(request.body()).thenReturn("{ \"keyword\": \"testing\" }");
+        String mockSearchId = "mockSearchId";
+        when(crawlerService.initializeDataStructures(anyString())).thenReturn(mockSearchId);
+        when(crawlerService.completeWithoutCrawling(mockSearchId)).thenReturn(true);
+
+        // Act
+        String jsonResponse = requestHandler.startSearch(request, response);
+
+        // Assert
+        verify(response).status(200);
+        verify(crawlerService, never()).crawl(anyString());
+        CrawlResponse crawlResponse = new Gson().fromJson(jsonResponse, CrawlResponse.class);
+        assertEquals(mockSearchId, crawlResponse.getId());
+    }
+
+    @Test
+    void testGetResults_SinceCursor() throws IOException {
+        // Arrange
+        CrawlerService crawlerService = mock(CrawlerService.class);
+        CrawlerRequestHandler requestHandler = new CrawlerRequestHandler(crawlerService);
+        Request request = mock(Request.class);
+        Response response = mock(Response.class);
+        String searchId = "abc123d4";
+        when(request.params("id")).thenReturn(searchId);
+        when(request.queryParams("since")).thenReturn("1");
+        SearchResult searchResult = new SearchResult(searchId);
+        searchResult.addUrl("http://test.com/1");
+        searchResult.addUrl("http://test.com/2");
+        searchResult.addUrl("http://test.com/3");
+        when(crawlerService.getSearchResult(searchId)).thenReturn(searchResult);
+        ByteArrayOutputStream body = captureBody(response);
+
+        // Act
+        requestHandler.getResults(request, response);
+
+        // Assert
+        verify(response).status(200);
+        String jsonResponse = body.toString(StandardCharsets.UTF_8);
+        JsonObject jsonObject = JsonParser.parseString(jsonResponse).getAsJsonObject();
+        JsonArray urlsArray = jsonObject.getAsJsonArray("urls");
+        assertEquals(2, urlsArray.size());
+        assertEquals("http://test.com/2", urlsArray.get(0).getAsString());
+        assertEquals("http://test.com/3", urlsArray.get(1).getAsString());
+        assertEquals(3, jsonObject.get("next").getAsInt());
+    }
+
+    @Test
+    void testGetResults_InvalidCursor() throws IOException {
+        // Arrange
+        CrawlerService crawlerService = mock(CrawlerService.class);
+        CrawlerRequestHandler requestHandler = new CrawlerRequestHandler(crawlerService);
+        Request request = mock(Request.class);
+        Response response = mock(Response.class);
+        when(request.params("id")).thenReturn("abc123d4");
+        when(request.queryParams("since")).thenReturn("-1");
+
+        // Act
+        String jsonResponse = requestHandler.getResults(request, response);
+
+        // Assert
+        verify(response).status(400);
+        assertEquals("", jsonResponse);
+    }
+
+    @Test
+    void testGetResults_NotModified() throws IOException {
+        // Arrange
+        CrawlerService crawlerService = mock(CrawlerService.class);
+        CrawlerRequestHandler requestHandler = new CrawlerRequestHandler(crawlerService);
+        Request request = mock(Request.class);
+        Response response = mock(Response.class);
+        String searchId = "abc123d4";
+        when(request.params("id")).thenReturn(searchId);
+        SearchResult searchResult = new SearchResult(searchId);
+        searchResult.addUrl("http://test.com");
+        when(crawlerService.getSearchResult(searchId)).thenReturn(searchResult);
+        captureBody(response);
+        requestHandler.getResults(request, response);
+        ArgumentCaptor<String> eTag = ArgumentCaptor.forClass(String.class);
+        verify(response).header(eq("ETag"), eTag.capture());
+        when(request.headers("If-None-Match")).thenReturn(eTag.getValue());
+        Response secondResponse = mock(Response.class);
+
+        // Act
+        String jsonResponse = requestHandler.getResults(request, secondResponse);
+
+        // Assert
+        verify(secondResponse).status(304);
+        assertEquals("", jsonResponse);
+    }
+
+    @Test
+    void testGetResults_ETagDependsOnEncoding() throws IOException {
+        // Arrange
+        CrawlerService crawlerService = mock(CrawlerService.class);
+        CrawlerRequestHandler requestHandler = new CrawlerRequestHandler(crawlerService);
+        Request request = mock(Request.class);
+        Response response = mock(Response.class);
+        String searchId = "abc123d4";
+        when(request.params("id")).thenReturn(searchId);
+        when(request.headers("Accept-Encoding")).thenReturn("gzip");
+        SearchResult searchResult = new SearchResult(searchId);
+        searchResult.addUrl("http://test.com");
+        when(crawlerService.getSearchResult(searchId)).thenReturn(searchResult);
+        captureBody(response);
+        requestHandler.getResults(request, response);
+        ArgumentCaptor<String> gzipETag = ArgumentCaptor.forClass(String.class);
+        verify(response).header(eq("ETag"), gzipETag.capture());
+        when(request.headers("Accept-Encoding")).thenReturn(null);
+        when(request.headers("If-None-Match")).thenReturn(gzipETag.getValue());
+        Response identityResponse = mock(Response.class);
+        captureBody(identityResponse);
+
+        // Act
+        requestHandler.getResults(request, identityResponse);
+
+        // Assert
+        ArgumentCaptor<String> identityETag = ArgumentCaptor.forClass(String.class);
+        verify(identityResponse).header(eq("ETag"), identityETag.capture());
+        assertNotEquals(gzipETag.getValue(), identityETag.getValue());
+        verify(identityResponse).status(200);
+    }
+
+    @Test
+    void testMatchesETag() {
+        // Act and Assert
+        assertTrue(CrawlerRequestHandler.matchesETag("\"a\"", "\"a\""));
+        assertTrue(CrawlerRequestHandler.matchesETag("\"b\", \"a\"", "\"a\""));
+        assertTrue(CrawlerRequestHandler.matchesETag("W/\"a\"", "\"a\""));
+        assertTrue(CrawlerRequestHandler.matchesETag("\"a\"", "W/\"a\""));
+        assertTrue(CrawlerRequestHandler.matchesETag("*", "\"a\""));
+        assertFalse(CrawlerRequestHandler.matchesETag("\"ab\", \"b\"", "\"a\""));
+        assertFalse(CrawlerRequestHandler.matchesETag("a", "\"a\""));
+        assertFalse(CrawlerRequestHandler.matchesETag("\"a", "\"a\""));
+        assertFalse(CrawlerRequestHandler.matchesETag(null, "\"a\""));
+    }
+
+    @Test
+    void testGetResults_ModifiedAfterNewUrl() throws IOException {
+        // Arrange
+        CrawlerService crawlerService = mock(CrawlerService.class);
+        CrawlerRequestHandler requestHandler = new CrawlerRequestHandler(crawlerService);
+        Request request = mock(Request.class);
+        Response response = mock(Response.class);
+        String searchId = "abc123d4";
+        when(request.params("id")).thenReturn(searchId);
+        SearchResult searchResult = new SearchResult(searchId);
+        when(crawlerService.getSearchResult(searchId)).thenReturn(searchResult);
+        captureBody(response);
+        requestHandler.getResults(request, response);
+        ArgumentCaptor<String> eTag = ArgumentCaptor.forClass(String.class);
+        verify(response).header(eq("ETag"), eTag.capture());
+        when(request.headers("If-None-Match")).thenReturn(eTag.getValue());
+        searchResult.addUrl("http://test.com");
+        Response secondResponse = mock(Response.class);
+        ByteArrayOutputStream body = captureBody(secondResponse);
+
+        // Act
+        requestHandler.getResults(request, secondResponse);
+
+        // Assert
+        verify(secondResponse).status(200);
+        assertTrue(body.toString(StandardCharsets.UTF_8).contains("http://test.com"));
+    }
+
+    @Test
+    void testStreamResults_ReplaysAndFollowsUrls() throws Exception {
+        // Arrange
+        CrawlerService crawlerService = mock(CrawlerService.class);
+        CrawlerRequestHandler requestHandler = new CrawlerRequestHandler(crawlerService);
+        Request request = mock(Request.class);
+        Response response = mock(Response.class);
+        String searchId = "abc123d4";
+        when(request.params("id")).thenReturn(searchId);
+        SearchResult searchResult = new SearchResult(searchId);
+        searchResult.addUrl("http://test.com/1");
+        when(crawlerService.getSearchResult(searchId)).thenReturn(searchResult);
+        ByteArrayOutputStream body = captureBody(response);
+        Thread crawl = new Thread(() -> {
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            searchResult.addUrl("http://test.com/2");
+            searchResult.setStatus(Status.done);
+        });
+
+        // Act
+        crawl.start();
+        requestHandler.streamResults(request, response);
+        crawl.join();
+
+        // Assert
+        verify(response).type("text/event-stream");
+        String events = body.toString(StandardCharsets.UTF_8);
+        assertTrue(events.startsWith("event: url\nid: 1\ndata: http://test.com/1\n\n"));
+        assertTrue(events.contains("event: url\nid: 2\ndata: http://test.com/2\n\n"));
+        assertTrue(events.contains("event: done\nid: 2\n"));
+    }
+
+    @Test
+    void testStreamResults_ResumesFromLastEventId() throws Exception {
+        // Arrange
+        CrawlerService crawlerService = mock(CrawlerService.class);
+        CrawlerRequestHandler requestHandler = new CrawlerRequestHandler(crawlerService);
+        Request request = mock(Request.class);
+        Response response = mock(Response.class);
+        String searchId = "abc123d4";
+        when(request.params("id")).thenReturn(searchId);
+        when(request.headers("Last-Event-ID")).thenReturn("1");
+        SearchResult searchResult = new SearchResult(searchId);
+        searchResult.addUrl("http://test.com/1");
+        searchResult.addUrl("http://test.com/2");
+        searchResult.setStatus(Status.done);
+        when(crawlerService.getSearchResult(searchId)).thenReturn(searchResult);
+        ByteArrayOutputStream body = captureBody(response);
+
+        // Act
+        requestHandler.streamResults(request, response);
+
+        // Assert
+        String events = body.toString(StandardCharsets.UTF_8);
+        assertFalse(events.contains("http://test.com/1"));
+        assertTrue(events.startsWith("event: url\nid: 2\ndata: http://test.com/2\n\n"));
+    }
+
+    @Test
+    void testStreamResults_TooManyStreams() throws Exception {
+        // Arrange
+        CrawlerService crawlerService = mock(CrawlerService.class);
+        CrawlerRequestHandler requestHandler = new CrawlerRequestHandler(crawlerService);
+        requestHandler.setMaxStreams(1);
+        Request request = mock(Request.class);
+        Response openResponse = mock(Response.class);
+        Response rejectedResponse = mock(Response.class);
+        String searchId = "abc123d4";
+        when(request.params("id")).thenReturn(searchId);
+        SearchResult searchResult = new SearchResult(searchId);
+        when(crawlerService.getSearchResult(searchId)).thenReturn(searchResult);
+        captureBody(openResponse);
+        Thread openStream = new Thread(() -> {
+            try {
+                requestHandler.streamResults(request, openResponse);
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        });
+        openStream.start();
+        while (requestHandler.getOpenStreamCount() == 0) {
+            Thread.sleep(10);
+        }
+
+        // Act
+        requestHandler.streamResults(request, rejectedResponse);
+        searchResult.setStatus(Status.done);
+        openStream.join();
+
+        // Assert
+        verify(rejectedResponse).status(503);
+        verify(openResponse).status(200);
+        assertEquals(0, requestHandler.getOpenStreamCount());
+        assertThrows(IllegalArgumentException.class, () -> requestHandler.setMaxStreams(0));
+    }
+
+    @Test
+    void testStreamResults_MaxStreamDuration() throws Exception {
+        // Arrange
+        CrawlerService crawlerService = mock(CrawlerService.class);
+        CrawlerRequestHandler requestHandler = new CrawlerRequestHandler(crawlerService);
+        requestHandler.setMaxStreamDuration(Duration.ofMillis(100));
+        Request request = mock(Request.class);
+        Response response = mock(Response.class);
+        String searchId = "abc123d4";
+        when(request.params("id")).thenReturn(searchId);
+        SearchResult searchResult = new SearchResult(searchId);
+        searchResult.addUrl("http://test.com/1");
+        when(crawlerService.getSearchResult(searchId)).thenReturn(searchResult);
+        ByteArrayOutputStream body = captureBody(response);
+
+        // Act
+        requestHandler.streamResults(request, response);
+
+        // Assert
+        String events = body.toString(StandardCharsets.UTF_8);
+        assertTrue(events.startsWith("event: url\nid: 1\ndata: http://test.com/1\n\n"));
+        assertFalse(events.contains("event: done"));
+        assertEquals(0, requestHandler.getOpenStreamCount());
+        assertThrows(IllegalArgumentException.class, () -> requestHandler.setMaxStreamDuration(Duration.ZERO));
+    }
+
+    @Test
+    void testStreamResults_UnknownSearch() throws Exception {
+        // Arrange
+        CrawlerService crawlerService = mock(CrawlerService.class);
+        CrawlerRequestHandler requestHandler = new CrawlerRequestHandler(crawlerService);
+        Request request = mock(Request.class);
+        Response response = mock(Response.class);
+        when(request.params("id")).thenReturn("unknown1");
+
+        // Act
+        requestHandler.streamResults(request, response);
+
+        // Assert
+        verify(response).status(404);
+    }
+
+    @Test
+    void testGetResults_UnknownSearch() throws IOException {
+        // Arrange
+        CrawlerService crawlerService = mock(CrawlerService.class);
+        CrawlerRequestHandler requestHandler = new CrawlerRequestHandler(crawlerService);
+        Request request = mock(Request.class);
+        Response response = mock(Response.class);
+        when(request.params("id")).thenReturn("unknown1");
+
+        // Act
+        String jsonResponse = requestHandler.getResults(request, response);
+
+        // Assert
+        verify(response).status(404);
+        assertEquals("", jsonResponse);
+    }
+
+    @Test
+    void testGetResults_NdjsonWithGzip() throws IOException {
+        // Arrange
+        CrawlerService crawlerService = mock(CrawlerService.class);
+        CrawlerRequestHandler requestHandler = new CrawlerRequestHandler(crawlerService);
+        Request request = mock(Request.class);
+        Response response = mock(Response.class);
+        String searchId = "abc123d4";
+        when(request.params("id")).thenReturn(searchId);
+        when(request.queryParams("format")).thenReturn("ndjson");
+        when(request.headers("Accept-Encoding")).thenReturn("gzip, deflate");
+        SearchResult searchResult = new SearchResult(searchId);
+        searchResult.addUrl("http://test.com/1");
+        searchResult.addUrl("http://test.com/2");
+        searchResult.setStatus(Status.done);
+        when(crawlerService.getSearchResult(searchId)).thenReturn(searchResult);
+        ByteArrayOutputStream body = captureBody(response);
+
+        // Act
+        requestHandler.getResults(request, response);
+
+        // Assert
+        verify(response).type("application/x-ndjson");
+        verify(response).header("Content-Encoding", "gzip");
+        String ndjson = new String(new GZIPInputStream(new ByteArrayInputStream(body.toByteArray())).readAllBytes(),
+                StandardCharsets.UTF_8);
+        String[] lines = ndjson.split("\n");
+        assertEquals(3, lines.length);
+        JsonObject header = JsonParser.parseString(lines[0]).getAsJsonObject();
+        assertEquals("done", header.get("status").getAsString());
+        assertEquals(2, header.get("next").getAsInt());
+        assertEquals("http://test.com/2", JsonParser.parseString(lines[2]).getAsJsonObject().get("url").getAsString());
+    }
+
+    @Test
+    void testGetMetrics() throws IOException {
+        // Arrange
+        CrawlerService crawlerService = mock(CrawlerService.class);
+        when(crawlerService.getMetrics()).thenReturn(new CrawlMetrics());
+        CrawlerRequestHandler requestHandler = new CrawlerRequestHandler(crawlerService);
+        Request request = mock(Request.class);
+        Response response = mock(Response.class);
+        when(request.params("id")).thenReturn("abc123d4");
+        requestHandler.getResults(request, mock(Response.class));
+        ByteArrayOutputStream body = captureBody(response);
+
+        // Act
+        requestHandler.getMetrics(request, response);
+
+        // Assert
+        verify(response).status(200);
+        verify(response).type(PrometheusWriter.CONTENT_TYPE);
+        verify(crawlerService).writeSearchMetrics(any(PrometheusWriter.class));
+        String metrics = body.toString(StandardCharsets.UTF_8);
+        assertTrue(metrics.contains("# TYPE crawler_pages_fetched_total counter\n"));
+        assertTrue(metrics.contains("crawler_executor_queued_crawls 0\n"));
+        assertTrue(metrics.contains("crawler_http_request_duration_seconds_count{method=\"GET\",route=\"/crawl/:id\"} 1\n"));
+    }
+
+    /**
+     * Makes the raw response of a mocked Spark response write to a byte array.
+     * @param response The mocked Spark response.
+     * @return The byte array that receives the response body.
+     */
+    private static ByteArrayOutputStream captureBody(Response response) throws IOException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        HttpServletResponse rawResponse = mock(HttpServletResponse.class);
+        when(rawResponse.getOutputStream()).thenReturn(new CapturingOutputStream(body));
+        when(response.raw()).thenReturn(rawResponse);
+        return body;
+    }
+
+    /**
+     * A servlet output stream that captures what is written to it.
+     */
+    private static class CapturingOutputStream extends ServletOutputStream {
+
+        private final ByteArrayOutputStream target;
+
+        CapturingOutputStream(ByteArrayOutputStream target) {
+            this.target = target;
+        }
+
+        @Override
+        public void write(int b) {
+            target.write(b);
+        }
+
+        @Override
+        public boolean isReady() {
+            return true;
+        }
+
+        @Override
+        public void setWriteListener(WriteListener writeListener) {
+        }
+    }
 }
@@ -1,10 +1,33 @@
 package com.guerrero.backend.service;
 
+import com.guerrero.backend.cache.KeywordResultCache;
+import com.guerrero.backend.fetch.FetchResponse;
+import com.guerrero.backend.fetch.PageFetcher;
+import com.guerrero.backend.fetch.UrlStreamPageFetcher;
+import com.guerrero.backend.matcher.KeywordMatcher;
+import com.guerrero.backend.metrics.CrawlMetrics;
+import com.guerrero.backend.metrics.PrometheusWriter;
 import com.guerrero.backend.model.Search;
 import com.guerrero.backend.model.SearchResult;
 import com.guerrero.backend.model.Status;
+import com.guerrero.backend.store.CheckpointStore;
+import com.guerrero.backend.store.ResultStore;
+import com.guerrero.backend.util.VisitedUrlSet;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -58,7 +81,7 @@ public class CrawlerServiceTest {
         // Arrange
         CrawlerService crawlerService = new CrawlerService(baseUrl);
         String searchId = crawlerService.initializeDataStructures(validKeyword);
-        crawlerService.getSearchResults().get(searchId).getUrls().add(baseUrl);
+        crawlerService.getSearchResults().get(searchId).addUrl(baseUrl);
         int expectedUrlsSetSize = 1;
 
         // Act
@@ -79,7 +102,7 @@ public class CrawlerServiceTest {
         CrawlerService crawlerService = new CrawlerService(baseUrl);
 
         // Act
-        boolean htmlContainsKeyword = crawlerService.htmlContainsKeyword(validKeyword, rawHTML);
+        boolean htmlContainsKeyword = crawlerService.htmlContainsKeyword(KeywordMatcher.forKeyword(validKeyword), rawHTML);
 
         // Assert
         assertTrue(htmlContainsKeyword);
@@ -92,7 +115,7 @@ public class CrawlerServiceTest {
         CrawlerService crawlerService = new CrawlerService(baseUrl);
 
         // Act
-        boolean htmlContainsKeyword = crawlerService.htmlContainsKeyword(validKeyword, rawHTML);
+        boolean htmlContainsKeyword = crawlerService.htmlContainsKeyword(KeywordMatcher.forKeyword(validKeyword), rawHTML);
 
         // Assert
         assertFalse(htmlContainsKeyword);
@@ -111,7 +134,8 @@ public class CrawlerServiceTest {
         crawlerService.crawl(searchId);
 
         // Assert
-        assertTrue(crawlerService.getUrlQueues().get(searchId).isEmpty());
+        assertNull(crawlerService.getUrlQueues().get(searchId));
+        assertNull(crawlerService.getFoundUrlsMap().get(searchId));
         assertTrue(crawlerService.getSearchResult(searchId).getUrls().isEmpty());
         assertEquals(Status.done, crawlerService.getSearchResult(searchId).getStatus());
     }
@@ -132,9 +156,502 @@ public class CrawlerServiceTest {
         crawlerService.crawl(searchId);
 
         // Assert
-        assertTrue(crawlerService.getUrlQueues().get(searchId).isEmpty());
+        assertNull(crawlerService.getUrlQueues().get(searchId));
         assertEquals(expectedUrlsSetSize, crawlerService.getSearchResult(searchId).getUrls().size());
         assertTrue(crawlerService.getSearchResult(searchId).getUrls().contains(url));
         assertEquals(Status.done, crawlerService.getSearchResult(searchId).getStatus());
     }
+
+    @Test
+    void testConstructor_InvalidWorkerCount() {
+        // Act and Assert
+        assertThrows(IllegalArgumentException.class, () -> new CrawlerService(baseUrl, 0));
+    }
+
+    @Test
+    void testCrawl_ParallelWorkers(@TempDir Path siteDir) throws IOException {
+        // Arrange
+        int pageCount = 30;
+        int workerCount = 4;
+        writeLinkedSite(siteDir, pageCount);
+        String url = "file:" + siteDir.toAbsolutePath() + "/";
+        CrawlerService crawlerService = new CrawlerService(url, workerCount);
+        crawlerService.setPageFetcher(fileSite());
+        String searchId = crawlerService.initializeDataStructures("needle");
+        VisitedUrlSet foundUrls = crawlerService.getFoundUrlsMap().get(searchId);
+
+        // Act
+        crawlerService.crawl(searchId);
+
+        // Assert
+        SearchResult searchResult = crawlerService.getSearchResult(searchId);
+        assertEquals(Status.done, searchResult.getStatus());
+        assertNull(crawlerService.getUrlQueues().get(searchId));
+        assertEquals(pageCount + 1, foundUrls.size());
+        assertEquals(pageCount / 3, searchResult.getUrls().size());
+        assertTrue(searchResult.getUrls().contains(url + "page3.html"));
+        assertFalse(searchResult.getUrls().contains(url + "page4.html"));
+    }
+
+    @Test
+    void testCrawl_WorkersRunOnWorkerExecutor(@TempDir Path siteDir) throws IOException {
+        // Arrange
+        writeLinkedSite(siteDir, 30);
+        String url = "file:" + siteDir.toAbsolutePath() + "/";
+        CrawlExecutor crawlExecutor = new CrawlExecutor();
+        CrawlerService crawlerService = new CrawlerService(url, 4);
+        crawlerService.setWorkerExecutor(crawlExecutor);
+        PageFetcher site = fileSite();
+        Set<String> helperThreads = ConcurrentHashMap.newKeySet();
+        String crawlThread = Thread.currentThread().getName();
+        crawlerService.setPageFetcher((pageUrl, headers) -> {
+            if (!Thread.currentThread().getName().equals(crawlThread)) {
+                helperThreads.add(Thread.currentThread().getName());
+            }
+            return site.fetch(pageUrl, headers);
+        });
+        String searchId = crawlerService.initializeDataStructures("needle");
+
+        // Act
+        crawlerService.crawl(searchId);
+
+        // Assert
+        assertEquals(10, crawlerService.getSearchResult(searchId).getUrls().size());
+        for (String threadName : helperThreads) {
+            assertTrue(crawlExecutor.isVirtualThreads() ? threadName.isEmpty() : threadName.startsWith("crawl-"),
+                    threadName);
+        }
+    }
+
+    @Test
+    void testCompleteWithoutCrawling(@TempDir Path siteDir) throws IOException {
+        // Arrange
+        writeLinkedSite(siteDir, 9);
+        String url = "file:" + siteDir.toAbsolutePath() + "/";
+        CrawlerService crawlerService = new CrawlerService(url, 2);
+        crawlerService.setPageFetcher(fileSite());
+        String searchBeforeIndex = crawlerService.initializeDataStructures("needle");
+        String multiWordSearch = crawlerService.initializeDataStructures("a needle");
+
+        // Act
+        boolean completedBeforeIndex = crawlerService.completeWithoutCrawling(searchBeforeIndex);
+        crawlerService.rebuildIndex();
+        String searchId = crawlerService.initializeDataStructures("Needle");
+        boolean completed = crawlerService.completeWithoutCrawling(searchId);
+
+        // Assert
+        assertFalse(completedBeforeIndex);
+        assertFalse(crawlerService.completeWithoutCrawling(multiWordSearch));
+        assertTrue(completed);
+        assertEquals(10, crawlerService.getSiteIndex().getPageCount());
+        SearchResult searchResult = crawlerService.getSearchResult(searchId);
+        assertEquals(Status.done, searchResult.getStatus());
+        assertEquals(3, searchResult.getUrls().size());
+        assertTrue(searchResult.getUrls().contains(url + "page6.html"));
+    }
+
+    @Test
+    void testCrawl_StreamingFetch(@TempDir Path siteDir) throws IOException {
+        // Arrange
+        int pageCount = 12;
+        writeLinkedSite(siteDir, pageCount);
+        String url = "file:" + siteDir.toAbsolutePath() + "/";
+        CrawlerService crawlerService = new CrawlerService(url, 2);
+        crawlerService.setPageFetcher(fileSite());
+        crawlerService.setStreamingFetch(true);
+        String searchId = crawlerService.initializeDataStructures("needle");
+        VisitedUrlSet foundUrls = crawlerService.getFoundUrlsMap().get(searchId);
+
+        // Act
+        crawlerService.crawl(searchId);
+
+        // Assert
+        SearchResult searchResult = crawlerService.getSearchResult(searchId);
+        assertEquals(Status.done, searchResult.getStatus());
+        assertEquals(pageCount + 1, foundUrls.size());
+        assertEquals(pageCount / 3, searchResult.getUrls().size());
+    }
+
+    @Test
+    void testCrawl_CanonicalizesFoundUrls(@TempDir Path siteDir) throws IOException {
+        // Arrange
+        Files.writeString(siteDir.resolve("index.html"), "needle <a href=\"page0.html\"> <a href=\"page0.html#top\">"
+                + " <a href=\"./sub/../page0.html?utm_source=mail\">");
+        Files.writeString(siteDir.resolve("page0.html"), "needle");
+        String url = "file:" + siteDir.toAbsolutePath() + "/";
+        CrawlerService crawlerService = new CrawlerService(url);
+        crawlerService.setPageFetcher(fileSite());
+        String searchId = crawlerService.initializeDataStructures("needle");
+        VisitedUrlSet foundUrls = crawlerService.getFoundUrlsMap().get(searchId);
+
+        // Act
+        crawlerService.crawl(searchId);
+
+        // Assert
+        assertEquals(2, foundUrls.size());
+        assertEquals(List.of(url, url + "page0.html"), crawlerService.getSearchResult(searchId).getUrls());
+    }
+
+    @Test
+    void testCrawl_ResolvesLinksAgainstBaseElement(@TempDir Path siteDir) throws IOException {
+        // Arrange
+        Files.createDirectory(siteDir.resolve("pages"));
+        Files.writeString(siteDir.resolve("index.html"), "<BASE HREF='pages/'><A CLASS=link HREF=target.html>target</A>");
+        Files.writeString(siteDir.resolve("pages").resolve("target.html"), "needle");
+        String url = "file:" + siteDir.toAbsolutePath() + "/";
+        CrawlerService crawlerService = new CrawlerService(url);
+        crawlerService.setPageFetcher(fileSite());
+        String searchId = crawlerService.initializeDataStructures("needle");
+
+        // Act
+        crawlerService.crawl(searchId);
+
+        // Assert
+        assertEquals(List.of(url + "pages/target.html"), crawlerService.getSearchResult(searchId).getUrls());
+    }
+
+    @Test
+    void testCrawl_KeepsLineBreaksBetweenWords(@TempDir Path siteDir) throws IOException {
+        // Arrange
+        Files.writeString(siteDir.resolve("page"), "<p>some\ntext</p>");
+        String url = "file:" + siteDir.toAbsolutePath() + "/page";
+        CrawlerService crawlerService = new CrawlerService(url);
+        String searchId = crawlerService.initializeDataStructures("sometext");
+
+        // Act
+        crawlerService.crawl(searchId);
+
+        // Assert
+        assertTrue(crawlerService.getSearchResult(searchId).getUrls().isEmpty());
+    }
+
+    @Test
+    void testCrawl_MaxPageBytes(@TempDir Path siteDir) throws IOException {
+        // Arrange
+        Files.writeString(siteDir.resolve("page"), "<p>" + "x ".repeat(100) + "needle</p>");
+        String url = "file:" + siteDir.toAbsolutePath() + "/page";
+        CrawlerService crawlerService = new CrawlerService(url);
+        crawlerService.setMaxPageBytes(100);
+        String searchId = crawlerService.initializeDataStructures("needle");
+
+        // Act
+        crawlerService.crawl(searchId);
+
+        // Assert
+        assertTrue(crawlerService.getSearchResult(searchId).getUrls().isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> crawlerService.setMaxPageBytes(0));
+    }
+
+    @Test
+    void testGetSearchResult_FromResultStoreAfterRestart(@TempDir Path siteDir, @TempDir Path storeDir) throws IOException {
+        // Arrange
+        writeLinkedSite(siteDir, 9);
+        String url = "file:" + siteDir.toAbsolutePath() + "/";
+        CrawlerService crawlerService = new CrawlerService(url);
+        crawlerService.setPageFetcher(fileSite());
+        ResultStore resultStore = ResultStore.open(storeDir, 4096);
+        crawlerService.setResultStore(resultStore);
+        String searchId = crawlerService.initializeDataStructures("needle");
+        crawlerService.crawl(searchId);
+        resultStore.close();
+        CrawlerService restartedService = new CrawlerService(url);
+        restartedService.setResultStore(ResultStore.open(storeDir, 4096));
+
+        // Act
+        SearchResult searchResult = restartedService.getSearchResult(searchId);
+
+        // Assert
+        assertNotNull(searchResult);
+        assertEquals(Status.done, searchResult.getStatus());
+        assertEquals(crawlerService.getSearchResult(searchId).getUrls(), searchResult.getUrls());
+        assertNull(restartedService.getSearchResult("unknown1"));
+    }
+
+    @Test
+    void testCompleteWithoutCrawling_ResultCache(@TempDir Path siteDir) throws IOException {
+        // Arrange
+        writeLinkedSite(siteDir, 9);
+        String url = "file:" + siteDir.toAbsolutePath() + "/";
+        CrawlerService crawlerService = new CrawlerService(url);
+        crawlerService.setPageFetcher(fileSite());
+        crawlerService.setResultCache(new KeywordResultCache(60, 10));
+        String leaderId = crawlerService.initializeDataStructures("needle");
+        String followerId = crawlerService.initializeDataStructures("NEEDLE");
+
+        // Act
+        boolean leaderCompleted = crawlerService.completeWithoutCrawling(leaderId);
+        boolean followerCompleted = crawlerService.completeWithoutCrawling(followerId);
+        crawlerService.crawl(leaderId);
+        String repeatId = crawlerService.initializeDataStructures("needle");
+        boolean repeatCompleted = crawlerService.completeWithoutCrawling(repeatId);
+
+        // Assert
+        assertFalse(leaderCompleted);
+        assertTrue(followerCompleted);
+        assertTrue(repeatCompleted);
+        List<String> leaderUrls = crawlerService.getSearchResult(leaderId).getUrls();
+        assertEquals(3, leaderUrls.size());
+        assertEquals(Status.done, crawlerService.getSearchResult(followerId).getStatus());
+        assertEquals(Set.copyOf(leaderUrls), Set.copyOf(crawlerService.getSearchResult(followerId).getUrls()));
+        assertEquals(Status.done, crawlerService.getSearchResult(repeatId).getStatus());
+        assertEquals(leaderUrls, crawlerService.getSearchResult(repeatId).getUrls());
+    }
+
+    @Test
+    void testCrawl_FailedLeaderReleasesFollowers() {
+        // Arrange
+        CrawlerService crawlerService = new CrawlerService("http://example.com/");
+        crawlerService.setResultCache(new KeywordResultCache(60, 10));
+        crawlerService.setSitemapSeeding(true);
+        crawlerService.setPageFetcher((pageUrl, headers) -> {
+            throw new IllegalStateException("Simulated fetcher failure");
+        });
+        String leaderId = crawlerService.initializeDataStructures("needle");
+        String followerId = crawlerService.initializeDataStructures("needle");
+        crawlerService.completeWithoutCrawling(leaderId);
+        crawlerService.completeWithoutCrawling(followerId);
+
+        // Act
+        crawlerService.crawl(leaderId);
+        String repeatId = crawlerService.initializeDataStructures("needle");
+        boolean repeatCompleted = crawlerService.completeWithoutCrawling(repeatId);
+
+        // Assert
+        assertEquals(Status.done, crawlerService.getSearchResult(leaderId).getStatus());
+        assertEquals(Status.done, crawlerService.getSearchResult(followerId).getStatus());
+        assertFalse(repeatCompleted);
+    }
+
+    @Test
+    void testResumeCheckpointedSearches(@TempDir Path siteDir, @TempDir Path checkpointDir) throws IOException {
+        // Arrange
+        writeLinkedSite(siteDir, 9);
+        String url = "file:" + siteDir.toAbsolutePath() + "/";
+        PageFetcher site = fileSite();
+        CrawlerService crawlerService = new CrawlerService(url);
+        crawlerService.setCheckpointStore(CheckpointStore.open(checkpointDir));
+        crawlerService.setPageFetcher((pageUrl, headers) -> {
+            if (pageUrl.endsWith("page4.html")) {
+                crawlerService.checkpointActiveSearches();
+                throw new AssertionError("Simulated crash");
+            }
+            return site.fetch(pageUrl, headers);
+        });
+        String searchId = crawlerService.initializeDataStructures("needle");
+        assertThrows(AssertionError.class, () -> crawlerService.crawl(searchId));
+        List<String> fetchedUrls = new CopyOnWriteArrayList<>();
+        CrawlerService restartedService = new CrawlerService(url);
+        restartedService.setCheckpointStore(CheckpointStore.open(checkpointDir));
+        restartedService.setPageFetcher((pageUrl, headers) -> {
+            fetchedUrls.add(pageUrl);
+            return site.fetch(pageUrl, headers);
+        });
+
+        // Act
+        List<String> resumedIds = restartedService.resumeCheckpointedSearches();
+        int resumedUrlCount = restartedService.getSearchResult(searchId).getUrlCount();
+        restartedService.crawl(searchId);
+
+        // Assert
+        assertEquals(List.of(searchId), resumedIds);
+        assertEquals(2, resumedUrlCount);
+        SearchResult searchResult = restartedService.getSearchResult(searchId);
+        assertEquals(Status.done, searchResult.getStatus());
+        assertEquals(3, searchResult.getUrlCount());
+        assertEquals(5, fetchedUrls.size());
+        assertTrue(fetchedUrls.contains(url + "page4.html"));
+        assertFalse(fetchedUrls.contains(url + "page0.html"));
+        assertFalse(Files.exists(checkpointDir.resolve(searchId + ".ckpt")));
+    }
+
+    @Test
+    void testCrawl_SkipsRedirectToFoundUrl() {
+        // Arrange
+        String siteUrl = "http://example.com/";
+        Map<String, String> pages = Map.of(siteUrl, "<a href=\"/a\">a</a> <a href=\"/b\">b</a>",
+                siteUrl + "b", "needle");
+        CrawlerService crawlerService = new CrawlerService(siteUrl);
+        crawlerService.setPageFetcher(fakeSite(pages, Map.of(siteUrl + "a", siteUrl + "b")));
+        String searchId = crawlerService.initializeDataStructures("needle");
+
+        // Act
+        crawlerService.crawl(searchId);
+
+        // Assert
+        assertEquals(List.of(siteUrl + "b"), crawlerService.getSearchResult(searchId).getUrls());
+    }
+
+    @Test
+    void testCrawl_StaysUnderBasePathSegment() {
+        // Arrange
+        String siteUrl = "http://example.com/docs";
+        Map<String, String> pages = Map.of(siteUrl, "<a href=\"/docs/a\">a</a> <a href=\"/docs-old/b\">b</a>",
+                "http://example.com/docs/a", "needle",
+                "http://example.com/docs-old/b", "needle");
+        CrawlerService crawlerService = new CrawlerService(siteUrl);
+        crawlerService.setPageFetcher(fakeSite(pages, Map.of()));
+        String searchId = crawlerService.initializeDataStructures("needle");
+
+        // Act
+        crawlerService.crawl(searchId);
+
+        // Assert
+        assertEquals(List.of("http://example.com/docs/a"), crawlerService.getSearchResult(searchId).getUrls());
+    }
+
+    @Test
+    void testCrawl_ResolvesLinksAgainstRedirectTarget() {
+        // Arrange
+        String siteUrl = "http://example.com/";
+        Map<String, String> pages = Map.of(siteUrl, "<a href=\"docs\">docs</a>",
+                siteUrl + "docs/", "<a href=\"guide.html\">guide</a>",
+                siteUrl + "docs/guide.html", "needle");
+        Map<String, String> redirects = Map.of(siteUrl + "docs", siteUrl + "docs/");
+        CrawlerService crawlerService = new CrawlerService(siteUrl);
+        crawlerService.setPageFetcher(fakeSite(pages, redirects));
+        CrawlerService streamingService = new CrawlerService(siteUrl);
+        streamingService.setPageFetcher(fakeSite(pages, redirects));
+        streamingService.setStreamingFetch(true);
+        String searchId = crawlerService.initializeDataStructures("needle");
+        String streamingSearchId = streamingService.initializeDataStructures("needle");
+
+        // Act
+        crawlerService.crawl(searchId);
+        streamingService.crawl(streamingSearchId);
+
+        // Assert
+        assertEquals(List.of(siteUrl + "docs/guide.html"), crawlerService.getSearchResult(searchId).getUrls());
+        assertEquals(List.of(siteUrl + "docs/guide.html"), streamingService.getSearchResult(streamingSearchId).getUrls());
+    }
+
+    @Test
+    void testResumeCheckpointedSearches_DoesNotSeedFromSitemaps(@TempDir Path checkpointDir) throws IOException {
+        // Arrange
+        String siteUrl = "http://example.com/";
+        PageFetcher site = fakeSite(Map.of(siteUrl, "<a href=\"/a\">a</a> <a href=\"/b\">b</a>",
+                siteUrl + "a", "needle", siteUrl + "b", "needle"), Map.of());
+        CrawlerService crawlerService = new CrawlerService(siteUrl);
+        crawlerService.setSitemapSeeding(true);
+        crawlerService.setCheckpointStore(CheckpointStore.open(checkpointDir));
+        crawlerService.setPageFetcher((pageUrl, headers) -> {
+            if (pageUrl.equals(siteUrl + "a")) {
+                crawlerService.checkpointActiveSearches();
+                throw new AssertionError("Simulated crash");
+            }
+            return site.fetch(pageUrl, headers);
+        });
+        String searchId = crawlerService.initializeDataStructures("needle");
+        assertThrows(AssertionError.class, () -> crawlerService.crawl(searchId));
+        List<String> fetchedUrls = new CopyOnWriteArrayList<>();
+        CrawlerService restartedService = new CrawlerService(siteUrl);
+        restartedService.setSitemapSeeding(true);
+        restartedService.setCheckpointStore(CheckpointStore.open(checkpointDir));
+        restartedService.setPageFetcher((pageUrl, headers) -> {
+            fetchedUrls.add(pageUrl);
+            return site.fetch(pageUrl, headers);
+        });
+
+        // Act
+        restartedService.resumeCheckpointedSearches();
+        restartedService.crawl(searchId);
+
+        // Assert
+        assertEquals(Status.done, restartedService.getSearchResult(searchId).getStatus());
+        assertTrue(fetchedUrls.contains(siteUrl + "a"));
+        assertFalse(fetchedUrls.contains(siteUrl + "robots.txt"));
+        assertFalse(fetchedUrls.contains(siteUrl + "sitemap.xml"));
+    }
+
+    @Test
+    void testCrawl_RecordsMetrics(@TempDir Path siteDir) throws IOException {
+        // Arrange
+        writeLinkedSite(siteDir, 6);
+        Files.delete(siteDir.resolve("page5.html"));
+        long expectedBytes = 0;
+        for (String page : List.of("index.html", "page0.html", "page1.html", "page2.html", "page3.html", "page4.html")) {
+            expectedBytes += Files.size(siteDir.resolve(page));
+        }
+        String url = "file:" + siteDir.toAbsolutePath() + "/";
+        CrawlerService crawlerService = new CrawlerService(url);
+        crawlerService.setPageFetcher(fileSite());
+        String searchId = crawlerService.initializeDataStructures("needle");
+        CrawlMetrics metrics = crawlerService.getMetrics();
+
+        // Act
+        crawlerService.crawl(searchId);
+
+        // Assert
+        assertEquals(6, metrics.getPagesFetched());
+        assertEquals(expectedBytes, metrics.getBytesDownloaded());
+        assertEquals(1, metrics.getFetchErrors(CrawlMetrics.CAUSE_IO));
+        assertEquals(6, metrics.getFetchLatency().getCount());
+        assertEquals(7, metrics.getParseLatency().getCount());
+        assertEquals(7, metrics.getMatchLatency().getCount());
+    }
+
+    @Test
+    void testWriteSearchMetrics() throws IOException {
+        // Arrange
+        CrawlerService crawlerService = new CrawlerService(baseUrl);
+        String searchId = crawlerService.initializeDataStructures(validKeyword);
+        StringWriter output = new StringWriter();
+
+        // Act
+        crawlerService.writeSearchMetrics(new PrometheusWriter(output));
+
+        // Assert
+        String metrics = output.toString();
+        assertTrue(metrics.contains("crawler_active_searches 1\n"));
+        assertTrue(metrics.contains("crawler_search_frontier_urls{search=\"" + searchId + "\"} 1\n"));
+        assertTrue(metrics.contains("crawler_search_visited_urls{search=\"" + searchId + "\"} 1\n"));
+        assertTrue(metrics.contains("crawler_search_matches{search=\"" + searchId + "\"} 0\n"));
+    }
+
+    /**
+     * Creates a fetcher serving pages from memory, following the given redirects,
+     * and answering 404 Not Found for other URLs.
+     */
+    private static PageFetcher fakeSite(Map<String, String> pages, Map<String, String> redirects) {
+        return (pageUrl, headers) -> {
+            String finalUrl = redirects.getOrDefault(pageUrl, pageUrl);
+            String page = pages.get(finalUrl);
+            byte[] body = page == null ? new byte[0] : page.getBytes(StandardCharsets.UTF_8);
+            return new FetchResponse(pageUrl, finalUrl, page == null ? 404 : 200, Map.of(),
+                    new ByteArrayInputStream(body), () -> { });
+        };
+    }
+
+    /**
+     * Creates a fetcher reading file URLs, which answers a directory URL with the index.html page inside it.
+     */
+    private static PageFetcher fileSite() {
+        UrlStreamPageFetcher urlFetcher = new UrlStreamPageFetcher();
+        return (pageUrl, headers) -> {
+            if (!pageUrl.endsWith("/")) {
+                return urlFetcher.fetch(pageUrl, headers);
+            }
+            FetchResponse index = urlFetcher.fetch(pageUrl + "index.html", headers);
+            return new FetchResponse(pageUrl, pageUrl, index.getStatusCode(), index.getHeaders(), index.getBody(),
+                    () -> { });
+        };
+    }
+
+    /**
+     * Writes a site whose entry page index.html links to page0.html, and where each page links to the next two pages.
+     * Every third page contains the keyword "needle".
+     */
+    private static void writeLinkedSite(Path siteDir, int pageCount) throws IOException {
+        Files.writeString(siteDir.resolve("index.html"), "<html><a href=\"page0.html\">start</a></html>");
+        for (int i = 0; i < pageCount; i++) {
+            StringBuilder html = new StringBuilder("<html><body>");
+            if (i % 3 == 0) {
+                html.append("<p>a needle here</p>");
+            }
+            for (int next = i + 1; next <= i + 2 && next < pageCount; next++) {
+                html.append("<a href=\"page").append(next).append(".html\">next</a>");
+            }
+            html.append("</body></html>");
+            Files.writeString(siteDir.resolve("page" + i + ".html"), html.toString());
+        }
+    }
 }
@@ -0,0 +1,32 @@
+package com.guerrero.backend.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class IndexRefresherTest {
+
+    @Test
+    void testConstructor_InvalidInterval() {
+        // Arrange
+        CrawlerService crawlerService = mock(CrawlerService.class);
+
+        // Act and Assert
+        assertThrows(IllegalArgumentException.class, () -> new IndexRefresher(crawlerService, 0));
+    }
+
+    @Test
+    void testStart_RebuildsIndex() {
+        // Arrange
+        CrawlerService crawlerService = mock(CrawlerService.class);
+        IndexRefresher indexRefresher = new IndexRefresher(crawlerService, 60);
+
+        // Act
+        indexRefresher.start();
+
+        // Assert
+        verify(crawlerService, timeout(5000)).rebuildIndex();
+        indexRefresher.stop();
+    }
+}
@@ -0,0 +1,127 @@
+package com.guerrero.backend.service;
+
+import com.guerrero.backend.model.Search;
+import com.guerrero.backend.model.SearchResult;
+import com.guerrero.backend.model.Status;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SearchLifecycleManagerTest {
+
+    @Test
+    void testSetHeapBudget_SpillsOldestResults(@TempDir Path spillDirectory) {
+        // Arrange
+        Map<String, SearchResult> searchResults = new ConcurrentHashMap<>();
+        SearchLifecycleManager lifecycleManager = new SearchLifecycleManager(searchResults, new ConcurrentHashMap<>());
+        lifecycleManager.setHeapBudget(1000, spillDirectory);
+        addFinishedResult(searchResults, lifecycleManager, "search01", 5);
+
+        // Act
+        addFinishedResult(searchResults, lifecycleManager, "search02", 5);
+
+        // Assert
+        assertTrue(lifecycleManager.isSpilled("search01"));
+        assertFalse(searchResults.containsKey("search01"));
+        assertFalse(lifecycleManager.isSpilled("search02"));
+        assertTrue(lifecycleManager.getHeapBytes() <= 1000);
+    }
+
+    @Test
+    void testSetHeapBudget_DeletesStaleSpillFiles(@TempDir Path spillDirectory) throws IOException {
+        // Arrange
+        Path staleFile = Files.writeString(spillDirectory.resolve("search01.urls.gz"), "stale");
+        Map<String, SearchResult> searchResults = new ConcurrentHashMap<>();
+        SearchLifecycleManager lifecycleManager = new SearchLifecycleManager(searchResults, new ConcurrentHashMap<>());
+
+        // Act
+        lifecycleManager.setHeapBudget(1000, spillDirectory);
+
+        // Assert
+        assertFalse(Files.exists(staleFile));
+    }
+
+    @Test
+    void testLoad_ReadsSpilledResult(@TempDir Path spillDirectory) {
+        // Arrange
+        Map<String, SearchResult> searchResults = new ConcurrentHashMap<>();
+        SearchLifecycleManager lifecycleManager = new SearchLifecycleManager(searchResults, new ConcurrentHashMap<>());
+        lifecycleManager.setHeapBudget(1000, spillDirectory);
+        addFinishedResult(searchResults, lifecycleManager, "search01", 5);
+        addFinishedResult(searchResults, lifecycleManager, "search02", 5);
+
+        // Act
+        SearchResult searchResult = lifecycleManager.load("search01");
+
+        // Assert
+        assertNotNull(searchResult);
+        assertEquals(Status.done, searchResult.getStatus());
+        assertEquals(List.of("http://example.com/search01/0", "http://example.com/search01/1",
+                "http://example.com/search01/2", "http://example.com/search01/3",
+                "http://example.com/search01/4"), searchResult.getUrls());
+        assertSame(searchResult, searchResults.get("search01"));
+        assertTrue(lifecycleManager.isSpilled("search02"));
+    }
+
+    @Test
+    void testLoad_UnknownSearch() {
+        // Arrange
+        SearchLifecycleManager lifecycleManager = new SearchLifecycleManager(new ConcurrentHashMap<>(), new ConcurrentHashMap<>());
+
+        // Act and Assert
+        assertNull(lifecycleManager.load("unknown1"));
+    }
+
+    @Test
+    void testRemoveExpiredResults() throws InterruptedException {
+        // Arrange
+        Map<String, SearchResult> searchResults = new ConcurrentHashMap<>();
+        Map<String, Search> searches = new ConcurrentHashMap<>();
+        SearchLifecycleManager lifecycleManager = new SearchLifecycleManager(searchResults, searches);
+        lifecycleManager.setResultTtl(Duration.ofMillis(1));
+        addFinishedResult(searchResults, lifecycleManager, "search01", 1);
+        searchResults.put("search02", new SearchResult("search02"));
+        Thread.sleep(10);
+
+        // Act
+        int removed = lifecycleManager.removeExpiredResults();
+
+        // Assert
+        assertEquals(1, removed);
+        assertFalse(searchResults.containsKey("search01"));
+        assertTrue(searchResults.containsKey("search02"));
+        assertEquals(0, lifecycleManager.getHeapBytes());
+    }
+
+    @Test
+    void testSetResultTtl_Negative() {
+        // Arrange
+        SearchLifecycleManager lifecycleManager = new SearchLifecycleManager(new ConcurrentHashMap<>(), new ConcurrentHashMap<>());
+
+        // Act and Assert
+        assertThrows(IllegalArgumentException.class, () -> lifecycleManager.setResultTtl(Duration.ofMinutes(-1)));
+    }
+
+    /**
+     * Adds a finished result with a number of URLs of about 150 bytes of estimated heap each.
+     */
+    private static void addFinishedResult(Map<String, SearchResult> searchResults,
+                                          SearchLifecycleManager lifecycleManager, String searchId, int urlCount) {
+        SearchResult searchResult = new SearchResult(searchId);
+        for (int i = 0; i < urlCount; i++) {
+            searchResult.addUrl("http://example.com/" + searchId + "/" + i);
+        }
+        searchResult.setStatus(Status.done);
+        searchResults.put(searchId, searchResult);
+        lifecycleManager.onSearchFinished(searchId);
+    }
+}
@@ -0,0 +1,163 @@
+package com.guerrero.backend.service;
+
+import com.guerrero.backend.fetch.HttpClientPageFetcher;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SitemapSeederTest {
+
+    private HttpServer server;
+    private String baseUrl;
+    private final Map<String, byte[]> files = new ConcurrentHashMap<>();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", exchange -> {
+            byte[] body = files.get(exchange.getRequestURI().getPath());
+            if (body == null) {
+                exchange.sendResponseHeaders(404, -1);
+            } else {
+                exchange.sendResponseHeaders(200, body.length);
+                exchange.getResponseBody().write(body);
+            }
+            exchange.close();
+        });
+        server.start();
+        baseUrl = "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    void testSeed_RobotsSitemapIndexAndGzippedSitemap() throws IOException {
+        // Arrange
+        files.put("/robots.txt", ("User-agent: *\nDisallow: /private\n"
+                + "SITEMAP: " + baseUrl + "/sitemap-index.xml # the index\n").getBytes(StandardCharsets.UTF_8));
+        files.put("/sitemap-index.xml", xml("<sitemapindex xmlns=\"http://www.sitemaps.org/schemas/sitemap/0.9\">"
+                + "<sitemap><loc>" + baseUrl + "/pages.xml</loc></sitemap>"
+                + "<sitemap><loc>" + baseUrl + "/more.xml.gz</loc></sitemap>"
+                + "</sitemapindex>"));
+        files.put("/pages.xml", xml(urlset(baseUrl + "/a", baseUrl + "/b", "http://other.example/c")));
+        files.put("/more.xml.gz", gzip(xml(urlset(baseUrl + "/d", baseUrl + "/a"))));
+        SitemapSeeder seeder = new SitemapSeeder(new HttpClientPageFetcher(), 100);
+        List<String> seeded = new ArrayList<>();
+
+        // Act
+        int added = seeder.seed(baseUrl + "/", url -> url.startsWith(baseUrl) && !seeded.contains(url) && seeded.add(url));
+
+        // Assert
+        assertEquals(3, added);
+        assertEquals(List.of(baseUrl + "/a", baseUrl + "/b", baseUrl + "/d"), seeded);
+    }
+
+    @Test
+    void testSeed_DefaultSitemapAndLimit() throws IOException {
+        // Arrange
+        files.put("/sitemap.xml", xml(urlset(baseUrl + "/a", baseUrl + "/b", baseUrl + "/c")));
+        SitemapSeeder seeder = new SitemapSeeder(new HttpClientPageFetcher(), 2);
+        List<String> seeded = new ArrayList<>();
+
+        // Act
+        int added = seeder.seed(baseUrl + "/", seeded::add);
+
+        // Assert
+        assertEquals(2, added);
+        assertEquals(List.of(baseUrl + "/a", baseUrl + "/b"), seeded);
+    }
+
+    @Test
+    void testSeed_SkipsNestedSitemapOnOtherHost() {
+        // Arrange
+        String otherHostUrl = baseUrl.replace("127.0.0.1", "localhost");
+        files.put("/sitemap.xml", xml("<sitemapindex xmlns=\"http://www.sitemaps.org/schemas/sitemap/0.9\">"
+                + "<sitemap><loc>" + otherHostUrl + "/pages.xml</loc></sitemap>"
+                + "</sitemapindex>"));
+        files.put("/pages.xml", xml(urlset(baseUrl + "/a")));
+        SitemapSeeder seeder = new SitemapSeeder(new HttpClientPageFetcher(), 100);
+
+        // Act
+        int added = seeder.seed(baseUrl + "/", url -> true);
+
+        // Assert
+        assertEquals(0, added);
+    }
+
+    @Test
+    void testSeed_LimitsDecompressedSize() throws IOException {
+        // Arrange
+        String[] urls = new String[1000];
+        for (int i = 0; i < urls.length; i++) {
+            urls[i] = baseUrl + "/page";
+        }
+        byte[] sitemap = gzip(xml(urlset(urls)));
+        files.put("/sitemap.xml", sitemap);
+        SitemapSeeder seeder = new SitemapSeeder(new HttpClientPageFetcher(), 10_000, 4096);
+        List<String> seeded = new ArrayList<>();
+
+        // Act
+        seeder.seed(baseUrl + "/", seeded::add);
+
+        // Assert
+        assertTrue(sitemap.length < 4096);
+        assertFalse(seeded.isEmpty());
+        assertTrue(seeded.size() < 100);
+    }
+
+    @Test
+    void testSeed_NoSitemap() {
+        // Arrange
+        SitemapSeeder seeder = new SitemapSeeder(new HttpClientPageFetcher(), 100);
+
+        // Act
+        int added = seeder.seed(baseUrl + "/", url -> true);
+
+        // Assert
+        assertEquals(0, added);
+    }
+
+    @Test
+    void testConstructor_InvalidMaxUrls() {
+        // Act and Assert
+        assertThrows(IllegalArgumentException.class, () -> new SitemapSeeder(new HttpClientPageFetcher(), 0));
+        assertThrows(IllegalArgumentException.class, () -> new SitemapSeeder(new HttpClientPageFetcher(), 1, 0));
+    }
+
+    private static String urlset(String... urls) {
+        StringBuilder builder = new StringBuilder("<urlset xmlns=\"http://www.sitemaps.org/schemas/sitemap/0.9\">");
+        for (String url : urls) {
+            builder.append("<url><loc>").append(url).append("</loc><priority>0.5</priority></url>");
+        }
+        return builder.append("</urlset>").toString();
+    }
+
+    private static byte[] xml(String content) {
+        return ("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" + content).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] gzip(byte[] content) throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (OutputStream gzip = new GZIPOutputStream(compressed)) {
+            gzip.write(content);
+        }
+        return compressed.toByteArray();
+    }
+}
@@ -0,0 +1,83 @@
+package com.guerrero.backend.service;
+
+import com.guerrero.backend.matcher.KeywordMatcher;
+import com.guerrero.backend.parser.HtmlLinkExtractor;
+import com.guerrero.backend.parser.LinkExtractor;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StreamingPageScannerTest {
+
+    private static final String PAGE = "<html><body>\n"
+            + "<a href=\"/first\">First</a> some text\n"
+            + "<p>Merry\nChristmas</p><A class=\"x\" href=\"second.html\">Second</A>\n"
+            + "<a\nhref=\"/third\">Third</a>\n"
+            + "</body></html>";
+
+    @Test
+    void testScan_SmallBuffers() throws IOException {
+        // Arrange
+        KeywordMatcher.Scan keywordScan = KeywordMatcher.forKeyword("christmas").newScan();
+        List<String> hrefs = new ArrayList<>();
+        StreamingPageScanner pageScanner = new StreamingPageScanner(7, new HtmlLinkExtractor());
+
+        // Act
+        pageScanner.scan(new StringReader(PAGE), keywordScan, collectTo(hrefs));
+
+        // Assert
+        assertEquals(List.of("/first", "second.html", "/third"), hrefs);
+        assertTrue(keywordScan.finish().get(0));
+    }
+
+    @Test
+    void testScan_SameLinksAsWholePage() throws IOException {
+        // Arrange
+        StringBuilder page = new StringBuilder();
+        for (int i = 0; i < 500; i++) {
+            page.append("<div><a href=\"/page").append(i).append("\" title=\"t\">").append(i).append("</a></div>\n");
+        }
+        List<String> wholePageHrefs = new ArrayList<>();
+        List<String> streamedHrefs = new ArrayList<>();
+
+        // Act
+        new StreamingPageScanner(page.length(), new HtmlLinkExtractor()).scan(new StringReader(page.toString()),
+                KeywordMatcher.forKeyword("missing").newScan(), collectTo(wholePageHrefs));
+        new StreamingPageScanner(13, new HtmlLinkExtractor()).scan(new StringReader(page.toString()),
+                KeywordMatcher.forKeyword("missing").newScan(), collectTo(streamedHrefs));
+
+        // Assert
+        assertEquals(500, wholePageHrefs.size());
+        assertEquals(wholePageHrefs, streamedHrefs);
+    }
+
+    @Test
+    void testScan_TagsLongerThanBuffer() throws IOException {
+        // Arrange
+        String page = "<a title=\"" + "x".repeat(100) + "\" href=\"/long" + "y".repeat(40) + "\">long</a>"
+                + "<a href=\"/short\">short</a>";
+        List<String> hrefs = new ArrayList<>();
+
+        // Act
+        new StreamingPageScanner(16, new HtmlLinkExtractor(32)).scan(new StringReader(page),
+                KeywordMatcher.forKeyword("text").newScan(), collectTo(hrefs));
+
+        // Assert
+        assertEquals(List.of("/short"), hrefs);
+    }
+
+    @Test
+    void testConstructor_InvalidLength() {
+        // Act and Assert
+        assertThrows(IllegalArgumentException.class, () -> new StreamingPageScanner(0, new HtmlLinkExtractor()));
+    }
+
+    private static LinkExtractor.Sink collectTo(List<String> hrefs) {
+        return (chars, start, end) -> hrefs.add(new String(chars, start, end - start));
+    }
+}
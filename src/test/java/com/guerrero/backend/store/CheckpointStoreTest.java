@@ -0,0 +1,62 @@
+package com.guerrero.backend.store;
+
+import com.guerrero.backend.util.VisitedUrlSet;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CheckpointStoreTest {
+
+    @Test
+    void testWrite_ReadBack(@TempDir Path directory) throws IOException {
+        // Arrange
+        CheckpointStore store = CheckpointStore.open(directory);
+        VisitedUrlSet foundUrls = new VisitedUrlSet();
+        foundUrls.add("http://example.com/");
+        foundUrls.add("http://example.com/a");
+        foundUrls.add("http://example.com/b");
+        store.write(new CrawlCheckpoint("search01", "needle", List.of("http://example.com/a"),
+                VisitedUrlSet.approximate(100, 0.01), List.of()));
+
+        // Act
+        long bytes = store.write(new CrawlCheckpoint("search01", "needle",
+                List.of("http://example.com/a", "http://example.com/b"), foundUrls, List.of("http://example.com/")));
+        CrawlCheckpoint checkpoint = store.read("search01");
+
+        // Assert
+        assertEquals(Files.size(directory.resolve("search01.ckpt")), bytes);
+        assertEquals("search01", checkpoint.getSearchId());
+        assertEquals("needle", checkpoint.getKeyword());
+        assertEquals(List.of("http://example.com/a", "http://example.com/b"), checkpoint.getPendingUrls());
+        assertEquals(List.of("http://example.com/"), checkpoint.getResultUrls());
+        assertFalse(checkpoint.getFoundUrls().isApproximate());
+        assertEquals(3, checkpoint.getFoundUrls().size());
+        assertTrue(checkpoint.getFoundUrls().contains("http://example.com/b"));
+        assertNull(store.read("unknown1"));
+    }
+
+    @Test
+    void testReadAll_SkipsInvalidAndTemporaryFiles(@TempDir Path directory) throws IOException {
+        // Arrange
+        CheckpointStore store = CheckpointStore.open(directory);
+        store.write(new CrawlCheckpoint("search01", "needle", List.of(), new VisitedUrlSet(), List.of()));
+        store.write(new CrawlCheckpoint("search02", "other", List.of(), new VisitedUrlSet(), List.of()));
+        store.delete("search02");
+        Files.write(directory.resolve("search03.ckpt"), new byte[] {1, 2, 3});
+        Files.write(directory.resolve("search04.ckpt.tmp"), new byte[] {1, 2, 3});
+
+        // Act
+        List<CrawlCheckpoint> checkpoints = store.readAll();
+
+        // Assert
+        assertEquals(1, checkpoints.size());
+        assertEquals("search01", checkpoints.get(0).getSearchId());
+        assertFalse(Files.exists(directory.resolve("search04.ckpt.tmp")));
+    }
+}
@@ -0,0 +1,120 @@
+package com.guerrero.backend.store;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PageArchiveTest {
+
+    @Test
+    void testWriteAndRead(@TempDir Path directory) throws IOException {
+        // Arrange
+        PageArchive archive = PageArchive.open(directory);
+        byte[] body = "<html>archived needle</html>".getBytes(StandardCharsets.UTF_8);
+        archive.write(new ArchivedPage("http://example.com/a", "\"v1\"", null, "text/html", body));
+
+        // Act
+        ArchivedPage page = PageArchive.open(directory).read("http://example.com/a");
+
+        // Assert
+        assertNotNull(page);
+        assertEquals("\"v1\"", page.getEtag());
+        assertNull(page.getLastModified());
+        assertEquals("text/html", page.getContentType());
+        assertArrayEquals(body, page.getBody());
+        assertArrayEquals(ArchivedPage.hash(body), page.getContentHash());
+        assertNull(archive.read("http://example.com/b"));
+    }
+
+    @Test
+    void testWrite_ReplacesPreviousVersion(@TempDir Path directory) throws IOException {
+        // Arrange
+        PageArchive archive = PageArchive.open(directory);
+        archive.write(new ArchivedPage("http://example.com/a", "\"v1\"", null, null, new byte[] {1}));
+
+        // Act
+        archive.write(new ArchivedPage("http://example.com/a", "\"v2\"", null, null, new byte[] {2}));
+
+        // Assert
+        ArchivedPage page = archive.read("http://example.com/a");
+        assertEquals("\"v2\"", page.getEtag());
+        assertArrayEquals(new byte[] {2}, page.getBody());
+        assertEquals(1, countFiles(directory));
+    }
+
+    @Test
+    void testRead_CorruptedPage(@TempDir Path directory) throws IOException {
+        // Arrange
+        PageArchive archive = PageArchive.open(directory);
+        archive.write(new ArchivedPage("http://example.com/a", "\"v1\"", null, null, new byte[100]));
+        Path pageFile = findPageFile(directory);
+        byte[] content = Files.readAllBytes(pageFile);
+        Files.write(pageFile, Arrays.copyOf(content, content.length / 2));
+
+        // Act
+        ArchivedPage page = archive.read("http://example.com/a");
+
+        // Assert
+        assertNull(page);
+    }
+
+    @Test
+    void testReadHeader(@TempDir Path directory) throws IOException {
+        // Arrange
+        PageArchive archive = PageArchive.open(directory);
+        byte[] body = new byte[100];
+        archive.write(new ArchivedPage("http://example.com/a", "\"v1\"", "Mon, 01 Jan 2024 00:00:00 GMT", null, body));
+        Path pageFile = findPageFile(directory);
+        byte[] content = Files.readAllBytes(pageFile);
+        Files.write(pageFile, Arrays.copyOf(content, content.length - 8));
+
+        // Act
+        PageArchive.Header header = archive.readHeader("http://example.com/a");
+
+        // Assert
+        assertNotNull(header);
+        assertEquals("\"v1\"", header.getEtag());
+        assertEquals("Mon, 01 Jan 2024 00:00:00 GMT", header.getLastModified());
+        assertArrayEquals(ArchivedPage.hash(body), header.getContentHash());
+        assertNull(archive.read("http://example.com/a"));
+        assertNull(archive.readHeader("http://example.com/b"));
+    }
+
+    @Test
+    void testOpen_MovesFlatPageFilesToSubdirectories(@TempDir Path directory) throws IOException {
+        // Arrange
+        PageArchive archive = PageArchive.open(directory);
+        archive.write(new ArchivedPage("http://example.com/a", "\"v1\"", null, null, new byte[] {1}));
+        Path pageFile = findPageFile(directory);
+        Files.move(pageFile, directory.resolve(pageFile.getFileName()));
+
+        // Act
+        ArchivedPage page = PageArchive.open(directory).read("http://example.com/a");
+
+        // Assert
+        assertNotNull(page);
+        assertArrayEquals(new byte[] {1}, page.getBody());
+        assertEquals(pageFile, findPageFile(directory));
+        assertEquals(directory, pageFile.getParent().getParent().getParent());
+    }
+
+    private static Path findPageFile(Path directory) throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            return files.filter(Files::isRegularFile).findFirst().orElseThrow();
+        }
+    }
+
+    private static long countFiles(Path directory) throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            return files.filter(Files::isRegularFile).count();
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package com.guerrero.backend.store;
+
+import com.guerrero.backend.model.SearchResult;
+import com.guerrero.backend.model.Status;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ResultStoreTest {
+
+    @Test
+    void testOpen_RebuildsIndexAfterRestart(@TempDir Path directory) throws IOException {
+        // Arrange
+        ResultStore store = ResultStore.open(directory, 4096);
+        store.appendSearch("search01", "needle");
+        store.appendUrl("search01", "http://example.com/a");
+        store.appendUrl("search01", "http://example.com/b");
+        store.appendStatus("search01", Status.done);
+        store.appendSearch("search02", "other");
+        store.close();
+
+        // Act
+        ResultStore reopened = ResultStore.open(directory, 4096);
+
+        // Assert
+        assertEquals(Set.of("search01", "search02"), reopened.getSearchIds());
+        assertEquals("needle", reopened.getKeyword("search01"));
+        SearchResult searchResult = reopened.load("search01");
+        assertEquals(Status.done, searchResult.getStatus());
+        assertEquals(List.of("http://example.com/a", "http://example.com/b"), searchResult.getUrls());
+        assertEquals(Status.active, reopened.load("search02").getStatus());
+        assertNull(reopened.load("unknown1"));
+        reopened.close();
+    }
+
+    @Test
+    void testAppend_RollsSegments(@TempDir Path directory) throws IOException {
+        // Arrange
+        ResultStore store = ResultStore.open(directory, 4096);
+        store.appendSearch("search01", "needle");
+
+        // Act
+        for (int i = 0; i < 200; i++) {
+            store.appendUrl("search01", "http://example.com/page" + i);
+        }
+        store.close();
+        ResultStore reopened = ResultStore.open(directory, 4096);
+
+        // Assert
+        assertTrue(reopened.getSegmentCount() > 1);
+        List<String> urls = reopened.load("search01").getUrls();
+        assertEquals(200, urls.size());
+        assertEquals("http://example.com/page199", urls.get(199));
+        reopened.close();
+    }
+
+    @Test
+    void testCompact_DropsDeletedSearches(@TempDir Path directory) throws IOException {
+        // Arrange
+        ResultStore store = ResultStore.open(directory, 4096);
+        store.appendSearch("search01", "needle");
+        store.appendSearch("search02", "other");
+        for (int i = 0; i < 100; i++) {
+            store.appendUrl("search01", "http://example.com/page" + i);
+        }
+        store.appendUrl("search02", "http://example.com/kept");
+        store.appendStatus("search02", Status.active);
+        store.appendStatus("search02", Status.done);
+        store.delete("search01");
+        long bytesBeforeCompaction = store.getTotalBytes();
+
+        // Act
+        boolean compacted = store.compactIfNeeded(0.5);
+        store.close();
+        ResultStore reopened = ResultStore.open(directory, 4096);
+
+        // Assert
+        assertTrue(compacted);
+        assertTrue(reopened.getTotalBytes() < bytesBeforeCompaction);
+        assertEquals(reopened.getLiveBytes(), reopened.getTotalBytes());
+        assertEquals(Set.of("search02"), reopened.getSearchIds());
+        SearchResult searchResult = reopened.load("search02");
+        assertEquals(List.of("http://example.com/kept"), searchResult.getUrls());
+        assertEquals(Status.done, searchResult.getStatus());
+        reopened.close();
+    }
+
+    @Test
+    void testAppend_InvalidSearchId(@TempDir Path directory) throws IOException {
+        // Arrange
+        ResultStore store = ResultStore.open(directory, 4096);
+
+        // Act and Assert
+        assertThrows(IllegalArgumentException.class, () -> store.appendSearch("short", "needle"));
+        store.close();
+    }
+
+    @Test
+    void testOpen_ReadsFullSegmentsFromIndexFiles(@TempDir Path directory) throws IOException {
+        // Arrange
+        ResultStore store = ResultStore.open(directory, 4096);
+        store.appendSearch("search01", "needle");
+        store.appendSearch("search02", "other");
+        for (int i = 0; i < 200; i++) {
+            store.appendUrl("search01", "http://example.com/page" + i);
+        }
+        store.appendStatus("search01", Status.done);
+        store.delete("search02");
+        store.appendSearch("search02", "again");
+        store.appendUrl("search02", "http://example.com/again");
+        store.close();
+
+        // Act
+        ResultStore reopened = ResultStore.open(directory, 4096);
+        int segmentCount = reopened.getSegmentCount();
+        long liveBytes = reopened.getLiveBytes();
+        long totalBytes = reopened.getTotalBytes();
+        reopened.close();
+        List<Path> indexFiles = listFiles(directory, ".idx");
+        for (Path indexFile : indexFiles) {
+            Files.delete(indexFile);
+        }
+        ResultStore rescanned = ResultStore.open(directory, 4096);
+
+        // Assert
+        assertTrue(segmentCount > 1);
+        assertEquals(segmentCount - 1, indexFiles.size());
+        assertEquals(indexFiles, listFiles(directory, ".idx"));
+        assertEquals(liveBytes, rescanned.getLiveBytes());
+        assertEquals(totalBytes, rescanned.getTotalBytes());
+        SearchResult searchResult = rescanned.load("search01");
+        assertEquals(200, searchResult.getUrls().size());
+        assertEquals("http://example.com/page199", searchResult.getUrls().get(199));
+        assertEquals(Status.done, searchResult.getStatus());
+        assertEquals("again", rescanned.getKeyword("search02"));
+        assertEquals(List.of("http://example.com/again"), rescanned.load("search02").getUrls());
+        rescanned.close();
+    }
+
+    @Test
+    void testOpen_StopsAtInvalidStatus(@TempDir Path directory) throws IOException {
+        // Arrange
+        ResultStore store = ResultStore.open(directory, 4096);
+        store.appendSearch("search01", "needle");
+        store.appendStatus("search01", Status.done);
+        store.appendUrl("search01", "http://example.com/a");
+        store.close();
+        try (RandomAccessFile segment = new RandomAccessFile(listFiles(directory, ".seg").get(0).toFile(), "rw")) {
+            // The status record follows the 19-byte search record, and its payload its 13-byte header.
+            segment.seek(19 + 13);
+            segment.write(42);
+        }
+
+        // Act
+        ResultStore reopened = ResultStore.open(directory, 4096);
+        reopened.appendUrl("search01", "http://example.com/b");
+
+        // Assert
+        SearchResult searchResult = reopened.load("search01");
+        assertEquals(Status.active, searchResult.getStatus());
+        assertEquals(List.of("http://example.com/b"), searchResult.getUrls());
+        reopened.close();
+    }
+
+    @Test
+    void testAppendUrl_Concurrently(@TempDir Path directory) throws Exception {
+        // Arrange
+        ResultStore store = ResultStore.open(directory, 4096);
+        store.appendSearch("search01", "needle");
+        store.appendSearch("search02", "other");
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<?>> futures = new ArrayList<>();
+
+        // Act
+        for (int thread = 0; thread < 4; thread++) {
+            String searchId = thread % 2 == 0 ? "search01" : "search02";
+            int first = thread * 250;
+            futures.add(executor.submit(() -> {
+                for (int i = first; i < first + 250; i++) {
+                    store.appendUrl(searchId, "http://example.com/page" + i);
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+        store.close();
+        ResultStore reopened = ResultStore.open(directory, 4096);
+
+        // Assert
+        assertEquals(500, Set.copyOf(reopened.load("search01").getUrls()).size());
+        assertEquals(500, Set.copyOf(reopened.load("search02").getUrls()).size());
+        assertEquals(reopened.getLiveBytes(), reopened.getTotalBytes());
+        reopened.close();
+    }
+
+    private static List<Path> listFiles(Path directory, String suffix) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.toString().endsWith(suffix)).sorted().collect(Collectors.toList());
+        }
+    }
+}
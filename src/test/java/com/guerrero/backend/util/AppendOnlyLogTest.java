@@ -0,0 +1,90 @@
+package com.guerrero.backend.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AppendOnlyLogTest {
+
+    @Test
+    void testAppend_KeepsOrderAcrossSegments() {
+        // Arrange
+        AppendOnlyLog<Integer> log = new AppendOnlyLog<>();
+
+        // Act
+        for (int i = 0; i < 1000; i++) {
+            log.append(i);
+        }
+
+        // Assert
+        List<Integer> snapshot = log.snapshot();
+        assertEquals(1000, snapshot.size());
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(i, snapshot.get(i));
+        }
+    }
+
+    @Test
+    void testSnapshot_DoesNotChangeAfterAppends() {
+        // Arrange
+        AppendOnlyLog<String> log = new AppendOnlyLog<>();
+        log.append("a");
+        log.append("b");
+
+        // Act
+        List<String> snapshot = log.snapshot();
+        log.append("c");
+
+        // Assert
+        assertEquals(List.of("a", "b"), snapshot);
+        assertEquals(List.of("c"), log.snapshot(2));
+        assertTrue(log.snapshot(5).isEmpty());
+        assertThrows(UnsupportedOperationException.class, () -> snapshot.add("d"));
+    }
+
+    @Test
+    void testAppend_NullElement() {
+        // Arrange
+        AppendOnlyLog<String> log = new AppendOnlyLog<>();
+
+        // Act and Assert
+        assertThrows(IllegalArgumentException.class, () -> log.append(null));
+    }
+
+    @Test
+    void testAppend_ConcurrentWriters() throws InterruptedException {
+        // Arrange
+        AppendOnlyLog<Integer> log = new AppendOnlyLog<>();
+        int writerCount = 4;
+        int elementsPerWriter = 10000;
+        List<Thread> writers = new ArrayList<>();
+        for (int w = 0; w < writerCount; w++) {
+            int first = w * elementsPerWriter;
+            writers.add(new Thread(() -> {
+                for (int i = 0; i < elementsPerWriter; i++) {
+                    log.append(first + i);
+                }
+            }));
+        }
+
+        // Act
+        for (Thread writer : writers) {
+            writer.start();
+        }
+        while (writers.stream().anyMatch(Thread::isAlive)) {
+            List<Integer> snapshot = log.snapshot();
+            for (Integer element : snapshot) {
+                assertNotNull(element);
+            }
+        }
+
+        // Assert
+        Set<Integer> elements = new HashSet<>(log.snapshot());
+        assertEquals(writerCount * elementsPerWriter, elements.size());
+    }
+}
@@ -0,0 +1,61 @@
+package com.guerrero.backend.util;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ConfigReaderTest {
+
+    private static final String SETTING = "CONFIG_READER_TEST_SETTING";
+
+    @AfterEach
+    void cleanup() {
+        System.clearProperty(SETTING);
+    }
+
+    @Test
+    void testGetString_Absent() {
+        // Act and Assert
+        assertEquals("fallback", ConfigReader.getString(SETTING, "fallback"));
+    }
+
+    @Test
+    void testGetString_SystemProperty() {
+        // Arrange
+        System.setProperty(SETTING, " value ");
+
+        // Act and Assert
+        assertEquals("value", ConfigReader.getString(SETTING, "fallback"));
+    }
+
+    @Test
+    void testGetInt() {
+        // Arrange
+        System.setProperty(SETTING, "12");
+
+        // Act and Assert
+        assertEquals(12, ConfigReader.getInt(SETTING, 1));
+        assertEquals(12L, ConfigReader.getLong(SETTING, 1L));
+        assertEquals(12.0, ConfigReader.getDouble(SETTING, 1.0));
+    }
+
+    @Test
+    void testGetInt_InvalidValue() {
+        // Arrange
+        System.setProperty(SETTING, "twelve");
+
+        // Act and Assert
+        assertThrows(IllegalArgumentException.class, () -> ConfigReader.getInt(SETTING, 1));
+    }
+
+    @Test
+    void testGetBoolean() {
+        // Arrange
+        System.setProperty(SETTING, "TRUE");
+
+        // Act and Assert
+        assertTrue(ConfigReader.getBoolean(SETTING, false));
+        assertTrue(ConfigReader.getBoolean("CONFIG_READER_TEST_ABSENT", true));
+    }
+}
@@ -0,0 +1,50 @@
+package com.guerrero.backend.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LimitedInputStreamTest {
+
+    @Test
+    void testRead_StopsAtLimit() throws IOException {
+        // Arrange
+        LimitedInputStream input = new LimitedInputStream(new ByteArrayInputStream("0123456789".getBytes()), 4);
+
+        // Act
+        byte[] bytes = input.readAllBytes();
+
+        // Assert
+        assertEquals("0123", new String(bytes));
+        assertTrue(input.isTruncated());
+    }
+
+    @Test
+    void testRead_ShorterThanLimit() throws IOException {
+        // Arrange
+        LimitedInputStream input = new LimitedInputStream(new ByteArrayInputStream("0123".getBytes()), 4);
+
+        // Act
+        byte[] bytes = input.readAllBytes();
+
+        // Assert
+        assertEquals("0123", new String(bytes));
+        assertFalse(input.isTruncated());
+    }
+
+    @Test
+    void testGetBytesRead() throws IOException {
+        // Arrange
+        LimitedInputStream input = new LimitedInputStream(new ByteArrayInputStream("0123456789".getBytes()), 8);
+
+        // Act
+        input.read(new byte[3]);
+        input.read();
+
+        // Assert
+        assertEquals(4, input.getBytesRead());
+    }
+}
@@ -0,0 +1,90 @@
+package com.guerrero.backend.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class UrlCanonicalizerTest {
+
+    @Test
+    void testCanonicalize_SyntaxAndSchemeNormalization() {
+        // Arrange
+        UrlCanonicalizer canonicalizer = UrlCanonicalizer.withDefaults();
+
+        // Act and Assert
+        assertEquals("http://example.com/", canonicalizer.canonicalize("HTTP://Example.COM:80"));
+        assertEquals("https://example.com/a/c/", canonicalizer.canonicalize("https://example.com:443/a/./b/../c/."));
+        assertEquals("https://example.com:8443/", canonicalizer.canonicalize("https://example.com:8443/"));
+        assertEquals("http://example.com/~a%2Fb%C3%A9", canonicalizer.canonicalize("http://example.com/%7ea%2fb%c3%a9"));
+        assertEquals("http://example.com/page", canonicalizer.canonicalize("http://example.com/page#top"));
+        assertEquals("http://user@[::1]:8080/", canonicalizer.canonicalize("http://user@[::1]:8080"));
+        assertEquals("file:/tmp/page", canonicalizer.canonicalize("file:/tmp/x/../page"));
+        assertEquals("relative/page", canonicalizer.canonicalize("relative/page"));
+    }
+
+    @Test
+    void testCanonicalize_QueryParameters() {
+        // Arrange
+        UrlCanonicalizer canonicalizer = UrlCanonicalizer.withDefaults();
+
+        // Act and Assert
+        assertEquals("http://example.com/page?a=1&b=2&b=1",
+                canonicalizer.canonicalize("http://example.com/page?b=2&utm_source=mail&a=1&b=1&gclid=x"));
+        assertEquals("http://example.com/page", canonicalizer.canonicalize("http://example.com/page?utm_medium=x&"));
+        assertEquals("http://example.com/page?ab=1&a%26=2",
+                new UrlCanonicalizer(List.of(), false).canonicalize("http://example.com/page?ab=1&a%26=2#x"));
+    }
+
+    @Test
+    void testCanonicalize_ReturnsCanonicalUrlItself() {
+        // Arrange
+        UrlCanonicalizer canonicalizer = UrlCanonicalizer.withDefaults();
+        String url = "https://example.com/a/b?x=1";
+
+        // Act
+        String canonicalUrl = canonicalizer.canonicalize(url);
+
+        // Assert
+        assertSame(url, canonicalUrl);
+    }
+
+    @Test
+    void testResolve() {
+        // Arrange
+        UrlCanonicalizer canonicalizer = UrlCanonicalizer.withDefaults();
+
+        // Act and Assert
+        assertEquals("https://example.com/docs/b", canonicalizer.resolve("https://example.com/docs/a", " ./b#top "));
+        assertEquals("https://example.com/b", canonicalizer.resolve("https://example.com/docs/a", "../../b"));
+        assertEquals("http://other.com/", canonicalizer.resolve("https://example.com/", "http://OTHER.com"));
+        assertNull(canonicalizer.resolve("https://example.com/", "javascript:void(0)"));
+    }
+
+    @Test
+    void testResolve_ReferenceResolutionExamples() {
+        // Arrange
+        UrlCanonicalizer canonicalizer = UrlCanonicalizer.withDefaults();
+        UrlCanonicalizer.Base base = canonicalizer.parseBase("http://a/b/c/d;p?q");
+
+        // Act and Assert
+        assertEquals("http://a/b/c/g", canonicalizer.resolve(base, "g"));
+        assertEquals("http://a/b/c/g", canonicalizer.resolve(base, "./g"));
+        assertEquals("http://a/b/c/g/", canonicalizer.resolve(base, "g/"));
+        assertEquals("http://a/g", canonicalizer.resolve(base, "/g"));
+        assertEquals("http://g/", canonicalizer.resolve(base, "//g"));
+        assertEquals("http://a/b/c/d;p?y", canonicalizer.resolve(base, "?y"));
+        assertEquals("http://a/b/c/g?y", canonicalizer.resolve(base, "g?y"));
+        assertEquals("http://a/b/c/d;p?q", canonicalizer.resolve(base, "#s"));
+        assertEquals("http://a/b/c/d;p?q", canonicalizer.resolve(base, ""));
+        assertEquals("http://a/b/c/;x", canonicalizer.resolve(base, ";x"));
+        assertEquals("http://a/", canonicalizer.resolve(base, "../.."));
+        assertEquals("http://a/g", canonicalizer.resolve(base, "../../../g"));
+        assertEquals("https://a/g", canonicalizer.resolve(base, "HTTPS://A/g"));
+        assertEquals("http://a/?y", canonicalizer.resolve(canonicalizer.parseBase("http://a"), "?y"));
+        assertNull(canonicalizer.resolve(base, "ht:g"));
+        assertNull(canonicalizer.parseBase("/relative"));
+        assertEquals("file:/tmp/b", canonicalizer.resolve("file:/tmp/a/", "file:/tmp/b"));
+    }
+}
@@ -0,0 +1,148 @@
+package com.guerrero.backend.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class VisitedUrlSetTest {
+
+    @Test
+    void testAdd() {
+        // Arrange
+        VisitedUrlSet visitedUrlSet = new VisitedUrlSet();
+
+        // Act
+        boolean firstAdd = visitedUrlSet.add("http://example.com/a");
+        boolean secondAdd = visitedUrlSet.add("http://example.com/a");
+
+        // Assert
+        assertTrue(firstAdd);
+        assertFalse(secondAdd);
+        assertTrue(visitedUrlSet.contains("http://example.com/a"));
+        assertFalse(visitedUrlSet.contains("http://example.com/b"));
+        assertEquals(1, visitedUrlSet.size());
+    }
+
+    @Test
+    void testAdd_ManyUrlsStayUnder16BytesEach() {
+        // Arrange
+        VisitedUrlSet visitedUrlSet = new VisitedUrlSet();
+        int urlCount = 1_000_000;
+
+        // Act
+        for (int i = 0; i < urlCount; i++) {
+            assertTrue(visitedUrlSet.add("http://example.com/page/" + i));
+        }
+
+        // Assert
+        assertEquals(urlCount, visitedUrlSet.size());
+        for (int i = 0; i < urlCount; i += 997) {
+            assertTrue(visitedUrlSet.contains("http://example.com/page/" + i));
+            assertFalse(visitedUrlSet.contains("http://example.com/other/" + i));
+        }
+        assertTrue(visitedUrlSet.getMemoryFootprintBytes() < 16L * urlCount);
+    }
+
+    @Test
+    void testGetFingerprints() {
+        // Arrange
+        VisitedUrlSet visitedUrlSet = new VisitedUrlSet();
+        visitedUrlSet.add("http://example.com/a");
+        visitedUrlSet.add("http://example.com/b");
+        VisitedUrlSet copy = new VisitedUrlSet();
+
+        // Act
+        long[] fingerprints = visitedUrlSet.getFingerprints();
+        Arrays.stream(fingerprints).forEach(copy::addFingerprint);
+
+        // Assert
+        assertEquals(2, fingerprints.length);
+        assertTrue(copy.contains("http://example.com/a"));
+        assertTrue(copy.contains("http://example.com/b"));
+    }
+
+    @Test
+    void testApproximate() {
+        // Arrange
+        int urlCount = 10_000;
+        VisitedUrlSet visitedUrlSet = VisitedUrlSet.approximate(urlCount, 0.01);
+        int falsePositives = 0;
+
+        // Act
+        for (int i = 0; i < urlCount; i++) {
+            visitedUrlSet.add("http://example.com/page/" + i);
+        }
+        for (int i = 0; i < urlCount; i++) {
+            if (visitedUrlSet.contains("http://example.com/other/" + i)) {
+                falsePositives++;
+            }
+        }
+
+        // Assert
+        assertTrue(visitedUrlSet.isApproximate());
+        assertTrue(visitedUrlSet.contains("http://example.com/page/1"));
+        assertTrue(falsePositives < urlCount * 0.02);
+        assertTrue(visitedUrlSet.getMemoryFootprintBytes() < 2L * urlCount);
+        assertThrows(IllegalStateException.class, visitedUrlSet::getFingerprints);
+    }
+
+    @Test
+    void testApproximate_InvalidArguments() {
+        // Act and Assert
+        assertThrows(IllegalArgumentException.class, () -> VisitedUrlSet.approximate(0, 0.01));
+        assertThrows(IllegalArgumentException.class, () -> VisitedUrlSet.approximate(100, 1.5));
+    }
+
+    @Test
+    void testWriteTo_ReadFrom() throws IOException {
+        // Arrange
+        VisitedUrlSet exactSet = new VisitedUrlSet();
+        VisitedUrlSet approximateSet = VisitedUrlSet.approximate(1000, 0.01);
+        for (int i = 0; i < 100; i++) {
+            exactSet.add("http://example.com/page/" + i);
+            approximateSet.add("http://example.com/page/" + i);
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream output = new DataOutputStream(bytes);
+
+        // Act
+        exactSet.writeTo(output);
+        approximateSet.writeTo(output);
+        DataInputStream input = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+        VisitedUrlSet exactCopy = VisitedUrlSet.readFrom(input);
+        VisitedUrlSet approximateCopy = VisitedUrlSet.readFrom(input);
+
+        // Assert
+        assertEquals(100, exactCopy.size());
+        assertFalse(exactCopy.isApproximate());
+        assertTrue(exactCopy.contains("http://example.com/page/42"));
+        assertTrue(exactCopy.add("http://example.com/page/100"));
+        assertEquals(100, approximateCopy.size());
+        assertTrue(approximateCopy.isApproximate());
+        assertTrue(approximateCopy.contains("http://example.com/page/42"));
+    }
+
+    @Test
+    void testCopy() {
+        // Arrange
+        VisitedUrlSet visitedUrlSet = new VisitedUrlSet();
+        visitedUrlSet.add("http://example.com/a");
+
+        // Act
+        VisitedUrlSet copy = visitedUrlSet.copy();
+        visitedUrlSet.add("http://example.com/b");
+
+        // Assert
+        assertEquals(1, copy.size());
+        assertTrue(copy.contains("http://example.com/a"));
+        assertFalse(copy.contains("http://example.com/b"));
+    }
+}